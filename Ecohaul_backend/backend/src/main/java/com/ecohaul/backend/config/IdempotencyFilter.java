@@ -0,0 +1,227 @@
+package com.ecohaul.backend.config;
+
+import com.ecohaul.backend.service.IdempotencyService;
+import com.ecohaul.backend.service.IdempotencyService.Outcome;
+import com.ecohaul.backend.service.IdempotencyService.StoredResponse;
+import com.ecohaul.backend.service.JwtService.TokenClaims;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Makes mutating requests on the configured paths (ecohaul.idempotency.paths) safe to retry:
+ * a POST, PUT, PATCH or DELETE carrying an Idempotency-Key header runs at most once per key and
+ * its retries are answered from {@link IdempotencyService} with an Idempotent-Replayed header.
+ *
+ * The key is scoped to method, path and, when a bearer token came with the request, its subject,
+ * so two callers picking the same key value never see each other's responses. A key reused with a
+ * different body or query answers 422, and one whose first request is still running after the
+ * wait answers 409. The body is buffered to fingerprint it, so one larger than
+ * ecohaul.idempotency.max-body-bytes answers 413.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${ecohaul.idempotency.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${ecohaul.idempotency.max-body-bytes:1048576}")
+    private int maxBodyBytes = 1024 * 1024;
+
+    @Value("${ecohaul.idempotency.paths:/api/v1/cart/**,/api/v1/disposal/schedule-pickup}")
+    private List<String> paths = List.of("/api/v1/cart/**", "/api/v1/disposal/schedule-pickup");
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || request.getHeader(HEADER) == null) {
+            return true;
+        }
+        String method = request.getMethod();
+        if (!"POST".equals(method) && !"PUT".equals(method) && !"PATCH".equals(method) && !"DELETE".equals(method)) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String pattern : paths) {
+            if (pathMatcher.match(pattern.trim(), path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            sendError(response, 400, HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        // A declared length is checked before reading; a chunked body is read one byte past the limit
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            sendError(response, 413, "Request body is larger than " + maxBodyBytes + " bytes");
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        if (body.length > maxBodyBytes) {
+            sendError(response, 413, "Request body is larger than " + maxBodyBytes + " bytes");
+            return;
+        }
+        // Header values cannot hold a newline, so the client's key is always what follows the last one
+        Object claims = request.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+        String subject = claims instanceof TokenClaims ? ((TokenClaims) claims).getSubject() : null;
+        String key = request.getMethod() + " " + request.getRequestURI() + "\n"
+                + (subject != null ? subject : "") + "\n" + idempotencyKey;
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request, body);
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+
+        Outcome outcome;
+        try {
+            outcome = idempotencyService.execute(key, fingerprint(request, body), () -> {
+                chain.doFilter(cachedRequest, cachingResponse);
+                return new StoredResponse(cachingResponse.getStatus(), cachingResponse.getContentType(),
+                        cachingResponse.getContentAsByteArray());
+            });
+        } catch (ServletException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ServletException(e);
+        }
+
+        switch (outcome.getStatus()) {
+            case EXECUTED:
+                cachingResponse.copyBodyToResponse();
+                break;
+            case REPLAYED:
+                StoredResponse stored = outcome.getResponse();
+                response.setStatus(stored.getStatus());
+                if (stored.getContentType() != null) {
+                    response.setContentType(stored.getContentType());
+                }
+                response.setHeader(REPLAYED_HEADER, "true");
+                response.setContentLength(stored.getBody().length);
+                response.getOutputStream().write(stored.getBody());
+                break;
+            case MISMATCH:
+                sendError(response, 422, HEADER + " was already used for a different request");
+                break;
+            default:
+                response.setHeader("Retry-After", "1");
+                sendError(response, 409, "A request with this " + HEADER + " is still in progress");
+                break;
+        }
+    }
+
+    private void sendError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("message", message));
+    }
+
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            if (request.getQueryString() != null) {
+                sha256.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+            }
+            sha256.update((byte) 0);
+            return HexFormat.of().formatHex(sha256.digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The request with its body already read, so it can be both fingerprinted and handled.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() { return in.available() == 0; }
+
+                @Override
+                public boolean isReady() { return true; }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // Everything is already in memory: report it available and read at once
+                    try {
+                        if (in.available() > 0) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() { return in.read(); }
+
+                @Override
+                public int read(byte[] b, int off, int len) { return in.read(b, off, len); }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() { return body.length; }
+
+        @Override
+        public long getContentLengthLong() { return body.length; }
+    }
+}
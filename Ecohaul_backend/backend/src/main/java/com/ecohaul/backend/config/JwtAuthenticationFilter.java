@@ -0,0 +1,64 @@
+package com.ecohaul.backend.config;
+
+import com.ecohaul.backend.service.JwtService;
+import com.ecohaul.backend.service.JwtService.TokenClaims;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Verifies the bearer token of requests that send one and exposes its claims as the request
+ * attribute {@link #CLAIMS_ATTRIBUTE}. An invalid or expired token is answered with 401; requests
+ * without an Authorization header pass through untouched. Runs ahead of the other application
+ * filters so a rejected token costs nothing further.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String CLAIMS_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".claims";
+
+    private static final String BEARER = "Bearer ";
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        TokenClaims claims;
+        try {
+            claims = jwtService.verify(request.getHeader(HttpHeaders.AUTHORIZATION).substring(BEARER.length()).trim());
+        } catch (JwtException | IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), Map.of("message", "Invalid or expired token"));
+            return;
+        }
+        request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+        chain.doFilter(request, response);
+    }
+}
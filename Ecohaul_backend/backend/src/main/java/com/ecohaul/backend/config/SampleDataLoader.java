@@ -0,0 +1,104 @@
+package com.ecohaul.backend.config;
+
+import com.ecohaul.backend.entity.DisposalAgent;
+import com.ecohaul.backend.entity.DisposalCenter;
+import com.ecohaul.backend.entity.User;
+import com.ecohaul.backend.repository.DisposalAgentRepository;
+import com.ecohaul.backend.repository.DisposalCenterRepository;
+import com.ecohaul.backend.repository.UserRepository;
+import com.ecohaul.backend.service.PasswordHashingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sample Data Loader
+ * Seeds the in-memory H2 database with the demo centers and agents the controllers used to hard-code,
+ * and the test@example.com / password123 demo account, so the endpoints keep returning data in development. Only runs
+ * with ecohaul.sample-data.enabled=true, which the dev profile sets, and skipped when the table already has rows.
+ */
+@Component
+@ConditionalOnProperty(name = "ecohaul.sample-data.enabled", havingValue = "true")
+public class SampleDataLoader implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SampleDataLoader.class);
+
+    @Autowired
+    private DisposalCenterRepository disposalCenterRepository;
+
+    @Autowired
+    private DisposalAgentRepository disposalAgentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Override
+    public void run(String... args) {
+        if (disposalCenterRepository.count() == 0) {
+            List<DisposalCenter> centers = new ArrayList<>();
+            centers.add(createDisposalCenter("EcoCenter Downtown", "123 Green St, City",
+                40.7128, -74.0060, "[\"plastic\", \"metal\", \"glass\"]", "Mon-Fri 8AM-6PM", 4.5, 1));
+            centers.add(createDisposalCenter("Recycling Plus", "456 Earth Ave, City",
+                40.7589, -73.9851, "[\"electronic\", \"battery\", \"plastic\"]", "Daily 7AM-7PM", 4.2, 2));
+            centers.add(createDisposalCenter("Green Disposal Hub", "789 Eco Blvd, City",
+                40.6782, -73.9442, "[\"organic\", \"food\", \"yard\"]", "Mon-Sat 9AM-5PM", 4.0, 3));
+            centers.add(createDisposalCenter("Hazmat Facility", "321 Safe Way, City",
+                40.7306, -73.9352, "[\"hazardous\", \"paint\", \"chemical\"]", "Tue-Thu 9AM-3PM", 4.3, 4));
+            centers.add(createDisposalCenter("Textile Recycling Co", "654 Fashion Ave, City",
+                40.7505, -73.9934, "[\"textile\", \"clothing\", \"shoes\"]", "Mon-Fri 10AM-6PM", 4.1, 5));
+            centers.add(createDisposalCenter("E-Waste Solutions", "987 Tech Blvd, City",
+                40.7831, -73.9712, "[\"electronic\", \"phone\", \"computer\"]", "Wed-Sun 8AM-5PM", 4.4, 6));
+            disposalCenterRepository.saveAll(centers);
+            log.info("Seeded {} sample disposal centers", centers.size());
+        }
+        if (disposalAgentRepository.count() == 0) {
+            List<DisposalAgent> agents = new ArrayList<>();
+            agents.add(createDisposalAgent("John Smith", "Truck", 40.7128, -74.0060, 4.8, 250, true, 0));
+            agents.add(createDisposalAgent("Sarah Johnson", "Van", 40.7589, -73.9851, 4.6, 120, true, 1));
+            agents.add(createDisposalAgent("Mike Wilson", "Pickup", 40.7282, -74.0776, 4.9, 200, true, 2));
+            agents.add(createDisposalAgent("Lisa Brown", "Large Truck", 40.6782, -73.9442, 4.5, 310, false, 3));
+            agents.add(createDisposalAgent("David Garcia", "Eco Vehicle", 40.7505, -73.9934, 4.7, 90, false, 4));
+            disposalAgentRepository.saveAll(agents);
+            log.info("Seeded {} sample disposal agents", agents.size());
+        }
+        if (userRepository.count() == 0) {
+            User user = new User("test@example.com", passwordHashingService.hash("password123").join(), "Test User");
+            user.setPhoneNumber("+1-555-0123");
+            userRepository.save(user);
+            log.info("Seeded sample user {}", user.getEmail());
+        }
+    }
+
+    private DisposalAgent createDisposalAgent(String name, String vehicleType, double latitude, double longitude,
+            double rating, int totalPickups, boolean available, int seq) {
+        DisposalAgent agent = new DisposalAgent(name, "+1-555-0" + (200 + seq), vehicleType);
+        agent.setEmail(name.toLowerCase().replace(' ', '.') + "@ecohaul.com");
+        agent.setLicensePlate("ABC-" + (1000 + seq));
+        agent.setCurrentLatitude(latitude);
+        agent.setCurrentLongitude(longitude);
+        agent.setRating(rating);
+        agent.setTotalPickups(totalPickups);
+        agent.setIsAvailable(available);
+        return agent;
+    }
+
+    private DisposalCenter createDisposalCenter(String name, String address, double latitude, double longitude,
+            String acceptedWaste, String hours, double rating, int seq) {
+        DisposalCenter center = new DisposalCenter(name, address, latitude, longitude);
+        center.setAcceptedWasteTypes(acceptedWaste);
+        center.setOperatingHours(hours);
+        center.setRating(rating);
+        center.setPhoneNumber("+1-555-ECO-" + seq + "000");
+        center.setPickupServiceAvailable(seq % 2 == 1);
+        return center;
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecohaul.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (agent position write-behind, etc.).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,5 +1,20 @@
 package com.ecohaul.backend.controller;
 
+import com.ecohaul.backend.entity.Pickup;
+import com.ecohaul.backend.repository.PickupRepository;
+import com.ecohaul.backend.service.AgentTrackingService;
+import com.ecohaul.backend.service.CartService;
+import com.ecohaul.backend.service.CartService.BulkResult;
+import com.ecohaul.backend.service.CartService.CartLine;
+import com.ecohaul.backend.service.CartService.CartValuation;
+import com.ecohaul.backend.service.CartService.CartView;
+import com.ecohaul.backend.service.CartService.ItemChange;
+import com.ecohaul.backend.service.DispatchService;
+import com.ecohaul.backend.service.DispatchService.Assignment;
+import com.ecohaul.backend.service.IndexedAgent;
+import com.ecohaul.backend.service.PricingEngine.Valuation;
+import com.ecohaul.backend.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.*;
@@ -11,12 +26,24 @@ import java.time.format.DateTimeFormatter;
 @CrossOrigin(origins = "*")
 public class CartController {
     
+    @Autowired
+    private CartService cartService;
+    
+    @Autowired
+    private DispatchService dispatchService;
+    
+    @Autowired
+    private AgentTrackingService agentTrackingService;
+    
+    @Autowired
+    private PickupRepository pickupRepository;
+    
     @PostMapping("/add")
     public ResponseEntity<?> addToCart(@RequestBody Map<String, Object> cartRequest) {
         try {
-            Long userId = Long.valueOf(cartRequest.get("userId").toString());
+            Object userId = cartRequest.get("userId");
             String wasteType = (String) cartRequest.get("wasteType");
-            Double weight = Double.valueOf(cartRequest.get("weight").toString());
+            Double weight = toDouble(cartRequest.get("weight"));
             
             if (userId == null || wasteType == null || weight == null) {
                 Map<String, String> error = new HashMap<>();
@@ -24,22 +51,22 @@ public class CartController {
                 return ResponseEntity.badRequest().body(error);
             }
             
-            // Mock adding item to cart
-            Map<String, Object> cartItem = new HashMap<>();
-            cartItem.put("cartItemId", UUID.randomUUID().toString());
-            cartItem.put("userId", userId);
-            cartItem.put("wasteType", wasteType);
-            cartItem.put("weight", weight);
-            cartItem.put("estimatedValue", calculateEstimatedValue(wasteType, weight));
-            cartItem.put("category", getCategoryForWasteType(wasteType));
-            cartItem.put("addedAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            Double quantity = toDouble(cartRequest.get("quantity"));
+            Double wasteRecordId = toDouble(cartRequest.get("wasteRecordId"));
+            CartLine line = cartService.add(Long.valueOf(userId.toString()), wasteType, weight,
+                    quantity != null ? quantity.intValue() : 1,
+                    wasteRecordId != null ? wasteRecordId.longValue() : null);
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Item added to cart successfully");
-            response.put("cartItem", cartItem);
+            response.put("cartItem", toCartItem(line));
             
             return ResponseEntity.ok(response);
             
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Error adding item to cart: " + e.getMessage());
@@ -47,26 +74,91 @@ public class CartController {
         }
     }
     
-    @GetMapping("/{userId}")
-    public ResponseEntity<?> getCart(@PathVariable Long userId) {
+    @PostMapping("/bulk")
+    public ResponseEntity<?> bulkUpdateCart(@RequestBody Map<String, Object> bulkRequest) {
         try {
-            // Mock cart items
-            List<Map<String, Object>> cartItems = generateMockCartItems(userId);
+            Object userId = bulkRequest.get("userId");
+            if (userId == null) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "User ID is required");
+                return ResponseEntity.badRequest().body(error);
+            }
             
-            double totalWeight = cartItems.stream()
-                .mapToDouble(item -> (Double) item.get("weight"))
-                .sum();
+            List<ItemChange> adds = new ArrayList<>();
+            for (Map<String, Object> add : toMaps(bulkRequest.get("add"))) {
+                adds.add(toItemChange(null, add));
+            }
+            List<ItemChange> updates = new ArrayList<>();
+            for (Map<String, Object> update : toMaps(bulkRequest.get("update"))) {
+                Double cartItemId = toDouble(update.get("cartItemId"));
+                if (cartItemId == null) {
+                    throw new IllegalArgumentException("Cart item ID is required for each update");
+                }
+                updates.add(toItemChange(cartItemId.longValue(), update));
+            }
+            List<Long> removes = new ArrayList<>();
+            if (bulkRequest.get("remove") instanceof List<?> removeIds) {
+                for (Object cartItemId : removeIds) {
+                    removes.add(Long.valueOf(String.valueOf(cartItemId)));
+                }
+            }
             
-            double totalValue = cartItems.stream()
-                .mapToDouble(item -> (Double) item.get("estimatedValue"))
-                .sum();
+            BulkResult result = cartService.bulk(Long.valueOf(userId.toString()), adds, updates, removes);
+            List<Map<String, Object>> added = new ArrayList<>(result.getAdded().size());
+            for (CartLine line : result.getAdded()) {
+                added.add(toCartItem(line));
+            }
+            List<Map<String, Object>> updated = new ArrayList<>(result.getUpdated().size());
+            for (CartLine line : result.getUpdated()) {
+                updated.add(toCartItem(line));
+            }
+            List<String> removed = new ArrayList<>(result.getRemoved().size());
+            for (Long cartItemId : result.getRemoved()) {
+                removed.add(String.valueOf(cartItemId));
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Cart updated successfully");
+            response.put("addedItems", added);
+            response.put("updatedItems", updated);
+            response.put("removedItemIds", removed);
+            response.put("totalItems", result.getCart().getTotalItems());
+            response.put("totalWeight", round2(result.getCart().getTotalWeight()));
+            response.put("estimatedTotalValue", round2(result.getCart().getTotalValue()));
+            response.put("lastUpdated", result.getCart().getLastUpdated().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (NoSuchElementException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(404).body(error);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error updating cart: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
+    @GetMapping("/{userId}")
+    public ResponseEntity<?> getCart(@PathVariable Long userId) {
+        try {
+            CartView cart = cartService.getCart(userId);
+            List<Map<String, Object>> cartItems = new ArrayList<>(cart.getTotalItems());
+            for (CartLine line : cart.getLines()) {
+                cartItems.add(toCartItem(line));
+            }
             
             Map<String, Object> response = new HashMap<>();
             response.put("cartItems", cartItems);
-            response.put("totalItems", cartItems.size());
-            response.put("totalWeight", totalWeight);
-            response.put("estimatedTotalValue", totalValue);
-            response.put("lastUpdated", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            response.put("totalItems", cart.getTotalItems());
+            response.put("totalWeight", round2(cart.getTotalWeight()));
+            response.put("estimatedTotalValue", round2(cart.getTotalValue()));
+            response.put("lastUpdated", cart.getLastUpdated().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
             
             return ResponseEntity.ok(response);
             
@@ -77,17 +169,59 @@ public class CartController {
         }
     }
     
+    @GetMapping("/{userId}/valuation")
+    public ResponseEntity<?> valuateCart(@PathVariable Long userId, @RequestParam(required = false) String region) {
+        try {
+            CartValuation priced = cartService.valuate(userId, region);
+            Valuation valuation = priced.getValuation();
+            List<Map<String, Object>> items = new ArrayList<>(priced.getCart().getTotalItems());
+            int i = 0;
+            for (CartLine line : priced.getCart().getLines()) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("cartItemId", String.valueOf(line.getId()));
+                item.put("wasteType", line.getWasteType());
+                item.put("material", valuation.getMaterial(i));
+                item.put("weight", line.getTotalWeight());
+                item.put("value", valuation.getValue(i));
+                item.put("ecoPoints", valuation.getEcoPoints(i));
+                items.add(item);
+                i++;
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("userId", userId);
+            response.put("region", region);
+            response.put("items", items);
+            response.put("totalValue", valuation.getTotalValue());
+            response.put("totalEcoPoints", valuation.getTotalEcoPoints());
+            response.put("priceMultiplier", valuation.getMultiplier());
+            response.put("pricesLoadedAt", valuation.getPricesLoadedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error valuing cart: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
     @DeleteMapping("/item/{cartItemId}")
-    public ResponseEntity<?> removeFromCart(@PathVariable String cartItemId) {
+    public ResponseEntity<?> removeFromCart(@PathVariable Long cartItemId) {
         try {
-            // Mock removal
+            cartService.remove(cartItemId);
+            
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Item removed from cart successfully");
-            response.put("removedItemId", cartItemId);
+            response.put("removedItemId", String.valueOf(cartItemId));
             response.put("removedAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
             
             return ResponseEntity.ok(response);
             
+        } catch (NoSuchElementException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(404).body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Error removing item from cart: " + e.getMessage());
@@ -96,23 +230,21 @@ public class CartController {
     }
     
     @PutMapping("/item/{cartItemId}")
-    public ResponseEntity<?> updateCartItem(@PathVariable String cartItemId, @RequestBody Map<String, Object> updateRequest) {
+    public ResponseEntity<?> updateCartItem(@PathVariable Long cartItemId, @RequestBody Map<String, Object> updateRequest) {
         try {
-            Double newWeight = Double.valueOf(updateRequest.get("weight").toString());
+            Double newWeight = toDouble(updateRequest.get("weight"));
+            Double quantity = toDouble(updateRequest.get("quantity"));
             String wasteType = (String) updateRequest.get("wasteType");
             
-            if (newWeight == null) {
+            if (newWeight == null && quantity == null && wasteType == null) {
                 Map<String, String> error = new HashMap<>();
-                error.put("message", "Weight is required for update");
+                error.put("message", "Weight, quantity, or waste type is required for update");
                 return ResponseEntity.badRequest().body(error);
             }
             
-            // Mock update
-            Map<String, Object> updatedItem = new HashMap<>();
-            updatedItem.put("cartItemId", cartItemId);
-            updatedItem.put("wasteType", wasteType);
-            updatedItem.put("weight", newWeight);
-            updatedItem.put("estimatedValue", calculateEstimatedValue(wasteType, newWeight));
+            CartLine line = cartService.update(cartItemId, wasteType, newWeight,
+                    quantity != null ? quantity.intValue() : null);
+            Map<String, Object> updatedItem = toCartItem(line);
             updatedItem.put("updatedAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
             
             Map<String, Object> response = new HashMap<>();
@@ -121,6 +253,14 @@ public class CartController {
             
             return ResponseEntity.ok(response);
             
+        } catch (NoSuchElementException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(404).body(error);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Error updating cart item: " + e.getMessage());
@@ -142,17 +282,22 @@ public class CartController {
                 return ResponseEntity.badRequest().body(error);
             }
             
-            // Mock pickup scheduling
-            Map<String, Object> pickup = new HashMap<>();
-            pickup.put("pickupId", UUID.randomUUID().toString());
-            pickup.put("userId", userId);
-            pickup.put("pickupDate", pickupDate);
-            pickup.put("pickupTime", pickupTime);
-            pickup.put("address", address);
-            pickup.put("status", "Scheduled");
-            pickup.put("assignedAgent", assignMockAgent());
-            pickup.put("estimatedArrival", pickupTime);
-            pickup.put("scheduledAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            Pickup request = dispatchService.newPickup(userId, pickupDate, pickupTime, address,
+                    toDouble(pickupRequest.get("latitude")), toDouble(pickupRequest.get("longitude")),
+                    toDouble(pickupRequest.get("totalWeight")));
+            Assignment assignment = dispatchService.assign(request);
+            if (assignment == null) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "No disposal agent is available for the requested pickup slot");
+                return ResponseEntity.status(409).body(error);
+            }
+            
+            Map<String, Object> pickup = toPickupSummary(assignment.getPickup());
+            pickup.put("assignedAgent", toAssignedAgent(assignment.getAgent().getAgent()));
+            if (assignment.getAgent().getDistanceKm() != Double.MAX_VALUE) {
+                pickup.put("agentDistance", GeoUtils.roundKm(assignment.getAgent().getDistanceKm()));
+            }
+            pickup.put("dispatchScore", Math.round(assignment.getScore() * 1000.0) / 1000.0);
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Pickup scheduled successfully");
@@ -160,6 +305,10 @@ public class CartController {
             
             return ResponseEntity.ok(response);
             
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Error scheduling pickup: " + e.getMessage());
@@ -170,8 +319,13 @@ public class CartController {
     @GetMapping("/pickups/{userId}")
     public ResponseEntity<?> getUserPickups(@PathVariable Long userId) {
         try {
-            // Mock user pickups
-            List<Map<String, Object>> pickups = generateMockPickups(userId);
+            List<Map<String, Object>> pickups = new ArrayList<>();
+            for (Pickup pickup : pickupRepository.findByUserIdOrderByPickupDateDescPickupSlotDesc(userId)) {
+                Map<String, Object> summary = toPickupSummary(pickup);
+                IndexedAgent agent = pickup.getAgentId() != null ? agentTrackingService.getAgent(pickup.getAgentId()) : null;
+                summary.put("assignedAgent", agent != null ? toAssignedAgent(agent) : null);
+                pickups.add(summary);
+            }
             
             Map<String, Object> response = new HashMap<>();
             response.put("pickups", pickups);
@@ -189,10 +343,12 @@ public class CartController {
     @DeleteMapping("/{userId}/clear")
     public ResponseEntity<?> clearCart(@PathVariable Long userId) {
         try {
-            // Mock cart clearing
+            int removed = cartService.clear(userId);
+            
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Cart cleared successfully");
             response.put("userId", userId);
+            response.put("removedItems", removed);
             response.put("clearedAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
             
             return ResponseEntity.ok(response);
@@ -205,90 +361,81 @@ public class CartController {
     }
     
     // Helper methods
-    private List<Map<String, Object>> generateMockCartItems(Long userId) {
-        List<Map<String, Object>> cartItems = new ArrayList<>();
-        String[] wasteTypes = {"Plastic Bottle", "Aluminum Can", "Glass Bottle", "Paper", "Cardboard"};
-        
-        for (int i = 0; i < 3; i++) {
-            Map<String, Object> item = new HashMap<>();
-            String wasteType = wasteTypes[i % wasteTypes.length];
-            double weight = Math.round((Math.random() * 500 + 100) * 100.0) / 100.0; // 100-600g
-            
-            item.put("cartItemId", UUID.randomUUID().toString());
-            item.put("userId", userId);
-            item.put("wasteType", wasteType);
-            item.put("weight", weight);
-            item.put("estimatedValue", calculateEstimatedValue(wasteType, weight));
-            item.put("category", getCategoryForWasteType(wasteType));
-            item.put("addedAt", LocalDateTime.now().minusHours(i).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-            
-            cartItems.add(item);
-        }
-        
-        return cartItems;
+    private Map<String, Object> toCartItem(CartLine line) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("cartItemId", String.valueOf(line.getId()));
+        item.put("userId", line.getUserId());
+        item.put("wasteRecordId", line.getWasteRecordId());
+        item.put("wasteType", line.getWasteType());
+        item.put("weight", line.getWeight());
+        item.put("quantity", line.getQuantity());
+        item.put("estimatedValue", line.getEstimatedValue());
+        item.put("category", line.getCategory());
+        item.put("addedAt", line.getAddedAt() != null
+            ? line.getAddedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null);
+        return item;
+    }
+    
+    private ItemChange toItemChange(Long cartItemId, Map<String, Object> item) {
+        Double quantity = toDouble(item.get("quantity"));
+        Double wasteRecordId = toDouble(item.get("wasteRecordId"));
+        return new ItemChange(cartItemId, (String) item.get("wasteType"), toDouble(item.get("weight")),
+                quantity != null ? quantity.intValue() : null,
+                wasteRecordId != null ? wasteRecordId.longValue() : null);
     }
     
-    private List<Map<String, Object>> generateMockPickups(Long userId) {
-        List<Map<String, Object>> pickups = new ArrayList<>();
-        String[] statuses = {"Scheduled", "In Progress", "Completed", "Cancelled"};
-        
-        for (int i = 0; i < 4; i++) {
-            Map<String, Object> pickup = new HashMap<>();
-            pickup.put("pickupId", UUID.randomUUID().toString());
-            pickup.put("userId", userId);
-            pickup.put("pickupDate", LocalDateTime.now().plusDays(i).toLocalDate().toString());
-            pickup.put("pickupTime", "10:00 AM");
-            pickup.put("status", statuses[i % statuses.length]);
-            pickup.put("assignedAgent", assignMockAgent());
-            pickup.put("address", "123 Main St, City");
-            pickup.put("scheduledAt", LocalDateTime.now().minusDays(i).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-            
-            pickups.add(pickup);
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> toMaps(Object value) {
+        if (value == null) {
+            return Collections.emptyList();
         }
-        
-        return pickups;
+        if (!(value instanceof List<?> list)) {
+            throw new IllegalArgumentException("Expected a list of cart items");
+        }
+        for (Object item : list) {
+            if (!(item instanceof Map)) {
+                throw new IllegalArgumentException("Expected a list of cart items");
+            }
+        }
+        return (List<Map<String, Object>>) value;
     }
     
-    private double calculateEstimatedValue(String wasteType, double weight) {
-        // Mock pricing per kg
-        Map<String, Double> pricing = new HashMap<>();
-        pricing.put("Plastic Bottle", 1.50);
-        pricing.put("Aluminum Can", 3.00);
-        pricing.put("Glass Bottle", 0.80);
-        pricing.put("Paper", 0.40);
-        pricing.put("Cardboard", 0.60);
-        
-        double pricePerKg = pricing.getOrDefault(wasteType, 1.00);
-        double weightInKg = weight / 1000.0; // Convert grams to kg
-        return Math.round(weightInKg * pricePerKg * 100.0) / 100.0; // Round to 2 decimal places
+    private double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
     }
     
-    private String getCategoryForWasteType(String wasteType) {
-        switch (wasteType.toLowerCase()) {
-            case "plastic bottle":
-            case "aluminum can":
-            case "glass bottle":
-            case "paper":
-            case "cardboard":
-                return "Recyclable";
-            default:
-                return "General";
-        }
+    private Map<String, Object> toPickupSummary(Pickup pickup) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("pickupId", String.valueOf(pickup.getId()));
+        summary.put("userId", pickup.getUserId());
+        summary.put("pickupDate", pickup.getPickupDate().toString());
+        summary.put("pickupTime", pickup.getPickupTime());
+        summary.put("address", pickup.getAddress());
+        summary.put("totalWeight", pickup.getTotalWeight());
+        summary.put("status", pickup.getStatus());
+        summary.put("estimatedArrival", pickup.getPickupTime());
+        summary.put("scheduledAt", pickup.getCreatedAt() != null
+            ? pickup.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null);
+        return summary;
     }
     
-    private Map<String, Object> assignMockAgent() {
-        String[] agentNames = {"John Smith", "Sarah Johnson", "Mike Wilson", "Lisa Brown"};
-        String[] vehicleTypes = {"Truck", "Van", "Pickup"};
-        
-        int randomIndex = (int) (Math.random() * agentNames.length);
-        
+    private Map<String, Object> toAssignedAgent(IndexedAgent indexed) {
         Map<String, Object> agent = new HashMap<>();
-        agent.put("agentId", UUID.randomUUID().toString());
-        agent.put("name", agentNames[randomIndex]);
-        agent.put("phoneNumber", "+1-555-0" + (100 + randomIndex));
-        agent.put("vehicleType", vehicleTypes[randomIndex % vehicleTypes.length]);
-        agent.put("rating", Math.round((4.0 + Math.random()) * 10.0) / 10.0); // 4.0-5.0 rating
-        
+        agent.put("agentId", String.valueOf(indexed.getId()));
+        agent.put("name", indexed.getName());
+        agent.put("phoneNumber", indexed.getPhoneNumber());
+        agent.put("vehicleType", indexed.getVehicleType());
+        agent.put("rating", indexed.getRating());
         return agent;
     }
+    
+    private Double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String && !((String) value).isBlank()) {
+            return Double.valueOf((String) value);
+        }
+        return null;
+    }
 }
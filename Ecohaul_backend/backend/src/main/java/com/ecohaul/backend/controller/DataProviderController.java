@@ -1,9 +1,17 @@
 package com.ecohaul.backend.controller;
 
+import com.ecohaul.backend.service.CenterMatch;
+import com.ecohaul.backend.service.CenterSearchCache;
+import com.ecohaul.backend.service.DisposalCenterIndex;
+import com.ecohaul.backend.service.IndexedCenter;
+import com.ecohaul.backend.util.GeoUtils;
+import com.ecohaul.backend.util.WasteTypes;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * Data Provider Controller
@@ -15,6 +23,12 @@ import java.util.*;
 @CrossOrigin(origins = "*")
 public class DataProviderController {
 
+    @Autowired
+    private DisposalCenterIndex disposalCenterIndex;
+
+    @Autowired
+    private CenterSearchCache centerSearchCache;
+
     /**
      * Get disposal centers data for n8n workflows
      * GET /api/data/disposal-centers
@@ -24,53 +38,34 @@ public class DataProviderController {
             @RequestParam(required = false) String wasteType,
             @RequestParam(required = false) Double latitude,
             @RequestParam(required = false) Double longitude,
-            @RequestParam(required = false, defaultValue = "10") Integer radius) {
+            @RequestParam(required = false, defaultValue = "10") Integer radius,
+            @RequestParam(required = false) Integer maxResults,
+            @RequestParam(required = false) Boolean openNow,
+            @RequestParam(required = false) String openAt) {
         
         try {
-            // Mock disposal centers data (replace with actual database query)
-            List<Map<String, Object>> allCenters = Arrays.asList(
-                createDisposalCenter("1", "EcoCenter Downtown", "123 Green St, City", 
-                    40.7128, -74.0060, Arrays.asList("plastic", "metal", "glass"), "Mon-Fri 8AM-6PM", 4.5),
-                createDisposalCenter("2", "Recycling Plus", "456 Earth Ave, City", 
-                    40.7589, -73.9851, Arrays.asList("electronic", "battery", "plastic"), "Daily 7AM-7PM", 4.2),
-                createDisposalCenter("3", "Green Disposal Hub", "789 Eco Blvd, City", 
-                    40.6782, -73.9442, Arrays.asList("organic", "food", "yard"), "Mon-Sat 9AM-5PM", 4.0),
-                createDisposalCenter("4", "Hazmat Facility", "321 Safe Way, City", 
-                    40.7306, -73.9352, Arrays.asList("hazardous", "paint", "chemical"), "Tue-Thu 9AM-3PM", 4.3),
-                createDisposalCenter("5", "Textile Recycling Co", "654 Fashion Ave, City", 
-                    40.7505, -73.9934, Arrays.asList("textile", "clothing", "shoes"), "Mon-Fri 10AM-6PM", 4.1),
-                createDisposalCenter("6", "E-Waste Solutions", "987 Tech Blvd, City", 
-                    40.7831, -73.9712, Arrays.asList("electronic", "phone", "computer"), "Wed-Sun 8AM-5PM", 4.4)
-            );
-
-            // Filter by waste type if specified
-            List<Map<String, Object>> filteredCenters = allCenters;
-            if (wasteType != null && !wasteType.isEmpty()) {
-                filteredCenters = new ArrayList<>();
-                for (Map<String, Object> center : allCenters) {
-                    @SuppressWarnings("unchecked")
-                    List<String> acceptedWaste = (List<String>) center.get("acceptedWaste");
-                    if (acceptedWaste.contains(wasteType.toLowerCase()) || acceptedWaste.contains("all")) {
-                        filteredCenters.add(center);
-                    }
+            boolean locationBased = latitude != null && longitude != null;
+            
+            // Waste types are normalised here and matched against the per-type bitmaps;
+            // "battery,electronic" means centers accepting both
+            Set<String> wasteTypes = WasteTypes.parseRequested(wasteType);
+            Predicate<IndexedCenter> open = disposalCenterIndex.openFilter(openAt, openNow);
+            
+            List<Map<String, Object>> filteredCenters = new ArrayList<>();
+            if (locationBased) {
+                // Candidates for the caller's tile, waste types and radius bucket come from the
+                // search cache; distances and the open filter are still applied per request
+                int limit = maxResults != null ? maxResults : Integer.MAX_VALUE;
+                for (CenterMatch match : centerSearchCache.findNearest(latitude, longitude, radius, limit, wasteTypes, open)) {
+                    Map<String, Object> center = createDisposalCenter(match.getCenter());
+                    center.put("distance", GeoUtils.roundKm(match.getDistanceKm()));
+                    filteredCenters.add(center);
                 }
-            }
-
-            // Calculate distances if location provided
-            if (latitude != null && longitude != null) {
-                for (Map<String, Object> center : filteredCenters) {
-                    double centerLat = (Double) center.get("latitude");
-                    double centerLon = (Double) center.get("longitude");
-                    double distance = calculateDistance(latitude, longitude, centerLat, centerLon);
-                    center.put("distance", Math.round(distance * 100.0) / 100.0);
+            } else {
+                int limit = maxResults != null ? maxResults : Integer.MAX_VALUE;
+                for (IndexedCenter indexed : disposalCenterIndex.findAccepting(wasteTypes, open, limit)) {
+                    filteredCenters.add(createDisposalCenter(indexed));
                 }
-
-                // Sort by distance
-                filteredCenters.sort((a, b) -> {
-                    Double distA = (Double) a.get("distance");
-                    Double distB = (Double) b.get("distance");
-                    return distA.compareTo(distB);
-                });
             }
 
             Map<String, Object> response = new HashMap<>();
@@ -80,11 +75,17 @@ public class DataProviderController {
             response.put("filters_applied", Map.of(
                 "wasteType", wasteType != null ? wasteType : "all",
                 "radius", radius,
-                "location_based", latitude != null && longitude != null
+                "location_based", locationBased,
+                "open_at", openAt != null ? openAt : Boolean.TRUE.equals(openNow) ? "now" : "any"
             ));
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
@@ -221,18 +222,20 @@ public class DataProviderController {
     }
 
     // Helper methods
-    private Map<String, Object> createDisposalCenter(String id, String name, String address, 
-            double latitude, double longitude, List<String> acceptedWaste, String hours, double rating) {
+    private Map<String, Object> createDisposalCenter(IndexedCenter indexed) {
+        String address = indexed.getAddress() != null ? indexed.getAddress() : "";
         Map<String, Object> center = new HashMap<>();
-        center.put("id", id);
-        center.put("name", name);
+        center.put("id", String.valueOf(indexed.getId()));
+        center.put("name", indexed.getName());
         center.put("address", address);
-        center.put("latitude", latitude);
-        center.put("longitude", longitude);
-        center.put("acceptedWaste", acceptedWaste);
-        center.put("hours", hours);
-        center.put("rating", rating);
-        center.put("phone", "+1-555-ECO-" + id + "000");
+        center.put("latitude", indexed.getLatitude());
+        center.put("longitude", indexed.getLongitude());
+        center.put("acceptedWaste", indexed.getAcceptedWasteTypes());
+        center.put("hours", indexed.getOperatingHours());
+        center.put("weeklyHours", indexed.getWeeklyHours() != null ? indexed.getWeeklyHours().toWeeklyIntervals() : null);
+        center.put("openNow", disposalCenterIndex.isOpenNow(indexed));
+        center.put("rating", indexed.getRating());
+        center.put("phone", indexed.getPhoneNumber());
         center.put("googleMapsUrl", "https://maps.google.com/search/" + address.replace(" ", "+"));
         return center;
     }
@@ -267,16 +270,4 @@ public class DataProviderController {
         record.put("pointsEarned", pointsEarned);
         return record;
     }
-
-    // Calculate distance between two coordinates (Haversine formula)
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Radius of the Earth in km
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c; // Distance in km
-    }
 }
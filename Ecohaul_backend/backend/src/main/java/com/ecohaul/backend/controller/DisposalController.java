@@ -1,8 +1,22 @@
 package com.ecohaul.backend.controller;
 
+import com.ecohaul.backend.entity.Pickup;
+import com.ecohaul.backend.service.AgentPositionTable.AgentPosition;
+import com.ecohaul.backend.service.AgentTrackingService;
+import com.ecohaul.backend.service.AgentTrackingService.TrackedAgent;
+import com.ecohaul.backend.service.CenterMatch;
+import com.ecohaul.backend.service.CenterSearchCache;
+import com.ecohaul.backend.service.DispatchService;
+import com.ecohaul.backend.service.DispatchService.Assignment;
+import com.ecohaul.backend.service.DisposalCenterIndex;
+import com.ecohaul.backend.service.IndexedAgent;
+import com.ecohaul.backend.service.IndexedCenter;
+import com.ecohaul.backend.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.*;
+import java.util.function.Predicate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -11,14 +25,42 @@ import java.time.format.DateTimeFormatter;
 @CrossOrigin(origins = "*")
 public class DisposalController {
     
+    @Autowired
+    private DisposalCenterIndex disposalCenterIndex;
+    
+    @Autowired
+    private CenterSearchCache centerSearchCache;
+    
+    @Autowired
+    private AgentTrackingService agentTrackingService;
+    
+    @Autowired
+    private DispatchService dispatchService;
+    
     @GetMapping("/centers")
     public ResponseEntity<?> getDisposalCenters(
             @RequestParam(required = false) Double latitude,
             @RequestParam(required = false) Double longitude,
-            @RequestParam(required = false, defaultValue = "10") Integer radius) {
+            @RequestParam(required = false, defaultValue = "10") Integer radius,
+            @RequestParam(required = false, defaultValue = "10") Integer maxResults,
+            @RequestParam(required = false) Boolean openNow,
+            @RequestParam(required = false) String openAt) {
         try {
-            // Mock disposal centers
-            List<Map<String, Object>> centers = generateMockDisposalCenters(latitude, longitude, radius);
+            Predicate<IndexedCenter> open = disposalCenterIndex.openFilter(openAt, openNow);
+            
+            // Nearest centers first when the app sends its location, from the tile's cached candidates
+            List<Map<String, Object>> centers = new ArrayList<>();
+            if (latitude != null && longitude != null) {
+                for (CenterMatch match : centerSearchCache.findNearest(latitude, longitude, radius, maxResults, null, open)) {
+                    Map<String, Object> center = toCenterSummary(match.getCenter());
+                    center.put("distance", GeoUtils.roundKm(match.getDistanceKm()));
+                    centers.add(center);
+                }
+            } else {
+                for (IndexedCenter indexed : disposalCenterIndex.findAccepting(null, open, maxResults)) {
+                    centers.add(toCenterSummary(indexed));
+                }
+            }
             
             Map<String, Object> response = new HashMap<>();
             response.put("disposalCenters", centers);
@@ -27,6 +69,10 @@ public class DisposalController {
             
             return ResponseEntity.ok(response);
             
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Error fetching disposal centers: " + e.getMessage());
@@ -55,8 +101,12 @@ public class DisposalController {
             @RequestParam(required = false) Double longitude,
             @RequestParam(required = false, defaultValue = "available") String status) {
         try {
-            // Mock disposal agents
-            List<Map<String, Object>> agents = generateMockDisposalAgents(latitude, longitude, status);
+            // Served from the in-memory agent directory and live position table
+            List<Map<String, Object>> agents = new ArrayList<>();
+            boolean availableOnly = status.equalsIgnoreCase("available");
+            for (TrackedAgent tracked : agentTrackingService.findAgents(latitude, longitude, availableOnly)) {
+                agents.add(toAgentSummary(tracked));
+            }
             
             Map<String, Object> response = new HashMap<>();
             response.put("disposalAgents", agents);
@@ -72,6 +122,83 @@ public class DisposalController {
         }
     }
     
+    @PostMapping("/agents/{agentId}/location")
+    public ResponseEntity<?> reportAgentLocation(@PathVariable Long agentId, @RequestBody Map<String, Object> locationRequest) {
+        try {
+            Double latitude = toDouble(locationRequest.get("latitude"));
+            Double longitude = toDouble(locationRequest.get("longitude"));
+            
+            if (latitude == null || longitude == null || Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Valid latitude and longitude are required");
+                return ResponseEntity.badRequest().body(error);
+            }
+            
+            long fixTime = locationRequest.get("timestamp") instanceof Number
+                ? ((Number) locationRequest.get("timestamp")).longValue()
+                : System.currentTimeMillis();
+            
+            if (!agentTrackingService.recordPing(agentId, latitude, longitude, fixTime)) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Unknown or inactive agent: " + agentId);
+                return ResponseEntity.status(404).body(error);
+            }
+            
+            // Accepted into memory; persisted by the next write-behind flush
+            return ResponseEntity.accepted().build();
+            
+        } catch (NumberFormatException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Valid latitude and longitude are required");
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error recording agent location: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
+    @PostMapping("/agents/locations")
+    public ResponseEntity<?> reportAgentLocations(@RequestBody List<Map<String, Object>> locationRequests) {
+        try {
+            int accepted = 0;
+            List<Object> rejected = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            
+            for (Map<String, Object> ping : locationRequests) {
+                Object agentId = ping != null ? ping.get("agentId") : null;
+                // A malformed ping is rejected on its own; the ones before it are already applied
+                try {
+                    Double latitude = ping != null ? toDouble(ping.get("latitude")) : null;
+                    Double longitude = ping != null ? toDouble(ping.get("longitude")) : null;
+                    
+                    if (agentId != null && latitude != null && longitude != null
+                            && Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180) {
+                        long fixTime = ping.get("timestamp") instanceof Number ? ((Number) ping.get("timestamp")).longValue() : now;
+                        if (agentTrackingService.recordPing(Long.parseLong(agentId.toString()), latitude, longitude, fixTime)) {
+                            accepted++;
+                            continue;
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    // Non-numeric agent id or coordinate
+                }
+                rejected.add(agentId);
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("accepted", accepted);
+            response.put("rejected", rejected);
+            
+            return ResponseEntity.accepted().body(response);
+            
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error recording agent locations: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
     @GetMapping("/agents/{agentId}")
     public ResponseEntity<?> getDisposalAgentDetails(@PathVariable String agentId) {
         try {
@@ -127,18 +254,33 @@ public class DisposalController {
                 return ResponseEntity.badRequest().body(error);
             }
             
-            // Mock pickup scheduling with specific agent
+            Long agentKey;
+            try {
+                agentKey = Long.valueOf(agentId);
+            } catch (NumberFormatException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Agent not found");
+                return ResponseEntity.status(404).body(error);
+            }
+            
+            Pickup request = dispatchService.newPickup(userId, pickupDate, pickupTime, address,
+                    toDouble(pickupRequest.get("latitude")), toDouble(pickupRequest.get("longitude")),
+                    toDouble(pickupRequest.get("totalWeight")));
+            request.setEstimatedFee(calculatePickupFee());
+            Assignment assignment = dispatchService.assignTo(agentKey, request);
+            Pickup booked = assignment.getPickup();
+            
             Map<String, Object> pickup = new HashMap<>();
-            pickup.put("pickupId", UUID.randomUUID().toString());
+            pickup.put("pickupId", String.valueOf(booked.getId()));
             pickup.put("userId", userId);
             pickup.put("agentId", agentId);
             pickup.put("pickupDate", pickupDate);
             pickup.put("pickupTime", pickupTime);
             pickup.put("address", address);
-            pickup.put("status", "Scheduled");
-            pickup.put("estimatedFee", calculatePickupFee());
-            pickup.put("agent", generateDetailedAgentInfo(agentId));
-            pickup.put("scheduledAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            pickup.put("status", booked.getStatus());
+            pickup.put("estimatedFee", booked.getEstimatedFee());
+            pickup.put("agent", toAgentSummary(assignment.getAgent()));
+            pickup.put("scheduledAt", booked.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Pickup scheduled successfully with agent");
@@ -146,12 +288,47 @@ public class DisposalController {
             
             return ResponseEntity.ok(response);
             
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (IllegalStateException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(409).body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Error scheduling pickup: " + e.getMessage());
             return ResponseEntity.internalServerError().body(error);
         }
     }
+
+    @PostMapping("/pickups/{pickupId}/cancel")
+    public ResponseEntity<?> cancelPickup(@PathVariable Long pickupId) {
+        try {
+            Pickup cancelled = dispatchService.cancel(pickupId);
+            if (cancelled == null) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Pickup not found");
+                return ResponseEntity.status(404).body(error);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Pickup cancelled successfully");
+            response.put("pickupId", String.valueOf(cancelled.getId()));
+            response.put("status", cancelled.getStatus());
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.status(409).body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error cancelling pickup: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
     
     @PostMapping("/centers/{centerId}/rate")
     public ResponseEntity<?> rateDisposalCenter(@PathVariable String centerId, @RequestBody Map<String, Object> ratingRequest) {
@@ -207,56 +384,56 @@ public class DisposalController {
     }
     
     // Helper methods
-    private List<Map<String, Object>> generateMockDisposalCenters(Double lat, Double lng, Integer radius) {
-        List<Map<String, Object>> centers = new ArrayList<>();
-        String[] centerNames = {"EcoCenter Downtown", "Green Valley Recycling", "Municipal Waste Facility", 
-                               "CleanTech Disposal", "Sustainable Solutions Center"};
-        String[] addresses = {"123 Main St, Downtown", "456 Green Ave, Valley", "789 Municipal Dr, City Center",
-                             "321 Tech Blvd, Industrial", "654 Eco Way, Suburbs"};
+    private Map<String, Object> toCenterSummary(IndexedCenter indexed) {
+        Map<String, Object> center = new HashMap<>();
+        center.put("centerId", String.valueOf(indexed.getId()));
+        center.put("name", indexed.getName());
+        center.put("address", indexed.getAddress());
+        center.put("latitude", indexed.getLatitude());
+        center.put("longitude", indexed.getLongitude());
+        center.put("rating", indexed.getRating());
+        center.put("operatingHours", indexed.getOperatingHours());
+        center.put("openNow", disposalCenterIndex.isOpenNow(indexed));
+        center.put("phoneNumber", indexed.getPhoneNumber());
+        center.put("pickupAvailable", indexed.isPickupServiceAvailable());
+        return center;
+    }
+    
+    private Map<String, Object> toAgentSummary(TrackedAgent tracked) {
+        IndexedAgent indexed = tracked.getAgent();
+        AgentPosition position = tracked.getPosition();
         
-        for (int i = 0; i < centerNames.length; i++) {
-            Map<String, Object> center = new HashMap<>();
-            center.put("centerId", UUID.randomUUID().toString());
-            center.put("name", centerNames[i]);
-            center.put("address", addresses[i]);
-            center.put("latitude", (lat != null) ? lat + (Math.random() - 0.5) * 0.1 : 40.7128 + (Math.random() - 0.5) * 0.1);
-            center.put("longitude", (lng != null) ? lng + (Math.random() - 0.5) * 0.1 : -74.0060 + (Math.random() - 0.5) * 0.1);
-            center.put("distance", Math.round((Math.random() * radius * 2) * 10.0) / 10.0);
-            center.put("rating", Math.round((4.0 + Math.random()) * 10.0) / 10.0);
-            center.put("operatingHours", "8:00 AM - 6:00 PM");
-            center.put("phoneNumber", "+1-555-0" + (100 + i));
-            center.put("pickupAvailable", i % 2 == 0);
-            
-            centers.add(center);
+        Map<String, Object> agent = new HashMap<>();
+        agent.put("agentId", String.valueOf(indexed.getId()));
+        agent.put("name", indexed.getName());
+        agent.put("phoneNumber", indexed.getPhoneNumber());
+        agent.put("vehicleType", indexed.getVehicleType());
+        agent.put("licensePlate", indexed.getLicensePlate());
+        agent.put("currentLatitude", position != null ? position.getLatitude() : null);
+        agent.put("currentLongitude", position != null ? position.getLongitude() : null);
+        agent.put("lastSeenAt", position != null ? position.getFixTimeMillis() : null);
+        agent.put("isAvailable", indexed.isAvailable());
+        agent.put("rating", indexed.getRating());
+        agent.put("totalPickups", indexed.getTotalPickups());
+        if (tracked.getDistanceKm() != Double.MAX_VALUE) {
+            agent.put("distance", GeoUtils.roundKm(tracked.getDistanceKm()));
         }
         
-        return centers;
+        return agent;
     }
     
-    private List<Map<String, Object>> generateMockDisposalAgents(Double lat, Double lng, String status) {
-        List<Map<String, Object>> agents = new ArrayList<>();
-        String[] agentNames = {"John Smith", "Sarah Johnson", "Mike Wilson", "Lisa Brown", "David Garcia"};
-        String[] vehicleTypes = {"Truck", "Van", "Pickup", "Large Truck", "Eco Vehicle"};
-        
-        for (int i = 0; i < agentNames.length; i++) {
-            if (status.equals("available") && i > 2) continue; // Limit available agents
-            
-            Map<String, Object> agent = new HashMap<>();
-            agent.put("agentId", UUID.randomUUID().toString());
-            agent.put("name", agentNames[i]);
-            agent.put("phoneNumber", "+1-555-0" + (200 + i));
-            agent.put("vehicleType", vehicleTypes[i]);
-            agent.put("licensePlate", "ABC-" + (1000 + i));
-            agent.put("currentLatitude", (lat != null) ? lat + (Math.random() - 0.5) * 0.05 : 40.7128 + (Math.random() - 0.5) * 0.05);
-            agent.put("currentLongitude", (lng != null) ? lng + (Math.random() - 0.5) * 0.05 : -74.0060 + (Math.random() - 0.5) * 0.05);
-            agent.put("isAvailable", status.equals("available") || Math.random() > 0.3);
-            agent.put("rating", Math.round((4.2 + Math.random() * 0.8) * 10.0) / 10.0);
-            agent.put("totalPickups", (int) (Math.random() * 500) + 50);
-            
-            agents.add(agent);
+    // Null when absent; NaN, Infinity and unparseable strings throw NumberFormatException
+    private Double toDouble(Object value) {
+        Double number = null;
+        if (value instanceof Number) {
+            number = ((Number) value).doubleValue();
+        } else if (value instanceof String && !((String) value).isBlank()) {
+            number = Double.valueOf((String) value);
         }
-        
-        return agents;
+        if (number != null && !Double.isFinite(number)) {
+            throw new NumberFormatException("Not a finite number: " + value);
+        }
+        return number;
     }
     
     private Map<String, Object> generateDetailedCenterInfo(String centerId) {
@@ -0,0 +1,78 @@
+package com.ecohaul.backend.controller;
+
+import com.ecohaul.backend.service.CatalogExportService;
+import com.ecohaul.backend.service.CatalogExportService.Format;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export Controller
+ * Streams the full center and agent catalogue for n8n workflows and map tiles
+ */
+@RestController
+@RequestMapping("/api/data/export")
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    private static final MediaType GEO_JSON = MediaType.parseMediaType("application/geo+json");
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private CatalogExportService catalogExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * GET /api/data/export?format=geojson|ndjson&layers=centers,agents&gzip=true
+     * Without the gzip parameter the response is compressed when the client accepts gzip.
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportCatalog(
+            @RequestParam(required = false, defaultValue = "geojson") String format,
+            @RequestParam(required = false, defaultValue = "centers,agents") String layers,
+            @RequestParam(required = false) Boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Format exportFormat;
+        try {
+            exportFormat = Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return StreamingErrors.badRequest(objectMapper, "Unsupported format: " + format + " (use geojson or ndjson)");
+        }
+
+        Set<String> exportLayers = new LinkedHashSet<>();
+        for (String layer : layers.split(",")) {
+            String name = layer.trim().toLowerCase(Locale.ROOT);
+            if (!name.equals(CatalogExportService.LAYER_CENTERS) && !name.equals(CatalogExportService.LAYER_AGENTS)) {
+                return StreamingErrors.badRequest(objectMapper, "Unknown layer: " + layer + " (use centers and/or agents)");
+            }
+            exportLayers.add(name);
+        }
+
+        boolean compress = gzip != null ? gzip : acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = out -> {
+            if (compress) {
+                GZIPOutputStream zipped = new GZIPOutputStream(out, 16 * 1024);
+                catalogExportService.export(exportLayers, exportFormat, zipped);
+                zipped.finish();
+            } else {
+                catalogExportService.export(exportLayers, exportFormat, out);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat == Format.GEOJSON ? GEO_JSON : NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (compress) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
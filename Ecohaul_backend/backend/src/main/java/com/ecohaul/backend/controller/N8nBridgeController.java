@@ -1,9 +1,17 @@
 package com.ecohaul.backend.controller;
 
+import com.ecohaul.backend.service.CenterMatch;
+import com.ecohaul.backend.service.CenterSearchCache;
+import com.ecohaul.backend.service.DisposalCenterIndex;
+import com.ecohaul.backend.service.IndexedCenter;
+import com.ecohaul.backend.util.GeoUtils;
+import com.ecohaul.backend.util.WasteTypes;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * N8n Bridge Controller
@@ -15,6 +23,12 @@ import java.util.*;
 @CrossOrigin(origins = "*")
 public class N8nBridgeController {
 
+    @Autowired
+    private DisposalCenterIndex disposalCenterIndex;
+
+    @Autowired
+    private CenterSearchCache centerSearchCache;
+
     /**
      * Bridge endpoint for disposal centers (matches n8n webhook format)
      * POST /webhook/disposal-centers
@@ -25,28 +39,27 @@ public class N8nBridgeController {
             // Extract request parameters
             Double latitude = getDoubleValue(request, "latitude");
             Double longitude = getDoubleValue(request, "longitude");
-            String wasteType = (String) request.get("wasteType");
+            Set<String> wasteTypes = WasteTypes.parseRequested(request.get("wasteType"));
             Integer radius = getIntegerValue(request, "radius", 10);
             Integer maxResults = getIntegerValue(request, "maxResults", 5);
 
-            // Mock disposal centers (replace with actual database query)
-            List<Map<String, Object>> centers = Arrays.asList(
-                createDisposalCenter("1", "EcoCenter Downtown", "123 Green St, City", 2.5, 
-                    Arrays.asList("plastic", "metal", "glass"), "Mon-Fri 8AM-6PM", 4.5),
-                createDisposalCenter("2", "Recycling Plus", "456 Earth Ave, City", 4.2,
-                    Arrays.asList("electronic", "battery", "plastic"), "Daily 7AM-7PM", 4.2),
-                createDisposalCenter("3", "Green Disposal Hub", "789 Eco Blvd, City", 6.8,
-                    Arrays.asList("organic", "food", "yard"), "Mon-Sat 9AM-5PM", 4.0)
-            );
-
-            // Filter centers based on waste type
+            Object openNow = request.get("openNow");
+            Predicate<IndexedCenter> open = disposalCenterIndex.openFilter(getStringValue(request, "openAt"),
+                    openNow != null && Boolean.parseBoolean(openNow.toString()));
+
+            // Closest maxResults centers inside the radius that accept the waste type(s) and are open;
+            // nearby users share the cached candidates of their tile
             List<Map<String, Object>> filteredCenters = new ArrayList<>();
-            for (Map<String, Object> center : centers) {
-                @SuppressWarnings("unchecked")
-                List<String> acceptedWaste = (List<String>) center.get("acceptedWaste");
-                if (acceptedWaste.contains(wasteType) || acceptedWaste.contains("all")) {
+            if (latitude != null && longitude != null) {
+                for (CenterMatch match : centerSearchCache.findNearest(latitude, longitude, radius, maxResults, wasteTypes, open)) {
+                    Map<String, Object> center = createDisposalCenter(match.getCenter());
+                    center.put("distance", GeoUtils.roundKm(match.getDistanceKm()));
                     filteredCenters.add(center);
                 }
+            } else {
+                for (IndexedCenter indexed : disposalCenterIndex.findAccepting(wasteTypes, open, maxResults)) {
+                    filteredCenters.add(createDisposalCenter(indexed));
+                }
             }
 
             // Create response matching n8n format
@@ -55,10 +68,16 @@ public class N8nBridgeController {
             response.put("centers", filteredCenters);
             response.put("totalFound", filteredCenters.size());
             response.put("searchRadius", radius);
+            response.put("maxResults", maxResults);
             response.put("timestamp", new Date().toString());
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
@@ -134,16 +153,17 @@ public class N8nBridgeController {
     }
 
     // Helper methods
-    private Map<String, Object> createDisposalCenter(String id, String name, String address, 
-            double distance, List<String> acceptedWaste, String hours, double rating) {
+    private Map<String, Object> createDisposalCenter(IndexedCenter indexed) {
+        String address = indexed.getAddress() != null ? indexed.getAddress() : "";
         Map<String, Object> center = new HashMap<>();
-        center.put("id", id);
-        center.put("name", name);
+        center.put("id", String.valueOf(indexed.getId()));
+        center.put("name", indexed.getName());
         center.put("address", address);
-        center.put("distance", distance);
-        center.put("acceptedWaste", acceptedWaste);
-        center.put("hours", hours);
-        center.put("rating", rating);
+        center.put("acceptedWaste", indexed.getAcceptedWasteTypes());
+        center.put("hours", indexed.getOperatingHours());
+        center.put("weeklyHours", indexed.getWeeklyHours() != null ? indexed.getWeeklyHours().toWeeklyIntervals() : null);
+        center.put("openNow", disposalCenterIndex.isOpenNow(indexed));
+        center.put("rating", indexed.getRating());
         center.put("googleMapsUrl", "https://maps.google.com/search/" + address.replace(" ", "+"));
         return center;
     }
@@ -248,6 +268,15 @@ public class N8nBridgeController {
         return null;
     }
 
+    // Absent is null; any other type than a string is a bad request
+    private String getStringValue(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException(key + " must be a string");
+        }
+        return (String) value;
+    }
+
     private Integer getIntegerValue(Map<String, Object> map, String key, Integer defaultValue) {
         Object value = map.get(key);
         if (value instanceof Number) {
@@ -0,0 +1,98 @@
+package com.ecohaul.backend.controller;
+
+import com.ecohaul.backend.service.DispatchService;
+import com.ecohaul.backend.service.RoutePlanner.Plan;
+import com.ecohaul.backend.service.RoutePlanner.Route;
+import com.ecohaul.backend.service.RoutePlanningService;
+import com.ecohaul.backend.util.GeoUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@RestController
+@RequestMapping("/api/v1/routes")
+@CrossOrigin(origins = "*")
+public class RouteController {
+    
+    @Autowired
+    private RoutePlanningService routePlanningService;
+    
+    @PostMapping("/plan")
+    public ResponseEntity<?> planRoutes(@RequestParam(required = false) String date) {
+        try {
+            LocalDate planDate = date != null ? DispatchService.parseDate(date) : LocalDate.now().plusDays(1);
+            Plan plan = routePlanningService.planRoutes(planDate);
+            return ResponseEntity.ok(toPlanResponse(planDate, plan));
+            
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error planning routes: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
+    @GetMapping("/{date}")
+    public ResponseEntity<?> getRoutes(@PathVariable String date) {
+        try {
+            LocalDate planDate = DispatchService.parseDate(date);
+            Plan plan = routePlanningService.getPlan(planDate);
+            if (plan == null) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "No route plan for " + planDate);
+                return ResponseEntity.status(404).body(error);
+            }
+            return ResponseEntity.ok(toPlanResponse(planDate, plan));
+            
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error fetching routes: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
+    private Map<String, Object> toPlanResponse(LocalDate date, Plan plan) {
+        List<Map<String, Object>> routes = new ArrayList<>();
+        for (Route route : plan.getRoutes()) {
+            List<Map<String, Object>> stops = new ArrayList<>();
+            for (int i = 0; i < route.getStopIds().length; i++) {
+                Map<String, Object> stop = new HashMap<>();
+                stop.put("pickupId", String.valueOf(route.getStopIds()[i]));
+                stop.put("sequence", i + 1);
+                stop.put("estimatedArrival", LocalTime.of(route.getArrivalMinutes()[i] / 60 % 24,
+                        route.getArrivalMinutes()[i] % 60).toString());
+                stops.add(stop);
+            }
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("agentId", route.getAgentId() != null ? String.valueOf(route.getAgentId()) : null);
+            summary.put("stops", stops);
+            summary.put("distance", GeoUtils.roundKm(route.getDistanceKm()));
+            summary.put("loadKg", Math.round(route.getLoadKg() * 10.0) / 10.0);
+            routes.add(summary);
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("date", date.toString());
+        response.put("routes", routes);
+        response.put("totalRoutes", routes.size());
+        response.put("totalDistance", GeoUtils.roundKm(plan.getTotalDistanceKm()));
+        response.put("unassignedStops", plan.getUnassignedStops());
+        List<String> unroutable = new ArrayList<>();
+        for (Long pickupId : plan.getUnroutablePickupIds()) {
+            unroutable.add(String.valueOf(pickupId));
+        }
+        response.put("unroutablePickups", unroutable);
+        response.put("planningTimeMs", plan.getPlanningMillis());
+        return response;
+    }
+}
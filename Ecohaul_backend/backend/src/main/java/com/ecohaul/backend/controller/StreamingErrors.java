@@ -0,0 +1,26 @@
+package com.ecohaul.backend.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Error responses for handlers typed to return a {@link StreamingResponseBody}, which cannot
+ * carry the usual {"message": ...} map, so the map is written as the streamed body.
+ */
+final class StreamingErrors {
+
+    private StreamingErrors() {}
+
+    static ResponseEntity<StreamingResponseBody> badRequest(ObjectMapper objectMapper, String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", message);
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, error));
+    }
+}
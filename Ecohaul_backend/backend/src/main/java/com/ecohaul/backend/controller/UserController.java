@@ -1,20 +1,50 @@
 package com.ecohaul.backend.controller;
 
+import com.ecohaul.backend.config.JwtAuthenticationFilter;
+import com.ecohaul.backend.entity.User;
+import com.ecohaul.backend.repository.UserRepository;
+import com.ecohaul.backend.service.JwtService;
+import com.ecohaul.backend.service.JwtService.TokenClaims;
+import com.ecohaul.backend.service.PasswordHashingBusyException;
+import com.ecohaul.backend.service.PasswordHashingService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @RestController
 @RequestMapping("/api/v1/users")
 @CrossOrigin(origins = "*")
 public class UserController {
     
+    @Autowired
+    private JwtService jwtService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    
+    // Runs the database work that follows a hash, so the core-sized hashing pool only ever hashes
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor taskExecutor;
+    
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@RequestBody Map<String, Object> userRequest) {
+    public CompletableFuture<ResponseEntity<?>> registerUser(@RequestBody Map<String, Object> userRequest) {
         try {
-            String email = (String) userRequest.get("email");
+            String email = normalizeEmail((String) userRequest.get("email"));
             String password = (String) userRequest.get("password");
             String fullName = (String) userRequest.get("fullName");
             String phoneNumber = (String) userRequest.get("phoneNumber");
@@ -23,82 +53,108 @@ public class UserController {
             if (email == null || password == null || fullName == null) {
                 Map<String, String> error = new HashMap<>();
                 error.put("message", "Email, password, and full name are required");
-                return ResponseEntity.badRequest().body(error);
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
             }
             
-            // Mock user registration
-            Map<String, Object> user = new HashMap<>();
-            user.put("userId", UUID.randomUUID().toString());
-            user.put("email", email);
-            user.put("fullName", fullName);
-            user.put("phoneNumber", phoneNumber);
-            user.put("createdAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-            user.put("isActive", true);
-            user.put("role", "USER");
-            
-            // Mock JWT token
-            String mockToken = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9..." + UUID.randomUUID().toString();
+            if (password.length() < 6) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Password must be at least 6 characters long");
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
+            }
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "User registered successfully");
-            response.put("user", user);
-            response.put("token", mockToken);
-            response.put("tokenType", "Bearer");
-            response.put("expiresIn", 86400); // 24 hours in seconds
+            if (userRepository.existsByEmail(email)) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "An account with this email already exists");
+                return CompletableFuture.completedFuture(ResponseEntity.status(409).body(error));
+            }
             
-            return ResponseEntity.ok(response);
+            // Hashing runs on the password pool and the save on the task executor; the request
+            // thread is released meanwhile
+            return passwordHashingService.hash(password).<ResponseEntity<?>>thenApplyAsync(hash -> {
+                User user = new User(email, hash, fullName);
+                user.setPhoneNumber(phoneNumber);
+                try {
+                    user = userRepository.save(user);
+                } catch (DataIntegrityViolationException e) {
+                    // Registered by a concurrent request since the check above
+                    Map<String, String> error = new HashMap<>();
+                    error.put("message", "An account with this email already exists");
+                    return ResponseEntity.status(409).body(error);
+                }
+                
+                Map<String, Object> response = new HashMap<>();
+                response.put("message", "User registered successfully");
+                response.put("user", toUserMap(user));
+                response.put("token", jwtService.issue(String.valueOf(user.getId()), email, user.getRole()));
+                response.put("tokenType", "Bearer");
+                response.put("expiresIn", jwtService.getExpirationSeconds());
+                
+                return ResponseEntity.ok(response);
+            }, taskExecutor).exceptionally(e -> authError("Registration failed: ", e));
             
         } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("message", "Registration failed: " + e.getMessage());
-            return ResponseEntity.internalServerError().body(error);
+            return CompletableFuture.completedFuture(authError("Registration failed: ", e));
         }
     }
     
     @PostMapping("/login")
-    public ResponseEntity<?> loginUser(@RequestBody Map<String, Object> loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> loginUser(@RequestBody Map<String, Object> loginRequest) {
         try {
-            String email = (String) loginRequest.get("email");
+            String email = normalizeEmail((String) loginRequest.get("email"));
             String password = (String) loginRequest.get("password");
             
             if (email == null || password == null) {
                 Map<String, String> error = new HashMap<>();
                 error.put("message", "Email and password are required");
-                return ResponseEntity.badRequest().body(error);
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
             }
             
-            // Mock authentication (in real app, validate against database)
-            if (email.equals("test@example.com") && password.equals("password123")) {
-                Map<String, Object> user = new HashMap<>();
-                user.put("userId", "user-123");
-                user.put("email", email);
-                user.put("fullName", "Test User");
-                user.put("phoneNumber", "+1-555-0123");
-                user.put("role", "USER");
-                user.put("isActive", true);
-                user.put("lastLoginAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-                
-                String mockToken = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9..." + UUID.randomUUID().toString();
-                
-                Map<String, Object> response = new HashMap<>();
-                response.put("message", "Login successful");
-                response.put("user", user);
-                response.put("token", mockToken);
-                response.put("tokenType", "Bearer");
-                response.put("expiresIn", 86400);
-                
-                return ResponseEntity.ok(response);
-            } else {
-                Map<String, String> error = new HashMap<>();
-                error.put("message", "Invalid email or password");
-                return ResponseEntity.status(401).body(error);
-            }
+            // An unknown email is still checked against a hash so it takes as long as a wrong password
+            User found = userRepository.findByEmail(email)
+                    .filter(u -> !Boolean.FALSE.equals(u.getIsActive()))
+                    .orElse(null);
+            return passwordHashingService.matches(password, found != null ? found.getPassword() : null)
+                    .<ResponseEntity<?>>thenApplyAsync(matches -> {
+                        if (!matches) {
+                            Map<String, String> error = new HashMap<>();
+                            error.put("message", "Invalid email or password");
+                            return ResponseEntity.status(401).body(error);
+                        }
+                        
+                        found.setLastLoginAt(LocalDateTime.now());
+                        User user = userRepository.save(found);
+                        
+                        Map<String, Object> response = new HashMap<>();
+                        response.put("message", "Login successful");
+                        response.put("user", toUserMap(user));
+                        response.put("token", jwtService.issue(String.valueOf(user.getId()), user.getEmail(), user.getRole()));
+                        response.put("tokenType", "Bearer");
+                        response.put("expiresIn", jwtService.getExpirationSeconds());
+                        
+                        return ResponseEntity.ok(response);
+                    }, taskExecutor).exceptionally(e -> authError("Login failed: ", e));
             
         } catch (Exception e) {
+            return CompletableFuture.completedFuture(authError("Login failed: ", e));
+        }
+    }
+    
+    @GetMapping("/me")
+    public ResponseEntity<?> getCurrentUser(HttpServletRequest request) {
+        TokenClaims claims = (TokenClaims) request.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+        if (claims == null) {
             Map<String, String> error = new HashMap<>();
-            error.put("message", "Login failed: " + e.getMessage());
-            return ResponseEntity.internalServerError().body(error);
+            error.put("message", "A bearer token is required");
+            return ResponseEntity.status(401).body(error);
         }
+        
+        Map<String, Object> user = new HashMap<>();
+        user.put("userId", claims.getSubject());
+        user.put("email", claims.getEmail());
+        user.put("role", claims.getRole());
+        user.put("tokenExpiresAt", claims.getExpiresAt());
+        
+        return ResponseEntity.ok(user);
     }
     
     @GetMapping("/profile/{userId}")
@@ -154,42 +210,62 @@ public class UserController {
     }
     
     @PostMapping("/change-password")
-    public ResponseEntity<?> changePassword(@RequestBody Map<String, Object> passwordRequest) {
+    public CompletableFuture<ResponseEntity<?>> changePassword(@RequestBody Map<String, Object> passwordRequest) {
         try {
-            String userId = (String) passwordRequest.get("userId");
+            Object userIdValue = passwordRequest.get("userId");
             String currentPassword = (String) passwordRequest.get("currentPassword");
             String newPassword = (String) passwordRequest.get("newPassword");
             
-            if (userId == null || currentPassword == null || newPassword == null) {
+            if (userIdValue == null || currentPassword == null || newPassword == null) {
                 Map<String, String> error = new HashMap<>();
                 error.put("message", "User ID, current password, and new password are required");
-                return ResponseEntity.badRequest().body(error);
-            }
-            
-            // Mock password validation (in real app, hash and validate)
-            if (!currentPassword.equals("password123")) {
-                Map<String, String> error = new HashMap<>();
-                error.put("message", "Current password is incorrect");
-                return ResponseEntity.status(401).body(error);
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
             }
             
             if (newPassword.length() < 6) {
                 Map<String, String> error = new HashMap<>();
                 error.put("message", "New password must be at least 6 characters long");
-                return ResponseEntity.badRequest().body(error);
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
             }
             
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "Password changed successfully");
-            response.put("userId", userId);
-            response.put("changedAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            Long userId = Long.valueOf(userIdValue.toString());
+            User found = userRepository.findById(userId).orElse(null);
+            if (found == null) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "User not found");
+                return CompletableFuture.completedFuture(ResponseEntity.status(404).body(error));
+            }
             
-            return ResponseEntity.ok(response);
+            // Verify then hash, both on the password pool, then save on the task executor; a full
+            // queue at the second step still answers 429
+            return passwordHashingService.matches(currentPassword, found.getPassword())
+                    .thenCompose(matches -> matches
+                            ? passwordHashingService.hash(newPassword)
+                            : CompletableFuture.completedFuture(null))
+                    .<ResponseEntity<?>>thenApplyAsync(hash -> {
+                        if (hash == null) {
+                            Map<String, String> error = new HashMap<>();
+                            error.put("message", "Current password is incorrect");
+                            return ResponseEntity.status(401).body(error);
+                        }
+                        
+                        found.setPassword(hash);
+                        userRepository.save(found);
+                        
+                        Map<String, Object> response = new HashMap<>();
+                        response.put("message", "Password changed successfully");
+                        response.put("userId", String.valueOf(userId));
+                        response.put("changedAt", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                        
+                        return ResponseEntity.ok(response);
+                    }, taskExecutor).exceptionally(e -> authError("Error changing password: ", e));
             
-        } catch (Exception e) {
+        } catch (NumberFormatException e) {
             Map<String, String> error = new HashMap<>();
-            error.put("message", "Error changing password: " + e.getMessage());
-            return ResponseEntity.internalServerError().body(error);
+            error.put("message", "Invalid user ID");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(authError("Error changing password: ", e));
         }
     }
     
@@ -268,4 +344,39 @@ public class UserController {
             return ResponseEntity.internalServerError().body(error);
         }
     }
+    
+    private static String normalizeEmail(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
+    }
+    
+    private Map<String, Object> toUserMap(User user) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("userId", String.valueOf(user.getId()));
+        map.put("email", user.getEmail());
+        map.put("fullName", user.getFullName());
+        map.put("phoneNumber", user.getPhoneNumber());
+        map.put("role", user.getRole());
+        map.put("isActive", user.getIsActive());
+        if (user.getCreatedAt() != null) {
+            map.put("createdAt", user.getCreatedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        }
+        if (user.getLastLoginAt() != null) {
+            map.put("lastLoginAt", user.getLastLoginAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        }
+        return map;
+    }
+    
+    private static ResponseEntity<?> authError(String prefix, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        Map<String, String> error = new HashMap<>();
+        if (cause instanceof PasswordHashingBusyException busy) {
+            // Hashing queue full: refuse at once rather than let logins queue behind each other
+            error.put("message", busy.getMessage());
+            return ResponseEntity.status(429)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(busy.getRetryAfterSeconds()))
+                    .body(error);
+        }
+        error.put("message", prefix + cause.getMessage());
+        return ResponseEntity.internalServerError().body(error);
+    }
 }
@@ -1,39 +1,302 @@
 package com.ecohaul.backend.controller;
 
+import com.ecohaul.backend.service.BatchScanService;
+import com.ecohaul.backend.service.BatchScanService.ItemResult;
+import com.ecohaul.backend.repository.ScanHistoryRow;
+import com.ecohaul.backend.service.CenterNameSearch;
+import com.ecohaul.backend.service.ImageBlobStore;
+import com.ecohaul.backend.service.ImageBufferBusyException;
+import com.ecohaul.backend.service.ScanHistoryService;
+import com.ecohaul.backend.service.ScanJobService;
+import com.ecohaul.backend.service.ScanJobService.ScanJob;
+import com.ecohaul.backend.service.ScannerBusyException;
+import com.ecohaul.backend.service.WasteKeywordEngine;
+import com.ecohaul.backend.service.WasteKeywordEngine.Identification;
+import com.ecohaul.backend.service.WasteScanService;
+import com.ecohaul.backend.service.WasteScanService.Scan;
+import com.ecohaul.backend.util.FuzzyIndex;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 @RestController
 @RequestMapping("/api/v1/waste-scanner")
 @CrossOrigin(origins = "*")
 public class WasteScannerController {
     
-    @PostMapping("/scan")
-    public ResponseEntity<?> scanWaste(@RequestBody Map<String, Object> scanRequest) {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
+    // Tomcat's sendfile hand-off: set on the request, the connector streams the file to the socket
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
+    @Autowired
+    private WasteScanService wasteScanService;
+    
+    @Autowired
+    private BatchScanService batchScanService;
+    
+    @Autowired
+    private ScanJobService scanJobService;
+    
+    @Autowired
+    private ScanHistoryService scanHistoryService;
+    
+    @Autowired
+    private ImageBlobStore imageBlobStore;
+    
+    @Value("${ecohaul.scanner.jobs.sse-timeout-ms:60000}")
+    private long sseTimeoutMillis;
+    
+    @Autowired
+    private WasteKeywordEngine wasteKeywordEngine;
+    
+    @Autowired
+    private CenterNameSearch centerNameSearch;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * JSON scan: {"imageBase64": "..."}. The body is parsed as a stream and the image decoded
+     * straight into a pooled buffer, so the base64 text is never held as a String.
+     *
+     * Every /scan variant takes ?async=true: the image is queued and 202 comes back at once with
+     * the scanId to poll at /scan/{scanId} or follow at /scan/{scanId}/events. With ?userId=,
+     * sync or async, the result is also saved to the user's waste records unless the image could
+     * not be decoded.
+     */
+    @PostMapping(value = "/scan", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> scanWaste(InputStream scanRequest,
+                                       @RequestParam(required = false, defaultValue = "false") boolean async,
+                                       @RequestParam(required = false) Long userId) {
         try {
-            // Mock AI waste detection logic
-            String imageBase64 = (String) scanRequest.get("imageBase64");
-            
-            if (imageBase64 == null || imageBase64.isEmpty()) {
-                Map<String, String> error = new HashMap<>();
-                error.put("message", "Image data is required");
-                return ResponseEntity.badRequest().body(error);
+            if (async) {
+                return scanAccepted(scanJobService.submit(wasteScanService.readJson(scanRequest), userId));
             }
-            
-            // Simulate AI detection results
-            Map<String, Object> scanResult = new HashMap<>();
-            scanResult.put("detectedWaste", generateMockDetection());
-            scanResult.put("confidence", 0.85);
-            scanResult.put("timestamp", new Date());
-            scanResult.put("scanId", UUID.randomUUID().toString());
-            
-            return ResponseEntity.ok(scanResult);
-            
+            return scanOk(wasteScanService.scanJson(scanRequest, userId != null), userId);
+        } catch (Exception e) {
+            return scanError(e);
+        }
+    }
+    
+    /**
+     * Multipart scan: the "image" part is copied from the upload into a pooled buffer.
+     */
+    @PostMapping(value = "/scan", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> scanWasteUpload(@RequestPart("image") MultipartFile image,
+                                             @RequestParam(required = false, defaultValue = "false") boolean async,
+                                             @RequestParam(required = false) Long userId) {
+        try (InputStream in = image.getInputStream()) {
+            if (async) {
+                return scanAccepted(scanJobService.submit(wasteScanService.readImage(in), userId));
+            }
+            return scanOk(wasteScanService.scanBinary(in, userId != null), userId);
+        } catch (Exception e) {
+            return scanError(e);
+        }
+    }
+    
+    /**
+     * Raw scan: the request body is the image itself (application/octet-stream or image/*).
+     */
+    @PostMapping(value = "/scan", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE, "image/*"})
+    public ResponseEntity<?> scanWasteBinary(InputStream image,
+                                             @RequestParam(required = false, defaultValue = "false") boolean async,
+                                             @RequestParam(required = false) Long userId) {
+        try {
+            if (async) {
+                return scanAccepted(scanJobService.submit(wasteScanService.readImage(image), userId));
+            }
+            return scanOk(wasteScanService.scanBinary(image, userId != null), userId);
         } catch (Exception e) {
+            return scanError(e);
+        }
+    }
+    
+    /**
+     * Status of an async scan: "pending", then "done" with the result or "failed" with the
+     * reason. Unknown and expired scan ids are 404.
+     */
+    @GetMapping("/scan/{scanId}")
+    public ResponseEntity<?> getScan(@PathVariable String scanId) {
+        ScanJob job = scanJobService.find(scanId);
+        if (job == null) {
             Map<String, String> error = new HashMap<>();
-            error.put("message", "Error processing image: " + e.getMessage());
-            return ResponseEntity.internalServerError().body(error);
+            error.put("message", "Scan not found or expired");
+            return ResponseEntity.status(404).body(error);
+        }
+        return ResponseEntity.ok(toJobResult(job));
+    }
+    
+    /**
+     * Server-sent events for an async scan: a "status" event straight away while it is pending,
+     * then one "result" event when the scan finishes, after which the stream closes. No thread is held while the
+     * scan is waiting; the event is sent by whichever thread completes the job.
+     */
+    @GetMapping(value = "/scan/{scanId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getScanEvents(@PathVariable String scanId) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        ScanJob job = scanJobService.find(scanId);
+        try {
+            if (job == null) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Scan not found or expired");
+                emitter.send(SseEmitter.event().name("error").data(error, MediaType.APPLICATION_JSON));
+                emitter.complete();
+                return ResponseEntity.status(404).body(emitter);
+            }
+            if (!job.isDone()) {
+                emitter.send(SseEmitter.event().name("status").data(toJobResult(job), MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return ResponseEntity.ok(emitter);
+        }
+        scanJobService.onComplete(job, done -> {
+            try {
+                emitter.send(SseEmitter.event().name("result").data(toJobResult(done), MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the stream timed out; the result can still be polled
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok(emitter);
+    }
+    
+    /**
+     * Batch scan from a kiosk: every "images" part is scanned concurrently and one result per
+     * image is streamed back as it completes, NDJSON by default or SSE with
+     * Accept: text/event-stream. A failed image is reported in its own line; a final "done" line
+     * carries the totals.
+     */
+    @PostMapping(value = "/scan/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> scanBatchUpload(
+            @RequestPart("images") List<MultipartFile> images,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (images.size() > batchScanService.getMaxImages()) {
+            return StreamingErrors.badRequest(objectMapper, "A batch is limited to " + batchScanService.getMaxImages() + " images");
+        }
+        boolean sse = wantsEventStream(accept);
+        StreamingResponseBody body = out -> {
+            BatchWriter writer = new BatchWriter(out, sse);
+            for (int i = 0; i < images.size(); i++) {
+                MultipartFile image = images.get(i);
+                batchScanService.submit(i, image.getOriginalFilename(), image::getInputStream, writer::offer);
+            }
+            writer.finish(images.size());
+        };
+        return ResponseEntity.ok().contentType(sse ? MediaType.TEXT_EVENT_STREAM : NDJSON).body(body);
+    }
+    
+    /**
+     * Batch scan with a JSON body: {"images": ["<base64>", {"name": "...", "imageBase64": "..."}]}.
+     * Images are decoded one by one from the request stream and classified while the rest of
+     * the body is still being read.
+     */
+    @PostMapping(value = "/scan/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> scanBatch(InputStream scanRequest,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean sse = wantsEventStream(accept);
+        StreamingResponseBody body = out -> {
+            BatchWriter writer = new BatchWriter(out, sse);
+            int submitted = 0;
+            try (JsonParser parser = objectMapper.getFactory().createParser(scanRequest)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("Request body must be a JSON object");
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    if (parser.nextToken() != JsonToken.START_ARRAY || !field.equals("images")) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    JsonToken item;
+                    while ((item = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        int index = submitted++;
+                        if (index >= batchScanService.getMaxImages()) {
+                            parser.skipChildren();
+                            writer.offer(ItemResult.failed(index, null, new IllegalArgumentException(
+                                    "A batch is limited to " + batchScanService.getMaxImages() + " images")));
+                        } else {
+                            submitBatchItem(parser, item, index, writer);
+                        }
+                        // Send whatever finished while this image was being decoded
+                        writer.drain();
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                writer.fail("Malformed JSON body: " + e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                writer.fail(e.getMessage());
+            }
+            writer.finish(submitted);
+        };
+        return ResponseEntity.ok().contentType(sse ? MediaType.TEXT_EVENT_STREAM : NDJSON).body(body);
+    }
+    
+    private void submitBatchItem(JsonParser parser, JsonToken item, int index, BatchWriter writer) throws IOException {
+        String name = null;
+        ByteBuffer image = null;
+        RuntimeException failure = null;
+        if (item == JsonToken.VALUE_STRING) {
+            try {
+                image = wasteScanService.readBase64(parser);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                failure = e;
+            }
+        } else if (item == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals(WasteScanService.IMAGE_FIELD) && value == JsonToken.VALUE_STRING
+                        && image == null && failure == null) {
+                    try {
+                        image = wasteScanService.readBase64(parser);
+                    } catch (IllegalArgumentException | IllegalStateException e) {
+                        failure = e;
+                    }
+                } else if (field.equals("name") && value == JsonToken.VALUE_STRING) {
+                    name = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else {
+            parser.skipChildren();
+        }
+        
+        // Oversized image or no free buffer: this image fails, the batch goes on
+        if (failure != null) {
+            writer.offer(ItemResult.failed(index, name, failure));
+        } else if (image == null) {
+            writer.offer(ItemResult.failed(index, name, new IllegalArgumentException("Image data is required")));
+        } else {
+            batchScanService.classify(index, name, image, writer::offer);
         }
     }
     
@@ -48,13 +311,14 @@ public class WasteScannerController {
                 return ResponseEntity.badRequest().body(error);
             }
             
-            // Mock waste type identification
+            // One keyword pass yields type, category, recyclability and suggestions together
+            Identification match = wasteKeywordEngine.identify(wasteDescription);
             Map<String, Object> identification = new HashMap<>();
-            identification.put("wasteType", identifyWasteTypeFromDescription(wasteDescription));
-            identification.put("category", getCategoryFromDescription(wasteDescription));
-            identification.put("recyclable", isRecyclableFromDescription(wasteDescription));
+            identification.put("wasteType", match.getType());
+            identification.put("category", match.getCategory());
+            identification.put("recyclable", match.isRecyclable());
             identification.put("confidence", 0.78);
-            identification.put("suggestions", generateDisposalSuggestions(wasteDescription));
+            identification.put("suggestions", match.getSuggestions());
             
             return ResponseEntity.ok(identification);
             
@@ -65,29 +329,90 @@ public class WasteScannerController {
         }
     }
     
+    /**
+     * Search-as-you-type: lexicon terms (with the waste type each resolves to) and disposal
+     * centers matching a partially typed, possibly misspelt query.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(@RequestParam(required = false) String q,
+                                     @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        try {
+            if (q == null || q.trim().isEmpty()) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", "Query is required");
+                return ResponseEntity.badRequest().body(error);
+            }
+            int max = Math.max(1, Math.min(limit, 50));
+            
+            List<Map<String, Object>> wasteTerms = new ArrayList<>();
+            for (FuzzyIndex.Match match : wasteKeywordEngine.suggest(q, max)) {
+                Map<String, Object> term = new HashMap<>();
+                term.put("term", match.getTerm());
+                term.put("wasteType", wasteKeywordEngine.identify(match.getTerm()).getType());
+                term.put("edits", match.getDistance());
+                wasteTerms.add(term);
+            }
+            
+            List<Map<String, Object>> centers = new ArrayList<>();
+            for (CenterNameSearch.Suggestion suggestion : centerNameSearch.suggest(q, max)) {
+                Map<String, Object> center = new HashMap<>();
+                center.put("id", suggestion.getCenter().getId());
+                center.put("name", suggestion.getCenter().getName());
+                center.put("address", suggestion.getCenter().getAddress());
+                center.put("edits", suggestion.getEdits());
+                centers.add(center);
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("query", q);
+            response.put("wasteTerms", wasteTerms);
+            response.put("centers", centers);
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error fetching suggestions: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
+    /**
+     * A user's saved scans, newest first. Pass the returned nextCursor to get the following
+     * page; it is null on the last one.
+     */
     @GetMapping("/history/{userId}")
-    public ResponseEntity<?> getScanHistory(@PathVariable Long userId) {
+    public ResponseEntity<?> getScanHistory(@PathVariable Long userId,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false, defaultValue = "20") Integer limit) {
         try {
-            // Mock scan history
-            List<Map<String, Object>> scanHistory = new ArrayList<>();
+            ScanHistoryService.HistoryPage page = scanHistoryService.page(userId, cursor, limit);
             
-            for (int i = 0; i < 5; i++) {
+            List<Map<String, Object>> scanHistory = new ArrayList<>();
+            for (ScanHistoryRow row : page.getRows()) {
                 Map<String, Object> scan = new HashMap<>();
-                scan.put("scanId", UUID.randomUUID().toString());
-                scan.put("wasteType", "Plastic Bottle");
-                scan.put("category", "Recyclable");
-                scan.put("confidence", 0.90 - (i * 0.05));
-                scan.put("timestamp", new Date(System.currentTimeMillis() - (i * 86400000))); // Days ago
-                scan.put("disposalStatus", i < 2 ? "Disposed" : "Pending");
+                scan.put("recordId", row.getId());
+                scan.put("wasteType", row.getWasteType());
+                scan.put("category", row.getCategory());
+                scan.put("weight", row.getWeight());
+                scan.put("confidence", row.getConfidenceScore());
+                scan.put("recyclable", row.getIsRecyclable());
+                scan.put("timestamp", row.getScannedAt());
+                scan.put("disposalStatus", row.getDisposalStatus());
                 scanHistory.add(scan);
             }
             
             Map<String, Object> response = new HashMap<>();
             response.put("scanHistory", scanHistory);
-            response.put("totalScans", scanHistory.size());
+            response.put("count", scanHistory.size());
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasMore", page.hasMore());
             
             return ResponseEntity.ok(response);
             
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("message", "Error fetching scan history: " + e.getMessage());
@@ -95,6 +420,48 @@ public class WasteScannerController {
         }
     }
     
+    /**
+     * A stored scan image by key. Images are immutable, so they are served with a strong ETag
+     * and a year of caching.
+     */
+    @GetMapping("/images/{key}")
+    public ResponseEntity<?> getImage(@PathVariable String key, HttpServletRequest request,
+                                      HttpServletResponse response) {
+        try {
+            return sendBlob(imageBlobStore.find(key), "\"" + key + "\"", request, response);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error fetching image: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
+    /**
+     * JPEG thumbnail of a stored scan image; {@code size} is rounded up to the nearest configured
+     * thumbnail size (short side in pixels).
+     */
+    @GetMapping("/images/{key}/thumbnail")
+    public ResponseEntity<?> getImageThumbnail(@PathVariable String key,
+                                               @RequestParam(required = false, defaultValue = "256") Integer size,
+                                               HttpServletRequest request, HttpServletResponse response) {
+        try {
+            ImageBlobStore.Blob thumbnail = imageBlobStore.thumbnail(key, size);
+            return sendBlob(thumbnail, "\"" + key + "-" + size + "\"", request, response);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error fetching thumbnail: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
     @GetMapping("/waste-types")
     public ResponseEntity<?> getSupportedWasteTypes() {
         try {
@@ -128,75 +495,207 @@ public class WasteScannerController {
         }
     }
     
-    // Helper methods for mock AI logic
-    private Map<String, Object> generateMockDetection() {
-        String[] wasteTypes = {"Plastic Bottle", "Glass Bottle", "Aluminum Can", "Paper", "Cardboard"};
-        String[] categories = {"Recyclable", "Recyclable", "Recyclable", "Recyclable", "Recyclable"};
-        
-        int randomIndex = (int) (Math.random() * wasteTypes.length);
-        
-        Map<String, Object> detection = new HashMap<>();
-        detection.put("type", wasteTypes[randomIndex]);
-        detection.put("category", categories[randomIndex]);
-        detection.put("recyclable", true);
-        detection.put("estimatedWeight", Math.round((Math.random() * 500) + 50)); // 50-550 grams
-        
-        return detection;
+    private Map<String, Object> toScanResult(Scan scan) {
+        Map<String, Object> scanResult = new HashMap<>();
+        scanResult.put("detectedWaste", scan.getDetection());
+        scanResult.put("confidence", scan.getConfidence());
+        scanResult.put("imageFormat", scan.getImageFormat());
+        scanResult.put("imageBytes", scan.getImageBytes());
+        scanResult.put("cached", scan.isCached());
+        if (scan.getImageKey() != null) {
+            scanResult.put("imageUrl", ScanHistoryService.IMAGE_URL_PREFIX + scan.getImageKey());
+        }
+        scanResult.put("timestamp", new Date());
+        scanResult.put("scanId", UUID.randomUUID().toString());
+        return scanResult;
     }
     
-    private String identifyWasteTypeFromDescription(String description) {
-        String desc = description.toLowerCase();
-        if (desc.contains("bottle") && desc.contains("plastic")) return "Plastic Bottle";
-        if (desc.contains("bottle") && desc.contains("glass")) return "Glass Bottle";
-        if (desc.contains("can") && desc.contains("aluminum")) return "Aluminum Can";
-        if (desc.contains("paper")) return "Paper";
-        if (desc.contains("cardboard")) return "Cardboard";
-        if (desc.contains("battery")) return "Battery";
-        if (desc.contains("electronic") || desc.contains("device")) return "Electronic Device";
-        return "Unknown Waste Type";
+    private Map<String, Object> toJobResult(ScanJob job) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (job.getStatus() == ScanJobService.Status.DONE) {
+            result.putAll(toScanResult(job.getScan()));
+            result.put("timestamp", new Date(job.getCompletedAt()));
+            if (job.getRecordId() != null) {
+                result.put("recordId", job.getRecordId());
+            }
+        } else if (job.getStatus() == ScanJobService.Status.FAILED) {
+            Throwable error = job.getError();
+            result.put("message", error instanceof IllegalArgumentException
+                    ? error.getMessage() : "Error processing image: " + error.getMessage());
+        }
+        result.put("scanId", job.getId());
+        result.put("status", job.getStatus().name().toLowerCase());
+        result.put("submittedAt", new Date(job.getCreatedAt()));
+        return result;
+    }
+    
+    private ResponseEntity<?> scanOk(Scan scan, Long userId) {
+        Map<String, Object> result = toScanResult(scan);
+        if (userId != null && !scan.isUnreadable()) {
+            result.put("recordId", scanHistoryService.record(userId, scan));
+        }
+        return ResponseEntity.ok(result);
+    }
+    
+    private ResponseEntity<?> scanAccepted(ScanJob job) {
+        String location = "/api/v1/waste-scanner/scan/" + job.getId();
+        Map<String, Object> accepted = new LinkedHashMap<>();
+        accepted.put("scanId", job.getId());
+        accepted.put("status", job.getStatus().name().toLowerCase());
+        accepted.put("statusUrl", location);
+        accepted.put("eventsUrl", location + "/events");
+        return ResponseEntity.accepted().header(HttpHeaders.LOCATION, location).body(accepted);
+    }
+    
+    private ResponseEntity<?> scanError(Exception e) {
+        Map<String, String> error = new HashMap<>();
+        if (e instanceof IllegalArgumentException) {
+            error.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+        if (e instanceof ScannerBusyException busy) {
+            // Inference queue full: shed the request at once and say when to come back
+            error.put("message", busy.getMessage());
+            return ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(busy.getRetryAfterSeconds()))
+                    .body(error);
+        }
+        if (e instanceof ImageBufferBusyException busy) {
+            // Every image buffer is taken: the node is saturated, the client should retry
+            error.put("message", busy.getMessage());
+            return ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(busy.getRetryAfterSeconds()))
+                    .body(error);
+        }
+        error.put("message", "Error processing image: " + e.getMessage());
+        return ResponseEntity.internalServerError().body(error);
     }
     
-    private String getCategoryFromDescription(String description) {
-        String wasteType = identifyWasteTypeFromDescription(description);
-        switch (wasteType) {
-            case "Battery": return "Hazardous";
-            case "Electronic Device": return "E-Waste";
-            case "Unknown Waste Type": return "General";
-            default: return "Recyclable";
+    /**
+     * Serve a blob without reading it into the heap: with Tomcat's sendfile the connector sends
+     * the file once the handler returns, otherwise FileChannel.transferTo copies it to the
+     * response. Returns null once the response is handled.
+     */
+    private ResponseEntity<?> sendBlob(ImageBlobStore.Blob blob, String etag, HttpServletRequest request,
+                                       HttpServletResponse response) throws IOException {
+        if (blob == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Image not found");
+            return ResponseEntity.status(404).body(error);
         }
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            return ResponseEntity.status(304).eTag(etag).build();
+        }
+        response.setContentType(blob.getContentType());
+        response.setContentLengthLong(blob.getSize());
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, blob.getPath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, blob.getSize());
+        } else {
+            imageBlobStore.transferTo(blob, Channels.newChannel(response.getOutputStream()));
+        }
+        return null;
     }
     
-    private boolean isRecyclableFromDescription(String description) {
-        String category = getCategoryFromDescription(description);
-        return category.equals("Recyclable");
+    private static boolean wantsEventStream(String accept) {
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
     }
     
-    private List<String> generateDisposalSuggestions(String description) {
-        List<String> suggestions = new ArrayList<>();
-        String wasteType = identifyWasteTypeFromDescription(description);
+    /**
+     * Collects item results from the scan pools and writes them, in completion order, on the
+     * response thread as NDJSON lines or SSE events.
+     */
+    private final class BatchWriter {
         
-        switch (wasteType) {
-            case "Plastic Bottle":
-                suggestions.add("Clean the bottle before recycling");
-                suggestions.add("Remove the cap if it's a different plastic type");
-                suggestions.add("Take to nearest recycling center");
-                break;
-            case "Battery":
-                suggestions.add("Do not throw in regular trash");
-                suggestions.add("Take to specialized battery disposal center");
-                suggestions.add("Many electronics stores accept batteries");
-                break;
-            case "Electronic Device":
-                suggestions.add("Remove personal data before disposal");
-                suggestions.add("Take to certified e-waste facility");
-                suggestions.add("Check if manufacturer has take-back program");
-                break;
-            default:
-                suggestions.add("Check local recycling guidelines");
-                suggestions.add("Contact nearest disposal center");
-                break;
+        private final OutputStream out;
+        private final boolean sse;
+        private final BlockingQueue<ItemResult> completed = new LinkedBlockingQueue<>();
+        private final long startedAt = System.currentTimeMillis();
+        private int written;
+        private int succeeded;
+        
+        BatchWriter(OutputStream out, boolean sse) {
+            this.out = out;
+            this.sse = sse;
         }
         
-        return suggestions;
+        void offer(ItemResult result) {
+            completed.add(result);
+        }
+        
+        void drain() throws IOException {
+            ItemResult result;
+            boolean any = false;
+            while ((result = completed.poll()) != null) {
+                write(result);
+                any = true;
+            }
+            if (any) {
+                out.flush();
+            }
+        }
+        
+        /**
+         * Block until all {@code expected} items are written, then send the summary.
+         */
+        void finish(int expected) throws IOException {
+            while (written < expected) {
+                try {
+                    write(completed.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while streaming batch results");
+                }
+                if (completed.isEmpty()) {
+                    out.flush();
+                }
+            }
+            Map<String, Object> done = new LinkedHashMap<>();
+            done.put("status", "done");
+            done.put("total", expected);
+            done.put("succeeded", succeeded);
+            done.put("failed", expected - succeeded);
+            done.put("elapsedMs", System.currentTimeMillis() - startedAt);
+            event("done", done);
+            out.flush();
+        }
+        
+        void fail(String message) throws IOException {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("status", "error");
+            error.put("message", message);
+            event("error", error);
+        }
+        
+        private void write(ItemResult result) throws IOException {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("index", result.getIndex());
+            line.put("name", result.getName());
+            if (result.isSuccess()) {
+                line.put("status", "ok");
+                line.putAll(toScanResult(result.getScan()));
+                succeeded++;
+            } else {
+                line.put("status", "error");
+                line.put("message", result.getError());
+            }
+            written++;
+            event("result", line);
+        }
+        
+        private void event(String name, Map<String, Object> data) throws IOException {
+            byte[] json = objectMapper.writeValueAsBytes(data);
+            if (sse) {
+                out.write(("event: " + name + "\ndata: ").getBytes(StandardCharsets.UTF_8));
+                out.write(json);
+                out.write("\n\n".getBytes(StandardCharsets.UTF_8));
+            } else {
+                out.write(json);
+                out.write('\n');
+            }
+        }
     }
 }
@@ -5,11 +5,15 @@ import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items",
+       indexes = @Index(name = "idx_cart_items_user", columnList = "user_id, id"))
 public class CartItem {
     
+    // Pooled sequence ids (allocationSize must match the sequence's INCREMENT BY) keep JDBC
+    // insert batching on; IDENTITY would force one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_items_seq")
+    @SequenceGenerator(name = "cart_items_seq", sequenceName = "cart_items_id_seq", allocationSize = 50)
     private Long id;
     
     @NotNull(message = "User ID is required")
@@ -1,11 +1,13 @@
 package com.ecohaul.backend.entity;
 
+import com.ecohaul.backend.service.DisposalAgentIndexListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "disposal_agents")
+@EntityListeners(DisposalAgentIndexListener.class)
 public class DisposalAgent {
     
     @Id
@@ -37,6 +39,9 @@ public class DisposalAgent {
     @Column(name = "current_longitude")
     private Double currentLongitude;
     
+    @Column(name = "location_updated_at")
+    private LocalDateTime locationUpdatedAt; // GPS fix time of the current position
+    
     @Column(name = "is_available")
     private Boolean isAvailable = true;
     
@@ -109,6 +114,9 @@ public class DisposalAgent {
     public Double getCurrentLongitude() { return currentLongitude; }
     public void setCurrentLongitude(Double currentLongitude) { this.currentLongitude = currentLongitude; }
     
+    public LocalDateTime getLocationUpdatedAt() { return locationUpdatedAt; }
+    public void setLocationUpdatedAt(LocalDateTime locationUpdatedAt) { this.locationUpdatedAt = locationUpdatedAt; }
+    
     public Boolean getIsAvailable() { return isAvailable; }
     public void setIsAvailable(Boolean isAvailable) { this.isAvailable = isAvailable; }
     
@@ -1,11 +1,13 @@
 package com.ecohaul.backend.entity;
 
+import com.ecohaul.backend.service.DisposalCenterIndexListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "disposal_centers")
+@EntityListeners(DisposalCenterIndexListener.class)
 public class DisposalCenter {
     
     @Id
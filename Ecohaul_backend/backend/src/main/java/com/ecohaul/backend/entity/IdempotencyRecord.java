@@ -0,0 +1,61 @@
+package com.ecohaul.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys",
+       indexes = @Index(name = "idx_idempotency_keys_created", columnList = "created_at"))
+public class IdempotencyRecord {
+    
+    // Method, path, token subject and the client's Idempotency-Key
+    @Id
+    @Column(name = "request_key", length = 512)
+    private String requestKey;
+    
+    @Column(name = "fingerprint", length = 64)
+    private String fingerprint;
+    
+    @Column(name = "status")
+    private Integer status;
+    
+    @Column(name = "content_type")
+    private String contentType;
+    
+    @Lob
+    @Column(name = "body")
+    private byte[] body;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    public IdempotencyRecord() {}
+    
+    public IdempotencyRecord(String requestKey, String fingerprint, Integer status, String contentType,
+                             byte[] body, LocalDateTime createdAt) {
+        this.requestKey = requestKey;
+        this.fingerprint = fingerprint;
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+        this.createdAt = createdAt;
+    }
+    
+    public String getRequestKey() { return requestKey; }
+    public void setRequestKey(String requestKey) { this.requestKey = requestKey; }
+    
+    public String getFingerprint() { return fingerprint; }
+    public void setFingerprint(String fingerprint) { this.fingerprint = fingerprint; }
+    
+    public Integer getStatus() { return status; }
+    public void setStatus(Integer status) { this.status = status; }
+    
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    
+    public byte[] getBody() { return body; }
+    public void setBody(byte[] body) { this.body = body; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
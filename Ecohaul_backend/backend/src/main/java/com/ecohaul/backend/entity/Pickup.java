@@ -0,0 +1,130 @@
+package com.ecohaul.backend.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Entity
+@Table(name = "pickups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_pickups_agent_slot",
+                                             columnNames = {"agent_id", "pickup_date", "pickup_slot"}),
+       indexes = {
+           @Index(name = "idx_pickups_user", columnList = "user_id"),
+           @Index(name = "idx_pickups_date_status", columnList = "pickup_date, status")
+       })
+public class Pickup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull(message = "User ID is required")
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(name = "agent_id")
+    private Long agentId;
+    
+    @NotNull(message = "Pickup date is required")
+    @Column(name = "pickup_date")
+    private LocalDate pickupDate;
+    
+    @Column(name = "pickup_time")
+    private String pickupTime; // as requested, e.g. "10:00 AM"
+    
+    @Column(name = "pickup_slot")
+    private LocalTime pickupSlot; // pickupTime truncated to the dispatch slot, cleared on cancel
+    
+    @Column(name = "address")
+    private String address;
+    
+    @Column(name = "latitude")
+    private Double latitude;
+    
+    @Column(name = "longitude")
+    private Double longitude;
+    
+    @Column(name = "total_weight")
+    private Double totalWeight; // in grams
+    
+    @Column(name = "status")
+    private String status = "Scheduled"; // Scheduled, In Progress, Completed, Cancelled
+    
+    @Column(name = "estimated_fee")
+    private Double estimatedFee;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public Pickup() {}
+    
+    public Pickup(Long userId, LocalDate pickupDate, String pickupTime, String address) {
+        this.userId = userId;
+        this.pickupDate = pickupDate;
+        this.pickupTime = pickupTime;
+        this.address = address;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    // Lifecycle callbacks
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public Long getAgentId() { return agentId; }
+    public void setAgentId(Long agentId) { this.agentId = agentId; }
+    
+    public LocalDate getPickupDate() { return pickupDate; }
+    public void setPickupDate(LocalDate pickupDate) { this.pickupDate = pickupDate; }
+    
+    public String getPickupTime() { return pickupTime; }
+    public void setPickupTime(String pickupTime) { this.pickupTime = pickupTime; }
+    
+    public LocalTime getPickupSlot() { return pickupSlot; }
+    public void setPickupSlot(LocalTime pickupSlot) { this.pickupSlot = pickupSlot; }
+    
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+    
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    
+    public Double getTotalWeight() { return totalWeight; }
+    public void setTotalWeight(Double totalWeight) { this.totalWeight = totalWeight; }
+    
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    
+    public Double getEstimatedFee() { return estimatedFee; }
+    public void setEstimatedFee(Double estimatedFee) { this.estimatedFee = estimatedFee; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -6,7 +6,11 @@ import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "waste_records")
+@Table(name = "waste_records",
+       indexes = {
+           @Index(name = "idx_waste_records_user_scanned", columnList = "user_id, scanned_at, id"),
+           @Index(name = "idx_waste_records_image", columnList = "scan_image_url")
+       })
 public class WasteRecord {
     
     @Id
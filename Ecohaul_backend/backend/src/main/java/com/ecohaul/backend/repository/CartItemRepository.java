@@ -0,0 +1,35 @@
+package com.ecohaul.backend.repository;
+
+import com.ecohaul.backend.entity.CartItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+    
+    @Query("SELECT COALESCE(SUM(c.weight * COALESCE(c.quantity, 1)), 0) FROM CartItem c " +
+           "WHERE c.userId = :userId AND c.isReadyForPickup = true")
+    double sumReadyWeightByUserId(@Param("userId") Long userId);
+    
+    List<CartItem> findByUserIdOrderByIdAsc(Long userId);
+    
+    List<CartItem> findByUserIdAndIdIn(Long userId, Collection<Long> ids);
+    
+    // One DELETE statement, not a load-then-delete per row like a derived deleteBy
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CartItem c WHERE c.userId = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CartItem c WHERE c.userId = :userId AND c.id IN :ids")
+    int deleteByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+}
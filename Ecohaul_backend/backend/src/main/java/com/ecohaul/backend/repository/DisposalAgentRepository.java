@@ -0,0 +1,29 @@
+package com.ecohaul.backend.repository;
+
+import com.ecohaul.backend.entity.DisposalAgent;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface DisposalAgentRepository extends JpaRepository<DisposalAgent, Long> {
+    
+    List<DisposalAgent> findByIsActiveTrue();
+    
+    /**
+     * Active rows in id order as a cursor-backed stream for exports; the caller must be inside a
+     * transaction and close the stream.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a FROM DisposalAgent a WHERE a.isActive = true ORDER BY a.id")
+    Stream<DisposalAgent> streamActive();
+}
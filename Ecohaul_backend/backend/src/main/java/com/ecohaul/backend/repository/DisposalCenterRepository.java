@@ -0,0 +1,29 @@
+package com.ecohaul.backend.repository;
+
+import com.ecohaul.backend.entity.DisposalCenter;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface DisposalCenterRepository extends JpaRepository<DisposalCenter, Long> {
+    
+    List<DisposalCenter> findByIsActiveTrue();
+    
+    /**
+     * Active rows in id order as a cursor-backed stream for exports; the caller must be inside a
+     * transaction and close the stream.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM DisposalCenter c WHERE c.isActive = true ORDER BY c.id")
+    Stream<DisposalCenter> streamActive();
+}
@@ -0,0 +1,18 @@
+package com.ecohaul.backend.repository;
+
+import com.ecohaul.backend.entity.Pickup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PickupRepository extends JpaRepository<Pickup, Long> {
+    
+    List<Pickup> findByUserIdOrderByPickupDateDescPickupSlotDesc(Long userId);
+    
+    List<Pickup> findByPickupDateAndStatus(LocalDate pickupDate, String status);
+    
+    List<Pickup> findByPickupDateGreaterThanEqualAndStatus(LocalDate pickupDate, String status);
+}
@@ -0,0 +1,25 @@
+package com.ecohaul.backend.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns a scan history page lists; selected directly so no WasteRecord entity is loaded.
+ */
+public interface ScanHistoryRow {
+
+    Long getId();
+
+    String getWasteType();
+
+    String getCategory();
+
+    Double getWeight();
+
+    Double getConfidenceScore();
+
+    Boolean getIsRecyclable();
+
+    String getDisposalStatus();
+
+    LocalDateTime getScannedAt();
+}
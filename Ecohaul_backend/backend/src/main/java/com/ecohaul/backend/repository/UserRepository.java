@@ -0,0 +1,16 @@
+package com.ecohaul.backend.repository;
+
+import com.ecohaul.backend.entity.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UserRepository extends JpaRepository<User, Long> {
+    
+    // Emails are stored lower-cased, so an exact match can use the unique index
+    Optional<User> findByEmail(String email);
+    
+    boolean existsByEmail(String email);
+}
@@ -0,0 +1,47 @@
+package com.ecohaul.backend.repository;
+
+import com.ecohaul.backend.entity.WasteRecord;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WasteRecordRepository extends JpaRepository<WasteRecord, Long> {
+    
+    /**
+     * Newest scans of a user, first page. Served by idx_waste_records_user_scanned
+     * (user_id, scanned_at, id) read backwards, so only {@code limit} index entries are visited.
+     */
+    @Query("SELECT w.id AS id, w.wasteType AS wasteType, w.category AS category, w.weight AS weight, "
+            + "w.confidenceScore AS confidenceScore, w.isRecyclable AS isRecyclable, "
+            + "w.disposalStatus AS disposalStatus, w.scannedAt AS scannedAt "
+            + "FROM WasteRecord w WHERE w.userId = :userId "
+            + "ORDER BY w.scannedAt DESC, w.id DESC")
+    List<ScanHistoryRow> findHistory(@Param("userId") Long userId, Limit limit);
+    
+    /**
+     * The page after the row at ({@code scannedAt}, {@code id}): a keyset seek instead of an
+     * OFFSET, so page 500 costs the same as page 1.
+     */
+    @Query("SELECT w.id AS id, w.wasteType AS wasteType, w.category AS category, w.weight AS weight, "
+            + "w.confidenceScore AS confidenceScore, w.isRecyclable AS isRecyclable, "
+            + "w.disposalStatus AS disposalStatus, w.scannedAt AS scannedAt "
+            + "FROM WasteRecord w WHERE w.userId = :userId "
+            + "AND (w.scannedAt, w.id) < (:scannedAt, :id) "
+            + "ORDER BY w.scannedAt DESC, w.id DESC")
+    List<ScanHistoryRow> findHistoryAfter(@Param("userId") Long userId, @Param("scannedAt") LocalDateTime scannedAt,
+                                          @Param("id") Long id, Limit limit);
+    
+    /**
+     * Which of {@code urls} are still some record's scan image (blob store GC); one indexed
+     * lookup per batch of candidates.
+     */
+    @Query("SELECT DISTINCT w.scanImageUrl FROM WasteRecord w WHERE w.scanImageUrl IN :urls")
+    List<String> findReferencedImageUrls(@Param("urls") Collection<String> urls);
+}
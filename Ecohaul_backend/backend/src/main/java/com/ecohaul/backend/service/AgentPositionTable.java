@@ -0,0 +1,224 @@
+package com.ecohaul.backend.service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Agent Position Table
+ * Lock-free table of the latest GPS fix per agent, stored in primitive arrays.
+ *
+ * Each agent owns a slot. Latitude/longitude are kept as raw double bits next to the fix time,
+ * and a per-slot sequence number (odd while a write is in progress) lets readers retry instead
+ * of locking. A ping only overwrites the slot, so any number of pings between two flushes
+ * collapse into one dirty slot holding the newest position. Removing an agent frees its slot for
+ * the next new agent; writers check the slot's owner under the sequence lock, so a ping that
+ * looked the slot up before the removal cannot land in the new owner's position.
+ */
+public class AgentPositionTable {
+    
+    // Owner of a slot that was freed and not yet reused
+    private static final long NO_AGENT = Long.MIN_VALUE;
+    
+    private final int capacity;
+    private final Map<Long, Integer> slotsByAgent = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final Queue<Integer> freeSlots = new ConcurrentLinkedQueue<>();
+    
+    private final AtomicLongArray agentIds;
+    private final AtomicLongArray sequence;
+    private final AtomicLongArray latitudeBits;
+    private final AtomicLongArray longitudeBits;
+    private final AtomicLongArray fixTimes;
+    private final AtomicIntegerArray dirty;
+    
+    public AgentPositionTable(int capacity) {
+        this.capacity = capacity;
+        this.agentIds = new AtomicLongArray(capacity);
+        this.sequence = new AtomicLongArray(capacity);
+        this.latitudeBits = new AtomicLongArray(capacity);
+        this.longitudeBits = new AtomicLongArray(capacity);
+        this.fixTimes = new AtomicLongArray(capacity);
+        this.dirty = new AtomicIntegerArray(capacity);
+    }
+    
+    /**
+     * Record a fix. Fixes older than the one already stored are ignored.
+     *
+     * @param markDirty false when loading positions that already match the database
+     * @return true if the fix became the agent's current position
+     */
+    public boolean update(long agentId, double latitude, double longitude, long fixTimeMillis, boolean markDirty) {
+        int slot;
+        long seq;
+        while (true) {
+            slot = slotFor(agentId);
+            seq = lock(slot);
+            if (agentIds.get(slot) == agentId) {
+                break;
+            }
+            // Removed (and maybe handed to another agent) since the lookup
+            sequence.set(slot, seq + 2);
+        }
+        
+        boolean applied = fixTimeMillis >= fixTimes.get(slot);
+        if (applied) {
+            latitudeBits.set(slot, Double.doubleToRawLongBits(latitude));
+            longitudeBits.set(slot, Double.doubleToRawLongBits(longitude));
+            fixTimes.set(slot, fixTimeMillis);
+        }
+        sequence.set(slot, seq + 2);
+        
+        if (applied && markDirty) {
+            dirty.set(slot, 1);
+        }
+        return applied;
+    }
+    
+    /**
+     * Latest fix for the agent, or null if it never reported one.
+     */
+    public AgentPosition get(long agentId) {
+        Integer slot = slotsByAgent.get(agentId);
+        AgentPosition position = slot != null ? read(slot) : null;
+        return position != null && position.getAgentId() == agentId ? position : null;
+    }
+    
+    /**
+     * Forget the agent and free its slot. A position not yet drained is dropped with it.
+     *
+     * @return true if the agent had a slot
+     */
+    public boolean remove(long agentId) {
+        Integer slot = slotsByAgent.remove(agentId);
+        if (slot == null) {
+            return false;
+        }
+        long seq = lock(slot);
+        agentIds.set(slot, NO_AGENT);
+        fixTimes.set(slot, 0);
+        dirty.set(slot, 0);
+        sequence.set(slot, seq + 2);
+        freeSlots.offer(slot);
+        return true;
+    }
+    
+    /**
+     * Hand every slot updated since the last drain to the consumer and clear its dirty flag.
+     * A ping racing with the drain simply re-marks the slot for the next round.
+     */
+    public int drainDirty(PositionConsumer consumer) {
+        int drained = 0;
+        int used = Math.min(nextSlot.get(), capacity);
+        for (int slot = 0; slot < used; slot++) {
+            if (dirty.get(slot) == 1 && dirty.compareAndSet(slot, 1, 0)) {
+                AgentPosition position = read(slot);
+                if (position != null) {
+                    consumer.accept(position);
+                    drained++;
+                }
+            }
+        }
+        return drained;
+    }
+    
+    /**
+     * Put a position back on the dirty list, e.g. after a failed flush.
+     */
+    public void markDirty(long agentId) {
+        Integer slot = slotsByAgent.get(agentId);
+        if (slot != null) {
+            dirty.set(slot, 1);
+        }
+    }
+    
+    public int size() {
+        return slotsByAgent.size();
+    }
+    
+    public int capacity() {
+        return capacity;
+    }
+    
+    private AgentPosition read(int slot) {
+        while (true) {
+            long before = sequence.get(slot);
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            long agentId = agentIds.get(slot);
+            long fixTime = fixTimes.get(slot);
+            double latitude = Double.longBitsToDouble(latitudeBits.get(slot));
+            double longitude = Double.longBitsToDouble(longitudeBits.get(slot));
+            if (sequence.get(slot) == before) {
+                return fixTime > 0 ? new AgentPosition(agentId, latitude, longitude, fixTime) : null;
+            }
+        }
+    }
+    
+    private int slotFor(long agentId) {
+        Integer slot = slotsByAgent.get(agentId);
+        if (slot != null) {
+            return slot;
+        }
+        return slotsByAgent.computeIfAbsent(agentId, id -> {
+            Integer free = freeSlots.poll();
+            int allocated;
+            if (free != null) {
+                allocated = free;
+            } else {
+                allocated = nextSlot.getAndIncrement();
+                if (allocated >= capacity) {
+                    nextSlot.decrementAndGet();
+                    throw new IllegalStateException("Agent position table is full (" + capacity + " agents)");
+                }
+            }
+            agentIds.set(allocated, id);
+            return allocated;
+        });
+    }
+    
+    /**
+     * Take the slot's write lock (an odd sequence number) and return the even value it had.
+     */
+    private long lock(int slot) {
+        long seq;
+        do {
+            seq = sequence.get(slot);
+        } while ((seq & 1) != 0 || !sequence.compareAndSet(slot, seq, seq + 1));
+        return seq;
+    }
+    
+    @FunctionalInterface
+    public interface PositionConsumer {
+        void accept(AgentPosition position);
+    }
+    
+    /**
+     * Immutable copy of one slot.
+     */
+    public static final class AgentPosition {
+        
+        private final long agentId;
+        private final double latitude;
+        private final double longitude;
+        private final long fixTimeMillis;
+        
+        public AgentPosition(long agentId, double latitude, double longitude, long fixTimeMillis) {
+            this.agentId = agentId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.fixTimeMillis = fixTimeMillis;
+        }
+        
+        public long getAgentId() { return agentId; }
+        public double getLatitude() { return latitude; }
+        public double getLongitude() { return longitude; }
+        public long getFixTimeMillis() { return fixTimeMillis; }
+    }
+}
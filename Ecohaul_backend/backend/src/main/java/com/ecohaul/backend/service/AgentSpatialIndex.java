@@ -0,0 +1,117 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.util.GeoUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Grid index over live agent positions.
+ *
+ * Agents are bucketed by the cell of their latest fix; a ping only touches the index when the
+ * agent crosses into another cell. Lookups visit rings of cells around the origin until enough
+ * candidates are found or the radius is exhausted, so dispatch never scans the whole fleet.
+ */
+public class AgentSpatialIndex {
+    
+    private final double cellSizeDegrees;
+    private final Map<Long, Set<Long>> agentsByCell = new ConcurrentHashMap<>();
+    private final Map<Long, Placement> placementByAgent = new ConcurrentHashMap<>();
+    
+    public AgentSpatialIndex(double cellSizeDegrees) {
+        this.cellSizeDegrees = cellSizeDegrees;
+    }
+    
+    /**
+     * Place the agent at a fix. A fix older than the one the agent is placed at is ignored, so
+     * concurrent pings can never leave the index behind the position table.
+     */
+    public void move(long agentId, double latitude, double longitude, long fixTimeMillis) {
+        long cell = cellKey(cellIndex(latitude), cellIndex(longitude));
+        // compute() runs atomically per agent, so cell membership changes with the placement
+        placementByAgent.compute(agentId, (id, current) -> {
+            if (current != null && current.fixTimeMillis > fixTimeMillis) {
+                return current;
+            }
+            if (current == null || current.cell != cell) {
+                if (current != null) {
+                    leave(current.cell, agentId);
+                }
+                agentsByCell.computeIfAbsent(cell, key -> ConcurrentHashMap.newKeySet()).add(agentId);
+            }
+            return new Placement(cell, fixTimeMillis);
+        });
+    }
+    
+    public void remove(long agentId) {
+        placementByAgent.computeIfPresent(agentId, (id, current) -> {
+            leave(current.cell, agentId);
+            return null;
+        });
+    }
+    
+    /**
+     * Agent ids whose cell lies within the radius' bounding rings, nearest rings first.
+     * Stops expanding once at least {@code minCandidates} agents have been collected.
+     * Distances are not checked here; callers score the candidates with exact positions.
+     */
+    public List<Long> candidatesNear(double latitude, double longitude, double radiusKm, int minCandidates) {
+        int originLat = cellIndex(latitude);
+        int originLon = cellIndex(longitude);
+        int maxRing = (int) Math.ceil(Math.max(GeoUtils.kmToLatitudeDegrees(radiusKm),
+                Math.min(180.0, GeoUtils.kmToLongitudeDegrees(radiusKm, latitude))) / cellSizeDegrees) + 1;
+        
+        List<Long> candidates = new ArrayList<>();
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (ring == 0) {
+                addCell(originLat, originLon, candidates);
+            } else {
+                for (int lonIdx = originLon - ring; lonIdx <= originLon + ring; lonIdx++) {
+                    addCell(originLat - ring, lonIdx, candidates);
+                    addCell(originLat + ring, lonIdx, candidates);
+                }
+                for (int latIdx = originLat - ring + 1; latIdx <= originLat + ring - 1; latIdx++) {
+                    addCell(latIdx, originLon - ring, candidates);
+                    addCell(latIdx, originLon + ring, candidates);
+                }
+            }
+            // One extra ring after reaching the quota catches agents just across a cell edge
+            if (candidates.size() >= minCandidates && ring > 0) {
+                break;
+            }
+        }
+        return candidates;
+    }
+    
+    public int size() {
+        return placementByAgent.size();
+    }
+    
+    private void leave(long cell, long agentId) {
+        Set<Long> members = agentsByCell.get(cell);
+        if (members != null) {
+            members.remove(agentId);
+        }
+    }
+    
+    private void addCell(int latIdx, int lonIdx, List<Long> out) {
+        Set<Long> members = agentsByCell.get(cellKey(latIdx, lonIdx));
+        if (members != null) {
+            out.addAll(members);
+        }
+    }
+    
+    private int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / cellSizeDegrees);
+    }
+    
+    private static long cellKey(int latIdx, int lonIdx) {
+        return ((long) latIdx << 32) | (lonIdx & 0xffffffffL);
+    }
+    
+    private record Placement(long cell, long fixTimeMillis) {
+    }
+}
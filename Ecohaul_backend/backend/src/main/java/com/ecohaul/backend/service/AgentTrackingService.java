@@ -0,0 +1,234 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.DisposalAgent;
+import com.ecohaul.backend.repository.DisposalAgentRepository;
+import com.ecohaul.backend.service.AgentPositionTable.AgentPosition;
+import com.ecohaul.backend.util.GeoUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Agent Tracking Service
+ * Ingests GPS pings from agent vehicles and serves agent reads from memory.
+ *
+ * Pings land in the {@link AgentPositionTable}; a scheduled write-behind flush pushes only the
+ * latest position of each agent that moved since the previous flush to disposal_agents, in
+ * JDBC batches. The fix time goes to location_updated_at, which the updated_at trigger leaves
+ * alone. Agent metadata is loaded once and kept current by {@link DisposalAgentIndexListener}.
+ * An {@link AgentSpatialIndex} follows the live positions for dispatch lookups.
+ */
+@Service
+public class AgentTrackingService {
+
+    private static final Logger log = LoggerFactory.getLogger(AgentTrackingService.class);
+
+    private static final String UPDATE_POSITION_SQL =
+            "UPDATE disposal_agents SET current_latitude = ?, current_longitude = ?, location_updated_at = ? WHERE id = ?";
+
+    @Autowired
+    private DisposalAgentRepository disposalAgentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${ecohaul.agents.position-capacity:16384}")
+    private int positionCapacity;
+
+    @Value("${ecohaul.agents.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    @Value("${ecohaul.agents.max-clock-skew-ms:30000}")
+    private long maxClockSkewMillis = 30000;
+
+    @Value("${ecohaul.geo.cell-size-degrees:0.05}")
+    private double cellSizeDegrees;
+
+    private final Map<Long, IndexedAgent> agentsById = new ConcurrentHashMap<>();
+    private AgentPositionTable positions;
+    private AgentSpatialIndex spatialIndex;
+
+    @PostConstruct
+    public void loadFromDatabase() {
+        positions = new AgentPositionTable(positionCapacity);
+        spatialIndex = new AgentSpatialIndex(cellSizeDegrees);
+        for (DisposalAgent agent : disposalAgentRepository.findByIsActiveTrue()) {
+            upsert(agent);
+        }
+        log.info("Tracking {} active disposal agents", agentsById.size());
+    }
+
+    /**
+     * Insert or replace agent metadata. The stored position only seeds the table; live pings win.
+     */
+    public void upsert(DisposalAgent agent) {
+        if (agent.getId() == null) {
+            return;
+        }
+        if (Boolean.FALSE.equals(agent.getIsActive())) {
+            remove(agent.getId());
+            return;
+        }
+        agentsById.put(agent.getId(), IndexedAgent.from(agent));
+        if (agent.getCurrentLatitude() != null && agent.getCurrentLongitude() != null
+                && positions.get(agent.getId()) == null) {
+            // Rows written before location_updated_at existed fall back to the row's update time
+            LocalDateTime fixedAt = agent.getLocationUpdatedAt() != null
+                    ? agent.getLocationUpdatedAt() : agent.getUpdatedAt();
+            long fixTime = fixedAt != null
+                    ? fixedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : System.currentTimeMillis();
+            positions.update(agent.getId(), agent.getCurrentLatitude(), agent.getCurrentLongitude(), fixTime, false);
+            spatialIndex.move(agent.getId(), agent.getCurrentLatitude(), agent.getCurrentLongitude(), fixTime);
+        }
+    }
+
+    public void remove(Long agentId) {
+        agentsById.remove(agentId);
+        spatialIndex.remove(agentId);
+        positions.remove(agentId);
+    }
+
+    /**
+     * Record a GPS ping. Returns false for unknown agents. A fix time further ahead of now than
+     * max-clock-skew-ms is taken as now, so one ping from a fast device clock cannot shadow the
+     * agent's later pings until real time catches up.
+     */
+    public boolean recordPing(long agentId, double latitude, double longitude, long fixTimeMillis) {
+        if (!agentsById.containsKey(agentId)) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (fixTimeMillis > now + maxClockSkewMillis) {
+            fixTimeMillis = now;
+        }
+        if (positions.update(agentId, latitude, longitude, fixTimeMillis, true)) {
+            // Place the agent at whatever the table now holds, which a concurrent newer ping may
+            // already have replaced; the index ignores fixes older than the agent's placement
+            AgentPosition latest = positions.get(agentId);
+            if (latest != null) {
+                spatialIndex.move(agentId, latest.getLatitude(), latest.getLongitude(), latest.getFixTimeMillis());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Available agents near a point with their live positions, for dispatch scoring.
+     * Only the grid cells around the point are visited.
+     */
+    public List<TrackedAgent> findAvailableNear(double latitude, double longitude, double radiusKm, int minCandidates) {
+        List<TrackedAgent> result = new ArrayList<>();
+        for (Long agentId : spatialIndex.candidatesNear(latitude, longitude, radiusKm, minCandidates)) {
+            IndexedAgent agent = agentsById.get(agentId);
+            if (agent == null || !agent.isAvailable()) {
+                continue;
+            }
+            TrackedAgent tracked = new TrackedAgent(agent, positions.get(agentId), latitude, longitude);
+            if (tracked.getDistanceKm() <= radiusKm) {
+                result.add(tracked);
+            }
+        }
+        return result;
+    }
+
+    public IndexedAgent getAgent(Long agentId) {
+        return agentsById.get(agentId);
+    }
+
+    public AgentPosition getPosition(Long agentId) {
+        return positions.get(agentId);
+    }
+
+    /**
+     * Agents (optionally only available ones) with their live positions,
+     * closest first when an origin is given, otherwise by id.
+     */
+    public List<TrackedAgent> findAgents(Double latitude, Double longitude, boolean availableOnly) {
+        List<TrackedAgent> result = new ArrayList<>();
+        for (IndexedAgent agent : agentsById.values()) {
+            if (availableOnly && !agent.isAvailable()) {
+                continue;
+            }
+            result.add(new TrackedAgent(agent, positions.get(agent.getId()), latitude, longitude));
+        }
+        if (latitude != null && longitude != null) {
+            result.sort(Comparator.comparingDouble(TrackedAgent::getDistanceKm));
+        } else {
+            result.sort(Comparator.comparing(tracked -> tracked.getAgent().getId()));
+        }
+        return result;
+    }
+
+    /**
+     * Write-behind flush: one batched UPDATE per agent that moved since the last run.
+     */
+    @Scheduled(fixedDelayString = "${ecohaul.agents.flush-interval-ms:5000}")
+    public void flushPositions() {
+        List<AgentPosition> pending = new ArrayList<>();
+        positions.drainDirty(pending::add);
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < pending.size(); from += flushBatchSize) {
+            List<AgentPosition> batch = pending.subList(from, Math.min(pending.size(), from + flushBatchSize));
+            try {
+                jdbcTemplate.batchUpdate(UPDATE_POSITION_SQL, batch, batch.size(), (ps, position) -> {
+                    ps.setDouble(1, position.getLatitude());
+                    ps.setDouble(2, position.getLongitude());
+                    ps.setTimestamp(3, new Timestamp(position.getFixTimeMillis()));
+                    ps.setLong(4, position.getAgentId());
+                });
+            } catch (Exception e) {
+                log.warn("Failed to flush {} agent positions, will retry: {}", batch.size(), e.getMessage());
+                for (AgentPosition position : batch) {
+                    positions.markDirty(position.getAgentId());
+                }
+            }
+        }
+        log.debug("Flushed {} agent positions", pending.size());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushPositions();
+    }
+
+    /**
+     * Agent metadata joined with its live position and optional distance to an origin.
+     */
+    public static final class TrackedAgent {
+
+        private final IndexedAgent agent;
+        private final AgentPosition position;
+        private final double distanceKm;
+
+        TrackedAgent(IndexedAgent agent, AgentPosition position, Double latitude, Double longitude) {
+            this.agent = agent;
+            this.position = position;
+            this.distanceKm = position != null && latitude != null && longitude != null
+                    ? GeoUtils.haversineKm(latitude, longitude,
+                            position.getLatitude(), position.getLongitude())
+                    : Double.MAX_VALUE;
+        }
+
+        public IndexedAgent getAgent() { return agent; }
+        public AgentPosition getPosition() { return position; }
+        public double getDistanceKm() { return distanceKm; }
+    }
+}
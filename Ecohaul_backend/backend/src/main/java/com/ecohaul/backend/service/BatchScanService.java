@@ -0,0 +1,151 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.service.WasteScanService.Scan;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Batch Scan Service
+ * Fans a batch of scan images out and reports each result as soon as it is ready.
+ *
+ * Reading an image into its pooled buffer runs on a bounded I/O pool; detection is queued on the
+ * shared {@link InferenceService} pool, the same one single scans use. A full I/O queue makes the
+ * submitting thread read the image itself, which slows the batch down instead of dropping it; a
+ * full inference queue fails only that item. Every item ends in exactly one {@link ItemResult}, success or
+ * error, so one bad image never fails the batch.
+ */
+@Service
+public class BatchScanService {
+
+    @Autowired
+    private WasteScanService wasteScanService;
+
+    @Value("${ecohaul.scanner.batch.max-images:50}")
+    private int maxImages;
+
+    @Value("${ecohaul.scanner.batch.io-threads:8}")
+    private int ioThreads;
+
+    @Value("${ecohaul.scanner.batch.queue-capacity:256}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor ioPool;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        ioPool = new ThreadPoolExecutor(ioThreads, ioThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "scan-io-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ioPool.shutdown();
+    }
+
+    public int getMaxImages() {
+        return maxImages;
+    }
+
+    /**
+     * Read the image on the I/O pool, then classify it on the inference pool. {@code onResult}
+     * is called once, from a pool thread (or the caller when the I/O queue is full).
+     */
+    public void submit(int index, String name, ImageSource source, Consumer<ItemResult> onResult) {
+        CompletableFuture
+                .supplyAsync(() -> {
+                    try (InputStream in = source.open()) {
+                        return wasteScanService.readImage(in);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, ioPool)
+                .thenAccept(buffer -> classify(index, name, buffer, onResult))
+                .exceptionally(failure -> {
+                    onResult.accept(ItemResult.failed(index, name, failure));
+                    return null;
+                });
+    }
+
+    /**
+     * Classify an image already read by the caller (e.g. decoded from a JSON batch). The buffer
+     * is released once detection finishes.
+     */
+    public void classify(int index, String name, ByteBuffer image, Consumer<ItemResult> onResult) {
+        CompletableFuture<Scan> scan;
+        try {
+            scan = wasteScanService.classifyAsync(image);
+        } catch (RuntimeException e) {
+            // Empty image or inference queue full
+            wasteScanService.release(image);
+            onResult.accept(ItemResult.failed(index, name, e));
+            return;
+        }
+        scan.whenComplete((result, failure) -> {
+            wasteScanService.release(image);
+            onResult.accept(failure == null
+                    ? ItemResult.scanned(index, name, result)
+                    : ItemResult.failed(index, name, failure));
+        });
+    }
+
+    @FunctionalInterface
+    public interface ImageSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Outcome of one image: either a scan or an error message.
+     */
+    public static final class ItemResult {
+
+        private final int index;
+        private final String name;
+        private final Scan scan;
+        private final String error;
+
+        private ItemResult(int index, String name, Scan scan, String error) {
+            this.index = index;
+            this.name = name;
+            this.scan = scan;
+            this.error = error;
+        }
+
+        public static ItemResult scanned(int index, String name, Scan scan) {
+            return new ItemResult(index, name, scan, null);
+        }
+
+        public static ItemResult failed(int index, String name, Throwable failure) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+            return new ItemResult(index, name, null,
+                    cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+        }
+
+        public int getIndex() { return index; }
+        public String getName() { return name; }
+        public Scan getScan() { return scan; }
+        public String getError() { return error; }
+        public boolean isSuccess() { return scan != null; }
+    }
+}
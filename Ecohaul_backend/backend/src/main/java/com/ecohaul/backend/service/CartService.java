@@ -0,0 +1,493 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.CartItem;
+import com.ecohaul.backend.repository.CartItemRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Cart Service
+ * Per-user carts persisted as {@link CartItem} rows and fronted by a cache of whole carts.
+ *
+ * A user's cart is loaded once, with one query, into a Caffeine cache that drops it after
+ * {@code ecohaul.cart.idle-minutes} without use. Every change is written through: the row is
+ * saved or deleted first and the cached cart is updated after, under the cart's own lock, so
+ * the cache never holds anything the database does not. A cart evicted while a change is in
+ * flight may be reloaded before that change commits; such a copy is dropped once it has, so
+ * the next read loads the committed rows. Item count, weight and value totals
+ * are kept as running sums adjusted by each change's delta, so reading a cart is a copy of the
+ * cached lines and never a database query or a pass over the items. Item values come from the
+ * {@link PricingEngine} when the item is written.
+ *
+ * Hits, misses and idle evictions are exported as cache "carts".
+ */
+@Service
+public class CartService {
+
+    public static final String CACHE_NAME = "carts";
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private PricingEngine pricingEngine;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${ecohaul.cart.idle-minutes:30}")
+    private long idleMinutes = 30;
+
+    @Value("${ecohaul.cart.max-users:50000}")
+    private long maxUsers = 50000;
+
+    @Value("${ecohaul.cart.max-bulk-items:500}")
+    private int maxBulkItems = 500;
+
+    private Cache<Long, Cart> carts;
+
+    @PostConstruct
+    public void init() {
+        carts = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .recordStats()
+                .build();
+        MeterRegistry registry = meterRegistry != null ? meterRegistry.getIfAvailable() : null;
+        if (registry != null) {
+            CaffeineCacheMetrics.monitor(registry, carts, CACHE_NAME);
+        }
+    }
+
+    /**
+     * The user's cart; served from the cache once loaded.
+     */
+    public CartView getCart(Long userId) {
+        Cart cart = cart(userId);
+        synchronized (cart) {
+            return cart.view();
+        }
+    }
+
+    /**
+     * Add an item; its category and estimated value are derived from the waste type.
+     */
+    public CartLine add(Long userId, String wasteType, double weight, int quantity, Long wasteRecordId) {
+        requireWeight(weight, quantity);
+        Cart cart = cart(userId);
+        synchronized (cart) {
+            CartItem item = newItem(userId, wasteType, weight, quantity, wasteRecordId);
+            CartLine line = new CartLine(cartItemRepository.save(item));
+            cart.put(line);
+            written(userId, cart);
+            return line;
+        }
+    }
+
+    /**
+     * Change an item's waste type, weight and/or quantity (null keeps the current value). Throws
+     * NoSuchElementException when there is no such item.
+     */
+    public CartLine update(Long cartItemId, String wasteType, Double weight, Integer quantity) {
+        CartItem item = cartItemRepository.findById(cartItemId)
+                .orElseThrow(() -> new NoSuchElementException("Cart item not found"));
+        Cart cart = cart(item.getUserId());
+        synchronized (cart) {
+            // The cached line, not the row read before locking, is current under the lock
+            CartLine current = cart.lines.get(cartItemId);
+            if (current == null) {
+                throw new NoSuchElementException("Cart item not found");
+            }
+            ItemChange change = new ItemChange(cartItemId, wasteType, weight, quantity, null);
+            requireWeight(change, current);
+            apply(item, change, current);
+            CartLine line = new CartLine(cartItemRepository.save(item));
+            cart.put(line);
+            written(item.getUserId(), cart);
+            return line;
+        }
+    }
+
+    /**
+     * Apply many changes to one user's cart in a single transaction: removals, then updates, then
+     * additions, with inserts and updates sent as JDBC batches. Nothing is applied when a change
+     * is invalid or touches an item twice (IllegalArgumentException) or names an item that is not
+     * in the cart (NoSuchElementException).
+     */
+    public BulkResult bulk(Long userId, List<ItemChange> adds, List<ItemChange> updates, List<Long> removes) {
+        if (adds.size() + updates.size() + removes.size() > maxBulkItems) {
+            throw new IllegalArgumentException("At most " + maxBulkItems + " cart changes per request");
+        }
+        for (ItemChange add : adds) {
+            if (add.wasteType == null || add.weight == null) {
+                throw new IllegalArgumentException("Waste type and weight are required for each added item");
+            }
+            requireWeight(add.weight, add.quantity != null ? add.quantity : 1);
+        }
+        Cart cart = cart(userId);
+        synchronized (cart) {
+            // Checked against the cached cart, which holds exactly the user's rows
+            Set<Long> touched = new HashSet<>();
+            Map<Long, ItemChange> changes = new HashMap<>();
+            for (ItemChange update : updates) {
+                CartLine current = existing(cart, update.cartItemId, touched);
+                requireWeight(update, current);
+                changes.put(update.cartItemId, update);
+            }
+            for (Long cartItemId : removes) {
+                existing(cart, cartItemId, touched);
+            }
+
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            List<CartItem> saved = transaction.execute(status -> {
+                if (!removes.isEmpty()) {
+                    cartItemRepository.deleteByUserIdAndIdIn(userId, removes);
+                }
+                List<CartItem> items = new ArrayList<>(changes.size() + adds.size());
+                if (!changes.isEmpty()) {
+                    for (CartItem item : cartItemRepository.findByUserIdAndIdIn(userId, changes.keySet())) {
+                        apply(item, changes.get(item.getId()), cart.lines.get(item.getId()));
+                        items.add(item);
+                    }
+                    if (items.size() != changes.size()) {
+                        // Rolls back the removals too
+                        throw new NoSuchElementException("Cart item not found");
+                    }
+                }
+                for (ItemChange add : adds) {
+                    items.add(newItem(userId, add.wasteType, add.weight,
+                            add.quantity != null ? add.quantity : 1, add.wasteRecordId));
+                }
+                return cartItemRepository.saveAll(items);
+            });
+
+            // Committed; bring the cached cart up to date
+            for (Long cartItemId : removes) {
+                cart.remove(cartItemId);
+            }
+            List<CartLine> updated = new ArrayList<>(changes.size());
+            List<CartLine> added = new ArrayList<>(adds.size());
+            for (CartItem item : saved) {
+                CartLine line = new CartLine(item);
+                cart.put(line);
+                (changes.containsKey(item.getId()) ? updated : added).add(line);
+            }
+            written(userId, cart);
+            return new BulkResult(added, updated, new ArrayList<>(removes), cart.view());
+        }
+    }
+
+    /**
+     * Remove an item. Throws NoSuchElementException when there is no such item.
+     */
+    public CartLine remove(Long cartItemId) {
+        CartItem item = cartItemRepository.findById(cartItemId)
+                .orElseThrow(() -> new NoSuchElementException("Cart item not found"));
+        Cart cart = cart(item.getUserId());
+        synchronized (cart) {
+            cartItemRepository.deleteById(cartItemId);
+            CartLine removed = cart.remove(cartItemId);
+            written(item.getUserId(), cart);
+            return removed;
+        }
+    }
+
+    /**
+     * Empty the user's cart; returns the number of items removed.
+     */
+    public int clear(Long userId) {
+        Cart cart = cart(userId);
+        synchronized (cart) {
+            int removed = cartItemRepository.deleteAllByUserId(userId);
+            cart.clear();
+            written(userId, cart);
+            return removed;
+        }
+    }
+
+    /**
+     * The user's cart priced in one pass against the current price table, for {@code region}
+     * (null for none). Stored item values are left as they are.
+     */
+    public CartValuation valuate(Long userId, String region) {
+        CartView cart = getCart(userId);
+        List<String> wasteTypes = new ArrayList<>(cart.getTotalItems());
+        double[] grams = new double[cart.getTotalItems()];
+        for (CartLine line : cart.getLines()) {
+            grams[wasteTypes.size()] = line.getTotalWeight();
+            wasteTypes.add(line.getWasteType());
+        }
+        return new CartValuation(cart, pricingEngine.valueAll(wasteTypes, grams, region));
+    }
+
+    public long cachedCarts() {
+        return carts.estimatedSize();
+    }
+
+    private Cart cart(Long userId) {
+        return carts.get(userId, this::load);
+    }
+
+    private Cart load(Long userId) {
+        Cart cart = new Cart();
+        for (CartItem item : cartItemRepository.findByUserIdOrderByIdAsc(userId)) {
+            cart.put(new CartLine(item));
+        }
+        return cart;
+    }
+
+    /**
+     * Called under {@code cart}'s lock once a change to it has committed. If {@code cart} was
+     * evicted meanwhile, whatever is cached now may have been loaded before the commit, so it is
+     * dropped. The check waits for a load still in progress for the user.
+     */
+    private void written(Long userId, Cart cart) {
+        carts.asMap().computeIfPresent(userId, (id, cached) -> cached == cart ? cached : null);
+    }
+
+    private CartItem newItem(Long userId, String wasteType, double weight, int quantity, Long wasteRecordId) {
+        CartItem item = new CartItem(userId, wasteType, getCategoryForWasteType(wasteType), weight,
+                pricingEngine.value(wasteType, weight * quantity));
+        item.setQuantity(quantity);
+        item.setWasteRecordId(wasteRecordId);
+        return item;
+    }
+
+    private void apply(CartItem item, ItemChange change, CartLine current) {
+        String wasteType = change.wasteType != null ? change.wasteType : current.wasteType;
+        double weight = change.weight != null ? change.weight : current.weight;
+        int quantity = change.quantity != null ? change.quantity : current.quantity;
+        item.setWasteType(wasteType);
+        item.setCategory(getCategoryForWasteType(wasteType));
+        item.setWeight(weight);
+        item.setQuantity(quantity);
+        item.setEstimatedValue(pricingEngine.value(wasteType, weight * quantity));
+    }
+
+    private static CartLine existing(Cart cart, Long cartItemId, Set<Long> touched) {
+        CartLine current = cartItemId != null ? cart.lines.get(cartItemId) : null;
+        if (current == null) {
+            throw new NoSuchElementException("Cart item " + cartItemId + " not found");
+        }
+        if (!touched.add(cartItemId)) {
+            throw new IllegalArgumentException("Cart item " + cartItemId + " is changed more than once");
+        }
+        return current;
+    }
+
+    private static void requireWeight(ItemChange change, CartLine current) {
+        requireWeight(change.weight != null ? change.weight : current.weight,
+                change.quantity != null ? change.quantity : current.quantity);
+    }
+
+    private static void requireWeight(double weight, int quantity) {
+        if (!(weight > 0) || quantity <= 0) {
+            throw new IllegalArgumentException("Weight and quantity must be positive");
+        }
+    }
+
+    private static String getCategoryForWasteType(String wasteType) {
+        switch (wasteType.toLowerCase()) {
+            case "plastic bottle":
+            case "aluminum can":
+            case "glass bottle":
+            case "paper":
+            case "cardboard":
+                return "Recyclable";
+            default:
+                return "General";
+        }
+    }
+
+    /**
+     * A cached cart: lines in insertion order plus running totals. Guarded by its own monitor.
+     */
+    private static final class Cart {
+
+        private final LinkedHashMap<Long, CartLine> lines = new LinkedHashMap<>();
+        private double totalWeight;
+        private double totalValue;
+        private LocalDateTime lastUpdated = LocalDateTime.now();
+
+        void put(CartLine line) {
+            CartLine previous = lines.put(line.id, line);
+            if (previous != null) {
+                subtract(previous);
+            }
+            totalWeight += line.getTotalWeight();
+            totalValue += line.estimatedValue;
+            lastUpdated = LocalDateTime.now();
+        }
+
+        CartLine remove(Long id) {
+            CartLine removed = lines.remove(id);
+            if (removed != null) {
+                subtract(removed);
+                lastUpdated = LocalDateTime.now();
+            }
+            return removed;
+        }
+
+        void clear() {
+            lines.clear();
+            totalWeight = 0;
+            totalValue = 0;
+            lastUpdated = LocalDateTime.now();
+        }
+
+        private void subtract(CartLine line) {
+            totalWeight -= line.getTotalWeight();
+            totalValue -= line.estimatedValue;
+        }
+
+        CartView view() {
+            // Running sums drift by float rounding; an empty cart is exactly zero
+            boolean empty = lines.isEmpty();
+            return new CartView(new ArrayList<>(lines.values()), empty ? 0 : totalWeight,
+                    empty ? 0 : totalValue, lastUpdated);
+        }
+    }
+
+    /**
+     * Immutable copy of one cart item.
+     */
+    public static final class CartLine {
+
+        private final Long id;
+        private final Long userId;
+        private final Long wasteRecordId;
+        private final String wasteType;
+        private final String category;
+        private final double weight;
+        private final int quantity;
+        private final double estimatedValue;
+        private final LocalDateTime addedAt;
+
+        CartLine(CartItem item) {
+            this.id = item.getId();
+            this.userId = item.getUserId();
+            this.wasteRecordId = item.getWasteRecordId();
+            this.wasteType = item.getWasteType();
+            this.category = item.getCategory();
+            this.weight = item.getWeight() != null ? item.getWeight() : 0;
+            this.quantity = item.getQuantity() != null ? item.getQuantity() : 1;
+            this.estimatedValue = item.getEstimatedValue() != null ? item.getEstimatedValue() : 0;
+            this.addedAt = item.getCreatedAt();
+        }
+
+        public Long getId() { return id; }
+        public Long getUserId() { return userId; }
+        public Long getWasteRecordId() { return wasteRecordId; }
+        public String getWasteType() { return wasteType; }
+        public String getCategory() { return category; }
+        public double getWeight() { return weight; }
+        public int getQuantity() { return quantity; }
+        public double getTotalWeight() { return weight * quantity; }
+        public double getEstimatedValue() { return estimatedValue; }
+        public LocalDateTime getAddedAt() { return addedAt; }
+    }
+
+    public static final class CartView {
+
+        private final List<CartLine> lines;
+        private final double totalWeight;
+        private final double totalValue;
+        private final LocalDateTime lastUpdated;
+
+        CartView(List<CartLine> lines, double totalWeight, double totalValue, LocalDateTime lastUpdated) {
+            this.lines = lines;
+            this.totalWeight = totalWeight;
+            this.totalValue = totalValue;
+            this.lastUpdated = lastUpdated;
+        }
+
+        public List<CartLine> getLines() { return lines; }
+        public int getTotalItems() { return lines.size(); }
+        public double getTotalWeight() { return totalWeight; }
+        public double getTotalValue() { return totalValue; }
+        public LocalDateTime getLastUpdated() { return lastUpdated; }
+    }
+
+    /**
+     * One item to add (no cartItemId) or change (null fields keep the current value).
+     */
+    public static final class ItemChange {
+
+        private final Long cartItemId;
+        private final String wasteType;
+        private final Double weight;
+        private final Integer quantity;
+        private final Long wasteRecordId;
+
+        public ItemChange(Long cartItemId, String wasteType, Double weight, Integer quantity, Long wasteRecordId) {
+            this.cartItemId = cartItemId;
+            this.wasteType = wasteType;
+            this.weight = weight;
+            this.quantity = quantity;
+            this.wasteRecordId = wasteRecordId;
+        }
+
+        public Long getCartItemId() { return cartItemId; }
+        public String getWasteType() { return wasteType; }
+        public Double getWeight() { return weight; }
+        public Integer getQuantity() { return quantity; }
+        public Long getWasteRecordId() { return wasteRecordId; }
+    }
+
+    public static final class BulkResult {
+
+        private final List<CartLine> added;
+        private final List<CartLine> updated;
+        private final List<Long> removed;
+        private final CartView cart;
+
+        BulkResult(List<CartLine> added, List<CartLine> updated, List<Long> removed, CartView cart) {
+            this.added = added;
+            this.updated = updated;
+            this.removed = removed;
+            this.cart = cart;
+        }
+
+        public List<CartLine> getAdded() { return added; }
+        public List<CartLine> getUpdated() { return updated; }
+        public List<Long> getRemoved() { return removed; }
+        public CartView getCart() { return cart; }
+    }
+
+    public static final class CartValuation {
+
+        private final CartView cart;
+        private final PricingEngine.Valuation valuation;
+
+        CartValuation(CartView cart, PricingEngine.Valuation valuation) {
+            this.cart = cart;
+            this.valuation = valuation;
+        }
+
+        public CartView getCart() { return cart; }
+        public PricingEngine.Valuation getValuation() { return valuation; }
+    }
+}
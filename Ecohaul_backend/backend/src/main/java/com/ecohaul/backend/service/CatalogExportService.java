@@ -0,0 +1,190 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.DisposalAgent;
+import com.ecohaul.backend.entity.DisposalCenter;
+import com.ecohaul.backend.repository.DisposalAgentRepository;
+import com.ecohaul.backend.repository.DisposalCenterRepository;
+import com.ecohaul.backend.service.AgentPositionTable.AgentPosition;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Catalog Export Service
+ * Streams the active disposal centers and agents as a GeoJSON FeatureCollection or as NDJSON
+ * (one GeoJSON Feature per line).
+ *
+ * Rows come from a cursor-backed JPA {@link Stream} inside a read-only transaction and go
+ * straight through a Jackson {@link JsonGenerator} to the output; each entity is detached once
+ * written, so the persistence context and the heap stay flat however many rows there are.
+ * Agents are exported at their live tracked position when one is known.
+ */
+@Service
+public class CatalogExportService {
+
+    public static final String LAYER_CENTERS = "centers";
+    public static final String LAYER_AGENTS = "agents";
+
+    public enum Format { GEOJSON, NDJSON }
+
+    @Autowired
+    private DisposalCenterRepository disposalCenterRepository;
+
+    @Autowired
+    private DisposalAgentRepository disposalAgentRepository;
+
+    @Autowired
+    private AgentTrackingService agentTrackingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Write the requested layers to {@code out}. The stream is flushed but not closed.
+     */
+    public void export(Set<String> layers, Format format, OutputStream out) throws IOException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // NDJSON features end with '\n' themselves; no extra separator between root values
+            generator.setRootValueSeparator(null);
+            if (format == Format.GEOJSON) {
+                generator.writeStartObject();
+                generator.writeStringField("type", "FeatureCollection");
+                generator.writeArrayFieldStart("features");
+            }
+            transaction.executeWithoutResult(status -> {
+                try {
+                    if (layers.contains(LAYER_CENTERS)) {
+                        try (Stream<DisposalCenter> centers = disposalCenterRepository.streamActive()) {
+                            for (DisposalCenter center : (Iterable<DisposalCenter>) centers::iterator) {
+                                writeCenter(generator, center);
+                                endFeature(generator, format);
+                                entityManager.detach(center);
+                            }
+                        }
+                    }
+                    if (layers.contains(LAYER_AGENTS)) {
+                        try (Stream<DisposalAgent> agents = disposalAgentRepository.streamActive()) {
+                            for (DisposalAgent agent : (Iterable<DisposalAgent>) agents::iterator) {
+                                writeAgent(generator, agent);
+                                endFeature(generator, format);
+                                entityManager.detach(agent);
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (format == Format.GEOJSON) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    private static void endFeature(JsonGenerator generator, Format format) throws IOException {
+        if (format == Format.NDJSON) {
+            generator.writeRaw('\n');
+        }
+    }
+
+    private static void writeCenter(JsonGenerator generator, DisposalCenter center) throws IOException {
+        startFeature(generator, "center-" + center.getId(), center.getLatitude(), center.getLongitude());
+        generator.writeStringField("layer", LAYER_CENTERS);
+        generator.writeStringField("id", String.valueOf(center.getId()));
+        generator.writeStringField("name", center.getName());
+        generator.writeStringField("address", center.getAddress());
+        generator.writeStringField("phone", center.getPhoneNumber());
+        generator.writeStringField("email", center.getEmail());
+        generator.writeStringField("hours", center.getOperatingHours());
+        generator.writeArrayFieldStart("acceptedWaste");
+        for (String type : IndexedCenter.parseWasteTypes(center.getAcceptedWasteTypes())) {
+            generator.writeString(type);
+        }
+        generator.writeEndArray();
+        generator.writeBooleanField("pickupAvailable", Boolean.TRUE.equals(center.getPickupServiceAvailable()));
+        writeNumberField(generator, "rating", center.getRating());
+        writeNumberField(generator, "totalReviews", center.getTotalReviews());
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    private void writeAgent(JsonGenerator generator, DisposalAgent agent) throws IOException {
+        Double latitude = agent.getCurrentLatitude();
+        Double longitude = agent.getCurrentLongitude();
+        AgentPosition live = agentTrackingService.getPosition(agent.getId());
+        if (live != null) {
+            latitude = live.getLatitude();
+            longitude = live.getLongitude();
+        }
+        startFeature(generator, "agent-" + agent.getId(), latitude, longitude);
+        generator.writeStringField("layer", LAYER_AGENTS);
+        generator.writeStringField("id", String.valueOf(agent.getId()));
+        generator.writeStringField("name", agent.getName());
+        generator.writeStringField("vehicleType", agent.getVehicleType());
+        generator.writeBooleanField("available", Boolean.TRUE.equals(agent.getIsAvailable()));
+        writeNumberField(generator, "rating", agent.getRating());
+        writeNumberField(generator, "totalPickups", agent.getTotalPickups());
+        if (live != null) {
+            generator.writeNumberField("positionTime", live.getFixTimeMillis());
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Opens a Feature and its properties object; rows without coordinates get a null geometry.
+     */
+    private static void startFeature(JsonGenerator generator, String id, Double latitude, Double longitude)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "Feature");
+        generator.writeStringField("id", id);
+        if (latitude != null && longitude != null) {
+            generator.writeObjectFieldStart("geometry");
+            generator.writeStringField("type", "Point");
+            generator.writeArrayFieldStart("coordinates");
+            generator.writeNumber(longitude);
+            generator.writeNumber(latitude);
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } else {
+            generator.writeNullField("geometry");
+        }
+        generator.writeObjectFieldStart("properties");
+    }
+
+    private static void writeNumberField(JsonGenerator generator, String name, Number value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else if (value instanceof Integer) {
+            generator.writeNumberField(name, value.intValue());
+        } else {
+            generator.writeNumberField(name, value.doubleValue());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecohaul.backend.service;
+
+/**
+ * A center returned by a spatial query together with its distance from the search origin.
+ */
+public final class CenterMatch {
+    
+    private final IndexedCenter center;
+    private final double distanceKm;
+    
+    public CenterMatch(IndexedCenter center, double distanceKm) {
+        this.center = center;
+        this.distanceKm = distanceKm;
+    }
+    
+    public IndexedCenter getCenter() { return center; }
+    public double getDistanceKm() { return distanceKm; }
+}
@@ -0,0 +1,148 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.util.FuzzyIndex;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Center Name Search
+ * Search-as-you-type over disposal center names that tolerates typos ("grean vally").
+ *
+ * Every word of every active center name goes into a {@link FuzzyIndex} owned by the centers
+ * using it. A query matches a center when each of its words is within the fuzzy edit budget of
+ * one of the center's words; the last word may also be an unfinished prefix. Centers are ranked
+ * by the total number of edits, then by name. The index is rebuilt lazily by the first search
+ * after a center changes.
+ */
+@Service
+public class CenterNameSearch {
+
+    // Word matches considered per query word before intersecting
+    private static final int CANDIDATES_PER_WORD = 200;
+
+    @Autowired
+    private DisposalCenterIndex index;
+
+    @Value("${ecohaul.search.max-terms:100000}")
+    private int maxTerms = 100000;
+
+    // Bumped on every center change; a snapshot built at an older version is stale
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public void init() {
+        index.addChangeListener((previous, current) -> version.incrementAndGet());
+    }
+
+    /**
+     * Centers whose name matches {@code query}, best first.
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        List<String> words = FuzzyIndex.words(query);
+        List<Suggestion> suggestions = new ArrayList<>();
+        if (words.isEmpty() || limit <= 0) {
+            return suggestions;
+        }
+        Snapshot current = snapshot();
+
+        // Center position -> total edits over the query words matched so far
+        Map<Integer, Integer> edits = null;
+        for (int w = 0; w < words.size(); w++) {
+            Map<Integer, Integer> best = new HashMap<>();
+            String word = words.get(w);
+            List<FuzzyIndex.Match> matches = new ArrayList<>(
+                    current.words.search(word, FuzzyIndex.MAX_EDITS, CANDIDATES_PER_WORD));
+            if (w == words.size() - 1) {
+                matches.addAll(current.words.complete(word, CANDIDATES_PER_WORD));
+            }
+            for (FuzzyIndex.Match match : matches) {
+                for (int owner : match.getOwners()) {
+                    best.merge(owner, match.getDistance(), Math::min);
+                }
+            }
+            if (edits == null) {
+                edits = best;
+            } else {
+                Map<Integer, Integer> previous = edits;
+                edits = new HashMap<>();
+                for (Map.Entry<Integer, Integer> entry : best.entrySet()) {
+                    Integer sofar = previous.get(entry.getKey());
+                    if (sofar != null) {
+                        edits.put(entry.getKey(), sofar + entry.getValue());
+                    }
+                }
+            }
+            if (edits.isEmpty()) {
+                return suggestions;
+            }
+        }
+        for (Map.Entry<Integer, Integer> entry : edits.entrySet()) {
+            suggestions.add(new Suggestion(current.centers[entry.getKey()], entry.getValue()));
+        }
+        suggestions.sort(Comparator.comparingInt(Suggestion::getEdits)
+                .thenComparing(s -> s.getCenter().getName(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+        return suggestions.size() > limit ? new ArrayList<>(suggestions.subList(0, limit)) : suggestions;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null || current.version != version.get()) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null || current.version != version.get()) {
+                    current = build(version.get());
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Snapshot build(long builtAt) {
+        List<IndexedCenter> centers = index.findAll();
+        FuzzyIndex.Builder words = FuzzyIndex.builder(maxTerms);
+        for (int i = 0; i < centers.size(); i++) {
+            for (String word : FuzzyIndex.words(centers.get(i).getName())) {
+                words.add(word, i);
+            }
+        }
+        return new Snapshot(builtAt, centers.toArray(new IndexedCenter[0]), words.build());
+    }
+
+    private static final class Snapshot {
+
+        private final long version;
+        private final IndexedCenter[] centers;
+        private final FuzzyIndex words;
+
+        Snapshot(long version, IndexedCenter[] centers, FuzzyIndex words) {
+            this.version = version;
+            this.centers = centers;
+            this.words = words;
+        }
+    }
+
+    public static final class Suggestion {
+
+        private final IndexedCenter center;
+        private final int edits;
+
+        Suggestion(IndexedCenter center, int edits) {
+            this.center = center;
+            this.edits = edits;
+        }
+
+        public IndexedCenter getCenter() { return center; }
+        public int getEdits() { return edits; }
+    }
+}
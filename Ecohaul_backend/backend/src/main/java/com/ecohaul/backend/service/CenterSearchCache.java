@@ -0,0 +1,209 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.service.DisposalCenterIndex.CellEntries;
+import com.ecohaul.backend.util.GeoUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Center Search Cache
+ * Caches disposal center radius searches by (geo tile, waste types, radius bucket).
+ *
+ * Users in the same tile of {@code ecohaul.cache.center-search.tile-size-degrees} asking for the
+ * same waste types share one entry. The entry holds every center accepting those types within
+ * the radius bucket plus half a tile diagonal of the tile center, i.e. a superset of what any
+ * point in the tile can reach. Each request then measures its own distances against that short
+ * list, so distances, the radius cut and per-request filters (opening hours, limit) stay exact.
+ *
+ * Eviction is Caffeine's W-TinyLFU bounded by the total number of candidates held, not entries:
+ * a tile in a dense metro can hold thousands of centers where a rural one holds a handful. When
+ * a center changes, only the entries whose reach covers its old or new location are dropped.
+ * Hit/miss/eviction counts are published to Micrometer as cache "centerSearch" (see
+ * /actuator/metrics/cache.gets).
+ */
+@Service
+public class CenterSearchCache {
+
+    public static final String CACHE_NAME = "centerSearch";
+
+    // Reach is widened slightly so approximate distances at the edge never drop a center
+    private static final double REACH_SLACK = 1.01;
+
+    @Autowired
+    private DisposalCenterIndex index;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${ecohaul.cache.center-search.tile-size-degrees:0.01}")
+    private double tileSizeDegrees = 0.01;
+
+    @Value("${ecohaul.cache.center-search.radius-bucket-km:5}")
+    private double radiusBucketKm = 5;
+
+    @Value("${ecohaul.cache.center-search.max-radius-km:50}")
+    private double maxRadiusKm = 50;
+
+    // Total candidate centers held across entries (about 32 bytes each with their coordinates)
+    @Value("${ecohaul.cache.center-search.max-candidates:1000000}")
+    private long maxCandidates = 1000000;
+
+    private Cache<TileKey, CellEntries> cache;
+    private Counter invalidations;
+    private double tileHalfDiagonalKm;
+
+    // Lookups (and so loads) run under the read lock and invalidation takes the write lock, so a
+    // load racing with a change is either dropped by it or started after it
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxCandidates)
+                // One more than the candidates, so empty entries still count
+                .weigher((TileKey key, CellEntries entries) -> entries.centers.length + 1)
+                .recordStats()
+                .build();
+        tileHalfDiagonalKm = Math.sqrt(2) * tileSizeDegrees / 2 * GeoUtils.KM_PER_DEGREE_LAT;
+        MeterRegistry registry = meterRegistry != null ? meterRegistry.getIfAvailable() : null;
+        if (registry != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+            invalidations = Counter.builder("ecohaul.center.search.cache.invalidations")
+                    .description("Center search cache entries dropped because a center changed")
+                    .register(registry);
+        }
+        index.addChangeListener(this::onCenterChanged);
+    }
+
+    /**
+     * Up to {@code limit} centers within {@code radiusKm} accepting every given waste type and
+     * passing {@code filter}, closest first; same results as
+     * {@link DisposalCenterIndex#findNearest} with the waste type filter.
+     */
+    public List<CenterMatch> findNearest(double latitude, double longitude, double radiusKm, int limit,
+            Set<String> wasteTypes, Predicate<IndexedCenter> filter) {
+        if (limit <= 0 || radiusKm < 0) {
+            return new ArrayList<>();
+        }
+        if (radiusKm > maxRadiusKm) {
+            return index.findNearest(latitude, longitude, radiusKm, limit,
+                    DisposalCenterIndex.allOf(index.acceptingAll(wasteTypes), filter));
+        }
+        CellEntries candidates = candidates(latitude, longitude, radiusKm, wasteTypes);
+        double[] distances = index.distances(candidates, latitude, longitude, radiusKm);
+        List<CenterMatch> matches = new ArrayList<>();
+        for (int i = 0; i < candidates.centers.length; i++) {
+            IndexedCenter center = candidates.centers[i];
+            if (distances[i] <= radiusKm && (filter == null || filter.test(center))) {
+                matches.add(new CenterMatch(center, distances[i]));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(CenterMatch::getDistanceKm));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public void invalidateAll() {
+        lock.writeLock().lock();
+        try {
+            cache.invalidateAll();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private CellEntries candidates(double latitude, double longitude, double radiusKm, Set<String> wasteTypes) {
+        TileKey key = new TileKey(tileIndex(latitude), tileIndex(longitude), typesKey(wasteTypes),
+                (int) Math.max(1, Math.ceil(radiusKm / radiusBucketKm)));
+        lock.readLock().lock();
+        try {
+            return cache.get(key, this::load);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private CellEntries load(TileKey key) {
+        Set<String> types = key.types.isEmpty() ? null : Set.of(key.types.split(","));
+        List<CenterMatch> matches = index.findWithinRadius(tileCenter(key.latIdx), tileCenter(key.lonIdx),
+                reachKm(key), index.acceptingAll(types));
+        IndexedCenter[] centers = new IndexedCenter[matches.size()];
+        for (int i = 0; i < centers.length; i++) {
+            centers[i] = matches.get(i).getCenter();
+        }
+        return new CellEntries(centers);
+    }
+
+    /**
+     * Drop the entries whose reach covers the center's previous or new location. A change in
+     * name, hours or waste types alone still drops the entries around it, so no entry keeps a
+     * stale snapshot.
+     */
+    private void onCenterChanged(IndexedCenter previous, IndexedCenter current) {
+        if (previous == null && current == null) {
+            invalidateAll();
+            return;
+        }
+        List<TileKey> stale = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (TileKey key : cache.asMap().keySet()) {
+                if (covers(key, previous) || covers(key, current)) {
+                    stale.add(key);
+                }
+            }
+            cache.invalidateAll(stale);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (invalidations != null) {
+            invalidations.increment(stale.size());
+        }
+    }
+
+    private boolean covers(TileKey key, IndexedCenter center) {
+        return center != null && center.hasLocation()
+                && GeoUtils.haversineKm(tileCenter(key.latIdx), tileCenter(key.lonIdx),
+                        center.getLatitude(), center.getLongitude()) <= reachKm(key);
+    }
+
+    private double reachKm(TileKey key) {
+        return (key.radiusBucket * radiusBucketKm + tileHalfDiagonalKm) * REACH_SLACK;
+    }
+
+    private int tileIndex(double degrees) {
+        return (int) Math.floor(degrees / tileSizeDegrees);
+    }
+
+    private double tileCenter(int tileIndex) {
+        return (tileIndex + 0.5) * tileSizeDegrees;
+    }
+
+    // Order-independent: "battery,electronic" and "electronic,battery" share an entry
+    private static String typesKey(Set<String> wasteTypes) {
+        return wasteTypes == null || wasteTypes.isEmpty() ? "" : String.join(",", new TreeSet<>(wasteTypes));
+    }
+
+    private record TileKey(int latIdx, int lonIdx, String types, int radiusBucket) {
+    }
+}
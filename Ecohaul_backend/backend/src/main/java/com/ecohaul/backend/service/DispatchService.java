@@ -0,0 +1,387 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.Pickup;
+import com.ecohaul.backend.repository.CartItemRepository;
+import com.ecohaul.backend.repository.PickupRepository;
+import com.ecohaul.backend.service.AgentTrackingService.TrackedAgent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatch Service
+ * Picks the agent for a pickup and books the agent's time slot.
+ *
+ * Candidates come from the live-position grid in {@link AgentTrackingService}, so only agents
+ * around the pickup are scored. Each candidate gets a weighted score from distance, the number
+ * of pickups already booked that day, how well the vehicle fits the cart weight, and rating.
+ * Slots are reserved in memory with putIfAbsent before the pickup row is written; the unique
+ * (agent_id, pickup_date, pickup_slot) constraint backs this up across instances. Reservations
+ * are grouped by pickup date and days in the past are dropped on a schedule.
+ */
+@Service
+public class DispatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(DispatchService.class);
+
+    public static final String STATUS_SCHEDULED = "Scheduled";
+    public static final String STATUS_CANCELLED = "Cancelled";
+
+    // The unique (agent_id, pickup_date, pickup_slot) constraint on pickups
+    static final String SLOT_CONSTRAINT = "uk_pickups_agent_slot";
+
+    private static final DateTimeFormatter TIME_FORMAT = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive()
+            .appendPattern("[h:mm a][h:mma][h a][ha][H:mm]")
+            .toFormatter(Locale.US);
+
+    // Load capacity in kg per vehicle type; unknown types get the default
+    private static final Map<String, Double> VEHICLE_CAPACITY_KG = Map.of(
+            "eco vehicle", 150.0,
+            "pickup", 500.0,
+            "van", 800.0,
+            "truck", 2000.0,
+            "large truck", 5000.0);
+    private static final double DEFAULT_CAPACITY_KG = 300.0;
+
+    @Autowired
+    private AgentTrackingService agentTrackingService;
+
+    @Autowired
+    private PickupRepository pickupRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Value("${ecohaul.dispatch.search-radius-km:25}")
+    private double searchRadiusKm;
+
+    @Value("${ecohaul.dispatch.candidate-pool:32}")
+    private int candidatePool;
+
+    @Value("${ecohaul.dispatch.slot-minutes:30}")
+    private int slotMinutes;
+
+    @Value("${ecohaul.dispatch.max-pickups-per-day:12}")
+    private int maxPickupsPerDay;
+
+    @Value("${ecohaul.dispatch.weight.distance:0.5}")
+    private double distanceWeight;
+
+    @Value("${ecohaul.dispatch.weight.load:0.2}")
+    private double loadWeight;
+
+    @Value("${ecohaul.dispatch.weight.vehicle:0.15}")
+    private double vehicleWeight;
+
+    @Value("${ecohaul.dispatch.weight.rating:0.15}")
+    private double ratingWeight;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    // Booked slots and per-agent pickup counts, by pickup date
+    private final Map<LocalDate, DayReservations> reservations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void loadReservations() {
+        List<Pickup> upcoming = pickupRepository.findByPickupDateGreaterThanEqualAndStatus(
+                LocalDate.now(clock), STATUS_SCHEDULED);
+        int loaded = 0;
+        for (Pickup pickup : upcoming) {
+            if (pickup.getAgentId() != null && pickup.getPickupSlot() != null
+                    && reserve(pickup.getAgentId(), pickup.getPickupDate(), pickup.getPickupSlot(), Integer.MAX_VALUE)) {
+                loaded++;
+            }
+        }
+        log.info("Loaded {} scheduled pickup reservations", loaded);
+    }
+
+    /**
+     * Drop the reservations of days that have passed; only today and later are ever booked.
+     */
+    @Scheduled(fixedDelayString = "${ecohaul.dispatch.prune-interval-ms:3600000}")
+    public void pruneReservations() {
+        LocalDate today = LocalDate.now(clock);
+        reservations.keySet().removeIf(date -> date.isBefore(today));
+    }
+
+    /**
+     * Build an unsaved pickup from request values. The cart weight is the larger of the
+     * requested total and the user's ready cart items. Throws IllegalArgumentException for a
+     * date before today, which the planner would never route.
+     */
+    public Pickup newPickup(Long userId, String pickupDate, String pickupTime, String address,
+            Double latitude, Double longitude, Double totalWeight) {
+        LocalDate date = parseDate(pickupDate);
+        if (date.isBefore(LocalDate.now(clock))) {
+            throw new IllegalArgumentException("Pickup date " + date + " is in the past");
+        }
+        Pickup pickup = new Pickup(userId, date, pickupTime, address);
+        pickup.setPickupSlot(parseSlot(pickupTime));
+        pickup.setLatitude(latitude);
+        pickup.setLongitude(longitude);
+        double cartWeight = cartItemRepository.sumReadyWeightByUserId(userId);
+        pickup.setTotalWeight(Math.max(cartWeight, totalWeight != null ? totalWeight : 0.0));
+        return pickup;
+    }
+
+    /**
+     * Assign the best-scoring agent with a free slot and persist the pickup.
+     * Returns null when no candidate can take it.
+     */
+    public Assignment assign(Pickup pickup) {
+        List<TrackedAgent> candidates = pickup.getLatitude() != null && pickup.getLongitude() != null
+                ? agentTrackingService.findAvailableNear(pickup.getLatitude(), pickup.getLongitude(),
+                        searchRadiusKm, candidatePool)
+                : agentTrackingService.findAgents(null, null, true);
+
+        double weightKg = weightKg(pickup);
+        List<Assignment> ranked = new ArrayList<>(candidates.size());
+        for (TrackedAgent candidate : candidates) {
+            double capacityKg = capacityKg(candidate.getAgent().getVehicleType());
+            if (weightKg > capacityKg) {
+                continue;
+            }
+            ranked.add(new Assignment(null, candidate, score(candidate, pickup.getPickupDate(), weightKg, capacityKg)));
+        }
+        ranked.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+
+        for (Assignment option : ranked) {
+            Pickup booked = book(option.getAgent().getAgent().getId(), pickup);
+            if (booked != null) {
+                return new Assignment(booked, option.getAgent(), option.getScore());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Book a specific agent. Throws IllegalArgumentException when the agent is unknown, unavailable
+     * or cannot carry the cart, and IllegalStateException when the slot is already taken.
+     */
+    public Assignment assignTo(Long agentId, Pickup pickup) {
+        IndexedAgent agent = agentTrackingService.getAgent(agentId);
+        if (agent == null || !agent.isAvailable()) {
+            throw new IllegalArgumentException("Agent " + agentId + " is not available");
+        }
+        double weightKg = weightKg(pickup);
+        double capacityKg = capacityKg(agent.getVehicleType());
+        if (weightKg > capacityKg) {
+            throw new IllegalArgumentException("Agent " + agentId + " vehicle cannot carry " + weightKg + " kg");
+        }
+        TrackedAgent tracked = new TrackedAgent(agent, agentTrackingService.getPosition(agentId),
+                pickup.getLatitude(), pickup.getLongitude());
+        Pickup booked = book(agentId, pickup);
+        if (booked == null) {
+            throw new IllegalStateException("Agent " + agentId + " is already booked for this slot");
+        }
+        return new Assignment(booked, tracked, score(tracked, pickup.getPickupDate(), weightKg, capacityKg));
+    }
+
+    public int getLoad(Long agentId, LocalDate date) {
+        DayReservations day = reservations.get(date);
+        AtomicInteger load = day != null ? day.load.get(agentId) : null;
+        return load != null ? load.get() : 0;
+    }
+
+    public boolean isReserved(Long agentId, LocalDate date, LocalTime slot) {
+        DayReservations day = reservations.get(date);
+        return day != null && day.slots.containsKey(slotKey(agentId, slot));
+    }
+
+    /**
+     * Cancel a scheduled pickup and give its slot back. The row is kept, but its pickup_slot is
+     * cleared so the unique slot constraint no longer holds the agent's slot. Returns null when
+     * there is no such pickup.
+     */
+    public Pickup cancel(Long pickupId) {
+        Pickup pickup = pickupRepository.findById(pickupId).orElse(null);
+        if (pickup == null) {
+            return null;
+        }
+        if (!STATUS_SCHEDULED.equals(pickup.getStatus())) {
+            throw new IllegalStateException("Only scheduled pickups can be cancelled, this one is "
+                    + pickup.getStatus());
+        }
+        LocalTime slot = pickup.getPickupSlot();
+        pickup.setStatus(STATUS_CANCELLED);
+        pickup.setPickupSlot(null);
+        Pickup cancelled = pickupRepository.save(pickup);
+        if (pickup.getAgentId() != null && slot != null) {
+            release(pickup.getAgentId(), pickup.getPickupDate(), slot);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Free a booked slot so the agent can be booked again; {@link #cancel} does this for you.
+     */
+    public void release(Long agentId, LocalDate date, LocalTime slot) {
+        DayReservations day = reservations.get(date);
+        if (day != null && day.slots.remove(slotKey(agentId, slot)) != null) {
+            AtomicInteger load = day.load.get(agentId);
+            if (load != null) {
+                load.decrementAndGet();
+            }
+        }
+    }
+
+    public static LocalDate parseDate(String pickupDate) {
+        try {
+            return LocalDate.parse(pickupDate.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid pickup date: " + pickupDate);
+        }
+    }
+
+    /**
+     * Parse "10:00 AM", "10am" or "14:30" and truncate to the dispatch slot.
+     */
+    public LocalTime parseSlot(String pickupTime) {
+        LocalTime time;
+        try {
+            time = LocalTime.parse(pickupTime.trim().replace(".", ""), TIME_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid pickup time: " + pickupTime);
+        }
+        int minuteOfDay = time.getHour() * 60 + time.getMinute();
+        int slotStart = minuteOfDay - minuteOfDay % slotMinutes;
+        return LocalTime.of(slotStart / 60, slotStart % 60);
+    }
+
+    private Pickup book(Long agentId, Pickup pickup) {
+        if (!reserve(agentId, pickup.getPickupDate(), pickup.getPickupSlot(), maxPickupsPerDay)) {
+            return null;
+        }
+        Pickup row = copyOf(pickup);
+        row.setAgentId(agentId);
+        row.setStatus(STATUS_SCHEDULED);
+        try {
+            return pickupRepository.save(row);
+        } catch (DataIntegrityViolationException e) {
+            if (!isSlotConflict(e)) {
+                // Something wrong with the pickup itself (e.g. an unknown user): no other agent
+                // would fare better, so free the slot and fail the request
+                release(agentId, pickup.getPickupDate(), pickup.getPickupSlot());
+                throw e;
+            }
+            // Booked through another instance; this one just hadn't seen it
+            log.debug("Slot for agent {} on {} {} taken concurrently", agentId,
+                    pickup.getPickupDate(), pickup.getPickupSlot());
+            return null;
+        } catch (RuntimeException e) {
+            release(agentId, pickup.getPickupDate(), pickup.getPickupSlot());
+            throw e;
+        }
+    }
+
+    // Drivers report the constraint name in their own case (H2 upper-cases it), so match loosely
+    private static boolean isSlotConflict(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && message.toLowerCase(Locale.ROOT).contains(SLOT_CONSTRAINT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean reserve(Long agentId, LocalDate date, LocalTime slot, int maxPerDay) {
+        DayReservations day = reservations.computeIfAbsent(date, key -> new DayReservations());
+        String slotKey = slotKey(agentId, slot);
+        if (day.slots.putIfAbsent(slotKey, Boolean.TRUE) != null) {
+            return false;
+        }
+        AtomicInteger load = day.load.computeIfAbsent(agentId, key -> new AtomicInteger());
+        if (load.incrementAndGet() > maxPerDay) {
+            load.decrementAndGet();
+            day.slots.remove(slotKey);
+            return false;
+        }
+        return true;
+    }
+
+    private double score(TrackedAgent candidate, LocalDate date, double weightKg, double capacityKg) {
+        double distanceScore = candidate.getDistanceKm() == Double.MAX_VALUE
+                ? 0.5
+                : Math.max(0.0, 1.0 - candidate.getDistanceKm() / searchRadiusKm);
+        double loadScore = Math.max(0.0, 1.0 - (double) getLoad(candidate.getAgent().getId(), date) / maxPickupsPerDay);
+        // Prefer the smallest vehicle that fits instead of sending a large truck for a few bottles
+        double vehicleScore = Math.min(1.0, Math.max(weightKg, 1.0) / capacityKg);
+        double ratingScore = Math.min(1.0, candidate.getAgent().getRating() / 5.0);
+        return distanceWeight * distanceScore + loadWeight * loadScore
+                + vehicleWeight * vehicleScore + ratingWeight * ratingScore;
+    }
+
+    private static double weightKg(Pickup pickup) {
+        return pickup.getTotalWeight() != null ? pickup.getTotalWeight() / 1000.0 : 0.0;
+    }
+
+    static double capacityKg(String vehicleType) {
+        if (vehicleType == null) {
+            return DEFAULT_CAPACITY_KG;
+        }
+        return VEHICLE_CAPACITY_KG.getOrDefault(vehicleType.trim().toLowerCase(Locale.ROOT), DEFAULT_CAPACITY_KG);
+    }
+
+    private static Pickup copyOf(Pickup pickup) {
+        Pickup copy = new Pickup(pickup.getUserId(), pickup.getPickupDate(), pickup.getPickupTime(), pickup.getAddress());
+        copy.setPickupSlot(pickup.getPickupSlot());
+        copy.setLatitude(pickup.getLatitude());
+        copy.setLongitude(pickup.getLongitude());
+        copy.setTotalWeight(pickup.getTotalWeight());
+        copy.setEstimatedFee(pickup.getEstimatedFee());
+        return copy;
+    }
+
+    private static String slotKey(Long agentId, LocalTime slot) {
+        return agentId + "|" + slot;
+    }
+
+    /**
+     * One day's bookings: "agentId|slot" of every booked slot, and pickups booked per agent.
+     */
+    private static final class DayReservations {
+
+        final Map<String, Boolean> slots = new ConcurrentHashMap<>();
+        final Map<Long, AtomicInteger> load = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * A booked pickup with the agent it went to and the dispatch score.
+     */
+    public static final class Assignment {
+
+        private final Pickup pickup;
+        private final TrackedAgent agent;
+        private final double score;
+
+        Assignment(Pickup pickup, TrackedAgent agent, double score) {
+            this.pickup = pickup;
+            this.agent = agent;
+            this.score = score;
+        }
+
+        public Pickup getPickup() { return pickup; }
+        public TrackedAgent getAgent() { return agent; }
+        public double getScore() { return score; }
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.DisposalAgent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that keeps {@link AgentTrackingService}'s agent directory in step with disposal_agents.
+ * Position flushes go through plain JDBC and therefore never come back through here.
+ */
+public class DisposalAgentIndexListener {
+    
+    @Autowired
+    private ObjectProvider<AgentTrackingService> agentTracking;
+    
+    @PostPersist
+    @PostUpdate
+    public void onSaved(DisposalAgent agent) {
+        afterCommit(() -> {
+            AgentTrackingService tracking = agentTracking.getIfAvailable();
+            if (tracking != null) {
+                tracking.upsert(agent);
+            }
+        });
+    }
+    
+    @PostRemove
+    public void onRemoved(DisposalAgent agent) {
+        Long agentId = agent.getId();
+        afterCommit(() -> {
+            AgentTrackingService tracking = agentTracking.getIfAvailable();
+            if (tracking != null) {
+                tracking.remove(agentId);
+            }
+        });
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,586 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.DisposalCenter;
+import com.ecohaul.backend.repository.DisposalCenterRepository;
+import com.ecohaul.backend.util.BatchDistance;
+import com.ecohaul.backend.util.GeoUtils;
+import com.ecohaul.backend.util.OperatingHours;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Disposal Center Index
+ * In-memory grid index over DisposalCenter latitude/longitude.
+ *
+ * The world is cut into square cells of {@code ecohaul.geo.cell-size-degrees}; a radius query
+ * only visits the cells overlapping the search circle's bounding box, so the Haversine check
+ * runs on nearby centers instead of on every row. The index is loaded from JPA at startup and
+ * kept current by {@link DisposalCenterIndexListener} on insert/update/delete. Each cell keeps its
+ * coordinates as arrays, so a visited cell is measured with one {@link BatchDistance} call.
+ *
+ * {@link #findNearest} answers "closest K" queries with an expanding ring search over the grid
+ * and a bounded max-heap, stopping as soon as no unvisited ring can beat the current K-th result.
+ *
+ * Every center also gets a dense ordinal, and accepted waste types are kept as one bitmap per
+ * type ({@link WasteTypeBitmapIndex}). "Accepts battery AND electronic" is a bitmap AND computed
+ * once per request; each spatial candidate then costs a single bit test. Opening hours are
+ * compiled the same way ({@link OperatingHours}), so "open now" is one more bit test.
+ *
+ * Change listeners (such as {@link CenterSearchCache}) are told about every applied change with
+ * the previous and the new snapshot, either of which may be null.
+ */
+@Service
+public class DisposalCenterIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(DisposalCenterIndex.class);
+
+    @Autowired
+    private DisposalCenterRepository disposalCenterRepository;
+
+    @Value("${ecohaul.geo.cell-size-degrees:0.05}")
+    private double cellSizeDegrees;
+
+    @Value("${ecohaul.geo.fast-path-radius-km:25}")
+    private double fastPathRadiusKm;
+
+    // Opening hours are local to the centers
+    @Value("${ecohaul.hours.zone:UTC}")
+    private ZoneId hoursZone = ZoneId.of("UTC");
+
+    private final Map<Long, IndexedCenter> centersById = new ConcurrentHashMap<>();
+    private final Map<Long, Cell> cells = new ConcurrentHashMap<>();
+    private final WasteTypeBitmapIndex wasteTypeIndex = new WasteTypeBitmapIndex();
+
+    // Ordinal -> center, replaced on write so readers never see a half-updated array
+    private volatile IndexedCenter[] byOrdinal = new IndexedCenter[0];
+    private final ArrayDeque<Integer> freeOrdinals = new ArrayDeque<>();
+    private int nextOrdinal;
+
+    private final List<BiConsumer<IndexedCenter, IndexedCenter>> changeListeners = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void loadFromDatabase() {
+        List<DisposalCenter> centers = disposalCenterRepository.findByIsActiveTrue();
+        synchronized (this) {
+            // Bulk load into the empty index: build the bitmaps directly instead of copying them per center
+            Map<String, long[]> bitmaps = new HashMap<>();
+            IndexedCenter[] ordinals = Arrays.copyOf(byOrdinal, Math.max(byOrdinal.length, nextOrdinal + centers.size()));
+            for (DisposalCenter center : centers) {
+                int ordinal = nextOrdinal++;
+                IndexedCenter indexed = IndexedCenter.from(center).withOrdinal(ordinal);
+                centersById.put(indexed.getId(), indexed);
+                ordinals[ordinal] = indexed;
+                if (indexed.hasLocation()) {
+                    cells.computeIfAbsent(cellKeyFor(indexed.getLatitude(), indexed.getLongitude()), key -> new Cell())
+                         .add(indexed);
+                }
+                for (String type : indexed.getAcceptedWasteKeys()) {
+                    long[] bitmap = bitmaps.computeIfAbsent(type, key -> new long[(centers.size() >>> 6) + 1]);
+                    if ((ordinal >>> 6) >= bitmap.length) {
+                        bitmap = Arrays.copyOf(bitmap, (ordinal >>> 6) + 1);
+                        bitmaps.put(type, bitmap);
+                    }
+                    bitmap[ordinal >>> 6] |= 1L << ordinal;
+                }
+            }
+            byOrdinal = ordinals;
+            wasteTypeIndex.replaceAll(bitmaps);
+        }
+        // A bulk load tells listeners (null, null): everything may have changed
+        fireChanged(null, null);
+        log.info("Indexed {} active disposal centers into {} grid cells and {} waste type bitmaps",
+                centersById.size(), cells.size(), wasteTypeIndex.typeCount());
+    }
+
+    /**
+     * Insert or replace a center. Inactive centers are dropped from the index.
+     */
+    public void upsert(DisposalCenter center) {
+        if (center.getId() == null) {
+            return;
+        }
+        if (Boolean.FALSE.equals(center.getIsActive())) {
+            remove(center.getId());
+            return;
+        }
+        put(IndexedCenter.from(center));
+    }
+
+    void put(IndexedCenter snapshot) {
+        IndexedCenter previous;
+        IndexedCenter center;
+        synchronized (this) {
+            previous = centersById.get(snapshot.getId());
+            int ordinal = previous != null ? previous.getOrdinal() : allocateOrdinal();
+            center = snapshot.withOrdinal(ordinal);
+
+            centersById.put(center.getId(), center);
+            if (previous != null) {
+                wasteTypeIndex.remove(ordinal, previous.getAcceptedWasteKeys());
+                if (previous.hasLocation()) {
+                    Cell previousCell = cells.get(cellKeyFor(previous.getLatitude(), previous.getLongitude()));
+                    if (previousCell != null) {
+                        previousCell.remove(previous.getId());
+                    }
+                }
+            }
+            setOrdinal(ordinal, center);
+            wasteTypeIndex.add(ordinal, center.getAcceptedWasteKeys());
+            if (center.hasLocation()) {
+                cells.computeIfAbsent(cellKeyFor(center.getLatitude(), center.getLongitude()), key -> new Cell())
+                     .add(center);
+            }
+        }
+        fireChanged(previous, center);
+    }
+
+    public void remove(Long centerId) {
+        IndexedCenter previous;
+        synchronized (this) {
+            previous = centersById.remove(centerId);
+            if (previous == null) {
+                return;
+            }
+            if (previous.hasLocation()) {
+                Cell cell = cells.get(cellKeyFor(previous.getLatitude(), previous.getLongitude()));
+                if (cell != null) {
+                    cell.remove(centerId);
+                }
+            }
+            wasteTypeIndex.remove(previous.getOrdinal(), previous.getAcceptedWasteKeys());
+            setOrdinal(previous.getOrdinal(), null);
+            freeOrdinals.push(previous.getOrdinal());
+        }
+        fireChanged(previous, null);
+    }
+
+    /**
+     * Register a listener called with (previous, current) after each change has been applied.
+     */
+    public void addChangeListener(BiConsumer<IndexedCenter, IndexedCenter> listener) {
+        changeListeners.add(listener);
+    }
+
+    private void fireChanged(IndexedCenter previous, IndexedCenter current) {
+        for (BiConsumer<IndexedCenter, IndexedCenter> listener : changeListeners) {
+            listener.accept(previous, current);
+        }
+    }
+
+    // Callers hold the index lock
+    private int allocateOrdinal() {
+        Integer free = freeOrdinals.poll();
+        return free != null ? free : nextOrdinal++;
+    }
+
+    private void setOrdinal(int ordinal, IndexedCenter center) {
+        IndexedCenter[] next = Arrays.copyOf(byOrdinal, Math.max(byOrdinal.length, ordinal + 1));
+        next[ordinal] = center;
+        byOrdinal = next;
+    }
+
+    public IndexedCenter get(Long centerId) {
+        return centersById.get(centerId);
+    }
+
+    public int size() {
+        return centersById.size();
+    }
+
+    /**
+     * All indexed centers ordered by id.
+     */
+    public List<IndexedCenter> findAll() {
+        List<IndexedCenter> all = new ArrayList<>(centersById.values());
+        all.sort(Comparator.comparing(IndexedCenter::getId));
+        return all;
+    }
+
+    /**
+     * Filter matching centers that accept every one of the given (normalised) waste types.
+     * The bitmap AND runs once here; the returned predicate is a single bit test per center.
+     * Returns null when no waste type is requested.
+     */
+    public Predicate<IndexedCenter> acceptingAll(Set<String> wasteTypes) {
+        if (wasteTypes == null || wasteTypes.isEmpty()) {
+            return null;
+        }
+        long[] mask = wasteTypeIndex.acceptingAll(wasteTypes);
+        return center -> WasteTypeBitmapIndex.isSet(mask, center.getOrdinal());
+    }
+
+    /**
+     * Filter matching centers open at {@code openAt} (ISO date-time; an offset or zone is converted
+     * to ecohaul.hours.zone) or, with {@code openNow}, at the current time. The slot is computed
+     * once; the predicate is a single bit test against each center's compiled hours. Centers
+     * whose hours could not be parsed never match. Returns null when neither is requested.
+     */
+    public Predicate<IndexedCenter> openFilter(String openAt, Boolean openNow) {
+        LocalDateTime time;
+        if (openAt != null && !openAt.isBlank()) {
+            time = parseLocalTime(openAt.trim());
+        } else if (Boolean.TRUE.equals(openNow)) {
+            time = LocalDateTime.now(hoursZone);
+        } else {
+            return null;
+        }
+        int slot = OperatingHours.slotOf(time);
+        return center -> center.getWeeklyHours() != null && center.getWeeklyHours().isOpen(slot);
+    }
+
+    /**
+     * Whether the center is open right now, or null when its hours are unknown.
+     */
+    public Boolean isOpenNow(IndexedCenter center) {
+        OperatingHours hours = center.getWeeklyHours();
+        return hours != null ? hours.isOpenAt(LocalDateTime.now(hoursZone)) : null;
+    }
+
+    /**
+     * Both filters; either may be null.
+     */
+    public static Predicate<IndexedCenter> allOf(Predicate<IndexedCenter> first, Predicate<IndexedCenter> second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null ? first : first.and(second);
+    }
+
+    private LocalDateTime parseLocalTime(String text) {
+        try {
+            return ZonedDateTime.parse(text).withZoneSameInstant(hoursZone).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(text);
+            } catch (DateTimeParseException ignored) {
+                throw new IllegalArgumentException("Invalid openAt: " + text);
+            }
+        }
+    }
+
+    /**
+     * Centers accepting every given waste type, ordered by id, without any spatial filter.
+     */
+    public List<IndexedCenter> findAccepting(Set<String> wasteTypes, int limit) {
+        return findAccepting(wasteTypes, null, limit);
+    }
+
+    /**
+     * Like {@link #findAccepting(Set, int)} with an extra filter such as {@link #openFilter}.
+     */
+    public List<IndexedCenter> findAccepting(Set<String> wasteTypes, Predicate<IndexedCenter> filter, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        if (wasteTypes == null || wasteTypes.isEmpty()) {
+            List<IndexedCenter> all = findAll();
+            if (filter != null) {
+                all.removeIf(filter.negate());
+            }
+            return all.size() > limit ? all.subList(0, limit) : all;
+        }
+        long[] mask = wasteTypeIndex.acceptingAll(wasteTypes);
+        IndexedCenter[] ordinals = byOrdinal;
+        List<IndexedCenter> result = new ArrayList<>();
+        for (int word = 0; word < mask.length; word++) {
+            long bits = mask[word];
+            while (bits != 0) {
+                int ordinal = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (ordinal < ordinals.length && ordinals[ordinal] != null
+                        && (filter == null || filter.test(ordinals[ordinal]))) {
+                    result.add(ordinals[ordinal]);
+                }
+            }
+        }
+        result.sort(Comparator.comparing(IndexedCenter::getId));
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    /**
+     * Centers within {@code radiusKm} of the given point, closest first.
+     */
+    public List<CenterMatch> findWithinRadius(double latitude, double longitude, double radiusKm) {
+        return findWithinRadius(latitude, longitude, radiusKm, null);
+    }
+
+    public List<CenterMatch> findWithinRadius(double latitude, double longitude, double radiusKm,
+            Predicate<IndexedCenter> filter) {
+        List<CenterMatch> matches = new ArrayList<>();
+        double latDelta = GeoUtils.kmToLatitudeDegrees(radiusKm);
+        double lonDelta = GeoUtils.kmToLongitudeDegrees(radiusKm, latitude);
+
+        // Padded by one cell, like the extra ring of findNearest, so rounding at the box edge never
+        // drops a center the haversine check would accept
+        int minLat = cellIndex(latitude - latDelta) - 1;
+        int maxLat = cellIndex(latitude + latDelta) + 1;
+        int minLon = cellIndex(Math.max(-180.0, longitude - lonDelta)) - 1;
+        int maxLon = cellIndex(Math.min(180.0, longitude + lonDelta)) + 1;
+
+        long cellsInBox = (long) (maxLat - minLat + 1) * (maxLon - minLon + 1);
+        if (cellsInBox > cells.size()) {
+            // Very large radius: cheaper to walk the occupied cells than the empty box
+            for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+                int latIdx = latIndexOf(entry.getKey());
+                int lonIdx = lonIndexOf(entry.getKey());
+                if (latIdx >= minLat && latIdx <= maxLat && lonIdx >= minLon && lonIdx <= maxLon) {
+                    collect(entry.getValue(), latitude, longitude, radiusKm, filter, matches);
+                }
+            }
+        } else {
+            for (int latIdx = minLat; latIdx <= maxLat; latIdx++) {
+                for (int lonIdx = minLon; lonIdx <= maxLon; lonIdx++) {
+                    Cell cell = cells.get(cellKey(latIdx, lonIdx));
+                    if (cell != null) {
+                        collect(cell, latitude, longitude, radiusKm, filter, matches);
+                    }
+                }
+            }
+        }
+
+        matches.sort(Comparator.comparingDouble(CenterMatch::getDistanceKm));
+        return matches;
+    }
+
+    /**
+     * Up to {@code limit} centers within {@code radiusKm} that pass {@code filter}, closest first.
+     *
+     * Rings of cells are visited outwards from the origin's cell. A max-heap keeps the best
+     * {@code limit} matches seen so far; once the heap is full and the nearest possible point of
+     * the next ring is further away than the heap's worst entry, the search stops.
+     */
+    public List<CenterMatch> findNearest(double latitude, double longitude, double radiusKm,
+            int limit, Predicate<IndexedCenter> filter) {
+        if (limit <= 0 || radiusKm < 0) {
+            return Collections.emptyList();
+        }
+        PriorityQueue<CenterMatch> heap = new PriorityQueue<>(Math.min(limit, 64) + 1,
+                Comparator.comparingDouble(CenterMatch::getDistanceKm).reversed());
+
+        int originLat = cellIndex(latitude);
+        int originLon = cellIndex(longitude);
+        int maxRing = (int) Math.ceil(Math.max(GeoUtils.kmToLatitudeDegrees(radiusKm),
+                Math.min(180.0, GeoUtils.kmToLongitudeDegrees(radiusKm, latitude))) / cellSizeDegrees) + 1;
+
+        long cellsInBox = (long) (2 * maxRing + 1) * (2 * maxRing + 1);
+        if (cellsInBox > cells.size()) {
+            // Sparse grid relative to the search box: walk occupied cells, still bounded by the heap
+            for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+                if (Math.abs(latIndexOf(entry.getKey()) - originLat) <= maxRing
+                        && Math.abs(lonIndexOf(entry.getKey()) - originLon) <= maxRing) {
+                    offer(entry.getValue(), latitude, longitude, radiusKm, limit, filter, heap);
+                }
+            }
+            return drainAscending(heap);
+        }
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (ring > 0) {
+                double lowerBound = ringLowerBoundKm(latitude, longitude, originLat, originLon, ring);
+                if (lowerBound > radiusKm) {
+                    break;
+                }
+                if (heap.size() == limit && lowerBound > heap.peek().getDistanceKm()) {
+                    break;
+                }
+            }
+            visitRing(originLat, originLon, ring, latitude, longitude, radiusKm, limit, filter, heap);
+        }
+        return drainAscending(heap);
+    }
+
+    private void visitRing(int originLat, int originLon, int ring, double latitude, double longitude,
+            double radiusKm, int limit, Predicate<IndexedCenter> filter, PriorityQueue<CenterMatch> heap) {
+        if (ring == 0) {
+            offer(cells.get(cellKey(originLat, originLon)), latitude, longitude, radiusKm, limit, filter, heap);
+            return;
+        }
+        for (int lonIdx = originLon - ring; lonIdx <= originLon + ring; lonIdx++) {
+            offer(cells.get(cellKey(originLat - ring, lonIdx)), latitude, longitude, radiusKm, limit, filter, heap);
+            offer(cells.get(cellKey(originLat + ring, lonIdx)), latitude, longitude, radiusKm, limit, filter, heap);
+        }
+        for (int latIdx = originLat - ring + 1; latIdx <= originLat + ring - 1; latIdx++) {
+            offer(cells.get(cellKey(latIdx, originLon - ring)), latitude, longitude, radiusKm, limit, filter, heap);
+            offer(cells.get(cellKey(latIdx, originLon + ring)), latitude, longitude, radiusKm, limit, filter, heap);
+        }
+    }
+
+    private void offer(Cell cell, double latitude, double longitude, double radiusKm, int limit,
+            Predicate<IndexedCenter> filter, PriorityQueue<CenterMatch> heap) {
+        if (cell == null) {
+            return;
+        }
+        CellEntries entries = cell.entries;
+        double[] distances = distances(entries, latitude, longitude, radiusKm);
+        for (int i = 0; i < entries.centers.length; i++) {
+            IndexedCenter center = entries.centers[i];
+            double distance = distances[i];
+            if (distance > radiusKm || (filter != null && !filter.test(center))) {
+                continue;
+            }
+            if (heap.size() < limit) {
+                heap.add(new CenterMatch(center, distance));
+            } else if (distance < heap.peek().getDistanceKm()) {
+                heap.poll();
+                heap.add(new CenterMatch(center, distance));
+            }
+        }
+    }
+
+    private static List<CenterMatch> drainAscending(PriorityQueue<CenterMatch> heap) {
+        CenterMatch[] ordered = new CenterMatch[heap.size()];
+        for (int i = ordered.length - 1; i >= 0; i--) {
+            ordered[i] = heap.poll();
+        }
+        List<CenterMatch> result = new ArrayList<>(ordered.length);
+        Collections.addAll(result, ordered);
+        return result;
+    }
+
+    /**
+     * Smallest possible distance from the origin to any point outside rings 0..ring-1.
+     * Uses hav(d) >= hav(dLat) and hav(d) >= cos^2(maxLat) * hav(dLon), so it never overestimates.
+     */
+    private double ringLowerBoundKm(double latitude, double longitude, int originLat, int originLon, int ring) {
+        double south = (originLat - ring + 1) * cellSizeDegrees;
+        double north = (originLat + ring) * cellSizeDegrees;
+        double west = (originLon - ring + 1) * cellSizeDegrees;
+        double east = (originLon + ring) * cellSizeDegrees;
+
+        double latGap = Math.toRadians(Math.min(latitude - south, north - latitude));
+        double lonGap = Math.toRadians(Math.min(longitude - west, east - longitude));
+        double maxAbsLat = Math.toRadians(Math.min(90.0, Math.max(Math.abs(south), Math.abs(north))));
+
+        double latBound = GeoUtils.EARTH_RADIUS_KM * latGap;
+        double lonBound = 2 * GeoUtils.EARTH_RADIUS_KM
+                * Math.asin(Math.min(1.0, Math.cos(maxAbsLat) * Math.sin(lonGap / 2)));
+        return Math.min(latBound, lonBound);
+    }
+
+    private void collect(Cell cell, double latitude, double longitude, double radiusKm,
+            Predicate<IndexedCenter> filter, List<CenterMatch> out) {
+        CellEntries entries = cell.entries;
+        double[] distances = distances(entries, latitude, longitude, radiusKm);
+        for (int i = 0; i < entries.centers.length; i++) {
+            IndexedCenter center = entries.centers[i];
+            if (distances[i] <= radiusKm && (filter == null || filter.test(center))) {
+                out.add(new CenterMatch(center, distances[i]));
+            }
+        }
+    }
+
+    /**
+     * Distances from the origin to every center in the cell in one kernel call; short radius
+     * searches take the equirectangular fast path.
+     */
+    double[] distances(CellEntries entries, double latitude, double longitude, double radiusKm) {
+        int count = entries.centers.length;
+        double[] distances = new double[count];
+        if (radiusKm <= fastPathRadiusKm) {
+            BatchDistance.equirectangularKm(latitude, longitude, entries.latRad, entries.lonRad, entries.cosLat,
+                    count, distances);
+        } else {
+            BatchDistance.haversineKm(latitude, longitude, entries.latRad, entries.lonRad, entries.cosLat,
+                    count, distances);
+        }
+        return distances;
+    }
+
+    // Cell key helpers: latitude index in the high 32 bits, longitude index in the low 32 bits
+    int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / cellSizeDegrees);
+    }
+
+    long cellKeyFor(double latitude, double longitude) {
+        return cellKey(cellIndex(latitude), cellIndex(longitude));
+    }
+
+    static long cellKey(int latIdx, int lonIdx) {
+        return ((long) latIdx << 32) | (lonIdx & 0xffffffffL);
+    }
+
+    static int latIndexOf(long cellKey) {
+        return (int) (cellKey >> 32);
+    }
+
+    static int lonIndexOf(long cellKey) {
+        return (int) cellKey;
+    }
+
+    /**
+     * One grid cell. Writes copy the entries so readers can iterate without locking.
+     */
+    private static final class Cell {
+
+        private volatile CellEntries entries = CellEntries.EMPTY;
+
+        synchronized void add(IndexedCenter center) {
+            IndexedCenter[] current = entries.centers;
+            IndexedCenter[] next = new IndexedCenter[current.length + 1];
+            System.arraycopy(current, 0, next, 0, current.length);
+            next[current.length] = center;
+            entries = new CellEntries(next);
+        }
+
+        synchronized void remove(Long centerId) {
+            IndexedCenter[] current = entries.centers;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].getId().equals(centerId)) {
+                    IndexedCenter[] next = new IndexedCenter[current.length - 1];
+                    System.arraycopy(current, 0, next, 0, i);
+                    System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                    entries = new CellEntries(next);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Immutable cell contents with coordinates laid out as arrays for {@link BatchDistance}.
+     */
+    static final class CellEntries {
+
+        static final CellEntries EMPTY = new CellEntries(new IndexedCenter[0]);
+
+        final IndexedCenter[] centers;
+        final double[] latRad;
+        final double[] lonRad;
+        final double[] cosLat;
+
+        CellEntries(IndexedCenter[] centers) {
+            this.centers = centers;
+            this.latRad = new double[centers.length];
+            this.lonRad = new double[centers.length];
+            this.cosLat = new double[centers.length];
+            for (int i = 0; i < centers.length; i++) {
+                latRad[i] = Math.toRadians(centers[i].getLatitude());
+                lonRad[i] = Math.toRadians(centers[i].getLongitude());
+                cosLat[i] = Math.cos(latRad[i]);
+            }
+        }
+    }
+}
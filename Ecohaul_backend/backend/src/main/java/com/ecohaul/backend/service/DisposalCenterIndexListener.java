@@ -0,0 +1,62 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.DisposalCenter;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that keeps {@link DisposalCenterIndex} in step with the disposal_centers table.
+ * Changes are applied after the surrounding transaction commits so a rollback never leaks into the index.
+ */
+public class DisposalCenterIndexListener {
+    
+    @Autowired
+    private ObjectProvider<DisposalCenterIndex> centerIndex;
+    
+    @PostPersist
+    @PostUpdate
+    public void onSaved(DisposalCenter center) {
+        IndexedCenter snapshot = IndexedCenter.from(center);
+        boolean active = !Boolean.FALSE.equals(center.getIsActive());
+        afterCommit(() -> {
+            DisposalCenterIndex index = centerIndex.getIfAvailable();
+            if (index == null) {
+                return;
+            }
+            if (active) {
+                index.put(snapshot);
+            } else {
+                index.remove(snapshot.getId());
+            }
+        });
+    }
+    
+    @PostRemove
+    public void onRemoved(DisposalCenter center) {
+        Long centerId = center.getId();
+        afterCommit(() -> {
+            DisposalCenterIndex index = centerIndex.getIfAvailable();
+            if (index != null) {
+                index.remove(centerId);
+            }
+        });
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
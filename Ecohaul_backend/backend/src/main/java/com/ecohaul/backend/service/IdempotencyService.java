@@ -0,0 +1,234 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.IdempotencyRecord;
+import com.ecohaul.backend.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotency Service
+ * Remembers the response to each request sent with an Idempotency-Key so a retry gets that
+ * response back instead of running the request again.
+ *
+ * Responses are kept in a Caffeine cache bounded by their total size in bytes
+ * (ecohaul.idempotency.max-bytes) and dropped ttl-minutes after they were stored; with
+ * ecohaul.idempotency.persist they are also written to the idempotency_keys table, which a
+ * retry that misses the cache (another instance, a restart) falls back on. A duplicate that
+ * arrives while the first request is still running waits on that request's future rather than
+ * running alongside it. Server errors are not kept, so a retry after one runs again.
+ *
+ * Hits, misses and evictions are exported as cache "idempotency".
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String CACHE_NAME = "idempotency";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    // Rough per-entry bookkeeping on top of the key and body
+    private static final int ENTRY_OVERHEAD = 128;
+
+    @Autowired(required = false)
+    private IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${ecohaul.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes = 1440;
+
+    @Value("${ecohaul.idempotency.max-bytes:16777216}")
+    private long maxBytes = 16 * 1024 * 1024;
+
+    @Value("${ecohaul.idempotency.wait-ms:10000}")
+    private long waitMillis = 10000;
+
+    @Value("${ecohaul.idempotency.persist:false}")
+    private boolean persist;
+
+    private Cache<String, StoredResponse> responses;
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, StoredResponse response) -> key.length() * 2 + response.body.length + ENTRY_OVERHEAD)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        MeterRegistry registry = meterRegistry != null ? meterRegistry.getIfAvailable() : null;
+        if (registry != null) {
+            CaffeineCacheMetrics.monitor(registry, responses, CACHE_NAME);
+        }
+    }
+
+    /**
+     * Run {@code request} once per {@code key}. A key seen before answers with the stored response
+     * (REPLAYED), or MISMATCH when it came with a different request {@code fingerprint}; a key
+     * whose first request is still running waits up to wait-ms for it (IN_PROGRESS if it does not
+     * finish in time). Exceptions from {@code request} propagate and leave nothing stored.
+     */
+    public Outcome execute(String key, String fingerprint, Request request) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        while (true) {
+            StoredResponse stored = find(key);
+            if (stored != null) {
+                return replay(stored, fingerprint);
+            }
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, mine);
+            if (running == null) {
+                return run(key, fingerprint, request, mine);
+            }
+            try {
+                StoredResponse finished = running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (finished != null) {
+                    return replay(finished, fingerprint);
+                }
+                // The first attempt failed or was not kept; try to run it ourselves
+            } catch (TimeoutException e) {
+                return new Outcome(Status.IN_PROGRESS, null);
+            } catch (ExecutionException e) {
+                // As above
+            }
+        }
+    }
+
+    private Outcome run(String key, String fingerprint, Request request, CompletableFuture<StoredResponse> mine)
+            throws Exception {
+        StoredResponse response = null;
+        try {
+            // Finished between our cache miss and claiming the key
+            StoredResponse stored = find(key);
+            if (stored != null) {
+                response = stored;
+                return replay(stored, fingerprint);
+            }
+            StoredResponse executed = request.run();
+            if (executed.status < 500) {
+                response = executed.withFingerprint(fingerprint);
+                store(key, response);
+            }
+            return new Outcome(Status.EXECUTED, executed);
+        } finally {
+            inFlight.remove(key, mine);
+            mine.complete(response);
+        }
+    }
+
+    private Outcome replay(StoredResponse stored, String fingerprint) {
+        if (stored.fingerprint != null && !stored.fingerprint.equals(fingerprint)) {
+            return new Outcome(Status.MISMATCH, stored);
+        }
+        return new Outcome(Status.REPLAYED, stored);
+    }
+
+    private StoredResponse find(String key) {
+        StoredResponse stored = responses.getIfPresent(key);
+        if (stored != null || !persist || recordRepository == null) {
+            return stored;
+        }
+        IdempotencyRecord record = recordRepository.findById(key).orElse(null);
+        if (record == null || record.getCreatedAt().isBefore(LocalDateTime.now().minusMinutes(ttlMinutes))) {
+            return null;
+        }
+        stored = new StoredResponse(record.getStatus(), record.getContentType(), record.getBody(), record.getFingerprint());
+        responses.put(key, stored);
+        return stored;
+    }
+
+    private void store(String key, StoredResponse response) {
+        responses.put(key, response);
+        if (persist && recordRepository != null) {
+            try {
+                recordRepository.save(new IdempotencyRecord(key, response.fingerprint, response.status,
+                        response.contentType, response.body, LocalDateTime.now()));
+            } catch (RuntimeException e) {
+                // The cached copy still covers retries reaching this instance
+                log.warn("Could not persist idempotency key {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ecohaul.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        if (persist && recordRepository != null) {
+            int purged = recordRepository.deleteCreatedBefore(LocalDateTime.now().minusMinutes(ttlMinutes));
+            if (purged > 0) {
+                log.info("Purged {} expired idempotency keys", purged);
+            }
+        }
+    }
+
+    public long size() {
+        return responses.estimatedSize();
+    }
+
+    @FunctionalInterface
+    public interface Request {
+        StoredResponse run() throws Exception;
+    }
+
+    public enum Status { EXECUTED, REPLAYED, MISMATCH, IN_PROGRESS }
+
+    public static final class Outcome {
+
+        private final Status status;
+        private final StoredResponse response;
+
+        Outcome(Status status, StoredResponse response) {
+            this.status = status;
+            this.response = response;
+        }
+
+        public Status getStatus() { return status; }
+        public StoredResponse getResponse() { return response; }
+    }
+
+    public static final class StoredResponse {
+
+        private final int status;
+        private final String contentType;
+        private final byte[] body;
+        private final String fingerprint;
+
+        public StoredResponse(int status, String contentType, byte[] body) {
+            this(status, contentType, body, null);
+        }
+
+        private StoredResponse(int status, String contentType, byte[] body, String fingerprint) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body != null ? body : new byte[0];
+            this.fingerprint = fingerprint;
+        }
+
+        StoredResponse withFingerprint(String fingerprint) {
+            return new StoredResponse(status, contentType, body, fingerprint);
+        }
+
+        public int getStatus() { return status; }
+        public String getContentType() { return contentType; }
+        public byte[] getBody() { return body; }
+    }
+}
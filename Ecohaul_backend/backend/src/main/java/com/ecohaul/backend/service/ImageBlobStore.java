@@ -0,0 +1,398 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.util.ImageThumbnails;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Image Blob Store
+ * Content-addressed on-disk storage for scan images, keyed by the SHA-256 of the bytes.
+ *
+ * A blob lives at {@code blobs/ab/cd/<key>} under {@code ecohaul.blobs.root}: two levels of 256
+ * directories from the first four hex digits, so ten million images still average about 150
+ * files per directory and keys spread evenly. Storing an image already present only touches it
+ * (dedup). Writes go to {@code tmp/} and are renamed into place, so a reader never sees a
+ * partial blob. The image is written from its pooled buffer and served with
+ * {@link FileChannel#transferTo}, so it never passes through the heap either way.
+ *
+ * Thumbnails are made on first request from a read-only memory map of the original and kept
+ * at {@code thumbs/ab/cd/<key>-<size>.jpg}. The nightly GC deletes blobs (and their
+ * thumbnails) that no waste record references once they are older than the grace period,
+ * which covers the gap between storing an image and saving its record.
+ */
+@Service
+public class ImageBlobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageBlobStore.class);
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+    private static final HexFormat HEX = HexFormat.of();
+
+    @Autowired(required = false)
+    private ScanHistoryService scanHistoryService;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${ecohaul.blobs.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${ecohaul.blobs.root:data/blobs}")
+    private String root = "data/blobs";
+
+    @Value("${ecohaul.blobs.thumbnail-sizes:128,256,512}")
+    private int[] thumbnailSizes = {128, 256, 512};
+
+    @Value("${ecohaul.blobs.gc-grace-hours:24}")
+    private long gcGraceHours = 24;
+
+    @Value("${ecohaul.blobs.gc-batch-size:500}")
+    private int gcBatchSize = 500;
+
+    private Path blobs;
+    private Path thumbs;
+    private Path tmp;
+    private Counter stored;
+    private Counter deduplicated;
+    private Counter collected;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path base = Paths.get(root).toAbsolutePath();
+        blobs = Files.createDirectories(base.resolve("blobs"));
+        thumbs = Files.createDirectories(base.resolve("thumbs"));
+        tmp = Files.createDirectories(base.resolve("tmp"));
+        thumbnailSizes = Arrays.stream(thumbnailSizes).filter(size -> size > 0).sorted().distinct().toArray();
+        MeterRegistry registry = meterRegistry != null ? meterRegistry.getIfAvailable() : null;
+        if (registry != null) {
+            stored = Counter.builder("ecohaul.blobs.stored")
+                    .description("Scan images written to the blob store")
+                    .register(registry);
+            deduplicated = Counter.builder("ecohaul.blobs.deduplicated")
+                    .description("Scan images already in the blob store")
+                    .register(registry);
+            collected = Counter.builder("ecohaul.blobs.collected")
+                    .description("Unreferenced blobs deleted by GC")
+                    .register(registry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Store the image between position and limit (left untouched) and return its key.
+     */
+    public String put(ByteBuffer image) throws IOException {
+        String key = sha256(image.duplicate());
+        Path target = blobPath(key);
+        // A fresh mtime keeps GC off an existing blob until the caller's record is saved
+        if (Files.exists(target) && touch(target)) {
+            increment(deduplicated);
+            return key;
+        }
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(tmp, key.substring(0, 8), ".part");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer source = image.duplicate();
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+                channel.force(false);
+            }
+            // Same key, same bytes: losing a race to another writer is harmless
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        increment(stored);
+        return key;
+    }
+
+    /**
+     * The stored image, or null when there is none. Throws IllegalArgumentException for a
+     * malformed key.
+     */
+    public Blob find(String key) throws IOException {
+        requireKey(key);
+        if (!enabled) {
+            return null;
+        }
+        Path path = blobPath(key);
+        try {
+            long size = Files.size(path);
+            return new Blob(path, size, contentType(path));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A JPEG thumbnail whose short side is the smallest configured size not below
+     * {@code size}, made and kept on first request; null when the image is missing or cannot
+     * be decoded.
+     */
+    public Blob thumbnail(String key, int size) throws IOException {
+        requireKey(key);
+        if (!enabled) {
+            return null;
+        }
+        int side = thumbnailSide(size);
+        Path path = thumbnailPath(key, side);
+        if (Files.exists(path)) {
+            return new Blob(path, Files.size(path), "image/jpeg");
+        }
+        Blob original = find(key);
+        if (original == null) {
+            return null;
+        }
+        BufferedImage decoded;
+        try (FileChannel channel = FileChannel.open(original.path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            decoded = ImageThumbnails.decode(mapped, side);
+        }
+        if (decoded == null) {
+            return null;
+        }
+        BufferedImage scaled = scale(decoded, side);
+        Files.createDirectories(path.getParent());
+        Path temp = Files.createTempFile(tmp, key.substring(0, 8), ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                ImageIO.write(scaled, "jpg", out);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return new Blob(path, Files.size(path), "image/jpeg");
+    }
+
+    /**
+     * Copy the blob to {@code target} with FileChannel.transferTo; the kernel moves the bytes
+     * when the target is a socket or file, and no heap copy of the image is made either way.
+     */
+    public long transferTo(Blob blob, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(blob.path, StandardOpenOption.READ)) {
+            long position = 0;
+            long size = channel.size();
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            return position;
+        }
+    }
+
+    /**
+     * Delete blobs that are older than the grace period and referenced by no waste record,
+     * together with their thumbnails, plus abandoned temp files. Walks one shard directory at a
+     * time and checks references in batches, so memory stays flat however many blobs exist.
+     */
+    @Scheduled(cron = "${ecohaul.blobs.gc-cron:0 30 3 * * *}")
+    public int collectGarbage() {
+        if (!enabled || scanHistoryService == null) {
+            return 0;
+        }
+        long startedAt = System.currentTimeMillis();
+        FileTime cutoff = FileTime.fromMillis(startedAt - gcGraceHours * 3_600_000L);
+        int deleted = 0;
+        try {
+            List<String> candidates = new ArrayList<>();
+            try (DirectoryStream<Path> first = Files.newDirectoryStream(blobs)) {
+                for (Path level1 : first) {
+                    try (DirectoryStream<Path> second = Files.newDirectoryStream(level1)) {
+                        for (Path level2 : second) {
+                            try (DirectoryStream<Path> files = Files.newDirectoryStream(level2)) {
+                                for (Path file : files) {
+                                    String key = file.getFileName().toString();
+                                    if (KEY.matcher(key).matches() && Files.getLastModifiedTime(file).compareTo(cutoff) < 0) {
+                                        candidates.add(key);
+                                    }
+                                }
+                            }
+                            if (candidates.size() >= gcBatchSize) {
+                                deleted += sweep(candidates, cutoff);
+                                candidates.clear();
+                            }
+                        }
+                    }
+                }
+            }
+            deleted += sweep(candidates, cutoff);
+            try (DirectoryStream<Path> parts = Files.newDirectoryStream(tmp)) {
+                for (Path part : parts) {
+                    if (Files.getLastModifiedTime(part).compareTo(cutoff) < 0) {
+                        Files.deleteIfExists(part);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Blob GC stopped early after deleting {} blobs", deleted, e);
+        }
+        if (collected != null) {
+            collected.increment(deleted);
+        }
+        log.info("Blob GC: {} unreferenced blobs deleted in {} ms", deleted, System.currentTimeMillis() - startedAt);
+        return deleted;
+    }
+
+    private int sweep(List<String> candidates, FileTime cutoff) throws IOException {
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        Set<String> referenced = scanHistoryService.referencedImages(candidates);
+        int deleted = 0;
+        for (String key : candidates) {
+            Path path = blobPath(key);
+            // Re-checked: a put() since the walk may have claimed it again
+            if (referenced.contains(key) || !Files.exists(path) || Files.getLastModifiedTime(path).compareTo(cutoff) >= 0) {
+                continue;
+            }
+            // Thumbnails first: a crash in between leaves the blob for the next run
+            for (int side : thumbnailSizes) {
+                Files.deleteIfExists(thumbnailPath(key, side));
+            }
+            if (Files.deleteIfExists(path)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private int thumbnailSide(int size) {
+        for (int side : thumbnailSizes) {
+            if (side >= size) {
+                return side;
+            }
+        }
+        return thumbnailSizes[thumbnailSizes.length - 1];
+    }
+
+    private static BufferedImage scale(BufferedImage image, int side) {
+        int shortSide = Math.min(image.getWidth(), image.getHeight());
+        double factor = shortSide > side ? (double) side / shortSide : 1;
+        int width = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * factor));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return scaled;
+    }
+
+    private Path blobPath(String key) {
+        return blobs.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private Path thumbnailPath(String key, int side) {
+        return thumbs.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key + "-" + side + ".jpg");
+    }
+
+    private static String requireKey(String key) {
+        if (key == null || !KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid image key");
+        }
+        return key;
+    }
+
+    private static String contentType(Path path) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(12);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (head.hasRemaining() && channel.read(head) > 0) {
+                // Read up to 12 magic bytes
+            }
+        }
+        head.flip();
+        switch (WasteScanService.detectFormat(head)) {
+            case "jpeg": return "image/jpeg";
+            case "png": return "image/png";
+            case "webp": return "image/webp";
+            case "gif": return "image/gif";
+            default: return "application/octet-stream";
+        }
+    }
+
+    private static String sha256(ByteBuffer image) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(image);
+            return HEX.formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // False when GC deleted the blob since it was seen; it is then written again
+    private static boolean touch(Path path) throws IOException {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    public static final class Blob {
+
+        private final Path path;
+        private final long size;
+        private final String contentType;
+
+        Blob(Path path, long size, String contentType) {
+            this.path = path;
+            this.size = size;
+            this.contentType = contentType;
+        }
+
+        public Path getPath() { return path; }
+        public long getSize() { return size; }
+        public String getContentType() { return contentType; }
+    }
+}
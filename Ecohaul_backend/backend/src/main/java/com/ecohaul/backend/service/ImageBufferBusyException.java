@@ -0,0 +1,19 @@
+package com.ecohaul.backend.service;
+
+/**
+ * Thrown when every pooled image buffer stayed in use for the whole wait; the node is
+ * saturated and the scan should be retried after {@link #getRetryAfterSeconds()}.
+ */
+public class ImageBufferBusyException extends IllegalStateException {
+
+    private final int retryAfterSeconds;
+
+    public ImageBufferBusyException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
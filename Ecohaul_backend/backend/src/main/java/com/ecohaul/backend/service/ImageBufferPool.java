@@ -0,0 +1,64 @@
+package com.ecohaul.backend.service;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Image Buffer Pool
+ * A fixed number of direct buffers, each large enough for the biggest accepted image, shared by
+ * in-flight scans. Buffers are allocated on first use and reused afterwards, so uploads land
+ * off-heap without a per-request allocation. When every buffer is taken, callers wait up to the
+ * given time and then get an {@link ImageBufferBusyException}.
+ */
+public class ImageBufferPool {
+
+    private final BlockingQueue<ByteBuffer> free;
+    private final int maxBuffers;
+    private final int bufferBytes;
+    private final int retryAfterSeconds;
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    public ImageBufferPool(int maxBuffers, int bufferBytes, int retryAfterSeconds) {
+        this.free = new ArrayBlockingQueue<>(maxBuffers);
+        this.maxBuffers = maxBuffers;
+        this.bufferBytes = bufferBytes;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * A cleared buffer of {@link #getBufferBytes()} capacity; give it back with {@link #release}.
+     */
+    public ByteBuffer acquire(long waitMillis) throws InterruptedException {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null && allocated.incrementAndGet() <= maxBuffers) {
+            return ByteBuffer.allocateDirect(bufferBytes);
+        }
+        if (buffer == null) {
+            allocated.decrementAndGet();
+            buffer = free.poll(waitMillis, TimeUnit.MILLISECONDS);
+        }
+        if (buffer == null) {
+            throw new ImageBufferBusyException("All " + maxBuffers + " image buffers are in use",
+                    retryAfterSeconds);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer != null) {
+            free.offer(buffer);
+        }
+    }
+
+    public int getBufferBytes() {
+        return bufferBytes;
+    }
+
+    public int getAllocated() {
+        return Math.min(allocated.get(), maxBuffers);
+    }
+}
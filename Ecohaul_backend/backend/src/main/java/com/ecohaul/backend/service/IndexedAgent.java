@@ -0,0 +1,54 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.DisposalAgent;
+
+/**
+ * Indexed Agent
+ * Immutable snapshot of the slowly changing DisposalAgent columns. Live positions are not kept
+ * here; they come from the {@link AgentPositionTable}.
+ */
+public final class IndexedAgent {
+    
+    private final Long id;
+    private final String name;
+    private final String phoneNumber;
+    private final String email;
+    private final String vehicleType;
+    private final String licensePlate;
+    private final String coverageArea;
+    private final boolean available;
+    private final double rating;
+    private final int totalPickups;
+    private final int totalReviews;
+    
+    private IndexedAgent(DisposalAgent agent) {
+        this.id = agent.getId();
+        this.name = agent.getName();
+        this.phoneNumber = agent.getPhoneNumber();
+        this.email = agent.getEmail();
+        this.vehicleType = agent.getVehicleType();
+        this.licensePlate = agent.getLicensePlate();
+        this.coverageArea = agent.getCoverageArea();
+        this.available = !Boolean.FALSE.equals(agent.getIsAvailable());
+        this.rating = agent.getRating() != null ? agent.getRating() : 0.0;
+        this.totalPickups = agent.getTotalPickups() != null ? agent.getTotalPickups() : 0;
+        this.totalReviews = agent.getTotalReviews() != null ? agent.getTotalReviews() : 0;
+    }
+    
+    public static IndexedAgent from(DisposalAgent agent) {
+        return new IndexedAgent(agent);
+    }
+    
+    // Getters
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public String getPhoneNumber() { return phoneNumber; }
+    public String getEmail() { return email; }
+    public String getVehicleType() { return vehicleType; }
+    public String getLicensePlate() { return licensePlate; }
+    public String getCoverageArea() { return coverageArea; }
+    public boolean isAvailable() { return available; }
+    public double getRating() { return rating; }
+    public int getTotalPickups() { return totalPickups; }
+    public int getTotalReviews() { return totalReviews; }
+}
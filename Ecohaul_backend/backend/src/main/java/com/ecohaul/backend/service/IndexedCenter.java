@@ -0,0 +1,135 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.DisposalCenter;
+import com.ecohaul.backend.util.OperatingHours;
+import com.ecohaul.backend.util.WasteTypes;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Indexed Center
+ * Immutable, detached snapshot of a DisposalCenter row as held by the in-memory index.
+ * Requests read these instead of going back to JPA. Accepted waste types are decoded and
+ * normalised once here; the ordinal is the center's bit position in the waste type bitmaps.
+ */
+public final class IndexedCenter {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private final Long id;
+    private final String name;
+    private final String address;
+    private final Double latitude;
+    private final Double longitude;
+    private final String phoneNumber;
+    private final String email;
+    private final String operatingHours;
+    private final OperatingHours weeklyHours; // null when the text could not be parsed
+    private final List<String> acceptedWasteTypes;
+    private final Set<String> acceptedWasteKeys;
+    private final boolean pickupServiceAvailable;
+    private final double rating;
+    private final int totalReviews;
+    private final int ordinal;
+    
+    private IndexedCenter(DisposalCenter center) {
+        this.id = center.getId();
+        this.name = center.getName();
+        this.address = center.getAddress();
+        this.latitude = center.getLatitude();
+        this.longitude = center.getLongitude();
+        this.phoneNumber = center.getPhoneNumber();
+        this.email = center.getEmail();
+        this.operatingHours = center.getOperatingHours();
+        this.weeklyHours = OperatingHours.parse(operatingHours);
+        this.acceptedWasteTypes = parseWasteTypes(center.getAcceptedWasteTypes());
+        this.acceptedWasteKeys = Collections.unmodifiableSet(WasteTypes.normalizeAll(acceptedWasteTypes));
+        this.pickupServiceAvailable = Boolean.TRUE.equals(center.getPickupServiceAvailable());
+        this.rating = center.getRating() != null ? center.getRating() : 0.0;
+        this.totalReviews = center.getTotalReviews() != null ? center.getTotalReviews() : 0;
+        this.ordinal = -1;
+    }
+    
+    private IndexedCenter(IndexedCenter source, int ordinal) {
+        this.id = source.id;
+        this.name = source.name;
+        this.address = source.address;
+        this.latitude = source.latitude;
+        this.longitude = source.longitude;
+        this.phoneNumber = source.phoneNumber;
+        this.email = source.email;
+        this.operatingHours = source.operatingHours;
+        this.weeklyHours = source.weeklyHours;
+        this.acceptedWasteTypes = source.acceptedWasteTypes;
+        this.acceptedWasteKeys = source.acceptedWasteKeys;
+        this.pickupServiceAvailable = source.pickupServiceAvailable;
+        this.rating = source.rating;
+        this.totalReviews = source.totalReviews;
+        this.ordinal = ordinal;
+    }
+    
+    public static IndexedCenter from(DisposalCenter center) {
+        return new IndexedCenter(center);
+    }
+    
+    IndexedCenter withOrdinal(int ordinal) {
+        return new IndexedCenter(this, ordinal);
+    }
+    
+    /**
+     * accepted_waste_types is documented as a JSON array, but the Supabase sample data
+     * uses a plain comma separated list, so both forms are accepted.
+     */
+    static List<String> parseWasteTypes(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return Collections.emptyList();
+        }
+        String trimmed = raw.trim();
+        List<String> types = new ArrayList<>();
+        if (trimmed.startsWith("[")) {
+            try {
+                for (String type : MAPPER.readValue(trimmed, new TypeReference<List<String>>() {})) {
+                    if (type != null && !type.isBlank()) {
+                        types.add(type.trim());
+                    }
+                }
+                return Collections.unmodifiableList(types);
+            } catch (Exception e) {
+                // Fall through and treat it as a comma separated list
+                trimmed = trimmed.replaceAll("[\\[\\]\"]", "");
+            }
+        }
+        for (String type : trimmed.split(",")) {
+            if (!type.isBlank()) {
+                types.add(type.trim());
+            }
+        }
+        return Collections.unmodifiableList(types);
+    }
+    
+    public boolean hasLocation() {
+        return latitude != null && longitude != null;
+    }
+    
+    // Getters
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public String getAddress() { return address; }
+    public Double getLatitude() { return latitude; }
+    public Double getLongitude() { return longitude; }
+    public String getPhoneNumber() { return phoneNumber; }
+    public String getEmail() { return email; }
+    public String getOperatingHours() { return operatingHours; }
+    public OperatingHours getWeeklyHours() { return weeklyHours; }
+    public List<String> getAcceptedWasteTypes() { return acceptedWasteTypes; }
+    public Set<String> getAcceptedWasteKeys() { return acceptedWasteKeys; }
+    public boolean isPickupServiceAvailable() { return pickupServiceAvailable; }
+    public double getRating() { return rating; }
+    public int getTotalReviews() { return totalReviews; }
+    public int getOrdinal() { return ordinal; }
+}
@@ -0,0 +1,144 @@
+package com.ecohaul.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Inference Service
+ * The one place scan images are classified: a fixed pool sized to the cores with a bounded
+ * queue, shared by single scans and batches, so CPU-heavy models never run on request threads
+ * and never run more than one job per core.
+ *
+ * A full queue fails the submission at once with {@link ScannerBusyException} (served as 503
+ * with Retry-After) instead of letting requests pile up. Queue depth, time spent queued and
+ * run time are exported, the latter two as histograms, for sizing nodes.
+ */
+@Service
+public class InferenceService {
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${ecohaul.scanner.inference.threads:0}")
+    private int threads;
+
+    @Value("${ecohaul.scanner.inference.queue-capacity:128}")
+    private int queueCapacity = 128;
+
+    @Value("${ecohaul.scanner.inference.retry-after-seconds:1}")
+    private int retryAfterSeconds = 1;
+
+    private ThreadPoolExecutor pool;
+    private Timer waitTimer;
+    private Timer latencyTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "scan-inference-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        MeterRegistry registry = meterRegistry != null ? meterRegistry.getIfAvailable() : null;
+        if (registry != null) {
+            Gauge.builder("ecohaul.inference.queue.depth", pool, p -> p.getQueue().size())
+                    .description("Scans waiting for an inference thread")
+                    .register(registry);
+            Gauge.builder("ecohaul.inference.active", pool, ThreadPoolExecutor::getActiveCount)
+                    .description("Inference threads currently busy")
+                    .register(registry);
+            waitTimer = Timer.builder("ecohaul.inference.wait")
+                    .description("Time a scan spent queued before inference started")
+                    .publishPercentileHistogram()
+                    .register(registry);
+            latencyTimer = Timer.builder("ecohaul.inference.latency")
+                    .description("Inference run time per scan")
+                    .publishPercentileHistogram()
+                    .register(registry);
+            rejected = Counter.builder("ecohaul.inference.rejected")
+                    .description("Scans refused because the inference queue was full")
+                    .register(registry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Queue {@code task} on the inference pool. Throws ScannerBusyException right away when the
+     * queue is full; failures of the task itself complete the future exceptionally.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            pool.execute(() -> {
+                long startedAt = System.nanoTime();
+                record(waitTimer, startedAt - queuedAt);
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    record(latencyTimer, System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (rejected != null) {
+                rejected.increment();
+            }
+            throw new ScannerBusyException("Scanner is busy, retry shortly", retryAfterSeconds);
+        }
+        return future;
+    }
+
+    /**
+     * Run {@code task} on the inference pool and wait for it, rethrowing its own exception.
+     */
+    public <T> T run(Supplier<T> task) {
+        try {
+            return submit(task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    private static void record(Timer timer, long nanos) {
+        if (timer != null) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.ecohaul.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * JWT Service
+ * Issues HS256-signed access tokens and verifies them.
+ *
+ * The signing key and parser are built once from jwt.secret. Startup fails when the secret is
+ * shorter than the 256 bits HS256 requires or is the shipped default, unless the dev profile is
+ * active, in which case it is stretched with SHA-256 and a warning logged. Verified tokens are kept in a
+ * bounded Caffeine cache from the SHA-256 of the token to its parsed claims, so a client sending
+ * the same token on every request pays for one hash instead of a signature check and JSON parse.
+ * Expiry is still checked on every hit, and entries never outlive jwt.cache.ttl-minutes. Token
+ * hashes, not tokens, are held in memory. Hits and misses are exported as cache "jwtClaims".
+ */
+@Service
+public class JwtService {
+
+    public static final String CACHE_NAME = "jwtClaims";
+
+    private static final Logger log = LoggerFactory.getLogger(JwtService.class);
+
+    // HS256 needs at least a 256-bit key
+    private static final int MIN_KEY_BYTES = 32;
+
+    // The jwt.secret fallback in application.properties; publicly known, so development only
+    static final String DEFAULT_SECRET = "mySecretKey";
+    static final String DEV_PROFILE = "dev";
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${jwt.secret}")
+    private String secret;
+
+    @Value("${jwt.expiration:86400000}")
+    private long expirationMillis = 86400000;
+
+    @Value("${jwt.cache.enabled:true}")
+    private boolean cacheEnabled = true;
+
+    @Value("${jwt.cache.max-entries:10000}")
+    private long cacheMaxEntries = 10000;
+
+    @Value("${jwt.cache.ttl-minutes:15}")
+    private long cacheTtlMinutes = 15;
+
+    private Clock clock = Clock.systemUTC();
+    private SecretKey key;
+    private JwtParser parser;
+    private Cache<TokenHash, TokenClaims> verified;
+
+    @PostConstruct
+    public void init() {
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (secretBytes.length < MIN_KEY_BYTES || DEFAULT_SECRET.equals(secret)) {
+            if (environment == null || !environment.matchesProfiles(DEV_PROFILE)) {
+                throw new IllegalStateException("jwt.secret must be at least " + MIN_KEY_BYTES
+                        + " bytes and not the shipped default: set JWT_SECRET to a long random value"
+                        + " (or run with the " + DEV_PROFILE + " profile)");
+            }
+            log.warn("Signing tokens with a weak jwt.secret because the {} profile is active; "
+                    + "set JWT_SECRET to a long random value outside development", DEV_PROFILE);
+        }
+        if (secretBytes.length < MIN_KEY_BYTES) {
+            secretBytes = sha256(secretBytes);
+        }
+        key = Keys.hmacShaKeyFor(secretBytes);
+        parser = Jwts.parser()
+                .verifyWith(key)
+                .clock(() -> Date.from(clock.instant()))
+                .build();
+        verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+                .recordStats()
+                .build();
+        MeterRegistry registry = meterRegistry != null ? meterRegistry.getIfAvailable() : null;
+        if (registry != null) {
+            CaffeineCacheMetrics.monitor(registry, verified, CACHE_NAME);
+        }
+    }
+
+    /**
+     * A signed token for {@code subject} (the user id) valid for jwt.expiration.
+     */
+    public String issue(String subject, String email, String role) {
+        long now = clock.millis();
+        return Jwts.builder()
+                .subject(subject)
+                .claim("email", email)
+                .claim("role", role)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expirationMillis))
+                .signWith(key, Jwts.SIG.HS256)
+                .compact();
+    }
+
+    /**
+     * The claims of a valid, unexpired token. Throws JwtException (or IllegalArgumentException
+     * for an empty token) otherwise.
+     */
+    public TokenClaims verify(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("Token is empty");
+        }
+        if (!cacheEnabled) {
+            return parse(token);
+        }
+        TokenHash hash = TokenHash.of(token);
+        TokenClaims claims = verified.getIfPresent(hash);
+        if (claims != null) {
+            if (claims.expiresAt > clock.millis()) {
+                return claims;
+            }
+            verified.invalidate(hash);
+        }
+        claims = parse(token);
+        verified.put(hash, claims);
+        return claims;
+    }
+
+    public long getExpirationSeconds() {
+        return expirationMillis / 1000;
+    }
+
+    private TokenClaims parse(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() == null) {
+            throw new JwtException("Token has no expiry");
+        }
+        return new TokenClaims(claims.getSubject(), claims.get("email", String.class),
+                claims.get("role", String.class), claims.getExpiration().getTime());
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * SHA-256 of a token as four longs: a compact cache key that does not keep the token itself.
+     */
+    private record TokenHash(long a, long b, long c, long d) {
+
+        static TokenHash of(String token) {
+            ByteBuffer digest = ByteBuffer.wrap(sha256(token.getBytes(StandardCharsets.UTF_8)));
+            return new TokenHash(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+        }
+    }
+
+    public static final class TokenClaims {
+
+        private final String subject;
+        private final String email;
+        private final String role;
+        private final long expiresAt;
+
+        TokenClaims(String subject, String email, String role, long expiresAt) {
+            this.subject = subject;
+            this.email = email;
+            this.role = role;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getSubject() { return subject; }
+        public String getEmail() { return email; }
+        public String getRole() { return role; }
+        public long getExpiresAt() { return expiresAt; }
+    }
+}
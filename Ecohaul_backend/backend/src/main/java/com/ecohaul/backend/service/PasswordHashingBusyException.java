@@ -0,0 +1,19 @@
+package com.ecohaul.backend.service;
+
+/**
+ * Thrown when the password hashing queue is full; the request should be retried after
+ * {@link #getRetryAfterSeconds()}.
+ */
+public class PasswordHashingBusyException extends IllegalStateException {
+
+    private final int retryAfterSeconds;
+
+    public PasswordHashingBusyException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,139 @@
+package com.ecohaul.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Password Hashing Service
+ * BCrypt hashing and verification on a dedicated pool sized to the cores with a bounded queue,
+ * so the 50-200 ms of CPU per login never runs on request threads and a login storm cannot
+ * take more than the cores it is given.
+ *
+ * A full queue fails at once with {@link PasswordHashingBusyException} (served as 429 with
+ * Retry-After) rather than queuing without limit. Queue depth, rejections and hash time are
+ * exported.
+ */
+@Service
+public class PasswordHashingService {
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${ecohaul.auth.hashing.threads:0}")
+    private int threads;
+
+    @Value("${ecohaul.auth.hashing.queue-capacity:64}")
+    private int queueCapacity = 64;
+
+    @Value("${ecohaul.auth.hashing.retry-after-seconds:1}")
+    private int retryAfterSeconds = 1;
+
+    @Value("${ecohaul.auth.bcrypt-strength:10}")
+    private int strength = 10;
+
+    private BCryptPasswordEncoder encoder;
+    private ThreadPoolExecutor pool;
+    // Compared against when the account does not exist, so unknown emails take as long as known ones
+    private String absentHash;
+    private Timer hashTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        encoder = new BCryptPasswordEncoder(strength);
+        absentHash = encoder.encode("absent-account");
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        MeterRegistry registry = meterRegistry != null ? meterRegistry.getIfAvailable() : null;
+        if (registry != null) {
+            Gauge.builder("ecohaul.auth.hashing.queue.depth", pool, p -> p.getQueue().size())
+                    .description("Password hashes waiting for a hashing thread")
+                    .register(registry);
+            hashTimer = Timer.builder("ecohaul.auth.hashing.latency")
+                    .description("Time to hash or verify one password")
+                    .publishPercentileHistogram()
+                    .register(registry);
+            rejected = Counter.builder("ecohaul.auth.hashing.rejected")
+                    .description("Password operations refused because the hashing queue was full")
+                    .register(registry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * BCrypt hash of {@code rawPassword}. Throws PasswordHashingBusyException right away when the
+     * queue is full.
+     */
+    public CompletableFuture<String> hash(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * Whether {@code rawPassword} matches {@code encodedPassword}; a null hash (no such account)
+     * never matches but costs the same. Throws PasswordHashingBusyException right away when the
+     * queue is full.
+     */
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        if (encodedPassword == null) {
+            return submit(() -> {
+                encoder.matches(rawPassword, absentHash);
+                return false;
+            });
+        }
+        return submit(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    return task.get();
+                } finally {
+                    if (hashTimer != null) {
+                        hashTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                    }
+                }
+            }, pool);
+        } catch (RejectedExecutionException e) {
+            if (rejected != null) {
+                rejected.increment();
+            }
+            throw new PasswordHashingBusyException("Too many sign-in requests, retry shortly", retryAfterSeconds);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.ecohaul.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pricing Engine
+ * Estimated resale value and eco points of waste, from a price table (ecohaul.pricing.table).
+ *
+ * The table prices each material per kg and maps waste types onto materials, optionally with a
+ * price of their own; regions and hour-of-day bands scale prices by a multiplier. It is compiled
+ * into an immutable {@link PriceTable} of arrays indexed by type, material and hour, so pricing
+ * an item is one map lookup and a few array reads. Reloading compiles a new table off to the
+ * side and swaps the reference: requests in flight finish on the table they started with, and a
+ * table that fails to load or validate is logged and never replaces the current one. A table on
+ * the file system is reloaded when its modification time changes.
+ *
+ * Eco points are grams × the material's ecoPointsPerGram and ignore region and time, matching
+ * calculate_eco_points() in the database schema; the two must be changed together.
+ */
+@Service
+public class PricingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(PricingEngine.class);
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${ecohaul.pricing.table:classpath:waste-pricing.json}")
+    private String tableLocation = "classpath:waste-pricing.json";
+
+    // Zone whose wall clock selects the time-of-day band; blank for the system zone
+    @Value("${ecohaul.pricing.time-zone:}")
+    private String timeZone = "";
+
+    private final AtomicReference<PriceTable> table = new AtomicReference<>();
+    private Clock clock;
+    private volatile long loadedModified;
+
+    @PostConstruct
+    public void init() throws IOException {
+        clock = timeZone == null || timeZone.isBlank() ? Clock.systemDefaultZone() : Clock.system(ZoneId.of(timeZone));
+        reload();
+    }
+
+    /**
+     * Load and compile the price table, then swap it in. On failure the current table stays and
+     * the exception propagates (IllegalStateException for an invalid table).
+     */
+    public PriceTable reload() throws IOException {
+        Resource resource = resourceLoader.getResource(tableLocation);
+        long modified = resource.isFile() ? resource.lastModified() : 0;
+        JsonNode json;
+        try (InputStream in = resource.getInputStream()) {
+            json = objectMapper.readTree(in);
+        }
+        PriceTable compiled = PriceTable.compile(json, LocalDateTime.now(clock));
+        table.set(compiled);
+        loadedModified = modified;
+        log.info("Loaded price table {}: {} waste types, {} regions", tableLocation,
+                compiled.typeNames.length, compiled.regionMultipliers.length);
+        return compiled;
+    }
+
+    @Scheduled(fixedDelayString = "${ecohaul.pricing.reload-check-ms:30000}")
+    public void reloadIfChanged() {
+        try {
+            Resource resource = resourceLoader.getResource(tableLocation);
+            if (resource.isFile() && resource.lastModified() != loadedModified) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Price table {} not reloaded, keeping the current one: {}", tableLocation, e.getMessage());
+        }
+    }
+
+    /**
+     * The table in force; hold on to it to price several items consistently.
+     */
+    public PriceTable current() {
+        return table.get();
+    }
+
+    /**
+     * Estimated value, rounded to cents, of {@code grams} of a waste type at the current hour
+     * with no regional adjustment.
+     */
+    public double value(String wasteType, double grams) {
+        PriceTable prices = table.get();
+        return prices.value(prices.typeId(wasteType), grams, prices.multiplier(null, hour()));
+    }
+
+    public int ecoPoints(String wasteType, double grams) {
+        PriceTable prices = table.get();
+        return prices.ecoPoints(prices.typeId(wasteType), grams);
+    }
+
+    /**
+     * Value a whole cart against one table: item i is {@code grams[i]} of {@code wasteTypes[i]}.
+     * The region and hour multiplier is resolved once for all items; an unknown or null region
+     * has none.
+     */
+    public Valuation valueAll(List<String> wasteTypes, double[] grams, String region) {
+        if (wasteTypes.size() != grams.length) {
+            throw new IllegalArgumentException("Waste types and weights differ in length");
+        }
+        PriceTable prices = table.get();
+        double multiplier = prices.multiplier(region, hour());
+        double[] values = new double[grams.length];
+        int[] points = new int[grams.length];
+        String[] materials = new String[grams.length];
+        double totalValue = 0;
+        long totalPoints = 0;
+        for (int i = 0; i < grams.length; i++) {
+            int typeId = prices.typeId(wasteTypes.get(i));
+            values[i] = prices.value(typeId, grams[i], multiplier);
+            points[i] = prices.ecoPoints(typeId, grams[i]);
+            materials[i] = prices.material(typeId);
+            totalValue += values[i];
+            totalPoints += points[i];
+        }
+        return new Valuation(values, points, materials, Math.round(totalValue * 100.0) / 100.0, totalPoints,
+                multiplier, prices.loadedAt);
+    }
+
+    private int hour() {
+        return LocalDateTime.now(clock).getHour();
+    }
+
+    /**
+     * A compiled, immutable price table. Type ids index the per-type arrays; -1 is the default
+     * material.
+     */
+    public static final class PriceTable {
+
+        private final Map<String, Integer> typeIds;
+        private final String[] typeNames;
+        private final double[] typePricePerKg;
+        private final int[] typeMaterial;
+        private final String[] materialNames;
+        private final double[] materialPricePerKg;
+        private final double[] materialPointsPerGram;
+        private final int defaultMaterial;
+        private final Map<String, Integer> regionIds;
+        private final double[] regionMultipliers;
+        private final double[] hourMultipliers;
+        private final LocalDateTime loadedAt;
+
+        private PriceTable(Map<String, Integer> typeIds, String[] typeNames, double[] typePricePerKg,
+                int[] typeMaterial, String[] materialNames, double[] materialPricePerKg,
+                double[] materialPointsPerGram, int defaultMaterial, Map<String, Integer> regionIds,
+                double[] regionMultipliers, double[] hourMultipliers, LocalDateTime loadedAt) {
+            this.typeIds = typeIds;
+            this.typeNames = typeNames;
+            this.typePricePerKg = typePricePerKg;
+            this.typeMaterial = typeMaterial;
+            this.materialNames = materialNames;
+            this.materialPricePerKg = materialPricePerKg;
+            this.materialPointsPerGram = materialPointsPerGram;
+            this.defaultMaterial = defaultMaterial;
+            this.regionIds = regionIds;
+            this.regionMultipliers = regionMultipliers;
+            this.hourMultipliers = hourMultipliers;
+            this.loadedAt = loadedAt;
+        }
+
+        static PriceTable compile(JsonNode json, LocalDateTime loadedAt) {
+            List<String> materials = new ArrayList<>();
+            List<Double> materialPrices = new ArrayList<>();
+            List<Double> materialPoints = new ArrayList<>();
+            Map<String, Integer> materialIds = new HashMap<>();
+            for (Map.Entry<String, JsonNode> material : json.path("materials").properties()) {
+                materialIds.put(material.getKey(), materials.size());
+                materials.add(material.getKey());
+                materialPrices.add(nonNegative(material.getValue().path("pricePerKg"), "Material " + material.getKey()));
+                materialPoints.add(nonNegative(material.getValue().path("ecoPointsPerGram"), "Material " + material.getKey()));
+            }
+            Integer defaultMaterial = materialIds.get(json.path("defaultMaterial").asText());
+            if (defaultMaterial == null) {
+                throw new IllegalStateException("Price table defaultMaterial must name one of its materials");
+            }
+
+            // Material names price as themselves, so "Plastic" matches the schema's waste types too
+            Map<String, Integer> typeIds = new HashMap<>();
+            List<String> types = new ArrayList<>();
+            List<Double> typePrices = new ArrayList<>();
+            List<Integer> typeMaterials = new ArrayList<>();
+            for (int m = 0; m < materials.size(); m++) {
+                addType(typeIds, types, materials.get(m));
+                typePrices.add(materialPrices.get(m));
+                typeMaterials.add(m);
+            }
+            for (Map.Entry<String, JsonNode> type : json.path("types").properties()) {
+                Integer material = materialIds.get(type.getValue().path("material").asText());
+                if (material == null) {
+                    throw new IllegalStateException("Waste type " + type.getKey() + " has unknown material "
+                            + type.getValue().path("material").asText());
+                }
+                JsonNode price = type.getValue().path("pricePerKg");
+                addType(typeIds, types, type.getKey());
+                typePrices.add(price.isMissingNode() ? materialPrices.get(material)
+                        : nonNegative(price, "Waste type " + type.getKey()));
+                typeMaterials.add(material);
+            }
+
+            Map<String, Integer> regionIds = new HashMap<>();
+            List<Double> regionMultipliers = new ArrayList<>();
+            for (Map.Entry<String, JsonNode> region : json.path("regions").properties()) {
+                regionIds.put(region.getKey().toLowerCase(Locale.ROOT), regionMultipliers.size());
+                regionMultipliers.add(positive(region.getValue(), "Region " + region.getKey()));
+            }
+
+            double[] hourMultipliers = new double[24];
+            Arrays.fill(hourMultipliers, 1.0);
+            for (JsonNode band : json.path("timeOfDay")) {
+                int from = band.path("fromHour").asInt(-1);
+                int to = band.path("toHour").asInt(-1);
+                if (from < 0 || from > 23 || to < 0 || to > 24) {
+                    throw new IllegalStateException("Time-of-day band hours must be within 0-24");
+                }
+                double multiplier = positive(band.path("multiplier"), "Time-of-day band " + from + "-" + to);
+                // Bands are [fromHour, toHour), may wrap past midnight, and equal hours mean all day
+                int hours = Math.floorMod(to - from, 24);
+                for (int i = 0; i < (hours == 0 ? 24 : hours); i++) {
+                    hourMultipliers[(from + i) % 24] = multiplier;
+                }
+            }
+
+            return new PriceTable(typeIds, types.toArray(new String[0]),
+                    typePrices.stream().mapToDouble(Double::doubleValue).toArray(),
+                    typeMaterials.stream().mapToInt(Integer::intValue).toArray(),
+                    materials.toArray(new String[0]),
+                    materialPrices.stream().mapToDouble(Double::doubleValue).toArray(),
+                    materialPoints.stream().mapToDouble(Double::doubleValue).toArray(),
+                    defaultMaterial, regionIds,
+                    regionMultipliers.stream().mapToDouble(Double::doubleValue).toArray(),
+                    hourMultipliers, loadedAt);
+        }
+
+        private static void addType(Map<String, Integer> typeIds, List<String> types, String name) {
+            // Exact spelling first so the common lookup needs no lower-casing
+            typeIds.put(name, types.size());
+            typeIds.putIfAbsent(name.toLowerCase(Locale.ROOT), types.size());
+            types.add(name);
+        }
+
+        private static double nonNegative(JsonNode node, String what) {
+            if (!node.isNumber() || node.asDouble() < 0) {
+                throw new IllegalStateException(what + " needs a non-negative number, got " + node);
+            }
+            return node.asDouble();
+        }
+
+        private static double positive(JsonNode node, String what) {
+            if (!node.isNumber() || node.asDouble() <= 0) {
+                throw new IllegalStateException(what + " needs a positive multiplier, got " + node);
+            }
+            return node.asDouble();
+        }
+
+        /**
+         * Id of a waste type or material, matched case-insensitively; -1 when the table does not
+         * know it.
+         */
+        public int typeId(String wasteType) {
+            if (wasteType == null) {
+                return -1;
+            }
+            Integer id = typeIds.get(wasteType);
+            if (id == null) {
+                id = typeIds.get(wasteType.toLowerCase(Locale.ROOT));
+            }
+            return id != null ? id : -1;
+        }
+
+        public double multiplier(String region, int hour) {
+            double multiplier = hourMultipliers[hour];
+            if (region != null) {
+                Integer id = regionIds.get(region.toLowerCase(Locale.ROOT));
+                if (id != null) {
+                    multiplier *= regionMultipliers[id];
+                }
+            }
+            return multiplier;
+        }
+
+        public double pricePerKg(int typeId) {
+            return typeId < 0 ? materialPricePerKg[defaultMaterial] : typePricePerKg[typeId];
+        }
+
+        public String material(int typeId) {
+            return materialNames[typeId < 0 ? defaultMaterial : typeMaterial[typeId]];
+        }
+
+        public double value(int typeId, double grams, double multiplier) {
+            return Math.round(grams / 1000.0 * pricePerKg(typeId) * multiplier * 100.0) / 100.0;
+        }
+
+        public int ecoPoints(int typeId, double grams) {
+            int material = typeId < 0 ? defaultMaterial : typeMaterial[typeId];
+            return (int) Math.round(grams * materialPointsPerGram[material]);
+        }
+
+        public LocalDateTime getLoadedAt() { return loadedAt; }
+    }
+
+    public static final class Valuation {
+
+        private final double[] values;
+        private final int[] ecoPoints;
+        private final String[] materials;
+        private final double totalValue;
+        private final long totalEcoPoints;
+        private final double multiplier;
+        private final LocalDateTime pricesLoadedAt;
+
+        Valuation(double[] values, int[] ecoPoints, String[] materials, double totalValue, long totalEcoPoints,
+                double multiplier, LocalDateTime pricesLoadedAt) {
+            this.values = values;
+            this.ecoPoints = ecoPoints;
+            this.materials = materials;
+            this.totalValue = totalValue;
+            this.totalEcoPoints = totalEcoPoints;
+            this.multiplier = multiplier;
+            this.pricesLoadedAt = pricesLoadedAt;
+        }
+
+        public double getValue(int item) { return values[item]; }
+        public int getEcoPoints(int item) { return ecoPoints[item]; }
+        public String getMaterial(int item) { return materials[item]; }
+        public double getTotalValue() { return totalValue; }
+        public long getTotalEcoPoints() { return totalEcoPoints; }
+        public double getMultiplier() { return multiplier; }
+        public LocalDateTime getPricesLoadedAt() { return pricesLoadedAt; }
+    }
+}
@@ -0,0 +1,128 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.util.ImageThumbnails;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+
+/**
+ * Reference Waste Classifier
+ * Pure-Java baseline behind the {@link WasteClassifier} SPI: a nearest-centroid classifier over
+ * colour features, so scans are deterministic and cost roughly what a small CPU model would
+ * (one image decode plus a pass over a thumbnail) until a trained model is plugged in.
+ *
+ * The image is decoded at about 64 pixels on the short side. Every pixel is binned as white,
+ * brown, green, blue, grey or vivid, and the six bin fractions are compared with one prototype
+ * per waste type. Confidence is the softmax weight of the closest prototype.
+ */
+@Service
+@ConditionalOnProperty(name = "ecohaul.scanner.classifier", havingValue = "reference", matchIfMissing = true)
+public class ReferenceWasteClassifier implements WasteClassifier {
+
+    private static final int THUMBNAIL_SIZE = 64;
+    // Softmax temperature over squared feature distances
+    private static final double TEMPERATURE = 0.2;
+
+    private static final Prototype[] PROTOTYPES = {
+        //                                                           white brown green blue  grey  vivid
+        new Prototype("Plastic Bottle", "Recyclable", true, 25,      0.25, 0.02, 0.05, 0.45, 0.15, 0.08),
+        new Prototype("Glass Bottle", "Recyclable", true, 350,       0.05, 0.20, 0.45, 0.05, 0.15, 0.10),
+        new Prototype("Aluminum Can", "Recyclable", true, 15,        0.10, 0.02, 0.03, 0.05, 0.45, 0.35),
+        new Prototype("Paper", "Recyclable", true, 50,               0.70, 0.03, 0.02, 0.02, 0.20, 0.03),
+        new Prototype("Cardboard", "Recyclable", true, 200,          0.05, 0.70, 0.02, 0.02, 0.15, 0.06),
+    };
+
+    @Override
+    public WasteDetection classify(ByteBuffer image) {
+        BufferedImage thumbnail = ImageThumbnails.decode(image, THUMBNAIL_SIZE);
+        if (thumbnail == null) {
+            return WasteDetection.UNREADABLE;
+        }
+        double[] features = features(thumbnail);
+
+        int best = 0;
+        double[] weights = new double[PROTOTYPES.length];
+        double total = 0;
+        for (int i = 0; i < PROTOTYPES.length; i++) {
+            double distance = PROTOTYPES[i].distance(features);
+            weights[i] = Math.exp(-distance / TEMPERATURE);
+            total += weights[i];
+            if (weights[i] > weights[best]) {
+                best = i;
+            }
+        }
+        Prototype match = PROTOTYPES[best];
+        double confidence = total > 0 ? Math.round(weights[best] / total * 100) / 100.0 : 0;
+        return new WasteDetection(match.type, match.category, match.recyclable, match.weightGrams, confidence);
+    }
+
+    @Override
+    public String getName() {
+        return "reference";
+    }
+
+    /**
+     * Fraction of pixels in each colour bin: white, brown, green, blue, grey, vivid.
+     */
+    static double[] features(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] rgb = image.getRGB(0, 0, width, height, null, 0, width);
+        double[] bins = new double[6];
+        float[] hsb = new float[3];
+        for (int pixel : rgb) {
+            Color.RGBtoHSB((pixel >> 16) & 0xff, (pixel >> 8) & 0xff, pixel & 0xff, hsb);
+            float hue = hsb[0];
+            float saturation = hsb[1];
+            float brightness = hsb[2];
+            if (saturation < 0.15f) {
+                if (brightness > 0.8f) {
+                    bins[0]++;
+                } else if (brightness > 0.25f) {
+                    bins[4]++;
+                }
+            } else if (hue >= 0.05f && hue < 0.12f && saturation < 0.85f && brightness > 0.25f && brightness < 0.8f) {
+                bins[1]++;
+            } else if (hue >= 0.2f && hue < 0.45f && saturation > 0.25f && brightness > 0.15f) {
+                bins[2]++;
+            } else if (hue >= 0.5f && hue < 0.7f && saturation > 0.2f) {
+                bins[3]++;
+            } else if (saturation > 0.6f && brightness > 0.4f) {
+                bins[5]++;
+            }
+        }
+        for (int i = 0; i < bins.length; i++) {
+            bins[i] /= rgb.length;
+        }
+        return bins;
+    }
+
+    private static final class Prototype {
+
+        private final String type;
+        private final String category;
+        private final boolean recyclable;
+        private final long weightGrams;
+        private final double[] features;
+
+        Prototype(String type, String category, boolean recyclable, long weightGrams, double... features) {
+            this.type = type;
+            this.category = category;
+            this.recyclable = recyclable;
+            this.weightGrams = weightGrams;
+            this.features = features;
+        }
+
+        double distance(double[] other) {
+            double sum = 0;
+            for (int i = 0; i < features.length; i++) {
+                double d = features[i] - other[i];
+                sum += d * d;
+            }
+            return sum;
+        }
+    }
+}
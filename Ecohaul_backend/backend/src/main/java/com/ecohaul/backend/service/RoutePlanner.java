@@ -0,0 +1,854 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.util.BatchDistance;
+import com.ecohaul.backend.util.GeoUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Route Planner
+ * Builds ordered pickup routes for one day with vehicle capacities and arrival time windows.
+ *
+ * Stops are split into square regions which are solved independently on a fork-join pool.
+ * Inside a region, Clarke-Wright savings merges single-stop routes (only pairs among each stop's
+ * nearest neighbours are considered, which keeps 10k stops tractable), each route is then
+ * improved with 2-opt, and routes are handed to the region's vehicles largest load first.
+ * Routes start and end at the region depot (the centroid of its vehicles), so one vehicle may
+ * run several routes in a day. A region that attracted no vehicles plans from the nearest depot
+ * that has some. Once every region is solved, routes a region's own vehicles could not take are
+ * offered to the vehicles of the other regions, nearest depot first, rescheduled from that
+ * depot. Routes no vehicle has room for are returned without an agent.
+ */
+public class RoutePlanner {
+
+    private final double speedKmh;
+    private final int serviceMinutes;
+    private final int dayStartMinute;
+    private final int dayEndMinute;
+    private final int neighbours;
+    private final double regionSizeDegrees;
+
+    public RoutePlanner(double speedKmh, int serviceMinutes, int dayStartMinute, int dayEndMinute,
+            int neighbours, double regionSizeDegrees) {
+        this.speedKmh = speedKmh;
+        this.serviceMinutes = serviceMinutes;
+        this.dayStartMinute = dayStartMinute;
+        this.dayEndMinute = dayEndMinute;
+        this.neighbours = neighbours;
+        this.regionSizeDegrees = regionSizeDegrees;
+    }
+
+    public Plan plan(List<Stop> stops, List<Vehicle> vehicles, ForkJoinPool pool) {
+        long started = System.nanoTime();
+
+        Map<Long, Region> regions = new HashMap<>();
+        for (Stop stop : stops) {
+            long key = regionKey(stop.latitude, stop.longitude);
+            regions.computeIfAbsent(key, Region::new).stops.add(stop);
+        }
+        if (regions.isEmpty()) {
+            return new Plan(Collections.emptyList(), 0, (System.nanoTime() - started) / 1_000_000);
+        }
+        // Every vehicle works the region whose stops' centroid is closest to it
+        List<Region> regionList = new ArrayList<>(regions.values());
+        for (Region region : regionList) {
+            region.computeCentroid();
+        }
+        for (Vehicle vehicle : vehicles) {
+            Region best = null;
+            double bestKm = Double.MAX_VALUE;
+            for (Region region : regionList) {
+                double km = GeoUtils.haversineKm(vehicle.latitude, vehicle.longitude,
+                        region.centroidLatitude, region.centroidLongitude);
+                if (km < bestKm) {
+                    bestKm = km;
+                    best = region;
+                }
+            }
+            best.vehicles.add(vehicle);
+        }
+        double maxVehicleCapacityKg = 0;
+        for (Vehicle vehicle : vehicles) {
+            maxVehicleCapacityKg = Math.max(maxVehicleCapacityKg, vehicle.capacityKg);
+        }
+        for (Region region : regionList) {
+            region.computeDepot();
+        }
+        for (Region region : regionList) {
+            if (region.vehicles.isEmpty()) {
+                Region nearest = nearestWithVehicles(region, regionList);
+                if (nearest != null) {
+                    region.depotLatitude = nearest.depotLatitude;
+                    region.depotLongitude = nearest.depotLongitude;
+                }
+            }
+        }
+
+        double capacityKg = maxVehicleCapacityKg;
+        List<ForkJoinTask<RegionSolver>> tasks = new ArrayList<>(regionList.size());
+        for (Region region : regionList) {
+            tasks.add(pool.submit(() -> {
+                RegionSolver solver = new RegionSolver(region, capacityKg);
+                solver.solve();
+                return solver;
+            }));
+        }
+        List<RegionSolver> solvers = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<RegionSolver> task : tasks) {
+            solvers.add(task.join());
+        }
+        // Sequential: lending books trips on other regions' vehicles
+        for (RegionSolver solver : solvers) {
+            solver.borrowVehicles(solvers);
+        }
+
+        List<Route> routes = new ArrayList<>();
+        int unassigned = 0;
+        for (RegionSolver solver : solvers) {
+            for (Route route : solver.routes) {
+                routes.add(route);
+                if (route.agentId == null) {
+                    unassigned += route.stopIds.length;
+                }
+            }
+        }
+        return new Plan(routes, unassigned, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private static Region nearestWithVehicles(Region region, List<Region> regions) {
+        Region nearest = null;
+        double nearestKm = Double.MAX_VALUE;
+        for (Region other : regions) {
+            if (other.vehicles.isEmpty()) {
+                continue;
+            }
+            double km = GeoUtils.haversineKm(region.centroidLatitude, region.centroidLongitude,
+                    other.depotLatitude, other.depotLongitude);
+            if (km < nearestKm) {
+                nearestKm = km;
+                nearest = other;
+            }
+        }
+        return nearest;
+    }
+
+    private long regionKey(double latitude, double longitude) {
+        int latIdx = (int) Math.floor(latitude / regionSizeDegrees);
+        int lonIdx = (int) Math.floor(longitude / regionSizeDegrees);
+        return ((long) latIdx << 32) | (lonIdx & 0xffffffffL);
+    }
+
+    private static final class Region {
+
+        final long key;
+        final List<Stop> stops = new ArrayList<>();
+        final List<Vehicle> vehicles = new ArrayList<>();
+        double centroidLatitude;
+        double centroidLongitude;
+        double depotLatitude;
+        double depotLongitude;
+
+        Region(long key) {
+            this.key = key;
+        }
+
+        void computeCentroid() {
+            double lat = 0;
+            double lon = 0;
+            for (Stop stop : stops) {
+                lat += stop.latitude;
+                lon += stop.longitude;
+            }
+            centroidLatitude = lat / stops.size();
+            centroidLongitude = lon / stops.size();
+        }
+
+        void computeDepot() {
+            if (vehicles.isEmpty()) {
+                depotLatitude = centroidLatitude;
+                depotLongitude = centroidLongitude;
+                return;
+            }
+            double lat = 0;
+            double lon = 0;
+            for (Vehicle vehicle : vehicles) {
+                lat += vehicle.latitude;
+                lon += vehicle.longitude;
+            }
+            depotLatitude = lat / vehicles.size();
+            depotLongitude = lon / vehicles.size();
+        }
+    }
+
+    /**
+     * Single-threaded solver for one region; all state is local to the instance.
+     */
+    private final class RegionSolver {
+
+        private final Region region;
+        private final int n;
+        private final double[] lat;
+        private final double[] lon;
+        private final double[] demand;
+        private final int[] windowStart;
+        private final int[] windowEnd;
+        private final double depotLatitude;
+        private final double depotLongitude;
+        private final double[] latRad;
+        private final double[] lonRad;
+        private final double[] cosLat;
+        private final double[] depotKm;
+        private final double capacityKg;
+
+        // Route chains built by the savings pass
+        private final int[] next;
+        private final int[] routeOf;
+        private final int[] first;
+        private final int[] last;
+        private final double[] load;
+
+        // Result: routes, the trips booked on this region's vehicles, and the routes left without a
+        // vehicle with their position in routes
+        private final List<Route> routes = new ArrayList<>();
+        private final List<List<int[]>> trips = new ArrayList<>();
+        private final List<int[]> leftovers = new ArrayList<>();
+        private final List<Integer> leftoverRoutes = new ArrayList<>();
+
+        RegionSolver(Region region, double maxVehicleCapacityKg) {
+            this.region = region;
+            this.n = region.stops.size();
+            this.lat = new double[n];
+            this.lon = new double[n];
+            this.demand = new double[n];
+            this.windowStart = new int[n];
+            this.windowEnd = new int[n];
+            for (int i = 0; i < n; i++) {
+                Stop stop = region.stops.get(i);
+                lat[i] = stop.latitude;
+                lon[i] = stop.longitude;
+                demand[i] = stop.demandKg;
+                windowStart[i] = stop.windowStartMinute;
+                windowEnd[i] = stop.windowEndMinute;
+            }
+            depotLatitude = region.depotLatitude;
+            depotLongitude = region.depotLongitude;
+            // Without vehicles of its own the region builds routes some borrowed vehicle can carry
+            double maxCapacity = region.vehicles.isEmpty() ? maxVehicleCapacityKg : 0;
+            for (Vehicle vehicle : region.vehicles) {
+                maxCapacity = Math.max(maxCapacity, vehicle.capacityKg);
+            }
+            this.capacityKg = maxCapacity > 0 ? maxCapacity : Double.MAX_VALUE;
+            this.latRad = new double[n];
+            this.lonRad = new double[n];
+            this.cosLat = new double[n];
+            for (int i = 0; i < n; i++) {
+                latRad[i] = Math.toRadians(lat[i]);
+                lonRad[i] = Math.toRadians(lon[i]);
+                cosLat[i] = Math.cos(latRad[i]);
+            }
+            this.depotKm = new double[n];
+            BatchDistance.haversineKm(depotLatitude, depotLongitude, latRad, lonRad, cosLat, n, depotKm);
+            this.next = new int[n];
+            this.routeOf = new int[n];
+            this.first = new int[n];
+            this.last = new int[n];
+            this.load = new double[n];
+        }
+
+        void solve() {
+            for (int i = 0; i < n; i++) {
+                next[i] = -1;
+                routeOf[i] = i;
+                first[i] = i;
+                last[i] = i;
+                load[i] = demand[i];
+            }
+            applySavings();
+
+            List<int[]> sequences = new ArrayList<>();
+            for (int r = 0; r < n; r++) {
+                if (first[r] < 0 || routeOf[first[r]] != r) {
+                    continue;
+                }
+                int[] sequence = new int[length(r)];
+                int k = 0;
+                for (int s = first[r]; s >= 0; s = next[s]) {
+                    sequence[k++] = s;
+                }
+                twoOpt(sequence);
+                sequences.add(sequence);
+            }
+            assignVehicles(sequences);
+        }
+
+        private void applySavings() {
+            int[][] nearest = nearestNeighbours();
+            int pairCount = 0;
+            for (int[] list : nearest) {
+                pairCount += list.length;
+            }
+            int[] pairA = new int[pairCount];
+            int[] pairB = new int[pairCount];
+            long[] keys = new long[pairCount];
+            int p = 0;
+            for (int i = 0; i < n; i++) {
+                for (int j : nearest[i]) {
+                    // The gap between windows counts as distance, as in nearestNeighbours: joining a
+                    // morning stop to an afternoon one saves a drive but parks the vehicle for hours
+                    double saving = depotKm[i] + depotKm[j] - km(i, j) - windowGapKm(i, j);
+                    if (saving <= 0) {
+                        continue;
+                    }
+                    pairA[p] = i;
+                    pairB[p] = j;
+                    // Positive floats keep their order as raw bits, so one long sort ranks the pairs
+                    keys[p] = ((long) Float.floatToIntBits((float) saving) << 32) | p;
+                    p++;
+                }
+            }
+            Arrays.sort(keys, 0, p);
+            for (int k = p - 1; k >= 0; k--) {
+                int pair = (int) keys[k];
+                int i = pairA[pair];
+                int j = pairB[pair];
+                int ri = routeOf[i];
+                int rj = routeOf[j];
+                if (ri == rj || load[ri] + load[rj] > capacityKg) {
+                    continue;
+                }
+                if (last[ri] == i && first[rj] == j && feasible(ri, rj)) {
+                    merge(ri, rj);
+                } else if (last[rj] == j && first[ri] == i && feasible(rj, ri)) {
+                    merge(rj, ri);
+                }
+            }
+        }
+
+        /**
+         * Up to {@code neighbours} closest stops of each stop, found through a uniform grid.
+         * Closeness adds the gap between window starts, as driving distance, to the distance:
+         * a stop next door whose window is hours later rarely ends up on the same route.
+         */
+        private int[][] nearestNeighbours() {
+            int k = Math.min(neighbours, n - 1);
+            int[][] result = new int[n][];
+            if (k <= 0) {
+                Arrays.fill(result, new int[0]);
+                return result;
+            }
+            double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+            double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                minLat = Math.min(minLat, lat[i]);
+                maxLat = Math.max(maxLat, lat[i]);
+                minLon = Math.min(minLon, lon[i]);
+                maxLon = Math.max(maxLon, lon[i]);
+            }
+            // Aim for a few stops per cell so a ring or two covers k neighbours
+            double area = Math.max((maxLat - minLat) * (maxLon - minLon), 1e-8);
+            double cell = Math.max(Math.sqrt(area * Math.max(k / 4.0, 1.0) / n), 1e-4);
+            int columns = (int) ((maxLon - minLon) / cell) + 1;
+            int rows = (int) ((maxLat - minLat) / cell) + 1;
+
+            int[] cellOf = new int[n];
+            int[] cellStart = new int[rows * columns + 1];
+            for (int i = 0; i < n; i++) {
+                cellOf[i] = (int) ((lat[i] - minLat) / cell) * columns + (int) ((lon[i] - minLon) / cell);
+                cellStart[cellOf[i] + 1]++;
+            }
+            for (int c = 0; c < rows * columns; c++) {
+                cellStart[c + 1] += cellStart[c];
+            }
+            int[] members = new int[n];
+            int[] fill = Arrays.copyOf(cellStart, cellStart.length);
+            for (int i = 0; i < n; i++) {
+                members[fill[cellOf[i]]++] = i;
+            }
+
+            int[] candidates = new int[n];
+            double[] candidateCost = new double[n];
+            for (int i = 0; i < n; i++) {
+                int row = cellOf[i] / columns;
+                int column = cellOf[i] % columns;
+                int found = 0;
+                for (int ring = 0; ; ring++) {
+                    for (int r = row - ring; r <= row + ring; r++) {
+                        if (r < 0 || r >= rows) {
+                            continue;
+                        }
+                        boolean edgeRow = r == row - ring || r == row + ring;
+                        for (int c = column - ring; c <= column + ring; c += edgeRow ? 1 : Math.max(1, 2 * ring)) {
+                            if (c < 0 || c >= columns) {
+                                continue;
+                            }
+                            int cellIndex = r * columns + c;
+                            for (int m = cellStart[cellIndex]; m < cellStart[cellIndex + 1]; m++) {
+                                int j = members[m];
+                                if (j != i) {
+                                    candidates[found] = j;
+                                    candidateCost[found] = km(i, j) + windowGapKm(i, j);
+                                    found++;
+                                }
+                            }
+                        }
+                    }
+                    // One ring beyond the quota so stops just across a cell edge are not missed
+                    if ((found >= 4 * k && ring > 0) || ring > rows + columns) {
+                        break;
+                    }
+                }
+                result[i] = closest(candidates, candidateCost, found, k);
+            }
+            return result;
+        }
+
+        private double windowGapKm(int a, int b) {
+            return Math.abs(windowStart[a] - windowStart[b]) / 60.0 * speedKmh;
+        }
+
+        private int[] closest(int[] candidates, double[] candidateCost, int found, int k) {
+            Integer[] order = new Integer[found];
+            for (int m = 0; m < found; m++) {
+                order[m] = m;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(candidateCost[a], candidateCost[b]));
+            int[] chosen = new int[Math.min(k, found)];
+            for (int m = 0; m < chosen.length; m++) {
+                chosen[m] = candidates[order[m]];
+            }
+            return chosen;
+        }
+
+        private void merge(int into, int from) {
+            next[last[into]] = first[from];
+            for (int s = first[from]; s >= 0; s = next[s]) {
+                routeOf[s] = into;
+            }
+            last[into] = last[from];
+            load[into] += load[from];
+            first[from] = -1;
+        }
+
+        private int length(int route) {
+            int length = 0;
+            for (int s = first[route]; s >= 0; s = next[s]) {
+                length++;
+            }
+            return length;
+        }
+
+        /**
+         * Whether route a followed by route b meets every window and returns before the day ends.
+         */
+        private boolean feasible(int a, int b) {
+            double time = dayStartMinute;
+            int at = -1;
+            for (int route : new int[] {a, b}) {
+                for (int s = first[route]; s >= 0; s = next[s]) {
+                    time = arrive(at, s, time);
+                    if (time < 0) {
+                        return false;
+                    }
+                    at = s;
+                }
+            }
+            return time + minutesFromDepot(at) <= dayEndMinute;
+        }
+
+        private boolean feasible(int[] sequence) {
+            double time = dayStartMinute;
+            int at = -1;
+            for (int s : sequence) {
+                time = arrive(at, s, time);
+                if (time < 0) {
+                    return false;
+                }
+                at = s;
+            }
+            return time + minutesFromDepot(at) <= dayEndMinute;
+        }
+
+        /**
+         * Time service at stop s finishes when coming from stop at (-1 for the depot), or -1 if
+         * the window is missed.
+         */
+        private double arrive(int at, int s, double time) {
+            time += (at < 0 ? depotKm[s] : km(at, s)) / speedKmh * 60.0;
+            if (time > windowEnd[s]) {
+                return -1;
+            }
+            return Math.max(time, windowStart[s]) + serviceMinutes;
+        }
+
+        private double minutesFromDepot(int s) {
+            return s < 0 ? 0 : depotKm[s] / speedKmh * 60.0;
+        }
+
+        private void twoOpt(int[] sequence) {
+            int length = sequence.length;
+            if (length < 3) {
+                return;
+            }
+            boolean improved = true;
+            for (int pass = 0; improved && pass < 50; pass++) {
+                improved = false;
+                for (int i = 0; i < length - 1; i++) {
+                    for (int k = i + 1; k < length; k++) {
+                        double before = edge(sequence, i - 1, i) + edge(sequence, k, k + 1);
+                        double after = edge(sequence, i - 1, k) + edge(sequence, i, k + 1);
+                        if (after < before - 1e-9) {
+                            reverse(sequence, i, k);
+                            if (feasible(sequence)) {
+                                improved = true;
+                            } else {
+                                reverse(sequence, i, k);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Length of the edge between positions a and b of the sequence; positions outside the
+         * sequence are the depot.
+         */
+        private double edge(int[] sequence, int a, int b) {
+            boolean aDepot = a < 0 || a >= sequence.length;
+            boolean bDepot = b < 0 || b >= sequence.length;
+            if (aDepot && bDepot) {
+                return 0;
+            }
+            if (aDepot) {
+                return depotKm[sequence[b]];
+            }
+            if (bDepot) {
+                return depotKm[sequence[a]];
+            }
+            return km(sequence[a], sequence[b]);
+        }
+
+        /**
+         * Hand routes to vehicles, largest load first. A vehicle can run several routes as
+         * separate trips from the depot as long as they do not overlap in time. Merged routes are
+         * feasible by construction; a stop left on its own may not be reachable in its window from
+         * this depot and is then left for another region's vehicles, or unassigned.
+         */
+        private void assignVehicles(List<int[]> sequences) {
+            int count = sequences.size();
+            double[] loads = new double[count];
+            double[][] arrivals = new double[count][];
+            int[] departs = new int[count];
+            int[] returns = new int[count];
+            Integer[] order = new Integer[count];
+            for (int r = 0; r < count; r++) {
+                int[] sequence = sequences.get(r);
+                order[r] = r;
+                for (int s : sequence) {
+                    loads[r] += demand[s];
+                }
+                arrivals[r] = schedule(sequence, depotKm[sequence[0]]);
+                departs[r] = (int) Math.floor(arrivals[r][0] - minutesFromDepot(sequence[0]));
+                returns[r] = (int) Math.ceil(arrivals[r][sequence.length - 1] + serviceMinutes
+                        + minutesFromDepot(sequence[sequence.length - 1]));
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(loads[b], loads[a]));
+
+            for (int v = 0; v < region.vehicles.size(); v++) {
+                trips.add(new ArrayList<>());
+            }
+            for (int r : order) {
+                int[] sequence = sequences.get(r);
+                int chosen = feasible(sequence) ? chooseVehicle(this, sequence, loads[r], departs[r], returns[r]) : -1;
+                if (chosen < 0) {
+                    leftovers.add(sequence);
+                    leftoverRoutes.add(routes.size());
+                }
+                routes.add(toRoute(sequence, arrivals[r], loads[r],
+                        chosen >= 0 ? region.vehicles.get(chosen).agentId : null,
+                        depotKm[sequence[0]], depotKm[sequence[sequence.length - 1]]));
+            }
+        }
+
+        /**
+         * Index of the vehicle of this region to run {@code owner}'s route as a trip from depart
+         * to back, booking the trip, or -1 if none has the room and the time.
+         */
+        private int chooseVehicle(RegionSolver owner, int[] sequence, double loadKg, int depart, int back) {
+            int chosen = -1;
+            int chosenAffinity = -1;
+            for (int v = 0; v < region.vehicles.size(); v++) {
+                Vehicle vehicle = region.vehicles.get(v);
+                if (vehicle.capacityKg < loadKg || overlaps(trips.get(v), depart, back)) {
+                    continue;
+                }
+                // Prefer the agent dispatch already promised these stops, then the smallest vehicle
+                int affinity = 0;
+                for (int s : sequence) {
+                    if (owner.region.stops.get(s).preferredAgentId == vehicle.agentId) {
+                        affinity++;
+                    }
+                }
+                if (affinity > chosenAffinity || (affinity == chosenAffinity
+                        && vehicle.capacityKg < region.vehicles.get(chosen).capacityKg)) {
+                    chosen = v;
+                    chosenAffinity = affinity;
+                }
+            }
+            if (chosen >= 0) {
+                trips.get(chosen).add(new int[] {depart, back});
+            }
+            return chosen;
+        }
+
+        /**
+         * Offer the routes left without a vehicle to the other regions' vehicles, nearest depot first.
+         */
+        void borrowVehicles(List<RegionSolver> solvers) {
+            if (leftovers.isEmpty()) {
+                return;
+            }
+            List<RegionSolver> lenders = new ArrayList<>();
+            for (RegionSolver other : solvers) {
+                if (other != this && !other.region.vehicles.isEmpty()) {
+                    lenders.add(other);
+                }
+            }
+            lenders.sort(Comparator.comparingDouble(other -> GeoUtils.haversineKm(depotLatitude, depotLongitude,
+                    other.depotLatitude, other.depotLongitude)));
+            for (int l = 0; l < leftovers.size(); l++) {
+                for (RegionSolver lender : lenders) {
+                    Route route = lender.take(this, leftovers.get(l));
+                    if (route != null) {
+                        routes.set(leftoverRoutes.get(l), route);
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * {@code owner}'s route run from this region's depot by one of its vehicles, or null if
+         * the windows or the day cannot be met from here or no vehicle is free.
+         */
+        private Route take(RegionSolver owner, int[] sequence) {
+            int end = sequence.length - 1;
+            double outKm = GeoUtils.haversineKm(depotLatitude, depotLongitude, owner.lat[sequence[0]], owner.lon[sequence[0]]);
+            double backKm = GeoUtils.haversineKm(depotLatitude, depotLongitude, owner.lat[sequence[end]], owner.lon[sequence[end]]);
+            double[] starts = owner.schedule(sequence, outKm);
+            for (int m = 0; m <= end; m++) {
+                if (starts[m] > owner.windowEnd[sequence[m]]) {
+                    return null;
+                }
+            }
+            double back = starts[end] + serviceMinutes + backKm / speedKmh * 60.0;
+            if (back > dayEndMinute) {
+                return null;
+            }
+            double loadKg = 0;
+            for (int s : sequence) {
+                loadKg += owner.demand[s];
+            }
+            int chosen = chooseVehicle(owner, sequence, loadKg,
+                    (int) Math.floor(starts[0] - outKm / speedKmh * 60.0), (int) Math.ceil(back));
+            if (chosen < 0) {
+                return null;
+            }
+            return owner.toRoute(sequence, starts, loadKg, region.vehicles.get(chosen).agentId, outKm, backKm);
+        }
+
+        private boolean overlaps(List<int[]> busy, int depart, int back) {
+            for (int[] trip : busy) {
+                if (depart < trip[1] && trip[0] < back) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Service start minute at each stop of a sequence, leaving a depot {@code firstKm} from
+         * its first stop.
+         */
+        private double[] schedule(int[] sequence, double firstKm) {
+            double[] starts = new double[sequence.length];
+            double time = dayStartMinute;
+            int at = -1;
+            for (int m = 0; m < sequence.length; m++) {
+                int s = sequence[m];
+                time += (at < 0 ? firstKm : km(at, s)) / speedKmh * 60.0;
+                time = Math.max(time, windowStart[s]);
+                starts[m] = time;
+                time += serviceMinutes;
+                at = s;
+            }
+            return starts;
+        }
+
+        private Route toRoute(int[] sequence, double[] starts, double loadKg, Long agentId,
+                double outKm, double backKm) {
+            long[] stopIds = new long[sequence.length];
+            int[] arrivals = new int[sequence.length];
+            double distance = outKm + backKm;
+            for (int m = 0; m < sequence.length; m++) {
+                stopIds[m] = region.stops.get(sequence[m]).id;
+                arrivals[m] = (int) Math.round(starts[m]);
+                if (m > 0) {
+                    distance += km(sequence[m - 1], sequence[m]);
+                }
+            }
+            return new Route(agentId, region.key, stopIds, arrivals, distance, loadKg);
+        }
+
+        // Haversine on the precomputed radians and cosines
+        private double km(int a, int b) {
+            double sinLat = Math.sin((latRad[b] - latRad[a]) * 0.5);
+            double sinLon = Math.sin((lonRad[b] - lonRad[a]) * 0.5);
+            double h = sinLat * sinLat + cosLat[a] * cosLat[b] * sinLon * sinLon;
+            return 2 * GeoUtils.EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1.0, h)));
+        }
+    }
+
+    private static void reverse(int[] sequence, int from, int to) {
+        while (from < to) {
+            int tmp = sequence[from];
+            sequence[from++] = sequence[to];
+            sequence[to--] = tmp;
+        }
+    }
+
+    /**
+     * A pickup to route. Windows are minutes after midnight; demand is in kg.
+     */
+    public static final class Stop {
+
+        private final long id;
+        private final double latitude;
+        private final double longitude;
+        private final double demandKg;
+        private final int windowStartMinute;
+        private final int windowEndMinute;
+        private final long preferredAgentId;
+
+        public Stop(long id, double latitude, double longitude, double demandKg,
+                int windowStartMinute, int windowEndMinute, long preferredAgentId) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.demandKg = demandKg;
+            this.windowStartMinute = windowStartMinute;
+            this.windowEndMinute = windowEndMinute;
+            this.preferredAgentId = preferredAgentId;
+        }
+
+        public long getId() { return id; }
+        public double getLatitude() { return latitude; }
+        public double getLongitude() { return longitude; }
+        public double getDemandKg() { return demandKg; }
+        public int getWindowStartMinute() { return windowStartMinute; }
+        public int getWindowEndMinute() { return windowEndMinute; }
+    }
+
+    /**
+     * An agent's vehicle starting from its current position.
+     */
+    public static final class Vehicle {
+
+        private final long agentId;
+        private final double latitude;
+        private final double longitude;
+        private final double capacityKg;
+
+        public Vehicle(long agentId, double latitude, double longitude, double capacityKg) {
+            this.agentId = agentId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.capacityKg = capacityKg;
+        }
+
+        public long getAgentId() { return agentId; }
+        public double getCapacityKg() { return capacityKg; }
+    }
+
+    /**
+     * Ordered stops for one vehicle with the planned arrival minute at each stop.
+     */
+    public static final class Route {
+
+        private final Long agentId;
+        private final long regionKey;
+        private final long[] stopIds;
+        private final int[] arrivalMinutes;
+        private final double distanceKm;
+        private final double loadKg;
+
+        Route(Long agentId, long regionKey, long[] stopIds, int[] arrivalMinutes, double distanceKm, double loadKg) {
+            this.agentId = agentId;
+            this.regionKey = regionKey;
+            this.stopIds = stopIds;
+            this.arrivalMinutes = arrivalMinutes;
+            this.distanceKm = distanceKm;
+            this.loadKg = loadKg;
+        }
+
+        public Long getAgentId() { return agentId; }
+        public long getRegionKey() { return regionKey; }
+        public long[] getStopIds() { return stopIds; }
+        public int[] getArrivalMinutes() { return arrivalMinutes; }
+        public double getDistanceKm() { return distanceKm; }
+        public double getLoadKg() { return loadKg; }
+    }
+
+    public static final class Plan {
+
+        private final List<Route> routes;
+        private final int unassignedStops;
+        private final long planningMillis;
+        private final List<Long> unroutablePickupIds;
+
+        Plan(List<Route> routes, int unassignedStops, long planningMillis) {
+            this(routes, unassignedStops, planningMillis, Collections.emptyList());
+        }
+
+        private Plan(List<Route> routes, int unassignedStops, long planningMillis, List<Long> unroutablePickupIds) {
+            this.routes = routes;
+            this.unassignedStops = unassignedStops;
+            this.planningMillis = planningMillis;
+            this.unroutablePickupIds = unroutablePickupIds;
+        }
+
+        /**
+         * This plan plus pickups that never reached the planner (e.g. without coordinates),
+         * counted as unassigned stops.
+         */
+        public Plan withUnroutable(List<Long> pickupIds) {
+            if (pickupIds.isEmpty()) {
+                return this;
+            }
+            return new Plan(routes, unassignedStops + pickupIds.size(), planningMillis,
+                    Collections.unmodifiableList(new ArrayList<>(pickupIds)));
+        }
+
+        public List<Route> getRoutes() { return routes; }
+        // Includes the unroutable pickups
+        public int getUnassignedStops() { return unassignedStops; }
+        public long getPlanningMillis() { return planningMillis; }
+        public List<Long> getUnroutablePickupIds() { return unroutablePickupIds; }
+
+        public double getTotalDistanceKm() {
+            double total = 0;
+            for (Route route : routes) {
+                total += route.distanceKm;
+            }
+            return total;
+        }
+    }
+}
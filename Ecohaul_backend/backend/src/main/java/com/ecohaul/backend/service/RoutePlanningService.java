@@ -0,0 +1,147 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.Pickup;
+import com.ecohaul.backend.repository.PickupRepository;
+import com.ecohaul.backend.service.AgentPositionTable.AgentPosition;
+import com.ecohaul.backend.service.AgentTrackingService.TrackedAgent;
+import com.ecohaul.backend.service.RoutePlanner.Plan;
+import com.ecohaul.backend.service.RoutePlanner.Stop;
+import com.ecohaul.backend.service.RoutePlanner.Vehicle;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Route Planning Service
+ * Turns the scheduled pickups of a date into ordered routes per agent with {@link RoutePlanner}.
+ *
+ * Runs nightly for the next day and on demand. Demand is the pickup's cart weight, windows are
+ * the booked dispatch slot, and vehicles are the available agents at their live positions.
+ * Plans are kept in memory per date; the agent dispatch promised a stop to is preferred when
+ * routes are handed out.
+ */
+@Service
+public class RoutePlanningService {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutePlanningService.class);
+
+    @Autowired
+    private PickupRepository pickupRepository;
+
+    @Autowired
+    private AgentTrackingService agentTrackingService;
+
+    @Value("${ecohaul.routing.parallelism:0}")
+    private int parallelism;
+
+    @Value("${ecohaul.routing.speed-kmh:25}")
+    private double speedKmh;
+
+    @Value("${ecohaul.routing.service-minutes:10}")
+    private int serviceMinutes;
+
+    @Value("${ecohaul.routing.day-start:07:00}")
+    private String dayStart;
+
+    @Value("${ecohaul.routing.day-end:19:00}")
+    private String dayEnd;
+
+    @Value("${ecohaul.routing.neighbours:24}")
+    private int neighbours;
+
+    @Value("${ecohaul.routing.region-size-degrees:0.25}")
+    private double regionSizeDegrees;
+
+    @Value("${ecohaul.dispatch.slot-minutes:30}")
+    private int slotMinutes;
+
+    private final Map<LocalDate, Plan> plans = new ConcurrentHashMap<>();
+    private ForkJoinPool pool;
+    private RoutePlanner planner;
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        planner = new RoutePlanner(speedKmh, serviceMinutes, minuteOfDay(LocalTime.parse(dayStart)),
+                minuteOfDay(LocalTime.parse(dayEnd)), neighbours, regionSizeDegrees);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Scheduled(cron = "${ecohaul.routing.nightly-cron:0 0 22 * * *}")
+    public void planTomorrow() {
+        Plan plan = planRoutes(LocalDate.now().plusDays(1));
+        log.info("Nightly route plan: {} routes, {} unassigned stops, {} ms",
+                plan.getRoutes().size(), plan.getUnassignedStops(), plan.getPlanningMillis());
+    }
+
+    public Plan planRoutes(LocalDate date) {
+        List<Stop> stops = new ArrayList<>();
+        List<Long> unroutable = new ArrayList<>();
+        for (Pickup pickup : pickupRepository.findByPickupDateAndStatus(date, DispatchService.STATUS_SCHEDULED)) {
+            Stop stop = toStop(pickup);
+            if (stop != null) {
+                stops.add(stop);
+            } else {
+                unroutable.add(pickup.getId());
+            }
+        }
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (TrackedAgent tracked : agentTrackingService.findAgents(null, null, true)) {
+            AgentPosition position = tracked.getPosition();
+            if (position != null) {
+                vehicles.add(new Vehicle(tracked.getAgent().getId(), position.getLatitude(), position.getLongitude(),
+                        DispatchService.capacityKg(tracked.getAgent().getVehicleType())));
+            }
+        }
+        Plan plan = planner.plan(stops, vehicles, pool).withUnroutable(unroutable);
+        if (!unroutable.isEmpty()) {
+            log.warn("{} scheduled pickups on {} have no coordinates and cannot be routed: {}",
+                    unroutable.size(), date, unroutable);
+        }
+        plans.put(date, plan);
+        return plan;
+    }
+
+    public Plan getPlan(LocalDate date) {
+        return plans.get(date);
+    }
+
+    /**
+     * Pickups without coordinates cannot be routed; they are returned in the plan as unroutable.
+     */
+    private Stop toStop(Pickup pickup) {
+        if (pickup.getLatitude() == null || pickup.getLongitude() == null) {
+            return null;
+        }
+        int windowStart = 0;
+        int windowEnd = 24 * 60;
+        if (pickup.getPickupSlot() != null) {
+            windowStart = minuteOfDay(pickup.getPickupSlot());
+            windowEnd = windowStart + slotMinutes;
+        }
+        double demandKg = pickup.getTotalWeight() != null ? pickup.getTotalWeight() / 1000.0 : 0.0;
+        return new Stop(pickup.getId(), pickup.getLatitude(), pickup.getLongitude(), demandKg,
+                windowStart, windowEnd, pickup.getAgentId() != null ? pickup.getAgentId() : -1L);
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
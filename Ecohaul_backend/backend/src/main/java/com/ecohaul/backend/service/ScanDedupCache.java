@@ -0,0 +1,222 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.util.PerceptualHash;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scan Dedup Cache
+ * Remembers the detection for recently scanned images by perceptual hash, so the same product
+ * photographed again (another user, another angle of light, another JPEG quality) reuses the
+ * earlier classification instead of running detection again.
+ *
+ * Near neighbours are found with LSH banding: the 64-bit hash is cut into eight 8-bit bands and
+ * every entry is listed under each of its band values. Two hashes at most 7 bits apart agree on
+ * at least one band, so checking the eight buckets of a lookup finds every entry within the
+ * threshold. Entries are kept in LRU order and the oldest is dropped once the cache is full.
+ *
+ * Off by default: hashing decodes the whole image (on the order of 100 ms for a 12 MP JPEG), so
+ * it only pays off with a classifier slower than that. Compare ecohaul.scan.dedup.hash with
+ * ecohaul.inference.latency before turning it on.
+ */
+@Service
+public class ScanDedupCache {
+
+    private static final int BANDS = 8;
+    private static final int BAND_BITS = 64 / BANDS;
+    private static final int BAND_VALUES = 1 << BAND_BITS;
+    // Banding guarantees recall only up to BANDS - 1 differing bits
+    private static final int MAX_SUPPORTED_DISTANCE = BANDS - 1;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${ecohaul.scanner.dedup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ecohaul.scanner.dedup.max-entries:10000}")
+    private int maxEntries = 10000;
+
+    @Value("${ecohaul.scanner.dedup.max-distance:5}")
+    private int maxDistance = 5;
+
+    // LRU over distinct hashes; every access goes through the monitor of this cache
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    @SuppressWarnings("unchecked")
+    private final List<Entry>[] buckets = new List[BANDS * BAND_VALUES];
+
+    private long hits;
+    private long misses;
+    private long savedNanos;
+    private Timer hashTimer;
+
+    @PostConstruct
+    public void init() {
+        if (maxDistance < 0 || maxDistance > MAX_SUPPORTED_DISTANCE) {
+            throw new IllegalStateException("ecohaul.scanner.dedup.max-distance must be between 0 and "
+                    + MAX_SUPPORTED_DISTANCE);
+        }
+        MeterRegistry registry = meterRegistry != null ? meterRegistry.getIfAvailable() : null;
+        if (registry != null) {
+            FunctionCounter.builder("ecohaul.scan.dedup.hits", this, ScanDedupCache::getHits)
+                    .description("Scans answered from a near-duplicate image")
+                    .register(registry);
+            FunctionCounter.builder("ecohaul.scan.dedup.misses", this, ScanDedupCache::getMisses)
+                    .description("Hashed scans that needed detection")
+                    .register(registry);
+            Gauge.builder("ecohaul.scan.dedup.hit.ratio", this, ScanDedupCache::getHitRatio)
+                    .description("Share of hashed scans answered from the cache")
+                    .register(registry);
+            Gauge.builder("ecohaul.scan.dedup.size", this, ScanDedupCache::size)
+                    .description("Image hashes currently cached")
+                    .register(registry);
+            FunctionCounter.builder("ecohaul.scan.dedup.saved", this, cache -> cache.getSavedNanos() / 1e9)
+                    .baseUnit("seconds")
+                    .description("Detection time the cached results would have cost")
+                    .register(registry);
+            hashTimer = Timer.builder("ecohaul.scan.dedup.hash")
+                    .description("Time spent hashing scan images")
+                    .register(registry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Perceptual hash of the image, or null when it cannot be decoded (such scans skip the cache).
+     */
+    public Long hash(ByteBuffer image) {
+        long start = System.nanoTime();
+        Long hash = PerceptualHash.dHash(image);
+        if (hashTimer != null) {
+            hashTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return hash;
+    }
+
+    /**
+     * Detection of the closest cached image within the distance threshold, or null. A hit
+     * counts the detection time that image originally took as saved.
+     */
+    public synchronized WasteDetection lookup(long hash) {
+        Entry best = entries.get(hash);
+        if (best == null) {
+            int bestDistance = maxDistance + 1;
+            for (int band = 0; band < BANDS; band++) {
+                List<Entry> bucket = buckets[bucketIndex(hash, band)];
+                if (bucket == null) {
+                    continue;
+                }
+                for (Entry candidate : bucket) {
+                    int distance = PerceptualHash.distance(hash, candidate.hash);
+                    if (distance < bestDistance) {
+                        best = candidate;
+                        bestDistance = distance;
+                    }
+                }
+            }
+            if (best != null) {
+                // Refresh its LRU position
+                entries.get(best.hash);
+            }
+        }
+        if (best == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        savedNanos += best.inferenceNanos;
+        return best.detection;
+    }
+
+    /**
+     * Cache the detection computed for {@code hash}, evicting the least recently used entry when
+     * full. {@code inferenceNanos} is what detection took, credited on every later hit.
+     */
+    public synchronized void put(long hash, WasteDetection detection, long inferenceNanos) {
+        Entry previous = entries.remove(hash);
+        if (previous != null) {
+            unlink(previous);
+        }
+        Entry entry = new Entry(hash, detection, inferenceNanos);
+        entries.put(hash, entry);
+        for (int band = 0; band < BANDS; band++) {
+            int index = bucketIndex(hash, band);
+            if (buckets[index] == null) {
+                buckets[index] = new ArrayList<>(4);
+            }
+            buckets[index].add(entry);
+        }
+        if (entries.size() > maxEntries) {
+            Iterator<Entry> eldest = entries.values().iterator();
+            Entry evicted = eldest.next();
+            eldest.remove();
+            unlink(evicted);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getSavedNanos() {
+        return savedNanos;
+    }
+
+    public synchronized double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private void unlink(Entry entry) {
+        for (int band = 0; band < BANDS; band++) {
+            int index = bucketIndex(entry.hash, band);
+            List<Entry> bucket = buckets[index];
+            bucket.remove(entry);
+            if (bucket.isEmpty()) {
+                buckets[index] = null;
+            }
+        }
+    }
+
+    private static int bucketIndex(long hash, int band) {
+        return band * BAND_VALUES + (int) ((hash >>> (band * BAND_BITS)) & (BAND_VALUES - 1));
+    }
+
+    private static final class Entry {
+
+        private final long hash;
+        private final WasteDetection detection;
+        private final long inferenceNanos;
+
+        Entry(long hash, WasteDetection detection, long inferenceNanos) {
+            this.hash = hash;
+            this.detection = detection;
+            this.inferenceNanos = inferenceNanos;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.WasteRecord;
+import com.ecohaul.backend.repository.ScanHistoryRow;
+import com.ecohaul.backend.repository.WasteRecordRepository;
+import com.ecohaul.backend.service.WasteScanService.Scan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Scan History Service
+ * Saves scans as {@link WasteRecord}s and pages through a user's history newest first.
+ *
+ * Pages are keyset-paginated on (scanned_at, id) within a user: the cursor handed back with a
+ * page is the position of its last row, and the next page seeks past it on
+ * idx_waste_records_user_scanned instead of counting OFFSET rows, so a user with tens of
+ * thousands of scans pages as fast at the end as at the start. Rows are read through the
+ * {@link ScanHistoryRow} projection, never as entities.
+ */
+@Service
+public class ScanHistoryService {
+
+    // WasteRecord.scanImageUrl of an image in the ImageBlobStore is this prefix plus its key
+    public static final String IMAGE_URL_PREFIX = "/api/v1/waste-scanner/images/";
+
+    @Autowired
+    private WasteRecordRepository wasteRecordRepository;
+
+    @Autowired
+    private PricingEngine pricingEngine;
+
+    @Value("${ecohaul.history.max-page-size:100}")
+    private int maxPageSize = 100;
+
+    /**
+     * Save a finished scan for {@code userId}; returns the new record id.
+     */
+    public Long record(Long userId, Scan scan) {
+        WasteDetection detection = scan.getWasteDetection();
+        WasteRecord record = new WasteRecord(userId, detection.getType(), detection.getCategory(),
+                (double) detection.getEstimatedWeight());
+        record.setConfidenceScore(detection.getConfidence());
+        record.setIsRecyclable(detection.isRecyclable());
+        record.setEstimatedValue(pricingEngine.value(detection.getType(), detection.getEstimatedWeight()));
+        if (scan.getImageKey() != null) {
+            record.setScanImageUrl(IMAGE_URL_PREFIX + scan.getImageKey());
+        }
+        return wasteRecordRepository.save(record).getId();
+    }
+
+    /**
+     * The image keys among {@code keys} that some waste record points at.
+     */
+    public Set<String> referencedImages(Collection<String> keys) {
+        List<String> urls = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            urls.add(IMAGE_URL_PREFIX + key);
+        }
+        Set<String> referenced = new HashSet<>();
+        for (String url : wasteRecordRepository.findReferencedImageUrls(urls)) {
+            referenced.add(url.substring(IMAGE_URL_PREFIX.length()));
+        }
+        return referenced;
+    }
+
+    /**
+     * Up to {@code limit} scans of {@code userId} after {@code cursor} (null for the first page).
+     * Throws IllegalArgumentException for a cursor this service did not issue.
+     */
+    public HistoryPage page(Long userId, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        // One extra row tells whether another page follows without a COUNT
+        Limit fetch = Limit.of(size + 1);
+        List<ScanHistoryRow> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = wasteRecordRepository.findHistory(userId, fetch);
+        } else {
+            Position after = decode(cursor);
+            rows = wasteRecordRepository.findHistoryAfter(userId, after.scannedAt, after.id, fetch);
+        }
+        if (rows.size() <= size) {
+            return new HistoryPage(rows, null);
+        }
+        rows = rows.subList(0, size);
+        ScanHistoryRow last = rows.get(size - 1);
+        return new HistoryPage(rows, encode(last.getScannedAt(), last.getId()));
+    }
+
+    static String encode(LocalDateTime scannedAt, Long id) {
+        String position = scannedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Position decode(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Position(LocalDateTime.parse(position.substring(0, separator)),
+                    Long.parseLong(position.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException is an IllegalArgumentException too
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    record Position(LocalDateTime scannedAt, long id) {
+    }
+
+    public static final class HistoryPage {
+
+        private final List<ScanHistoryRow> rows;
+        private final String nextCursor;
+
+        HistoryPage(List<ScanHistoryRow> rows, String nextCursor) {
+            this.rows = rows;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<ScanHistoryRow> getRows() { return rows; }
+        public String getNextCursor() { return nextCursor; }
+        public boolean hasMore() { return nextCursor != null; }
+    }
+}
@@ -0,0 +1,257 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.WasteRecord;
+import com.ecohaul.backend.service.WasteScanService.Scan;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Scan Job Service
+ * Asynchronous scans: the request thread only reads the image, queues it on the
+ * {@link InferenceService} pool and answers with a scan id; the result is fetched later by
+ * polling or pushed over SSE.
+ *
+ * Jobs live in a size-bounded Caffeine cache and expire a while after they finish, so abandoned
+ * results cost nothing for long. A job submitted with a user id is also saved as a
+ * {@link WasteRecord} once classified; the save runs on a small persist pool, never on an
+ * inference thread. When the persist queue is full the job still completes with its result but
+ * without a record, and the drop is logged and counted (ecohaul.scan.jobs.persist.dropped).
+ * Job counts and cache hits/evictions are exported as cache "scanJobs".
+ */
+@Service
+public class ScanJobService {
+
+    public static final String CACHE_NAME = "scanJobs";
+
+    private static final Logger log = LoggerFactory.getLogger(ScanJobService.class);
+
+    @Autowired
+    private WasteScanService wasteScanService;
+
+    @Autowired(required = false)
+    private ScanHistoryService scanHistoryService;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${ecohaul.scanner.jobs.max-jobs:10000}")
+    private long maxJobs = 10000;
+
+    @Value("${ecohaul.scanner.jobs.ttl-minutes:15}")
+    private long ttlMinutes = 15;
+
+    @Value("${ecohaul.scanner.jobs.persist:true}")
+    private boolean persist = true;
+
+    @Value("${ecohaul.scanner.jobs.persist-queue-capacity:1024}")
+    private int persistQueueCapacity = 1024;
+
+    private Cache<String, ScanJob> jobs;
+    private ThreadPoolExecutor persistPool;
+    private final AtomicInteger pending = new AtomicInteger();
+    private Counter persistDropped;
+
+    @PostConstruct
+    public void init() {
+        jobs = Caffeine.newBuilder()
+                .maximumSize(maxJobs)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        // A full persist queue rejects the save; the inference thread never waits on the database
+        persistPool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(persistQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "scan-job-persist");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        MeterRegistry registry = meterRegistry != null ? meterRegistry.getIfAvailable() : null;
+        if (registry != null) {
+            CaffeineCacheMetrics.monitor(registry, jobs, CACHE_NAME);
+            Gauge.builder("ecohaul.scan.jobs.pending", pending, AtomicInteger::get)
+                    .description("Async scans queued or running")
+                    .register(registry);
+            persistDropped = Counter.builder("ecohaul.scan.jobs.persist.dropped")
+                    .description("Async scan results not saved because the persist queue was full")
+                    .register(registry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persistPool.shutdown();
+    }
+
+    /**
+     * Queue detection of an image read by {@link WasteScanService#readImage} or
+     * {@link WasteScanService#readJson}. The job takes ownership of the buffer and releases it
+     * once classified, or right away when this throws (ScannerBusyException on a full inference
+     * queue, IllegalArgumentException for an empty image).
+     */
+    public ScanJob submit(ByteBuffer image, Long userId) {
+        // Stored on the request thread, before queuing, while the buffer is certainly ours
+        String imageKey = userId != null && persist ? wasteScanService.storeImage(image) : null;
+        ScanJob job = new ScanJob(UUID.randomUUID().toString(), userId, imageKey);
+        jobs.put(job.id, job);
+        pending.incrementAndGet();
+        CompletableFuture<Scan> scan;
+        try {
+            scan = wasteScanService.classifyAsync(image);
+        } catch (RuntimeException e) {
+            jobs.invalidate(job.id);
+            pending.decrementAndGet();
+            wasteScanService.release(image);
+            throw e;
+        }
+        scan.whenComplete((result, error) -> {
+            wasteScanService.release(image);
+            if (error != null) {
+                finish(job, null, error, false);
+            } else if (userId != null && persist && scanHistoryService != null) {
+                try {
+                    CompletableFuture.runAsync(() -> finish(job, result, null, true), persistPool);
+                } catch (RejectedExecutionException e) {
+                    log.warn("Persist queue full, scan {} of user {} is not saved", job.id, userId);
+                    if (persistDropped != null) {
+                        persistDropped.increment();
+                    }
+                    finish(job, result, null, false);
+                }
+            } else {
+                finish(job, result, null, false);
+            }
+        });
+        return job;
+    }
+
+    /**
+     * The job with this id, or null when it never existed or has expired.
+     */
+    public ScanJob find(String scanId) {
+        return scanId == null ? null : jobs.getIfPresent(scanId);
+    }
+
+    /**
+     * Call {@code listener} once with the finished job: right away if it is already done,
+     * otherwise from the thread that completes it (an inference or persist thread), so listeners
+     * must not block.
+     */
+    public void onComplete(ScanJob job, Consumer<ScanJob> listener) {
+        job.onComplete(listener);
+    }
+
+    public long size() {
+        return jobs.estimatedSize();
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    private void finish(ScanJob job, Scan scan, Throwable error, boolean save) {
+        if (scan != null && job.imageKey != null) {
+            scan = scan.withImageKey(job.imageKey);
+        }
+        Long recordId = null;
+        // An undecodable image gets its unknown result but no record; GC collects its blob
+        if (save && scan != null && !scan.isUnreadable()) {
+            try {
+                recordId = scanHistoryService.record(job.userId, scan);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+        pending.decrementAndGet();
+        // Re-put so the entry expires ttl-minutes after the result, not after the upload
+        jobs.put(job.id, job);
+        job.complete(scan, recordId, error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error);
+    }
+
+    public enum Status { PENDING, DONE, FAILED }
+
+    public static final class ScanJob {
+
+        private final String id;
+        private final Long userId;
+        private final String imageKey;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile Status status = Status.PENDING;
+        private volatile Scan scan;
+        private volatile Throwable error;
+        private volatile Long recordId;
+        private volatile long completedAt;
+        // Guarded by this; null once the job has finished
+        private List<Consumer<ScanJob>> listeners = new ArrayList<>();
+
+        ScanJob(String id, Long userId, String imageKey) {
+            this.id = id;
+            this.userId = userId;
+            this.imageKey = imageKey;
+        }
+
+        void complete(Scan scan, Long recordId, Throwable error) {
+            List<Consumer<ScanJob>> waiting;
+            synchronized (this) {
+                this.scan = scan;
+                this.recordId = recordId;
+                this.error = error;
+                this.completedAt = System.currentTimeMillis();
+                this.status = error == null ? Status.DONE : Status.FAILED;
+                waiting = listeners;
+                listeners = null;
+            }
+            for (Consumer<ScanJob> listener : waiting) {
+                listener.accept(this);
+            }
+        }
+
+        void onComplete(Consumer<ScanJob> listener) {
+            synchronized (this) {
+                if (listeners != null) {
+                    listeners.add(listener);
+                    return;
+                }
+            }
+            listener.accept(this);
+        }
+
+        public String getId() { return id; }
+        public Long getUserId() { return userId; }
+        public long getCreatedAt() { return createdAt; }
+        public Status getStatus() { return status; }
+        public Scan getScan() { return scan; }
+        public Throwable getError() { return error; }
+        public Long getRecordId() { return recordId; }
+        public long getCompletedAt() { return completedAt; }
+        public boolean isDone() { return status != Status.PENDING; }
+    }
+}
@@ -0,0 +1,19 @@
+package com.ecohaul.backend.service;
+
+/**
+ * Thrown when the inference queue is full; the scan should be retried after
+ * {@link #getRetryAfterSeconds()}.
+ */
+public class ScannerBusyException extends IllegalStateException {
+
+    private final int retryAfterSeconds;
+
+    public ScannerBusyException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,27 @@
+package com.ecohaul.backend.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Waste Classifier
+ * Extension point for the model behind /scan. Implementations receive the encoded image (JPEG,
+ * PNG, ...) as a read-only view of its pooled buffer and run on the inference pool, never on a
+ * request thread, so they may be CPU heavy but must be thread-safe and must not keep the buffer
+ * after returning.
+ *
+ * {@link ReferenceWasteClassifier} is used unless ecohaul.scanner.classifier names another
+ * implementation; a replacement registers itself as a bean under that condition.
+ */
+public interface WasteClassifier {
+
+    /**
+     * Classify one image. Never returns null; an image the model cannot read should come back
+     * as {@link WasteDetection#UNREADABLE} rather than an exception, so it is not saved.
+     */
+    WasteDetection classify(ByteBuffer image);
+
+    /**
+     * Short identifier reported with metrics.
+     */
+    String getName();
+}
@@ -0,0 +1,48 @@
+package com.ecohaul.backend.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Waste Detection
+ * Immutable result of one {@link WasteClassifier} run.
+ */
+public final class WasteDetection {
+
+    // What a classifier returns for an image it cannot decode; such scans are not saved
+    public static final WasteDetection UNREADABLE = new WasteDetection("Unknown Waste Type", "General", false, 0, 0.0);
+
+    private final String type;
+    private final String category;
+    private final boolean recyclable;
+    private final long estimatedWeight;
+    private final double confidence;
+
+    public WasteDetection(String type, String category, boolean recyclable, long estimatedWeight, double confidence) {
+        this.type = type;
+        this.category = category;
+        this.recyclable = recyclable;
+        this.estimatedWeight = estimatedWeight;
+        this.confidence = confidence;
+    }
+
+    public String getType() { return type; }
+    public String getCategory() { return category; }
+    public boolean isRecyclable() { return recyclable; }
+    // Grams
+    public long getEstimatedWeight() { return estimatedWeight; }
+    public double getConfidence() { return confidence; }
+    public boolean isUnreadable() { return this == UNREADABLE; }
+
+    /**
+     * The detectedWaste object of the scan response.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> detection = new HashMap<>();
+        detection.put("type", type);
+        detection.put("category", category);
+        detection.put("recyclable", recyclable);
+        detection.put("estimatedWeight", estimatedWeight);
+        return detection;
+    }
+}
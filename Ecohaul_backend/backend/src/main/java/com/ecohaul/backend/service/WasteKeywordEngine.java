@@ -0,0 +1,257 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.util.FuzzyIndex;
+import com.ecohaul.backend.util.KeywordAutomaton;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Waste Keyword Engine
+ * Identifies a waste item from a free-text description with one pass of a compiled keyword
+ * automaton over the text.
+ *
+ * The lexicon (ecohaul.identify.lexicon) groups item terms and synonyms into concepts such as
+ * "plastic" or "bottle"; a term may belong to several concepts ("soda can" is both aluminum and
+ * can). Waste types list the concepts they require, in priority order. Scanning the description
+ * collects the concepts present as a bitmask and the first type whose required concepts are all
+ * present wins, so type, category, recyclability and suggestions come from a single match.
+ *
+ * Descriptions that match nothing get a second chance with their misspelt words ("batery",
+ * "cardbord") replaced by the closest lexicon word or term from a {@link FuzzyIndex}, when that
+ * correction is unambiguous; looser corrections are only offered as a "did you mean" suggestion.
+ * The same index backs search-as-you-type suggestions.
+ */
+@Service
+public class WasteKeywordEngine {
+
+    // Concepts are tracked in a long bitmask
+    private static final int MAX_CONCEPTS = Long.SIZE;
+    // Shorter unknown words are too close to too many lexicon words to correct safely
+    private static final int MIN_CORRECTED_LENGTH = 6;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${ecohaul.identify.lexicon:classpath:waste-lexicon.json}")
+    private String lexiconLocation = "classpath:waste-lexicon.json";
+
+    @Value("${ecohaul.search.max-terms:100000}")
+    private int maxTerms = 100000;
+
+    private KeywordAutomaton automaton;
+    // Concepts each term id stands for
+    private long[] termConcepts;
+    private long[] typeRequirements;
+    private Identification[] types;
+    private Identification fallback;
+    private int termCount;
+    // Lexicon terms and their single words, for typo correction and suggestions
+    private FuzzyIndex vocabulary;
+
+    @PostConstruct
+    public void init() throws IOException {
+        JsonNode lexicon;
+        try (InputStream in = resourceLoader.getResource(lexiconLocation).getInputStream()) {
+            lexicon = objectMapper.readTree(in);
+        }
+
+        Map<String, Integer> conceptBits = new HashMap<>();
+        Map<String, Long> terms = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> concept : lexicon.path("concepts").properties()) {
+            if (conceptBits.size() == MAX_CONCEPTS) {
+                throw new IllegalStateException("Waste lexicon has more than " + MAX_CONCEPTS + " concepts");
+            }
+            long bit = 1L << conceptBits.size();
+            conceptBits.put(concept.getKey(), conceptBits.size());
+            for (JsonNode term : concept.getValue()) {
+                terms.merge(term.asText().trim().toLowerCase(Locale.ROOT), bit, (a, b) -> a | b);
+            }
+        }
+
+        List<Identification> typeList = new ArrayList<>();
+        List<Long> requirements = new ArrayList<>();
+        fallback = toIdentification(lexicon.path("fallback"), Collections.emptyList());
+        for (JsonNode type : lexicon.path("types")) {
+            long required = 0;
+            for (JsonNode concept : type.path("requires")) {
+                Integer bit = conceptBits.get(concept.asText());
+                if (bit == null) {
+                    throw new IllegalStateException("Waste type " + type.path("type").asText()
+                            + " requires unknown concept " + concept.asText());
+                }
+                required |= 1L << bit;
+            }
+            typeList.add(toIdentification(type, fallback.getSuggestions()));
+            requirements.add(required);
+        }
+
+        automaton = KeywordAutomaton.compile(new ArrayList<>(terms.keySet()));
+        termConcepts = terms.values().stream().mapToLong(Long::longValue).toArray();
+        typeRequirements = requirements.stream().mapToLong(Long::longValue).toArray();
+        types = typeList.toArray(new Identification[0]);
+        termCount = terms.size();
+
+        FuzzyIndex.Builder words = FuzzyIndex.builder(maxTerms);
+        for (String term : terms.keySet()) {
+            words.add(term, 0);
+            for (String word : FuzzyIndex.words(term)) {
+                words.add(word, 0);
+            }
+        }
+        vocabulary = words.build();
+    }
+
+    /**
+     * Best matching waste type for the description, or the lexicon's fallback when nothing
+     * matches. A fallback whose typos have a likely but uncertain correction carries a
+     * "did you mean" hint as its first suggestion.
+     */
+    public Identification identify(String description) {
+        Identification match = match(description);
+        if (match != fallback) {
+            return match;
+        }
+        String corrected = correct(description);
+        if (corrected != null) {
+            Identification retried = match(corrected);
+            if (retried != fallback) {
+                return retried;
+            }
+        }
+        String guess = rewrite(description, false);
+        if (guess != null && match(guess) != fallback) {
+            List<String> suggestions = new ArrayList<>();
+            suggestions.add("Did you mean \"" + guess + "\"?");
+            suggestions.addAll(fallback.getSuggestions());
+            return new Identification(fallback.getType(), fallback.getCategory(), fallback.isRecyclable(),
+                    Collections.unmodifiableList(suggestions));
+        }
+        return fallback;
+    }
+
+    /**
+     * The description with every unknown word replaced by its lexicon correction, or null when
+     * nothing was replaced. Only unambiguous corrections are made: words of at least
+     * {@value #MIN_CORRECTED_LENGTH} characters, one edit up to 7 characters and two beyond, and
+     * a single closest lexicon word ("tire" is left alone rather than read as "wire").
+     */
+    public String correct(String description) {
+        return rewrite(description, true);
+    }
+
+    private String rewrite(String description, boolean strict) {
+        List<String> words = FuzzyIndex.words(description);
+        StringBuilder corrected = new StringBuilder();
+        boolean changed = false;
+        for (String word : words) {
+            String replacement = word;
+            if (!vocabulary.contains(word) && (!strict || word.length() >= MIN_CORRECTED_LENGTH)) {
+                int edits = strict && word.length() < 8 ? 1 : FuzzyIndex.MAX_EDITS;
+                List<FuzzyIndex.Match> closest = vocabulary.search(word, edits, 2);
+                boolean unique = closest.size() == 1
+                        || (closest.size() > 1 && closest.get(1).getDistance() > closest.get(0).getDistance());
+                if (!closest.isEmpty() && (!strict || unique)) {
+                    replacement = closest.get(0).getTerm();
+                    changed = true;
+                }
+            }
+            if (corrected.length() > 0) {
+                corrected.append(' ');
+            }
+            corrected.append(replacement);
+        }
+        return changed ? corrected.toString() : null;
+    }
+
+    /**
+     * Lexicon terms for a partially typed query that identify a waste type on their own: prefix
+     * completions first, then terms within the fuzzy edit budget of the whole query.
+     */
+    public List<FuzzyIndex.Match> suggest(String query, int limit) {
+        List<FuzzyIndex.Match> candidates = vocabulary.complete(query, limit * 4);
+        candidates.addAll(vocabulary.search(query, FuzzyIndex.MAX_EDITS, limit * 4));
+        List<FuzzyIndex.Match> suggestions = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (FuzzyIndex.Match candidate : candidates) {
+            if (suggestions.size() == limit) {
+                break;
+            }
+            if (seen.add(candidate.getTerm()) && match(candidate.getTerm()) != fallback) {
+                suggestions.add(candidate);
+            }
+        }
+        return suggestions;
+    }
+
+    private Identification match(String description) {
+        if (description == null || description.isEmpty()) {
+            return fallback;
+        }
+        long[] found = new long[1];
+        automaton.match(description, term -> found[0] |= termConcepts[term]);
+        for (int i = 0; i < types.length; i++) {
+            long required = typeRequirements[i];
+            if (required != 0 && (found[0] & required) == required) {
+                return types[i];
+            }
+        }
+        return fallback;
+    }
+
+    public int getTermCount() {
+        return termCount;
+    }
+
+    private static Identification toIdentification(JsonNode node, List<String> defaultSuggestions) {
+        List<String> suggestions = new ArrayList<>();
+        for (JsonNode suggestion : node.path("suggestions")) {
+            suggestions.add(suggestion.asText());
+        }
+        return new Identification(node.path("type").asText(), node.path("category").asText(),
+                node.path("recyclable").asBoolean(),
+                suggestions.isEmpty() ? defaultSuggestions : Collections.unmodifiableList(suggestions));
+    }
+
+    /**
+     * Shared, immutable result for one waste type.
+     */
+    public static final class Identification {
+
+        private final String type;
+        private final String category;
+        private final boolean recyclable;
+        private final List<String> suggestions;
+
+        Identification(String type, String category, boolean recyclable, List<String> suggestions) {
+            this.type = type;
+            this.category = category;
+            this.recyclable = recyclable;
+            this.suggestions = suggestions;
+        }
+
+        public String getType() { return type; }
+        public String getCategory() { return category; }
+        public boolean isRecyclable() { return recyclable; }
+        public List<String> getSuggestions() { return suggestions; }
+    }
+}
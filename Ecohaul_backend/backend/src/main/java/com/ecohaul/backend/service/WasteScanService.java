@@ -0,0 +1,391 @@
+package com.ecohaul.backend.service;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Waste Scan Service
+ * Takes scan images off the request without materialising them on the heap.
+ *
+ * Raw uploads (multipart or application/octet-stream) are copied from the request stream
+ * straight into a pooled direct buffer ({@link ImageBufferPool}). The JSON endpoint is parsed
+ * with Jackson's streaming parser and its imageBase64 field is decoded chunk by chunk into the
+ * same kind of buffer, so neither the base64 String nor a parsed Map is ever built. Detection
+ * reads the image from the buffer, which goes back to the pool as soon as the scan is done.
+ *
+ * Detection runs on the {@link InferenceService} pool through the {@link WasteClassifier} SPI.
+ * When dedup is on, the image's perceptual hash is computed on the calling thread and looked up
+ * in {@link ScanDedupCache} before anything is queued; a near-duplicate of a recent scan reuses
+ * that scan's detection without taking an inference thread.
+ * Scans saved to a user's history also write the image from its buffer to the
+ * {@link ImageBlobStore}.
+ */
+@Service
+public class WasteScanService {
+
+    private static final Logger log = LoggerFactory.getLogger(WasteScanService.class);
+
+    public static final String IMAGE_FIELD = "imageBase64";
+
+    // Accept unpadded base64 too; browsers and mobile SDKs differ
+    private static final Base64Variant BASE64 = Base64Variants.MIME_NO_LINEFEEDS.withPaddingAllowed();
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private ScanDedupCache dedupCache;
+
+    @Autowired(required = false)
+    private ImageBlobStore blobStore;
+
+    @Autowired
+    private WasteClassifier classifier;
+
+    @Autowired
+    private InferenceService inferenceService;
+
+    @Value("${ecohaul.scanner.max-image-bytes:8388608}")
+    private int maxImageBytes;
+
+    @Value("${ecohaul.scanner.buffer-pool-size:8}")
+    private int bufferPoolSize;
+
+    @Value("${ecohaul.scanner.buffer-wait-ms:2000}")
+    private long bufferWaitMillis;
+
+    @Value("${ecohaul.scanner.buffer-retry-after-seconds:1}")
+    private int bufferRetryAfterSeconds = 1;
+
+    private ImageBufferPool bufferPool;
+
+    @PostConstruct
+    public void init() {
+        bufferPool = new ImageBufferPool(bufferPoolSize, maxImageBytes, bufferRetryAfterSeconds);
+    }
+
+    /**
+     * Scan a raw image body. Throws IllegalArgumentException for an empty or oversized image and
+     * ImageBufferBusyException when no image buffer is free.
+     */
+    public Scan scanBinary(InputStream image) throws IOException {
+        return scanBinary(image, false);
+    }
+
+    /**
+     * Scan a raw image body; with {@code keepImage} the image is also put in the blob store and
+     * the scan carries its key.
+     */
+    public Scan scanBinary(InputStream image, boolean keepImage) throws IOException {
+        ByteBuffer buffer = readImage(image);
+        try {
+            Scan scan = classify(buffer);
+            return keepImage && !scan.isUnreadable() ? scan.withImageKey(storeImage(buffer)) : scan;
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * Scan a JSON body of the form {"imageBase64": "..."}; other fields are skipped.
+     */
+    public Scan scanJson(InputStream body) throws IOException {
+        return scanJson(body, false);
+    }
+
+    /**
+     * Scan a JSON body, keeping the image like {@link #scanBinary(InputStream, boolean)}.
+     */
+    public Scan scanJson(InputStream body, boolean keepImage) throws IOException {
+        ByteBuffer buffer = readJson(body);
+        try {
+            Scan scan = classify(buffer);
+            return keepImage && !scan.isUnreadable() ? scan.withImageKey(storeImage(buffer)) : scan;
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * Decode the image of a JSON scan body into a pooled buffer, flipped for reading. Same
+     * ownership rules as {@link #readImage}.
+     */
+    public ByteBuffer readJson(InputStream body) throws IOException {
+        ByteBuffer buffer = null;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Request body must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (IMAGE_FIELD.equals(field) && value == JsonToken.VALUE_STRING && buffer == null) {
+                    buffer = readBase64(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (buffer == null) {
+                throw new IllegalArgumentException("Image data is required");
+            }
+            return buffer;
+        } catch (JsonProcessingException e) {
+            release(buffer);
+            throw new IllegalArgumentException("Malformed JSON body: " + e.getOriginalMessage());
+        } catch (IOException | RuntimeException e) {
+            release(buffer);
+            throw e;
+        }
+    }
+
+    /**
+     * Copy an image stream into a pooled buffer, flipped for reading. The caller owns the buffer
+     * and must {@link #release} it; on failure it has already been released.
+     */
+    public ByteBuffer readImage(InputStream image) throws IOException {
+        ByteBuffer buffer = acquireBuffer();
+        try {
+            byte[] chunk = new byte[16 * 1024];
+            int read;
+            while ((read = image.read(chunk)) != -1) {
+                if (read > buffer.remaining()) {
+                    throw tooLarge();
+                }
+                buffer.put(chunk, 0, read);
+            }
+            buffer.flip();
+            return buffer;
+        } catch (IOException | RuntimeException e) {
+            release(buffer);
+            throw e;
+        }
+    }
+
+    /**
+     * Decode the base64 string the parser is positioned on into a pooled buffer, flipped for
+     * reading. Same ownership rules as {@link #readImage}. An oversized image is still read to
+     * the end of the string, so the parser can carry on with the next value.
+     */
+    public ByteBuffer readBase64(JsonParser parser) throws IOException {
+        ByteBuffer buffer = acquireBuffer();
+        try {
+            // Invalid base64 surfaces as IllegalArgumentException from the decoder
+            BufferOutputStream decoded = new BufferOutputStream(buffer);
+            parser.readBinaryValue(BASE64, decoded);
+            if (decoded.overflow) {
+                throw tooLarge();
+            }
+            buffer.flip();
+            return buffer;
+        } catch (IOException | RuntimeException e) {
+            release(buffer);
+            throw e;
+        }
+    }
+
+    /**
+     * Run detection on an image read by {@link #readImage} or {@link #readBase64} and wait for
+     * it. Throws ScannerBusyException when the inference queue is full.
+     */
+    public Scan classify(ByteBuffer image) {
+        requireImage(image);
+        Long hash = hash(image);
+        Scan cached = cached(image, hash);
+        if (cached != null) {
+            return cached;
+        }
+        return inferenceService.run(() -> detect(image, hash));
+    }
+
+    /**
+     * Queue detection without waiting. The caller keeps ownership of the buffer and may release
+     * it once the future completes.
+     */
+    public CompletableFuture<Scan> classifyAsync(ByteBuffer image) {
+        requireImage(image);
+        Long hash = hash(image);
+        Scan cached = cached(image, hash);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return inferenceService.submit(() -> detect(image, hash));
+    }
+
+    // Runs on the calling request or I/O thread: decoding for the hash can cost far more than a
+    // light classifier, so it must not hold an inference thread
+    private Long hash(ByteBuffer image) {
+        return dedupCache != null && dedupCache.isEnabled() ? dedupCache.hash(image) : null;
+    }
+
+    private Scan cached(ByteBuffer image, Long hash) {
+        WasteDetection cached = hash != null ? dedupCache.lookup(hash) : null;
+        return cached != null ? new Scan(detectFormat(image), image.remaining(), cached, true) : null;
+    }
+
+    // Runs on an inference thread
+    private Scan detect(ByteBuffer image, Long hash) {
+        long start = System.nanoTime();
+        WasteDetection detection = classifier.classify(image.asReadOnlyBuffer());
+        if (hash != null) {
+            dedupCache.put(hash, detection, System.nanoTime() - start);
+        }
+        return new Scan(detectFormat(image), image.remaining(), detection, false);
+    }
+
+    /**
+     * Put the image in the blob store straight from its buffer and return its key; null when
+     * the store is off or the write failed, which costs the scan its image but not its result.
+     */
+    public String storeImage(ByteBuffer image) {
+        if (blobStore == null || !blobStore.isEnabled()) {
+            return null;
+        }
+        try {
+            return blobStore.put(image);
+        } catch (IOException e) {
+            log.warn("Could not store scan image", e);
+            return null;
+        }
+    }
+
+    private static void requireImage(ByteBuffer image) {
+        if (!image.hasRemaining()) {
+            throw new IllegalArgumentException("Image data is required");
+        }
+    }
+
+    public void release(ByteBuffer buffer) {
+        bufferPool.release(buffer);
+    }
+
+    public ImageBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    private ByteBuffer acquireBuffer() {
+        try {
+            return bufferPool.acquire(bufferWaitMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an image buffer");
+        }
+    }
+
+    private IllegalArgumentException tooLarge() {
+        return new IllegalArgumentException("Image exceeds the " + maxImageBytes + " byte limit");
+    }
+
+    /**
+     * Image type from the leading magic bytes; "unknown" when none match.
+     */
+    static String detectFormat(ByteBuffer image) {
+        if (startsWith(image, 0, 0xff, 0xd8, 0xff)) {
+            return "jpeg";
+        }
+        if (startsWith(image, 0, 0x89, 'P', 'N', 'G')) {
+            return "png";
+        }
+        if (startsWith(image, 0, 'R', 'I', 'F', 'F') && startsWith(image, 8, 'W', 'E', 'B', 'P')) {
+            return "webp";
+        }
+        if (startsWith(image, 0, 'G', 'I', 'F', '8')) {
+            return "gif";
+        }
+        return "unknown";
+    }
+
+    private static boolean startsWith(ByteBuffer image, int offset, int... magic) {
+        if (image.remaining() < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((image.get(image.position() + offset + i) & 0xff) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decoded bytes go straight into the pooled buffer; anything past its capacity is dropped
+     * and flagged.
+     */
+    private static final class BufferOutputStream extends OutputStream {
+
+        private final ByteBuffer buffer;
+        private boolean overflow;
+
+        BufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            if (!buffer.hasRemaining()) {
+                overflow = true;
+                return;
+            }
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            if (overflow || length > buffer.remaining()) {
+                overflow = true;
+                return;
+            }
+            buffer.put(bytes, offset, length);
+        }
+    }
+
+    public static final class Scan {
+
+        private final String imageFormat;
+        private final int imageBytes;
+        private final WasteDetection detection;
+        private final boolean cached;
+        private final String imageKey;
+
+        Scan(String imageFormat, int imageBytes, WasteDetection detection, boolean cached) {
+            this(imageFormat, imageBytes, detection, cached, null);
+        }
+
+        private Scan(String imageFormat, int imageBytes, WasteDetection detection, boolean cached, String imageKey) {
+            this.imageFormat = imageFormat;
+            this.imageBytes = imageBytes;
+            this.detection = detection;
+            this.cached = cached;
+            this.imageKey = imageKey;
+        }
+
+        public Scan withImageKey(String imageKey) {
+            return new Scan(imageFormat, imageBytes, detection, cached, imageKey);
+        }
+
+        public String getImageFormat() { return imageFormat; }
+        public int getImageBytes() { return imageBytes; }
+        public Map<String, Object> getDetection() { return detection.toMap(); }
+        public WasteDetection getWasteDetection() { return detection; }
+        public double getConfidence() { return detection.getConfidence(); }
+        public boolean isCached() { return cached; }
+        public boolean isUnreadable() { return detection.isUnreadable(); }
+        public String getImageKey() { return imageKey; }
+    }
+}
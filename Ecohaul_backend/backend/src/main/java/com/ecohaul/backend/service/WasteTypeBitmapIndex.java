@@ -0,0 +1,96 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.util.WasteTypes;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Inverted index from normalised waste type to a bitmap of center ordinals.
+ *
+ * Each bitmap is a plain long[] with one bit per center ordinal. Readers take the current map
+ * without locking; writers (guarded by the owning {@link DisposalCenterIndex}) copy the bitmaps
+ * they touch and publish a new map.
+ */
+final class WasteTypeBitmapIndex {
+    
+    private static final long[] EMPTY = new long[0];
+    
+    private volatile Map<String, long[]> bitmaps = Map.of();
+    
+    void add(int ordinal, Collection<String> wasteTypes) {
+        if (wasteTypes.isEmpty()) {
+            return;
+        }
+        Map<String, long[]> next = new HashMap<>(bitmaps);
+        for (String type : wasteTypes) {
+            long[] current = next.getOrDefault(type, EMPTY);
+            long[] copy = Arrays.copyOf(current, Math.max(current.length, (ordinal >>> 6) + 1));
+            copy[ordinal >>> 6] |= 1L << ordinal;
+            next.put(type, copy);
+        }
+        bitmaps = next;
+    }
+    
+    void remove(int ordinal, Collection<String> wasteTypes) {
+        if (wasteTypes.isEmpty()) {
+            return;
+        }
+        Map<String, long[]> next = new HashMap<>(bitmaps);
+        for (String type : wasteTypes) {
+            long[] current = next.get(type);
+            if (current != null && (ordinal >>> 6) < current.length) {
+                long[] copy = current.clone();
+                copy[ordinal >>> 6] &= ~(1L << ordinal);
+                next.put(type, copy);
+            }
+        }
+        bitmaps = next;
+    }
+    
+    /**
+     * Replace every bitmap at once; used for the bulk load at startup.
+     */
+    void replaceAll(Map<String, long[]> loaded) {
+        bitmaps = Map.copyOf(loaded);
+    }
+    
+    /**
+     * Centers accepting every requested type: AND over (type OR "all") bitmaps.
+     */
+    long[] acceptingAll(Collection<String> wasteTypes) {
+        Map<String, long[]> snapshot = bitmaps;
+        long[] acceptsEverything = snapshot.getOrDefault(WasteTypes.ALL, EMPTY);
+        long[] result = null;
+        for (String type : wasteTypes) {
+            long[] bitmap = snapshot.getOrDefault(type, EMPTY);
+            int words = Math.max(bitmap.length, acceptsEverything.length);
+            if (result == null) {
+                result = new long[words];
+                for (int i = 0; i < words; i++) {
+                    result[i] = word(bitmap, i) | word(acceptsEverything, i);
+                }
+            } else {
+                for (int i = 0; i < result.length; i++) {
+                    result[i] &= word(bitmap, i) | word(acceptsEverything, i);
+                }
+            }
+        }
+        return result != null ? result : EMPTY;
+    }
+    
+    int typeCount() {
+        return bitmaps.size();
+    }
+    
+    static boolean isSet(long[] bitmap, int ordinal) {
+        int word = ordinal >>> 6;
+        return word < bitmap.length && (bitmap[word] & (1L << ordinal)) != 0;
+    }
+    
+    private static long word(long[] bitmap, int index) {
+        return index < bitmap.length ? bitmap[index] : 0L;
+    }
+}
@@ -0,0 +1,97 @@
+package com.ecohaul.backend.util;
+
+/**
+ * Batch Distance Kernel
+ * Distances from one origin to many points held as a structure of arrays: latitude and
+ * longitude in radians plus the cosine of each latitude, so no per-point trig is needed for it.
+ *
+ * {@link #haversineKm} uses the incubator Vector API when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector} (and ecohaul.geo.vector is not "false"),
+ * otherwise a scalar loop. {@link #equirectangularKm} needs a single sqrt per point and stays
+ * within 0.1% of haversine below ~50 km, which covers the radius searches.
+ */
+public final class BatchDistance {
+    
+    private static final boolean VECTORIZED = detectVectorSupport();
+    
+    private BatchDistance() {}
+    
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+    
+    /**
+     * Fill {@code out[0..count)} with haversine distances in km from the origin (degrees).
+     */
+    public static void haversineKm(double originLatitude, double originLongitude,
+            double[] latRad, double[] lonRad, double[] cosLat, int count, double[] out) {
+        if (VECTORIZED) {
+            VectorBatchDistance.haversineKm(Math.toRadians(originLatitude), Math.toRadians(originLongitude),
+                    latRad, lonRad, cosLat, count, out);
+        } else {
+            haversineKmScalar(originLatitude, originLongitude, latRad, lonRad, cosLat, count, out);
+        }
+    }
+    
+    public static void haversineKmScalar(double originLatitude, double originLongitude,
+            double[] latRad, double[] lonRad, double[] cosLat, int count, double[] out) {
+        double lat0 = Math.toRadians(originLatitude);
+        double lon0 = Math.toRadians(originLongitude);
+        double cos0 = Math.cos(lat0);
+        for (int i = 0; i < count; i++) {
+            double sinLat = Math.sin((latRad[i] - lat0) * 0.5);
+            double sinLon = Math.sin((lonRad[i] - lon0) * 0.5);
+            double a = sinLat * sinLat + cos0 * cosLat[i] * sinLon * sinLon;
+            out[i] = 2 * GeoUtils.EARTH_RADIUS_KM * Math.asin(Math.sqrt(Math.min(1.0, a)));
+        }
+    }
+    
+    /**
+     * Equirectangular approximation for short distances: the longitude difference is scaled by the
+     * mean of both latitude cosines. Longitudes are assumed not to straddle the antimeridian.
+     */
+    public static void equirectangularKm(double originLatitude, double originLongitude,
+            double[] latRad, double[] lonRad, double[] cosLat, int count, double[] out) {
+        double lat0 = Math.toRadians(originLatitude);
+        double lon0 = Math.toRadians(originLongitude);
+        double halfCos0 = 0.5 * Math.cos(lat0);
+        for (int i = 0; i < count; i++) {
+            double x = (lonRad[i] - lon0) * (halfCos0 + 0.5 * cosLat[i]);
+            double y = latRad[i] - lat0;
+            out[i] = GeoUtils.EARTH_RADIUS_KM * Math.sqrt(x * x + y * y);
+        }
+    }
+    
+    private static boolean detectVectorSupport() {
+        if ("false".equalsIgnoreCase(System.getProperty("ecohaul.geo.vector"))) {
+            return false;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            // Cross-check one lane-width batch against the scalar loop before trusting it
+            int n = 2 * VectorBatchDistance.laneCount() + 1;
+            double[] lat = new double[n];
+            double[] lon = new double[n];
+            double[] cos = new double[n];
+            for (int i = 0; i < n; i++) {
+                lat[i] = Math.toRadians(40.0 + i * 0.01);
+                lon[i] = Math.toRadians(-74.0 - i * 0.01);
+                cos[i] = Math.cos(lat[i]);
+            }
+            double[] expected = new double[n];
+            double[] actual = new double[n];
+            haversineKmScalar(40.5, -74.5, lat, lon, cos, n, expected);
+            VectorBatchDistance.haversineKm(Math.toRadians(40.5), Math.toRadians(-74.5), lat, lon, cos, n, actual);
+            for (int i = 0; i < n; i++) {
+                if (Math.abs(expected[i] - actual[i]) > 1e-6) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+}
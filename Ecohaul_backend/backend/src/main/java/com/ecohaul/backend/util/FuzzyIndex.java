@@ -0,0 +1,402 @@
+package com.ecohaul.backend.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fuzzy Index
+ * Typo-tolerant lookup over a fixed vocabulary: every term within a small edit distance of the
+ * query, ranked, plus prefix completion for search-as-you-type.
+ *
+ * Terms are kept sorted in one array (prefix completion is a binary search) and indexed by their
+ * padded character trigrams in an open-addressing table of sorted int posting lists. A single
+ * edit destroys at most three trigrams, so a term within k edits of a query shares at least
+ * (query trigrams - 3k) of them. Only the rarest 3k + 1 posting lists are walked (any such term
+ * appears in one of them), the rest are probed by binary search, and only terms passing that
+ * count filter and within k of the query length get a real Levenshtein check. The number of
+ * edits allowed grows with the query length (none up to 2 characters, one up to 5, two beyond)
+ * to keep the filter selective.
+ *
+ * Memory is a String and an owner array per term plus about four bytes per trigram occurrence;
+ * the builder stops accepting new terms at {@code maxTerms}.
+ */
+public final class FuzzyIndex {
+
+    public static final int MAX_EDITS = 2;
+
+    private static final int[] NO_POSTINGS = new int[0];
+    private static final char PAD = '\u0000';
+
+    private final String[] terms;
+    private final int[][] owners;
+    private final int[] lengths;
+    // Open addressing: trigram key -> posting list of term ids
+    private final long[] gramKeys;
+    private final int[][] gramPostings;
+    private final int gramMask;
+
+    private FuzzyIndex(String[] terms, int[][] owners, long[] gramKeys, int[][] gramPostings) {
+        this.terms = terms;
+        this.owners = owners;
+        this.lengths = new int[terms.length];
+        for (int id = 0; id < terms.length; id++) {
+            lengths[id] = terms[id].length();
+        }
+        this.gramKeys = gramKeys;
+        this.gramPostings = gramPostings;
+        this.gramMask = gramKeys.length - 1;
+    }
+
+    public static Builder builder(int maxTerms) {
+        return new Builder(maxTerms);
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * Terms within {@code maxEdits} (capped by the query length rule) of the query, closest
+     * first, then by length difference and alphabetically.
+     */
+    public List<Match> search(String query, int maxEdits, int limit) {
+        String q = normalize(query);
+        int edits = Math.min(Math.min(maxEdits, MAX_EDITS), editsFor(q.length()));
+        List<Match> matches = new ArrayList<>();
+        if (q.isEmpty() || limit <= 0) {
+            return matches;
+        }
+        if (edits == 0) {
+            int id = Arrays.binarySearch(terms, q);
+            if (id >= 0) {
+                matches.add(new Match(terms[id], owners[id], 0));
+            }
+            return matches;
+        }
+
+        int[] row = new int[q.length() + 1];
+        int[] previous = new int[q.length() + 1];
+        long[] grams = distinctGrams(q);
+        int threshold = grams.length - 3 * edits;
+        if (threshold <= 0) {
+            // Too short for the count filter to prune anything: check every term
+            for (int id = 0; id < terms.length; id++) {
+                verify(q, id, edits, row, previous, matches);
+            }
+        } else {
+            // Prefix filter: a term sharing `threshold` trigrams has one of the rarest
+            // (grams - threshold + 1), so only those lists are walked; the common ones are probed
+            int[][] lists = new int[grams.length][];
+            for (int g = 0; g < grams.length; g++) {
+                lists[g] = postings(grams[g]);
+            }
+            Arrays.sort(lists, Comparator.comparingInt((int[] list) -> list.length));
+            int walked = grams.length - threshold + 1;
+            int[] candidates = collect(lists, walked, q.length(), edits);
+
+            // Sorted, so a term's entries are adjacent and their count is its shared rare trigrams
+            for (int i = 0; i < candidates.length; ) {
+                int id = candidates[i];
+                int shared = 0;
+                while (i < candidates.length && candidates[i] == id) {
+                    shared++;
+                    i++;
+                }
+                for (int g = walked; g < lists.length && shared < threshold
+                        && shared + lists.length - g >= threshold; g++) {
+                    if (Arrays.binarySearch(lists[g], id) >= 0) {
+                        shared++;
+                    }
+                }
+                if (shared >= threshold) {
+                    verify(q, id, edits, row, previous, matches);
+                }
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::getDistance)
+                .thenComparingInt(m -> Math.abs(m.getTerm().length() - q.length()))
+                .thenComparing(Match::getTerm));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Terms starting with {@code prefix}, shortest first.
+     */
+    public List<Match> complete(String prefix, int limit) {
+        String p = normalize(prefix);
+        List<Match> matches = new ArrayList<>();
+        if (p.isEmpty() || limit <= 0) {
+            return matches;
+        }
+        int from = Arrays.binarySearch(terms, p);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        // Scan a bounded window so a one-letter prefix over a large vocabulary stays cheap
+        int scanLimit = Math.max(limit * 8, 64);
+        for (int id = from; id < terms.length && id - from < scanLimit && terms[id].startsWith(p); id++) {
+            matches.add(new Match(terms[id], owners[id], 0));
+        }
+        matches.sort(Comparator.comparingInt((Match m) -> m.getTerm().length()).thenComparing(Match::getTerm));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    public boolean contains(String term) {
+        return Arrays.binarySearch(terms, normalize(term)) >= 0;
+    }
+
+    public static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Lower-cased words of a text: runs of letters, digits, '-' and '\''.
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && isWordChar(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '\'';
+    }
+
+    static int editsFor(int length) {
+        return length <= 2 ? 0 : length <= 5 ? 1 : MAX_EDITS;
+    }
+
+    /**
+     * Ids from the first {@code walked} posting lists whose length is within the edit budget,
+     * one entry per list they appear in, sorted.
+     */
+    private int[] collect(int[][] lists, int walked, int length, int edits) {
+        int total = 0;
+        for (int g = 0; g < walked; g++) {
+            total += lists[g].length;
+        }
+        int[] candidates = new int[total];
+        int count = 0;
+        for (int g = 0; g < walked; g++) {
+            for (int id : lists[g]) {
+                if (Math.abs(lengths[id] - length) <= edits) {
+                    candidates[count++] = id;
+                }
+            }
+        }
+        Arrays.sort(candidates, 0, count);
+        return count == total ? candidates : Arrays.copyOf(candidates, count);
+    }
+
+    private void verify(String query, int id, int edits, int[] row, int[] previous, List<Match> matches) {
+        if (Math.abs(lengths[id] - query.length()) <= edits) {
+            int distance = boundedDistance(query, terms[id], edits, row, previous);
+            if (distance <= edits) {
+                matches.add(new Match(terms[id], owners[id], distance));
+            }
+        }
+    }
+
+    private int[] postings(long gram) {
+        int slot = mix(gram) & gramMask;
+        while (gramPostings[slot] != null) {
+            if (gramKeys[slot] == gram) {
+                return gramPostings[slot];
+            }
+            slot = (slot + 1) & gramMask;
+        }
+        return NO_POSTINGS;
+    }
+
+    /**
+     * Levenshtein distance, or {@code bound + 1} as soon as it must exceed the bound.
+     */
+    private static int boundedDistance(String a, String b, int bound, int[] row, int[] previous) {
+        for (int j = 0; j <= a.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= b.length(); i++) {
+            row[0] = i;
+            int rowMin = i;
+            char c = b.charAt(i - 1);
+            for (int j = 1; j <= a.length(); j++) {
+                int cost = a.charAt(j - 1) == c ? 0 : 1;
+                row[j] = Math.min(Math.min(row[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, row[j]);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] swap = previous;
+            previous = row;
+            row = swap;
+        }
+        return previous[a.length()];
+    }
+
+    private static long[] distinctGrams(String term) {
+        int padded = term.length() + 4;
+        long[] grams = new long[padded - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = gram(charAt(term, i - 2), charAt(term, i - 1), charAt(term, i));
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private static char charAt(String term, int index) {
+        return index < 0 || index >= term.length() ? PAD : term.charAt(index);
+    }
+
+    private static long gram(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public static final class Match {
+
+        private final String term;
+        private final int[] owners;
+        private final int distance;
+
+        Match(String term, int[] owners, int distance) {
+            this.term = term;
+            this.owners = owners;
+            this.distance = distance;
+        }
+
+        public String getTerm() { return term; }
+        // Ids the term was added with, e.g. the centers whose name contains it
+        public int[] getOwners() { return owners; }
+        public int getDistance() { return distance; }
+    }
+
+    public static final class Builder {
+
+        private final int maxTerms;
+        private final Map<String, Owners> entries = new TreeMap<>();
+        private int dropped;
+
+        private Builder(int maxTerms) {
+            this.maxTerms = maxTerms;
+        }
+
+        /**
+         * Add a term owned by {@code owner}; the same term may be added by several owners. New
+         * terms past the limit are dropped and counted.
+         */
+        public Builder add(String term, int owner) {
+            String key = normalize(term);
+            if (key.isEmpty()) {
+                return this;
+            }
+            Owners owners = entries.get(key);
+            if (owners == null) {
+                if (entries.size() >= maxTerms) {
+                    dropped++;
+                    return this;
+                }
+                owners = new Owners();
+                entries.put(key, owners);
+            }
+            owners.add(owner);
+            return this;
+        }
+
+        public int getDropped() {
+            return dropped;
+        }
+
+        public FuzzyIndex build() {
+            String[] terms = entries.keySet().toArray(new String[0]);
+            int[][] owners = new int[terms.length][];
+            int next = 0;
+            for (Owners termOwners : entries.values()) {
+                owners[next++] = termOwners.toArray();
+            }
+
+            // Count first so every posting list is allocated at its exact size
+            Map<Long, int[]> counts = new TreeMap<>();
+            long[][] termGrams = new long[terms.length][];
+            for (int id = 0; id < terms.length; id++) {
+                termGrams[id] = distinctGrams(terms[id]);
+                for (long gram : termGrams[id]) {
+                    counts.computeIfAbsent(gram, g -> new int[1])[0]++;
+                }
+            }
+            int capacity = Integer.highestOneBit(Math.max(2, counts.size() * 2 - 1)) << 1;
+            long[] gramKeys = new long[capacity];
+            int[][] gramPostings = new int[capacity][];
+            int[] filled = new int[capacity];
+            FuzzyIndex index = new FuzzyIndex(terms, owners, gramKeys, gramPostings);
+            for (Map.Entry<Long, int[]> count : counts.entrySet()) {
+                int slot = mix(count.getKey()) & (capacity - 1);
+                while (gramPostings[slot] != null) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                gramKeys[slot] = count.getKey();
+                gramPostings[slot] = new int[count.getValue()[0]];
+            }
+            for (int id = 0; id < terms.length; id++) {
+                for (long gram : termGrams[id]) {
+                    int slot = mix(gram) & (capacity - 1);
+                    while (gramKeys[slot] != gram) {
+                        slot = (slot + 1) & (capacity - 1);
+                    }
+                    gramPostings[slot][filled[slot]++] = id;
+                }
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Owners of one term while building, in insertion order without repeats of the last one.
+     */
+    private static final class Owners {
+
+        private int[] ids = new int[1];
+        private int size;
+
+        void add(int owner) {
+            if (size > 0 && ids[size - 1] == owner) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = owner;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.ecohaul.backend.util;
+
+/**
+ * Geo Utilities
+ * Shared distance helpers for center and agent lookups
+ */
+public final class GeoUtils {
+    
+    public static final double EARTH_RADIUS_KM = 6371.0;
+    
+    // Length of one degree of latitude in km on the same sphere haversineKm measures on
+    public static final double KM_PER_DEGREE_LAT = Math.toRadians(1) * EARTH_RADIUS_KM;
+    
+    private GeoUtils() {}
+    
+    // Calculate distance between two coordinates (Haversine formula)
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_KM * c; // Distance in km
+    }
+    
+    // Degrees of longitude covering the given distance anywhere within it of the given latitude:
+    // measured at the poleward edge, where a degree of longitude is shortest
+    public static double kmToLongitudeDegrees(double km, double latitude) {
+        double polewardEdge = Math.min(90.0, Math.abs(latitude) + kmToLatitudeDegrees(km));
+        double cosLat = Math.cos(Math.toRadians(polewardEdge));
+        if (cosLat < 0.01) {
+            return 360.0; // Near the poles every longitude is "close"
+        }
+        return km / (KM_PER_DEGREE_LAT * cosLat);
+    }
+    
+    public static double kmToLatitudeDegrees(double km) {
+        return km / KM_PER_DEGREE_LAT;
+    }
+    
+    public static double roundKm(double km) {
+        return Math.round(km * 100.0) / 100.0;
+    }
+}
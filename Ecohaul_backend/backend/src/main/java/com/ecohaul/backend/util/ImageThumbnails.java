@@ -0,0 +1,75 @@
+package com.ecohaul.backend.util;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/**
+ * Image Thumbnails
+ * Decodes an encoded image (whatever ImageIO reads: JPEG, PNG, GIF, BMP) at reduced size with
+ * source subsampling, so ImageIO only rasterises every n-th pixel and a 12 MP photo never
+ * exists at full size on the heap.
+ */
+public final class ImageThumbnails {
+
+    private ImageThumbnails() {}
+
+    /**
+     * The image in {@code image} (position to limit, left untouched) subsampled to at least
+     * {@code shortSide} pixels on its short side, or null when ImageIO cannot decode it.
+     */
+    public static BufferedImage decode(ByteBuffer image, int shortSide) {
+        try (ImageInputStream input = new MemoryCacheImageInputStream(new BufferInputStream(image.duplicate()))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.min(width, height) / shortSide);
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Truncated or unsupported image data
+            return null;
+        }
+    }
+
+    private static final class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.ecohaul.backend.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.IntConsumer;
+
+/**
+ * Keyword Automaton
+ * Aho-Corasick matcher compiled into a dense transition table, so finding every keyword in a
+ * text is one pass with one array lookup per character, however many keywords there are.
+ *
+ * Matching is case-insensitive and whole-word: a keyword only counts when it is not glued to a
+ * letter or digit on either side ("can" matches "a can" and "can," but not "scan" or "cane").
+ * Characters that appear in no keyword share one alphabet slot that always leads back to the
+ * root, which keeps the table narrow.
+ */
+public final class KeywordAutomaton {
+
+    private final char[] alphabet;
+    private final int alphabetSize;
+    private final int[] transitions;
+    private final int[][] outputs;
+    private final int[] lengths;
+
+    private KeywordAutomaton(char[] alphabet, int alphabetSize, int[] transitions, int[][] outputs, int[] lengths) {
+        this.alphabet = alphabet;
+        this.alphabetSize = alphabetSize;
+        this.transitions = transitions;
+        this.outputs = outputs;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Compile the keywords; a keyword's id is its index in the list. Keywords are lower-cased
+     * and must not be blank.
+     */
+    public static KeywordAutomaton compile(List<String> keywords) {
+        char[] alphabet = new char[Character.MAX_VALUE + 1];
+        int alphabetSize = 1;
+        int[] lengths = new int[keywords.size()];
+
+        // Trie with one edge map per state while building
+        List<Map<Integer, Integer>> edges = new ArrayList<>();
+        List<List<Integer>> matches = new ArrayList<>();
+        edges.add(new HashMap<>());
+        matches.add(new ArrayList<>());
+        for (int id = 0; id < keywords.size(); id++) {
+            String keyword = lowerCase(keywords.get(id));
+            if (keyword.isBlank()) {
+                throw new IllegalArgumentException("Keyword " + id + " is blank");
+            }
+            lengths[id] = keyword.length();
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                if (alphabet[c] == 0) {
+                    alphabet[c] = (char) alphabetSize++;
+                }
+                Integer next = edges.get(state).get((int) alphabet[c]);
+                if (next == null) {
+                    next = edges.size();
+                    edges.add(new HashMap<>());
+                    matches.add(new ArrayList<>());
+                    edges.get(state).put((int) alphabet[c], next);
+                }
+                state = next;
+            }
+            matches.get(state).add(id);
+        }
+
+        // Breadth-first: a state's fallback is shallower, so its row is complete before it is copied
+        int states = edges.size();
+        int[] transitions = new int[states * alphabetSize];
+        int[] fallback = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (Map.Entry<Integer, Integer> edge : edges.get(0).entrySet()) {
+            transitions[edge.getKey()] = edge.getValue();
+            queue.add(edge.getValue());
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            int fallbackRow = fallback[state] * alphabetSize;
+            matches.get(state).addAll(matches.get(fallback[state]));
+            System.arraycopy(transitions, fallbackRow, transitions, state * alphabetSize, alphabetSize);
+            for (Map.Entry<Integer, Integer> edge : edges.get(state).entrySet()) {
+                int next = edge.getValue();
+                fallback[next] = transitions[fallbackRow + edge.getKey()];
+                transitions[state * alphabetSize + edge.getKey()] = next;
+                queue.add(next);
+            }
+        }
+
+        int[][] outputs = new int[states][];
+        for (int state = 0; state < states; state++) {
+            List<Integer> ids = matches.get(state);
+            outputs[state] = ids.isEmpty() ? null : ids.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new KeywordAutomaton(alphabet, alphabetSize, transitions, outputs, lengths);
+    }
+
+    /**
+     * Call {@code onMatch} with the id of every whole-word keyword occurrence in {@code text},
+     * in the order the occurrences end.
+     */
+    public void match(CharSequence text, IntConsumer onMatch) {
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            state = transitions[state * alphabetSize + alphabet[c]];
+            int[] ids = outputs[state];
+            if (ids == null || (i + 1 < length && isWordChar(text.charAt(i + 1)))) {
+                continue;
+            }
+            for (int id : ids) {
+                int start = i + 1 - lengths[id];
+                if (start == 0 || !isWordChar(text.charAt(start - 1))) {
+                    onMatch.accept(id);
+                }
+            }
+        }
+    }
+
+    public int getStateCount() {
+        return outputs.length;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    private static String lowerCase(String keyword) {
+        StringBuilder lower = new StringBuilder(keyword.length());
+        for (int i = 0; i < keyword.length(); i++) {
+            lower.append(Character.toLowerCase(keyword.charAt(i)));
+        }
+        return lower.toString();
+    }
+}
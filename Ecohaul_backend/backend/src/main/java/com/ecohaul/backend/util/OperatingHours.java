@@ -0,0 +1,263 @@
+package com.ecohaul.backend.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Operating Hours
+ * Free-text opening hours ("Mon-Fri 8AM-6PM", "Daily 7AM-7PM", "Mon,Wed 9-5; Sat 10AM-2PM",
+ * "24/7") compiled into a weekly bitmask of 15-minute slots: 7 * 96 = 672 bits in 11 longs.
+ * "Open at" becomes a single bit test. Ranges past midnight spill into the next day.
+ */
+public final class OperatingHours {
+
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int SLOTS_PER_WEEK = 7 * SLOTS_PER_DAY;
+
+    private static final String DAY = "(?:mon|tue|wed|thu|fri|sat|sun)[a-z]*\\.?";
+    private static final String TIME = "(?:\\d{1,2}(?::\\d{2})?\\s*(?:am|pm)?|noon|midnight)";
+    private static final Pattern TOKEN = Pattern.compile(
+            "(?<days>" + DAY + "(?:\\s*-\\s*" + DAY + ")?|daily|every\\s*day|weekdays|weekends?)"
+            + "|(?<closed>closed)"
+            + "|(?<from>" + TIME + ")\\s*-\\s*(?<to>" + TIME + ")");
+    private static final Pattern CLOCK = Pattern.compile("(\\d{1,2})(?::(\\d{2}))?\\s*(am|pm)?");
+    private static final Pattern ALWAYS = Pattern.compile("24\\s*/\\s*7|24\\s*hours|always open|open 24");
+    private static final String[] DAY_PREFIXES = {"mon", "tue", "wed", "thu", "fri", "sat", "sun"};
+
+    private final long[] bits;
+
+    private OperatingHours(long[] bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * Compile opening hours text; returns null when nothing in it could be understood.
+     */
+    public static OperatingHours parse(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT)
+                .replace('–', '-').replace('—', '-')
+                .replace(" to ", "-")
+                .replace("a.m.", "am").replace("p.m.", "pm");
+        long[] bits = new long[(SLOTS_PER_WEEK + 63) / 64];
+        if (ALWAYS.matcher(normalized).find()) {
+            setRange(bits, 0, SLOTS_PER_WEEK);
+            return new OperatingHours(bits);
+        }
+
+        boolean[] days = null;
+        boolean daysUsed = false;
+        boolean understood = false;
+        Matcher matcher = TOKEN.matcher(normalized);
+        while (matcher.find()) {
+            if (matcher.group("days") != null) {
+                // A new day list after a time range starts a new clause
+                if (days == null || daysUsed) {
+                    days = new boolean[7];
+                    daysUsed = false;
+                }
+                addDays(days, matcher.group("days"));
+            } else if (matcher.group("closed") != null) {
+                daysUsed = true;
+                understood = true;
+            } else {
+                int[] range = parseRange(matcher.group("from"), matcher.group("to"));
+                if (range == null) {
+                    continue;
+                }
+                for (int day = 0; day < 7; day++) {
+                    if (days == null || days[day]) {
+                        setRange(bits, day * SLOTS_PER_DAY + range[0] / SLOT_MINUTES,
+                                day * SLOTS_PER_DAY + (range[1] + SLOT_MINUTES - 1) / SLOT_MINUTES);
+                    }
+                }
+                daysUsed = true;
+                understood = true;
+            }
+        }
+        return understood ? new OperatingHours(bits) : null;
+    }
+
+    /**
+     * Slot index of a local date-time: Monday 00:00 is slot 0.
+     */
+    public static int slotOf(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * SLOTS_PER_DAY
+                + (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+
+    public boolean isOpen(int slot) {
+        return (bits[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    public boolean isOpenAt(LocalDateTime time) {
+        return isOpen(slotOf(time));
+    }
+
+    /**
+     * Opening intervals per day as "HH:mm-HH:mm", e.g. {"monday": ["08:00-18:00"]}; closed days are empty.
+     */
+    public Map<String, List<String>> toWeeklyIntervals() {
+        Map<String, List<String>> weekly = new LinkedHashMap<>();
+        for (int day = 0; day < 7; day++) {
+            List<String> intervals = new ArrayList<>();
+            int base = day * SLOTS_PER_DAY;
+            int slot = 0;
+            while (slot < SLOTS_PER_DAY) {
+                if (!isOpen(base + slot)) {
+                    slot++;
+                    continue;
+                }
+                int start = slot;
+                while (slot < SLOTS_PER_DAY && isOpen(base + slot)) {
+                    slot++;
+                }
+                intervals.add(clock(start * SLOT_MINUTES) + "-" + clock(slot * SLOT_MINUTES));
+            }
+            weekly.put(DayOfWeek.of(day + 1).name().toLowerCase(Locale.ROOT), intervals);
+        }
+        return weekly;
+    }
+
+    private static void addDays(boolean[] days, String spec) {
+        if (spec.startsWith("daily") || spec.startsWith("every")) {
+            fill(days, 0, 6);
+        } else if (spec.equals("weekdays")) {
+            fill(days, 0, 4);
+        } else if (spec.startsWith("weekend")) {
+            fill(days, 5, 6);
+        } else {
+            String[] ends = spec.split("-");
+            int from = dayIndex(ends[0]);
+            int to = ends.length > 1 ? dayIndex(ends[1]) : from;
+            // "Fri-Mon" wraps over the weekend
+            for (int day = from; ; day = (day + 1) % 7) {
+                days[day] = true;
+                if (day == to) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private static int dayIndex(String token) {
+        String trimmed = token.trim();
+        for (int i = 0; i < DAY_PREFIXES.length; i++) {
+            if (trimmed.startsWith(DAY_PREFIXES[i])) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static void fill(boolean[] days, int from, int to) {
+        for (int day = from; day <= to; day++) {
+            days[day] = true;
+        }
+    }
+
+    /**
+     * Minutes after midnight for start and end. The end is greater than the start, so a range
+     * past midnight ends beyond 1440.
+     */
+    private static int[] parseRange(String fromText, String toText) {
+        Clock from = Clock.parse(fromText);
+        Clock to = Clock.parse(toText);
+        if (from == null || to == null) {
+            return null;
+        }
+        int start;
+        int end;
+        if (from.meridiem == null && to.meridiem == null) {
+            start = from.minutes(null);
+            end = to.minutes(null);
+            // "9-5" means 9am to 5pm
+            if (end <= start && to.hour <= 12) {
+                end += 12 * 60;
+            }
+        } else if (from.meridiem == null) {
+            // "9-5pm": the start takes the end's half of the day unless that puts it after the end
+            end = to.minutes(to.meridiem);
+            start = from.minutes(to.meridiem);
+            if (start >= end) {
+                start = from.minutes("am");
+            }
+        } else {
+            start = from.minutes(from.meridiem);
+            end = to.minutes(to.meridiem != null ? to.meridiem : from.meridiem);
+        }
+        if (end == 0 && to.text.equals("midnight")) {
+            end = 24 * 60;
+        }
+        if (end <= start) {
+            end += 24 * 60;
+        }
+        return new int[] {start, end};
+    }
+
+    private static void setRange(long[] bits, int fromSlot, int toSlot) {
+        for (int slot = fromSlot; slot < toSlot; slot++) {
+            int wrapped = slot % SLOTS_PER_WEEK;
+            bits[wrapped >>> 6] |= 1L << wrapped;
+        }
+    }
+
+    private static String clock(int minutes) {
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
+    }
+
+    private static final class Clock {
+
+        final String text;
+        final int hour;
+        final int minute;
+        final String meridiem;
+
+        private Clock(String text, int hour, int minute, String meridiem) {
+            this.text = text;
+            this.hour = hour;
+            this.minute = minute;
+            this.meridiem = meridiem;
+        }
+
+        static Clock parse(String text) {
+            String trimmed = text.trim();
+            if (trimmed.equals("noon")) {
+                return new Clock(trimmed, 12, 0, "pm");
+            }
+            if (trimmed.equals("midnight")) {
+                return new Clock(trimmed, 12, 0, "am");
+            }
+            Matcher matcher = CLOCK.matcher(trimmed);
+            if (!matcher.matches()) {
+                return null;
+            }
+            int hour = Integer.parseInt(matcher.group(1));
+            int minute = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 0;
+            if (hour > 24 || minute > 59) {
+                return null;
+            }
+            return new Clock(trimmed, hour, minute, matcher.group(3));
+        }
+
+        int minutes(String meridiem) {
+            int h = hour;
+            if ("am".equals(meridiem) && h == 12) {
+                h = 0;
+            } else if ("pm".equals(meridiem) && h < 12) {
+                h += 12;
+            }
+            return Math.min(h * 60 + minute, 24 * 60);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ecohaul.backend.util;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+
+/**
+ * Perceptual Hash
+ * 64-bit difference hash (dHash) of an encoded image: the picture is shrunk to 9x8 grey levels
+ * and each bit says whether a pixel is brighter than its right-hand neighbour. Re-encoding,
+ * resizing and small exposure changes flip only a few bits, so near-duplicate photos are a
+ * small Hamming distance apart.
+ *
+ * The image is decoded through {@link ImageThumbnails}, so a 12 MP photo is never rasterised at
+ * full size.
+ */
+public final class PerceptualHash {
+
+    private static final int WIDTH = 9;
+    private static final int HEIGHT = 8;
+    // Decode at roughly this many pixels on the short side before averaging down to 9x8
+    private static final int DECODE_SIZE = 72;
+
+    private PerceptualHash() {}
+
+    /**
+     * dHash of the image in {@code image} (position to limit, left untouched), or null when
+     * ImageIO cannot decode it.
+     */
+    public static Long dHash(ByteBuffer image) {
+        BufferedImage thumbnail = ImageThumbnails.decode(image, DECODE_SIZE);
+        // Truncated or unsupported image data: no hash, the scan simply skips the cache
+        return thumbnail == null ? null : dHash(thumbnail);
+    }
+
+    public static long dHash(BufferedImage image) {
+        double[] grey = shrink(image);
+        long hash = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH - 1; x++) {
+                hash <<= 1;
+                if (grey[y * WIDTH + x] > grey[y * WIDTH + x + 1]) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    public static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+    /**
+     * Box-average the image down to 9x8 luma values.
+     */
+    private static double[] shrink(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] rgb = image.getRGB(0, 0, width, height, null, 0, width);
+        double[] sums = new double[WIDTH * HEIGHT];
+        int[] counts = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < height; y++) {
+            int cellY = Math.min(HEIGHT - 1, y * HEIGHT / height);
+            for (int x = 0; x < width; x++) {
+                int cellX = Math.min(WIDTH - 1, x * WIDTH / width);
+                int pixel = rgb[y * width + x];
+                double luma = 0.299 * ((pixel >> 16) & 0xff) + 0.587 * ((pixel >> 8) & 0xff) + 0.114 * (pixel & 0xff);
+                sums[cellY * WIDTH + cellX] += luma;
+                counts[cellY * WIDTH + cellX]++;
+            }
+        }
+        for (int i = 0; i < sums.length; i++) {
+            sums[i] = counts[i] > 0 ? sums[i] / counts[i] : 0;
+        }
+        return sums;
+    }
+}
@@ -0,0 +1,45 @@
+package com.ecohaul.backend.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API haversine used by {@link BatchDistance}. Only loaded once the incubator module has
+ * been found at runtime, so the rest of the code never links against it.
+ */
+final class VectorBatchDistance {
+    
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    
+    private VectorBatchDistance() {}
+    
+    static int laneCount() {
+        return SPECIES.length();
+    }
+    
+    static void haversineKm(double lat0, double lon0, double[] latRad, double[] lonRad, double[] cosLat,
+            int count, double[] out) {
+        double cos0 = Math.cos(lat0);
+        double twoR = 2 * GeoUtils.EARTH_RADIUS_KM;
+        int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector sinLat = DoubleVector.fromArray(SPECIES, latRad, i)
+                    .sub(lat0).mul(0.5).lanewise(VectorOperators.SIN);
+            DoubleVector sinLon = DoubleVector.fromArray(SPECIES, lonRad, i)
+                    .sub(lon0).mul(0.5).lanewise(VectorOperators.SIN);
+            DoubleVector a = DoubleVector.fromArray(SPECIES, cosLat, i).mul(cos0)
+                    .mul(sinLon.mul(sinLon))
+                    .add(sinLat.mul(sinLat))
+                    .min(1.0);
+            a.lanewise(VectorOperators.SQRT).lanewise(VectorOperators.ASIN).mul(twoR).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            double sinLat = Math.sin((latRad[i] - lat0) * 0.5);
+            double sinLon = Math.sin((lonRad[i] - lon0) * 0.5);
+            double a = sinLat * sinLat + cos0 * cosLat[i] * sinLon * sinLon;
+            out[i] = twoR * Math.asin(Math.sqrt(Math.min(1.0, a)));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecohaul.backend.util;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Waste Types
+ * Single place where waste type names are normalised, so "Batteries", "battery " and "BATTERY"
+ * all land on the same key whether they come from the database or from a request.
+ */
+public final class WasteTypes {
+    
+    // Centers listing this type accept everything
+    public static final String ALL = "all";
+    
+    private static final Map<String, String> ALIASES = Map.of(
+        "all types", ALL,
+        "any", ALL,
+        "electronics", "electronic",
+        "e-waste", "electronic",
+        "ewaste", "electronic",
+        "batteries", "battery",
+        "clothes", "clothing"
+    );
+    
+    private WasteTypes() {}
+    
+    public static String normalize(String wasteType) {
+        if (wasteType == null) {
+            return null;
+        }
+        String key = wasteType.trim().toLowerCase(Locale.ROOT);
+        if (key.isEmpty()) {
+            return null;
+        }
+        String alias = ALIASES.get(key);
+        if (alias != null) {
+            return alias;
+        }
+        // Simple plural folding: "chemicals" -> "chemical", but keep "glass"
+        if (key.length() > 3 && key.endsWith("s") && !key.endsWith("ss")) {
+            return key.substring(0, key.length() - 1);
+        }
+        return key;
+    }
+    
+    public static Set<String> normalizeAll(Collection<String> wasteTypes) {
+        Set<String> normalized = new LinkedHashSet<>();
+        if (wasteTypes != null) {
+            for (String wasteType : wasteTypes) {
+                String key = normalize(wasteType);
+                if (key != null) {
+                    normalized.add(key);
+                }
+            }
+        }
+        return normalized;
+    }
+    
+    /**
+     * Parse a request value that may be a single type, a comma separated list or a JSON array.
+     */
+    public static Set<String> parseRequested(Object requested) {
+        Set<String> normalized = new LinkedHashSet<>();
+        if (requested instanceof Collection<?> values) {
+            for (Object value : values) {
+                normalized.addAll(parseRequested(value));
+            }
+        } else if (requested != null) {
+            for (String part : requested.toString().split(",")) {
+                String key = normalize(part);
+                if (key != null) {
+                    normalized.add(key);
+                }
+            }
+        }
+        return normalized;
+    }
+}
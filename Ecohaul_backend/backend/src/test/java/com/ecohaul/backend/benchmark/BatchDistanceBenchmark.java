@@ -0,0 +1,96 @@
+package com.ecohaul.backend.benchmark;
+
+import com.ecohaul.backend.util.BatchDistance;
+import com.ecohaul.backend.util.GeoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One origin to N points: per-point GeoUtils.haversineKm (what the controllers used to do),
+ * the scalar and Vector API batch kernels, and the equirectangular fast path.
+ * The vector variant reports the scalar loop when the incubator module is not available.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class BatchDistanceBenchmark {
+
+	@Param({"1000", "100000", "1000000"})
+	private int points;
+
+	private double[] lat;
+	private double[] lon;
+	private double[] latRad;
+	private double[] lonRad;
+	private double[] cosLat;
+	private double[] out;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		lat = new double[points];
+		lon = new double[points];
+		latRad = new double[points];
+		lonRad = new double[points];
+		cosLat = new double[points];
+		out = new double[points];
+		for (int i = 0; i < points; i++) {
+			lat[i] = 40.2 + random.nextDouble();
+			lon[i] = -74.5 + random.nextDouble();
+			latRad[i] = Math.toRadians(lat[i]);
+			lonRad[i] = Math.toRadians(lon[i]);
+			cosLat[i] = Math.cos(latRad[i]);
+		}
+	}
+
+	@Benchmark
+	public double[] pointwise() {
+		for (int i = 0; i < points; i++) {
+			out[i] = GeoUtils.haversineKm(40.7128, -74.0060, lat[i], lon[i]);
+		}
+		return out;
+	}
+
+	@Benchmark
+	public double[] scalarBatch() {
+		BatchDistance.haversineKmScalar(40.7128, -74.0060, latRad, lonRad, cosLat, points, out);
+		return out;
+	}
+
+	@Benchmark
+	public double[] vectorBatch() {
+		BatchDistance.haversineKm(40.7128, -74.0060, latRad, lonRad, cosLat, points, out);
+		return out;
+	}
+
+	@Benchmark
+	public double[] equirectangular() {
+		BatchDistance.equirectangularKm(40.7128, -74.0060, latRad, lonRad, cosLat, points, out);
+		return out;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(BatchDistanceBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
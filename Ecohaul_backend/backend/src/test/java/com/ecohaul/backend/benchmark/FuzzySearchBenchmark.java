@@ -0,0 +1,86 @@
+package com.ecohaul.backend.benchmark;
+
+import com.ecohaul.backend.util.FuzzyIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typo lookups against a vocabulary of made-up words: a misspelt word (one substitution and one
+ * deletion) searched with the full edit budget, and a prefix completion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FuzzySearchBenchmark {
+
+	private static final String LETTERS = "aeioubcdfghklmnprstvw";
+
+	@Param({"100000"})
+	private int terms;
+
+	private FuzzyIndex index;
+	private String[] typos;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		FuzzyIndex.Builder builder = FuzzyIndex.builder(terms);
+		String[] words = new String[terms];
+		for (int i = 0; i < terms; i++) {
+			StringBuilder word = new StringBuilder();
+			int length = 5 + random.nextInt(8);
+			for (int c = 0; c < length; c++) {
+				word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+			}
+			words[i] = word.toString();
+			builder.add(words[i], i);
+		}
+		index = builder.build();
+
+		typos = new String[1024];
+		for (int i = 0; i < typos.length; i++) {
+			StringBuilder typo = new StringBuilder(words[random.nextInt(terms)]);
+			typo.setCharAt(1, typo.charAt(1) == 'x' ? 'y' : 'x');
+			typo.deleteCharAt(typo.length() - 2);
+			typos[i] = typo.toString();
+		}
+	}
+
+	@Benchmark
+	public List<FuzzyIndex.Match> search() {
+		return index.search(typos[next++ & (typos.length - 1)], FuzzyIndex.MAX_EDITS, 10);
+	}
+
+	@Benchmark
+	public List<FuzzyIndex.Match> complete() {
+		return index.complete(typos[next++ & (typos.length - 1)].substring(0, 3), 10);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(FuzzySearchBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build()).run();
+	}
+}
@@ -0,0 +1,71 @@
+package com.ecohaul.backend.benchmark;
+
+import com.ecohaul.backend.service.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifying the bearer token of one request, as JwtAuthenticationFilter does, for a pool of
+ * active clients each resending its own token: a full signature check and claims parse every
+ * time (cache off) against a token-hash lookup in the verified-token cache (cache on).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerifyBenchmark {
+
+	@Param({"true", "false"})
+	private boolean cache;
+
+	@Param({"1000"})
+	private int clients;
+
+	private JwtService jwt;
+	private String[] tokens;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		jwt = new JwtService();
+		ReflectionTestUtils.setField(jwt, "secret", "benchmark-secret-of-at-least-32-bytes!");
+		ReflectionTestUtils.setField(jwt, "cacheEnabled", cache);
+		jwt.init();
+		tokens = new String[clients];
+		for (int i = 0; i < clients; i++) {
+			tokens[i] = jwt.issue(String.valueOf(i), "user" + i + "@example.com", "USER");
+		}
+	}
+
+	@Benchmark
+	public JwtService.TokenClaims verify() {
+		String token = tokens[next];
+		next = next + 1 == tokens.length ? 0 : next + 1;
+		return jwt.verify(token);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(JwtVerifyBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build()).run();
+	}
+}
@@ -0,0 +1,149 @@
+package com.ecohaul.backend.benchmark;
+
+import com.ecohaul.backend.service.WasteKeywordEngine;
+import com.ecohaul.backend.service.WasteKeywordEngine.Identification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One /identify request: the former String.contains chain, which lower-cases and scans the
+ * description four times (type, category, recyclable, suggestions), against a single pass of
+ * the compiled keyword automaton over the full lexicon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeywordIdentifyBenchmark {
+
+	private static final String[] SHORT = {
+		"plastic bottle", "old battery", "glass bottle", "broken device", "a pile of leaves"
+	};
+
+	@Param({"short", "long"})
+	private String text;
+
+	private WasteKeywordEngine engine;
+	private String[] descriptions;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		engine = new WasteKeywordEngine();
+		ReflectionTestUtils.setField(engine, "resourceLoader", new DefaultResourceLoader());
+		ReflectionTestUtils.setField(engine, "objectMapper", new ObjectMapper());
+		engine.init();
+
+		descriptions = SHORT.clone();
+		if ("long".equals(text)) {
+			for (int i = 0; i < descriptions.length; i++) {
+				descriptions[i] = "I found this next to the kerb after the weekend market, it looks like "
+						+ descriptions[i] + " with a torn label, some mud on it and a bit of tape around the middle";
+			}
+		}
+	}
+
+	@Benchmark
+	public void containsChain(Blackhole blackhole) {
+		for (String description : descriptions) {
+			blackhole.consume(identifyWasteTypeFromDescription(description));
+			blackhole.consume(getCategoryFromDescription(description));
+			blackhole.consume(isRecyclableFromDescription(description));
+			blackhole.consume(generateDisposalSuggestions(description));
+		}
+	}
+
+	@Benchmark
+	public void automaton(Blackhole blackhole) {
+		for (String description : descriptions) {
+			Identification match = engine.identify(description);
+			blackhole.consume(match.getType());
+			blackhole.consume(match.getCategory());
+			blackhole.consume(match.isRecyclable());
+			blackhole.consume(match.getSuggestions());
+		}
+	}
+
+	// Former WasteScannerController helpers, kept verbatim as the baseline
+	private static String identifyWasteTypeFromDescription(String description) {
+		String desc = description.toLowerCase();
+		if (desc.contains("bottle") && desc.contains("plastic")) return "Plastic Bottle";
+		if (desc.contains("bottle") && desc.contains("glass")) return "Glass Bottle";
+		if (desc.contains("can") && desc.contains("aluminum")) return "Aluminum Can";
+		if (desc.contains("paper")) return "Paper";
+		if (desc.contains("cardboard")) return "Cardboard";
+		if (desc.contains("battery")) return "Battery";
+		if (desc.contains("electronic") || desc.contains("device")) return "Electronic Device";
+		return "Unknown Waste Type";
+	}
+
+	private static String getCategoryFromDescription(String description) {
+		String wasteType = identifyWasteTypeFromDescription(description);
+		switch (wasteType) {
+			case "Battery": return "Hazardous";
+			case "Electronic Device": return "E-Waste";
+			case "Unknown Waste Type": return "General";
+			default: return "Recyclable";
+		}
+	}
+
+	private static boolean isRecyclableFromDescription(String description) {
+		return getCategoryFromDescription(description).equals("Recyclable");
+	}
+
+	private static List<String> generateDisposalSuggestions(String description) {
+		List<String> suggestions = new ArrayList<>();
+		switch (identifyWasteTypeFromDescription(description)) {
+			case "Plastic Bottle":
+				suggestions.add("Clean the bottle before recycling");
+				suggestions.add("Remove the cap if it's a different plastic type");
+				suggestions.add("Take to nearest recycling center");
+				break;
+			case "Battery":
+				suggestions.add("Do not throw in regular trash");
+				suggestions.add("Take to specialized battery disposal center");
+				suggestions.add("Many electronics stores accept batteries");
+				break;
+			case "Electronic Device":
+				suggestions.add("Remove personal data before disposal");
+				suggestions.add("Take to certified e-waste facility");
+				suggestions.add("Check if manufacturer has take-back program");
+				break;
+			default:
+				suggestions.add("Check local recycling guidelines");
+				suggestions.add("Contact nearest disposal center");
+				break;
+		}
+		return suggestions;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(KeywordIdentifyBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build()).run();
+	}
+}
@@ -0,0 +1,89 @@
+package com.ecohaul.backend.benchmark;
+
+import com.ecohaul.backend.service.RoutePlanner;
+import com.ecohaul.backend.service.RoutePlanner.Plan;
+import com.ecohaul.backend.service.RoutePlanner.Stop;
+import com.ecohaul.backend.service.RoutePlanner.Vehicle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planning time for a day of pickups spread over a metro area (16 regions at the default
+ * region size), by number of fork-join workers.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.ecohaul.backend.benchmark.RoutePlannerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RoutePlannerBenchmark {
+
+	@Param({"10000"})
+	private int stops;
+
+	@Param({"1", "2", "4", "8"})
+	private int threads;
+
+	private List<Stop> stopList;
+	private List<Vehicle> vehicleList;
+	private RoutePlanner planner;
+	private ForkJoinPool pool;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random random = new Random(42);
+		stopList = new ArrayList<>(stops);
+		for (int i = 0; i < stops; i++) {
+			int windowStart = 8 * 60 + random.nextInt(20) * 30;
+			stopList.add(new Stop(i, 40.5 + random.nextDouble(), -74.5 + random.nextDouble(),
+					2 + random.nextInt(80), windowStart, windowStart + 30, -1L));
+		}
+		vehicleList = new ArrayList<>();
+		for (int v = 0; v < stops / 12; v++) {
+			vehicleList.add(new Vehicle(v, 40.5 + random.nextDouble(), -74.5 + random.nextDouble(),
+					v % 3 == 0 ? 2000 : 800));
+		}
+		planner = new RoutePlanner(25, 10, 7 * 60, 19 * 60, 24, 0.25);
+		pool = new ForkJoinPool(threads);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public Plan plan() {
+		return planner.plan(stopList, vehicleList, pool);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(RoutePlannerBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,93 @@
+package com.ecohaul.backend.benchmark;
+
+import com.ecohaul.backend.service.InferenceService;
+import com.ecohaul.backend.service.ReferenceWasteClassifier;
+import com.ecohaul.backend.service.WasteScanService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap cost of taking one scan image off the request: the old Map body plus Base64.decode of the
+ * String, the streaming JSON decode into a pooled buffer, and a raw binary upload.
+ * Run with {@code -prof gc} and compare gc.alloc.rate.norm (bytes per scan).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScanUploadBenchmark {
+
+	@Param({"3000000"})
+	private int imageBytes;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private WasteScanService service;
+	private byte[] image;
+	private byte[] jsonBody;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		image = new byte[imageBytes];
+		new Random(42).nextBytes(image);
+		jsonBody = mapper.writeValueAsBytes(Map.of("imageBase64", Base64.getEncoder().encodeToString(image)));
+
+		InferenceService inference = new InferenceService();
+		inference.init();
+		service = new WasteScanService();
+		ReflectionTestUtils.setField(service, "objectMapper", mapper);
+		ReflectionTestUtils.setField(service, "classifier", new ReferenceWasteClassifier());
+		ReflectionTestUtils.setField(service, "inferenceService", inference);
+		ReflectionTestUtils.setField(service, "maxImageBytes", 8 * 1024 * 1024);
+		ReflectionTestUtils.setField(service, "bufferPoolSize", 2);
+		ReflectionTestUtils.setField(service, "bufferWaitMillis", 1000L);
+		service.init();
+	}
+
+	@Benchmark
+	public int mapBody() throws IOException {
+		Map<String, Object> body = mapper.readValue(jsonBody, new TypeReference<Map<String, Object>>() {});
+		return Base64.getDecoder().decode((String) body.get("imageBase64")).length;
+	}
+
+	@Benchmark
+	public int streamingJson() throws IOException {
+		return service.scanJson(new ByteArrayInputStream(jsonBody)).getImageBytes();
+	}
+
+	@Benchmark
+	public int binaryUpload() throws IOException {
+		return service.scanBinary(new ByteArrayInputStream(image)).getImageBytes();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ScanUploadBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build()).run();
+	}
+}
@@ -0,0 +1,192 @@
+package com.ecohaul.backend.config;
+
+import com.ecohaul.backend.service.IdempotencyService;
+import com.ecohaul.backend.service.JwtService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+class IdempotencyFilterTest {
+
+	private static final String SECRET = "idempotency-filter-test-secret-0123456789abcdef";
+
+	private final Endpoints endpoints = new Endpoints();
+
+	private IdempotencyFilter filter;
+
+	private JwtService jwt;
+
+	private MockMvc mvc;
+
+	@BeforeEach
+	void setUp() {
+		IdempotencyService idempotency = new IdempotencyService();
+		ReflectionTestUtils.setField(idempotency, "waitMillis", 50L);
+		idempotency.init();
+
+		filter = new IdempotencyFilter();
+		ReflectionTestUtils.setField(filter, "idempotencyService", idempotency);
+		ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(filter, "maxBodyBytes", 64);
+		mvc = MockMvcBuilders.standaloneSetup(endpoints).addFilters(filter).build();
+
+		jwt = new JwtService();
+		ReflectionTestUtils.setField(jwt, "secret", SECRET);
+		ReflectionTestUtils.setField(jwt, "expirationMillis", 3600_000L);
+		ReflectionTestUtils.setField(jwt, "clock", Clock.systemUTC());
+		jwt.init();
+	}
+
+	@Test
+	void aRetryIsAnsweredFromTheStoredResponseWithoutRunningAgain() throws Exception {
+		MockHttpServletResponse first = perform(echo("k1", "{\"a\":1}"));
+		MockHttpServletResponse retry = perform(echo("k1", "{\"a\":1}"));
+
+		assertEquals(200, retry.getStatus());
+		assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals(first.getContentAsString(), retry.getContentAsString());
+		assertEquals(1, endpoints.runs.get());
+	}
+
+	@Test
+	void aKeyReusedWithAnotherBodyOrQueryIsUnprocessable() throws Exception {
+		perform(echo("k2", "{\"a\":1}"));
+
+		assertEquals(422, perform(echo("k2", "{\"a\":2}")).getStatus());
+		assertEquals(422, perform(echo("k2", "{\"a\":1}").queryParam("region", "north")).getStatus());
+		assertEquals(1, endpoints.runs.get());
+	}
+
+	@Test
+	void aDuplicateOfARequestStillRunningIsAConflictWithRetryAfter() throws Exception {
+		CompletableFuture<MockHttpServletResponse> slow = CompletableFuture.supplyAsync(() -> {
+			try {
+				return perform(post("/api/v1/cart/slow").header(IdempotencyFilter.HEADER, "k3"));
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		assertTrue(endpoints.started.await(5, TimeUnit.SECONDS));
+
+		MockHttpServletResponse duplicate = perform(post("/api/v1/cart/slow").header(IdempotencyFilter.HEADER, "k3"));
+		endpoints.release.countDown();
+
+		assertEquals(409, duplicate.getStatus());
+		assertEquals("1", duplicate.getHeader("Retry-After"));
+		assertEquals(200, slow.get(5, TimeUnit.SECONDS).getStatus());
+	}
+
+	@Test
+	void bodiesOverTheLimitAreTooLargeWhetherDeclaredOrChunked() throws Exception {
+		String large = "{\"a\":\"" + "x".repeat(100) + "\"}";
+		assertEquals(413, perform(echo("k4", large)).getStatus());
+
+		// No Content-Length, as with Transfer-Encoding: chunked; the limit is found by reading
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/cart/echo");
+		request.addHeader(IdempotencyFilter.HEADER, "k5");
+		request.setContent(large.getBytes());
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockFilterChain chain = new MockFilterChain();
+		filter.doFilter(new HttpServletRequestWrapper(request) {
+			@Override
+			public int getContentLength() { return -1; }
+
+			@Override
+			public long getContentLengthLong() { return -1; }
+		}, response, chain);
+
+		assertEquals(413, response.getStatus());
+		assertNull(chain.getRequest());
+		assertEquals(0, endpoints.runs.get());
+	}
+
+	@Test
+	void serverErrorsAreNotStoredSoTheRetryRunsAgain() throws Exception {
+		assertEquals(503, perform(post("/api/v1/cart/fail").header(IdempotencyFilter.HEADER, "k6")).getStatus());
+		MockHttpServletResponse retry = perform(post("/api/v1/cart/fail").header(IdempotencyFilter.HEADER, "k6"));
+
+		assertEquals(503, retry.getStatus());
+		assertNull(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals(2, endpoints.runs.get());
+	}
+
+	@Test
+	void callersWithDifferentTokensDoNotShareAKey() throws Exception {
+		Object alice = jwt.verify(jwt.issue("101", "alice@example.com", "USER"));
+		Object bob = jwt.verify(jwt.issue("102", "bob@example.com", "USER"));
+
+		perform(echo("shared", "{\"a\":1}").requestAttr(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE, alice));
+		MockHttpServletResponse other = perform(echo("shared", "{\"a\":1}")
+				.requestAttr(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE, bob));
+		MockHttpServletResponse anonymous = perform(echo("shared", "{\"a\":1}"));
+		MockHttpServletResponse again = perform(echo("shared", "{\"a\":1}")
+				.requestAttr(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE, alice));
+
+		assertNull(other.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertNull(anonymous.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals("true", again.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals(3, endpoints.runs.get());
+	}
+
+	private MockHttpServletRequestBuilder echo(String key, String body) {
+		return post("/api/v1/cart/echo").header(IdempotencyFilter.HEADER, key)
+				.contentType(MediaType.APPLICATION_JSON).content(body);
+	}
+
+	private MockHttpServletResponse perform(MockHttpServletRequestBuilder request) throws Exception {
+		return mvc.perform(request).andReturn().getResponse();
+	}
+
+	@RestController
+	static class Endpoints {
+
+		final AtomicInteger runs = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		@PostMapping("/api/v1/cart/echo")
+		Map<String, Object> echo(@RequestBody String body) {
+			return Map.of("run", runs.incrementAndGet(), "body", body);
+		}
+
+		@PostMapping("/api/v1/cart/fail")
+		ResponseEntity<?> fail() {
+			runs.incrementAndGet();
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("message", "Try again"));
+		}
+
+		@PostMapping("/api/v1/cart/slow")
+		String slow() throws InterruptedException {
+			started.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return "done";
+		}
+	}
+}
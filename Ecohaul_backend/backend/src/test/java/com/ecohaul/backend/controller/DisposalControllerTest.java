@@ -0,0 +1,53 @@
+package com.ecohaul.backend.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+class DisposalControllerTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Test
+	void aPingWithAnUnparseableOrNonFiniteCoordinateIsABadRequest() throws Exception {
+		for (Object latitude : List.of("north", "NaN", "Infinity", "-Infinity")) {
+			MvcResult result = mvc.perform(post("/api/v1/disposal/agents/1/location")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(mapper.writeValueAsBytes(Map.of("latitude", latitude, "longitude", 10.0))))
+					.andReturn();
+			assertEquals(400, result.getResponse().getStatus(), "latitude " + latitude);
+		}
+	}
+
+	@Test
+	void nonFiniteCoordinatesInABatchAreRejectedOneByOne() throws Exception {
+		byte[] body = mapper.writeValueAsBytes(List.of(
+				Map.of("agentId", 1, "latitude", "NaN", "longitude", 10.0),
+				Map.of("agentId", 2, "latitude", 10.0, "longitude", "Infinity")));
+		MvcResult result = mvc.perform(post("/api/v1/disposal/agents/locations")
+				.contentType(MediaType.APPLICATION_JSON).content(body)).andReturn();
+
+		assertEquals(202, result.getResponse().getStatus());
+		JsonNode response = mapper.readTree(result.getResponse().getContentAsByteArray());
+		assertEquals(0, response.path("accepted").asInt());
+		assertEquals(2, response.path("rejected").size());
+	}
+}
@@ -0,0 +1,121 @@
+package com.ecohaul.backend.controller;
+
+import com.ecohaul.backend.entity.DisposalCenter;
+import com.ecohaul.backend.repository.DisposalCenterRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+class ExportControllerTest {
+
+	private static final String EXPORT = "/api/data/export";
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private DisposalCenterRepository centers;
+
+	private DisposalCenter unplaced;
+
+	@BeforeEach
+	void setUp() {
+		unplaced = centers.save(new DisposalCenter("Export Unplaced", "Nowhere", null, null));
+	}
+
+	@AfterEach
+	void tearDown() {
+		centers.deleteById(unplaced.getId());
+	}
+
+	@Test
+	void geoJsonIsOneFeatureCollectionOfPointsAndUnplacedRowsHaveNullGeometry() throws Exception {
+		MvcResult result = export(EXPORT + "?format=geojson&layers=centers");
+		assertEquals("application/geo+json", result.getResponse().getContentType());
+		JsonNode collection = mapper.readTree(result.getResponse().getContentAsByteArray());
+		assertEquals("FeatureCollection", collection.path("type").asText());
+
+		JsonNode features = collection.path("features");
+		assertNotNull(find(features, "center-" + unplaced.getId()));
+		for (JsonNode feature : features) {
+			assertEquals("Feature", feature.path("type").asText());
+			assertEquals("centers", feature.path("properties").path("layer").asText());
+			if (feature.path("id").asText().equals("center-" + unplaced.getId())) {
+				assertTrue(feature.get("geometry").isNull());
+			} else {
+				assertEquals("Point", feature.path("geometry").path("type").asText());
+				assertEquals(2, feature.path("geometry").path("coordinates").size());
+			}
+		}
+	}
+
+	@Test
+	void ndjsonIsOneFeaturePerLine() throws Exception {
+		MvcResult result = export(EXPORT + "?format=ndjson");
+		assertEquals("application/x-ndjson", result.getResponse().getContentType());
+		List<JsonNode> features = new ArrayList<>();
+		for (String line : result.getResponse().getContentAsString().split("\n")) {
+			features.add(mapper.readTree(line));
+		}
+		assertTrue(features.stream().anyMatch(feature -> feature.path("properties").path("layer").asText().equals("agents")));
+		JsonNode feature = features.stream()
+				.filter(line -> line.path("id").asText().equals("center-" + unplaced.getId()))
+				.findFirst().orElseThrow();
+		assertEquals("Feature", feature.path("type").asText());
+		assertTrue(feature.get("geometry").isNull());
+		assertEquals("Export Unplaced", feature.path("properties").path("name").asText());
+	}
+
+	@Test
+	void gzipTrueCompressesTheSameBody() throws Exception {
+		byte[] plain = export(EXPORT + "?format=ndjson&layers=centers&gzip=false").getResponse().getContentAsByteArray();
+		MvcResult zipped = export(EXPORT + "?format=ndjson&layers=centers&gzip=true");
+		assertEquals("gzip", zipped.getResponse().getHeader("Content-Encoding"));
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(zipped.getResponse().getContentAsByteArray()))) {
+			assertArrayEquals(plain, in.readAllBytes());
+		}
+
+		MvcResult refused = export(EXPORT + "?format=kml");
+		assertEquals(400, refused.getResponse().getStatus());
+		assertNull(refused.getResponse().getHeader("Content-Encoding"));
+	}
+
+	private MvcResult export(String url) throws Exception {
+		MvcResult started = mvc.perform(get(url)).andReturn();
+		return mvc.perform(asyncDispatch(started)).andReturn();
+	}
+
+	private static JsonNode find(JsonNode features, String id) {
+		for (JsonNode feature : features) {
+			if (feature.path("id").asText().equals(id)) {
+				return feature;
+			}
+		}
+		return null;
+	}
+}
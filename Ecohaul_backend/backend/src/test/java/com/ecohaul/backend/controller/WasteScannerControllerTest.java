@@ -0,0 +1,158 @@
+package com.ecohaul.backend.controller;
+
+import com.ecohaul.backend.repository.WasteRecordRepository;
+import com.ecohaul.backend.service.BatchScanService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+class WasteScannerControllerTest {
+
+	private static final String BATCH = "/api/v1/waste-scanner/scan/batch";
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ObjectMapper mapper;
+
+	@Autowired
+	private BatchScanService batchScanService;
+
+	@Autowired
+	private WasteRecordRepository wasteRecords;
+
+	@Test
+	void aBadImageGetsAnErrorLineWhileTheRestOfTheBatchIsScanned() throws Exception {
+		byte[] png = png();
+		List<JsonNode> lines = stream(multipart(BATCH)
+				.file(new MockMultipartFile("images", "one.png", "image/png", png))
+				.file(new MockMultipartFile("images", "empty.png", "image/png", new byte[0]))
+				.file(new MockMultipartFile("images", "three.png", "image/png", png)));
+
+		assertEquals(4, lines.size());
+		Map<String, String> statuses = new HashMap<>();
+		for (JsonNode line : lines.subList(0, 3)) {
+			statuses.put(line.path("name").asText(), line.path("status").asText());
+		}
+		assertEquals(Map.of("one.png", "ok", "empty.png", "error", "three.png", "ok"), statuses);
+		JsonNode done = lines.get(3);
+		assertEquals("done", done.path("status").asText());
+		assertEquals(3, done.path("total").asInt());
+		assertEquals(2, done.path("succeeded").asInt());
+		assertEquals(1, done.path("failed").asInt());
+	}
+
+	@Test
+	void theJsonBatchCarriesOnAfterAnItemThatIsNotBase64() throws Exception {
+		String image = Base64.getEncoder().encodeToString(png());
+		byte[] body = mapper.writeValueAsBytes(Map.of("images", List.of(
+				Map.of("name", "bad", "imageBase64", "@@@@"),
+				Map.of("name", "good", "imageBase64", image),
+				image)));
+		List<JsonNode> lines = stream(post(BATCH).contentType(MediaType.APPLICATION_JSON).content(body));
+
+		assertEquals(4, lines.size());
+		JsonNode bad = lines.stream().filter(line -> line.path("index").asInt(-1) == 0).findFirst().orElseThrow();
+		assertEquals("error", bad.path("status").asText());
+		assertEquals("bad", bad.path("name").asText());
+		JsonNode done = lines.get(3);
+		assertEquals(3, done.path("total").asInt());
+		assertEquals(2, done.path("succeeded").asInt());
+		assertEquals(1, done.path("failed").asInt());
+	}
+
+	@Test
+	void batchesOverTheImageCapAreRefused() throws Exception {
+		byte[] png = png();
+		Object maxImages = ReflectionTestUtils.getField(batchScanService, "maxImages");
+		ReflectionTestUtils.setField(batchScanService, "maxImages", 2);
+		try {
+			MvcResult refused = mvc.perform(multipart(BATCH)
+					.file(new MockMultipartFile("images", "a.png", "image/png", png))
+					.file(new MockMultipartFile("images", "b.png", "image/png", png))
+					.file(new MockMultipartFile("images", "c.png", "image/png", png))).andReturn();
+			refused = mvc.perform(asyncDispatch(refused)).andReturn();
+			assertEquals(400, refused.getResponse().getStatus());
+			assertEquals("A batch is limited to 2 images",
+					mapper.readTree(refused.getResponse().getContentAsByteArray()).path("message").asText());
+
+			// The JSON batch is streamed, so only the images past the cap fail
+			String image = Base64.getEncoder().encodeToString(png);
+			byte[] body = mapper.writeValueAsBytes(Map.of("images", List.of(image, image, image)));
+			List<JsonNode> lines = stream(post(BATCH).contentType(MediaType.APPLICATION_JSON).content(body));
+			JsonNode over = lines.stream().filter(line -> line.path("index").asInt(-1) == 2).findFirst().orElseThrow();
+			assertEquals("error", over.path("status").asText());
+			assertEquals(2, lines.get(3).path("succeeded").asInt());
+		} finally {
+			ReflectionTestUtils.setField(batchScanService, "maxImages", maxImages);
+		}
+	}
+
+	@Test
+	void anUndecodableImageIsAnsweredButNotSavedToTheUsersHistory() throws Exception {
+		long before = wasteRecords.count();
+		MvcResult result = mvc.perform(post("/api/v1/waste-scanner/scan").param("userId", "1")
+				.contentType(MediaType.APPLICATION_OCTET_STREAM).content("not an image".getBytes())).andReturn();
+
+		assertEquals(200, result.getResponse().getStatus());
+		JsonNode scan = mapper.readTree(result.getResponse().getContentAsByteArray());
+		assertEquals("Unknown Waste Type", scan.path("detectedWaste").path("type").asText());
+		assertFalse(scan.has("recordId"));
+		assertFalse(scan.has("imageUrl"));
+		assertEquals(before, wasteRecords.count());
+	}
+
+	/**
+	 * Run a streaming request to completion and parse its NDJSON lines.
+	 */
+	private List<JsonNode> stream(RequestBuilder request) throws Exception {
+		MvcResult started = mvc.perform(request).andReturn();
+		MvcResult result = mvc.perform(asyncDispatch(started)).andReturn();
+		assertEquals(200, result.getResponse().getStatus());
+		List<JsonNode> lines = new ArrayList<>();
+		for (String line : result.getResponse().getContentAsString().split("\n")) {
+			lines.add(mapper.readTree(line));
+		}
+		return lines;
+	}
+
+	private static byte[] png() throws Exception {
+		BufferedImage box = new BufferedImage(120, 90, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = box.createGraphics();
+		g.setColor(new Color(160, 110, 60));
+		g.fillRect(0, 0, 120, 90);
+		g.dispose();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(box, "png", out);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,69 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.service.AgentPositionTable.AgentPosition;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AgentPositionTableTest {
+
+	@Test
+	void pingsCoalesceToLatestPositionPerAgent() {
+		AgentPositionTable table = new AgentPositionTable(8);
+		table.update(1L, 40.0, -74.0, 1000, true);
+		table.update(1L, 40.1, -74.1, 2000, true);
+		table.update(2L, 41.0, -73.0, 1500, true);
+		table.update(1L, 40.2, -74.2, 3000, true);
+
+		List<AgentPosition> drained = new ArrayList<>();
+		assertEquals(2, table.drainDirty(drained::add));
+		assertEquals(40.2, drained.get(0).getLatitude());
+		assertEquals(3000, drained.get(0).getFixTimeMillis());
+
+		drained.clear();
+		assertEquals(0, table.drainDirty(drained::add));
+	}
+
+	@Test
+	void staleFixesAreIgnored() {
+		AgentPositionTable table = new AgentPositionTable(8);
+		table.update(1L, 40.0, -74.0, 2000, false);
+
+		assertFalse(table.update(1L, 10.0, 10.0, 1000, true));
+		assertEquals(40.0, table.get(1L).getLatitude());
+		assertNull(table.get(99L));
+	}
+
+	@Test
+	void rejectsAgentsBeyondCapacity() {
+		AgentPositionTable table = new AgentPositionTable(1);
+		table.update(1L, 40.0, -74.0, 1000, true);
+
+		assertThrows(IllegalStateException.class, () -> table.update(2L, 40.0, -74.0, 1000, true));
+	}
+
+	@Test
+	void removedAgentsFreeTheirSlotForTheNextAgent() {
+		AgentPositionTable table = new AgentPositionTable(1);
+		table.update(1L, 40.0, -74.0, 5000, true);
+
+		assertTrue(table.remove(1L));
+		assertFalse(table.remove(1L));
+		assertNull(table.get(1L));
+		assertEquals(0, table.size());
+
+		// The reused slot starts empty: an older fix is accepted and nothing of agent 1 is drained
+		assertTrue(table.update(2L, 41.0, -73.0, 1000, true));
+		assertEquals(41.0, table.get(2L).getLatitude());
+		List<AgentPosition> drained = new ArrayList<>();
+		assertEquals(1, table.drainDirty(drained::add));
+		assertEquals(2L, drained.get(0).getAgentId());
+	}
+}
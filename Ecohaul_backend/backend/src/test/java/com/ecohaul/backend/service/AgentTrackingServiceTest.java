@@ -0,0 +1,67 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.DisposalAgent;
+import com.ecohaul.backend.repository.DisposalAgentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class AgentTrackingServiceTest {
+
+	@Autowired
+	private DisposalAgentRepository agents;
+
+	@Autowired
+	private AgentTrackingService tracking;
+
+	@Test
+	void aFixFromTheFutureDoesNotShadowLaterPings() {
+		DisposalAgent agent = agent("Fast Clock", 30.0, 30.0);
+		long now = System.currentTimeMillis();
+
+		assertTrue(tracking.recordPing(agent.getId(), 30.1, 30.1, now + 3_600_000));
+		assertTrue(tracking.getPosition(agent.getId()).getFixTimeMillis() <= System.currentTimeMillis());
+
+		tracking.recordPing(agent.getId(), 30.2, 30.2, System.currentTimeMillis() + 1);
+		assertEquals(30.2, tracking.getPosition(agent.getId()).getLatitude());
+	}
+
+	@Test
+	void deactivatedAgentsLeaveThePositionTable() {
+		DisposalAgent agent = agent("Retired", 31.0, 31.0);
+		assertTrue(tracking.recordPing(agent.getId(), 31.1, 31.1, System.currentTimeMillis()));
+
+		agent.setIsActive(false);
+		agents.save(agent);
+		assertNull(tracking.getAgent(agent.getId()));
+		assertNull(tracking.getPosition(agent.getId()));
+		assertFalse(tracking.recordPing(agent.getId(), 31.2, 31.2, System.currentTimeMillis()));
+	}
+
+	@Test
+	void anOlderFixNeverMovesTheSpatialIndexBack() {
+		AgentSpatialIndex index = new AgentSpatialIndex(0.05);
+		index.move(7L, 32.5, 32.5, 2_000);
+		// A ping that lost the race to the newer one above
+		index.move(7L, 32.0, 32.0, 1_000);
+
+		assertFalse(index.candidatesNear(32.0, 32.0, 1, 1).contains(7L));
+		assertEquals(List.of(7L), index.candidatesNear(32.5, 32.5, 1, 1));
+		assertEquals(1, index.size());
+	}
+
+	private DisposalAgent agent(String name, double latitude, double longitude) {
+		DisposalAgent agent = new DisposalAgent(name, "+1-555-0998", "Van");
+		agent.setCurrentLatitude(latitude);
+		agent.setCurrentLongitude(longitude);
+		return agents.save(agent);
+	}
+}
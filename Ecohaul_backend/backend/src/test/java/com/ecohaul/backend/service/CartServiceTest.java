@@ -0,0 +1,125 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.repository.CartItemRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class CartServiceTest {
+
+	@Autowired
+	private CartItemRepository repository;
+
+	@Autowired
+	private CartService carts;
+
+	@Test
+	void totalsFollowEachChangeAndEveryChangeIsWrittenThrough() {
+		Long userId = 9101L;
+		CartService.CartLine bottles = carts.add(userId, "Plastic Bottle", 500, 2, null);
+		CartService.CartLine cans = carts.add(userId, "Aluminum Can", 200, 1, null);
+		assertEquals(1.50, bottles.getEstimatedValue(), 1e-9);
+
+		CartService.CartView cart = carts.getCart(userId);
+		assertEquals(2, cart.getTotalItems());
+		assertEquals(1200, cart.getTotalWeight(), 1e-9);
+		assertEquals(2.10, cart.getTotalValue(), 1e-9);
+
+		carts.update(cans.getId(), null, 1000.0, null);
+		carts.remove(bottles.getId());
+		cart = carts.getCart(userId);
+		assertEquals(1, cart.getTotalItems());
+		assertEquals(1000, cart.getTotalWeight(), 1e-9);
+		assertEquals(3.00, cart.getTotalValue(), 1e-9);
+		assertEquals(1000, repository.findById(cans.getId()).orElseThrow().getWeight(), 1e-9);
+		assertTrue(repository.findById(bottles.getId()).isEmpty());
+
+		assertThrows(NoSuchElementException.class, () -> carts.remove(bottles.getId()));
+		assertThrows(IllegalArgumentException.class, () -> carts.update(cans.getId(), null, -1.0, null));
+
+		assertEquals(1, carts.clear(userId));
+		assertEquals(0, carts.getCart(userId).getTotalItems());
+		assertEquals(0, carts.getCart(userId).getTotalValue());
+		assertTrue(repository.findByUserIdOrderByIdAsc(userId).isEmpty());
+	}
+
+	@Test
+	void readsOfACachedCartDoNotGoToTheDatabase() {
+		Long userId = 9102L;
+		carts.add(userId, "Paper", 1000, 1, null);
+		assertEquals(1, carts.getCart(userId).getTotalItems());
+
+		// Rows removed behind the service's back stay visible until the cart is evicted
+		repository.deleteAllByUserId(userId);
+		assertEquals(1, carts.getCart(userId).getTotalItems());
+		assertEquals(0.40, carts.getCart(userId).getTotalValue(), 1e-9);
+		carts.clear(userId);
+	}
+
+	@Test
+	void bulkChangesApplyTogetherOrNotAtAll() {
+		Long userId = 9103L;
+		CartService.CartLine paper = carts.add(userId, "Paper", 1000, 1, null);
+		CartService.CartLine glass = carts.add(userId, "Glass Bottle", 350, 1, null);
+
+		CartService.BulkResult result = carts.bulk(userId,
+				List.of(new CartService.ItemChange(null, "Aluminum Can", 15.0, 20, null),
+						new CartService.ItemChange(null, "Cardboard", 200.0, null, null)),
+				List.of(new CartService.ItemChange(paper.getId(), null, 500.0, null, null)),
+				List.of(glass.getId()));
+		assertEquals(2, result.getAdded().size());
+		assertEquals(1, result.getUpdated().size());
+		assertEquals(3, result.getCart().getTotalItems());
+		assertEquals(500 + 300 + 200, result.getCart().getTotalWeight(), 1e-9);
+		assertEquals(3, repository.findByUserIdOrderByIdAsc(userId).size());
+
+		// The unknown removal rejects the whole request, including the valid add
+		assertThrows(NoSuchElementException.class, () -> carts.bulk(userId,
+				List.of(new CartService.ItemChange(null, "Paper", 100.0, 1, null)),
+				List.of(), List.of(glass.getId())));
+		assertThrows(IllegalArgumentException.class, () -> carts.bulk(userId, List.of(),
+				List.of(new CartService.ItemChange(paper.getId(), null, 100.0, null, null)),
+				List.of(paper.getId())));
+		assertEquals(3, carts.getCart(userId).getTotalItems());
+		assertEquals(3, repository.findByUserIdOrderByIdAsc(userId).size());
+		assertEquals(500, repository.findById(paper.getId()).orElseThrow().getWeight(), 1e-9);
+		carts.clear(userId);
+	}
+
+	@Test
+	void aCartReloadedWhileAWriteIsInFlightIsDroppedOnceItCommits() throws Exception {
+		Long userId = 9104L;
+		carts.add(userId, "Paper", 1000, 1, null);
+		Cache<Long, ?> cache = cache();
+		Object evicted = cache.getIfPresent(userId);
+
+		Thread writer = new Thread(() -> carts.add(userId, "Cardboard", 200, 1, null));
+		synchronized (evicted) {
+			// The writer has the cart and waits for its lock when the cart is evicted and reloaded
+			writer.start();
+			while (writer.getState() != Thread.State.BLOCKED) {
+				Thread.sleep(5);
+			}
+			cache.invalidate(userId);
+			assertEquals(1, carts.getCart(userId).getTotalItems());
+		}
+		writer.join();
+		assertEquals(2, carts.getCart(userId).getTotalItems());
+		carts.clear(userId);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Cache<Long, ?> cache() {
+		return (Cache<Long, ?>) ReflectionTestUtils.getField(carts, "carts");
+	}
+}
@@ -0,0 +1,79 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.DisposalCenter;
+import com.ecohaul.backend.util.WasteTypes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CenterSearchCacheTest {
+
+	private DisposalCenterIndex index;
+	private CenterSearchCache cache;
+
+	@BeforeEach
+	void setUp() {
+		index = new DisposalCenterIndex();
+		ReflectionTestUtils.setField(index, "cellSizeDegrees", 0.01);
+		Random random = new Random(7);
+		for (long id = 1; id <= 1000; id++) {
+			DisposalCenter center = center(id, 40.5 + random.nextDouble() * 0.5, -74.3 + random.nextDouble() * 0.6);
+			center.setAcceptedWasteTypes(id % 3 == 0 ? "Electronics, Batteries" : "[\"plastic\"]");
+			index.upsert(center);
+		}
+		cache = new CenterSearchCache();
+		ReflectionTestUtils.setField(cache, "index", index);
+		cache.init();
+	}
+
+	@Test
+	void cachedResultsMatchTheIndex() {
+		Random random = new Random(11);
+		Set<String> types = WasteTypes.parseRequested("battery,electronic");
+		for (int query = 0; query < 200; query++) {
+			// Queries cluster in a few tiles so most of them are hits
+			double lat = 40.70 + random.nextInt(3) * 0.01 + random.nextDouble() * 0.01;
+			double lon = -74.00 + random.nextInt(3) * 0.01 + random.nextDouble() * 0.01;
+			int radius = 1 + random.nextInt(12);
+
+			assertEquals(ids(index.findNearest(lat, lon, radius, 8, index.acceptingAll(types))),
+					ids(cache.findNearest(lat, lon, radius, 8, types, null)));
+			assertEquals(ids(index.findNearest(lat, lon, radius, 5, null)),
+					ids(cache.findNearest(lat, lon, radius, 5, null, null)));
+		}
+		assertEquals(true, cache.size() <= 2 * 9 * 3);
+	}
+
+	@Test
+	void changedCenterDropsOnlyEntriesThatCoverIt() {
+		cache.findNearest(40.7128, -74.0060, 3, 5, null, null);
+		cache.findNearest(40.9000, -74.2500, 3, 5, null, null);
+		assertEquals(2, cache.size());
+
+		index.upsert(center(2000L, 40.7130, -74.0058));
+
+		assertEquals(1, cache.size());
+		assertEquals(2000L, cache.findNearest(40.7128, -74.0060, 3, 1, null, null).get(0).getCenter().getId());
+
+		index.remove(2000L);
+		assertEquals(ids(index.findNearest(40.7128, -74.0060, 3, 5, null)),
+				ids(cache.findNearest(40.7128, -74.0060, 3, 5, null, null)));
+	}
+
+	private static List<Long> ids(List<CenterMatch> matches) {
+		return matches.stream().map(m -> m.getCenter().getId()).toList();
+	}
+
+	private DisposalCenter center(Long id, double latitude, double longitude) {
+		DisposalCenter center = new DisposalCenter("C" + id, id + " St", latitude, longitude);
+		center.setId(id);
+		center.setAcceptedWasteTypes("[\"plastic\"]");
+		return center;
+	}
+}
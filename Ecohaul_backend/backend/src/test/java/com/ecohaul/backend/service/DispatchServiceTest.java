@@ -0,0 +1,220 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.DisposalAgent;
+import com.ecohaul.backend.entity.Pickup;
+import com.ecohaul.backend.repository.DisposalAgentRepository;
+import com.ecohaul.backend.repository.PickupRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class DispatchServiceTest {
+
+	// Far enough in the future that no other test books these days
+	private static final LocalDate DAY = LocalDate.now().plusDays(400);
+
+	@Autowired
+	private DispatchService dispatch;
+
+	@Autowired
+	private DisposalAgentRepository agents;
+
+	@Autowired
+	private PickupRepository pickups;
+
+	@Test
+	void bestScoringAgentThatCanCarryTheLoadIsBooked() {
+		DisposalAgent tooSmall = agent("Eco Nearby", "Eco Vehicle", 10.0001, 10.0001, 5.0);
+		DisposalAgent near = agent("Van Near", "Van", 10.01, 10.01, 4.8);
+		agent("Van Far", "Van", 10.15, 10.15, 4.8);
+
+		// 200 kg is more than an eco vehicle carries, so the closest agent is skipped
+		DispatchService.Assignment assignment = dispatch.assign(pickup(10.0, 10.0, 200_000, DAY, "9:00 AM"));
+		assertNotNull(assignment);
+		assertEquals(near.getId(), assignment.getPickup().getAgentId());
+		assertEquals(DispatchService.STATUS_SCHEDULED, assignment.getPickup().getStatus());
+		assertEquals(1, dispatch.getLoad(near.getId(), DAY));
+
+		assertThrows(IllegalArgumentException.class,
+				() -> dispatch.assignTo(tooSmall.getId(), pickup(10.0, 10.0, 200_000, DAY, "10:00 AM")));
+		assertEquals(0, dispatch.getLoad(tooSmall.getId(), DAY));
+	}
+
+	@Test
+	void twoBookingsOfTheSameSlotLeaveExactlyOneWinner() throws Exception {
+		DisposalAgent agent = agent("Race Slot", "Truck", 20.0, 20.0, 4.5);
+		List<Object> outcomes = race(() -> dispatch.assignTo(agent.getId(), pickup(20.0, 20.0, 1000, DAY, "9:00 AM")),
+				() -> dispatch.assignTo(agent.getId(), pickup(20.0, 20.0, 1000, DAY, "9:15 AM")));
+
+		assertEquals(1, outcomes.stream().filter(DispatchService.Assignment.class::isInstance).count());
+		assertEquals(1, outcomes.stream().filter(IllegalStateException.class::isInstance).count());
+		assertEquals(1, dispatch.getLoad(agent.getId(), DAY));
+	}
+
+	@Test
+	void theLoserOfARaceForTheLastPickupOfTheDayIsRolledBack() throws Exception {
+		DisposalAgent agent = agent("Race Cap", "Truck", 21.0, 21.0, 4.5);
+		Object maxPerDay = ReflectionTestUtils.getField(dispatch, "maxPickupsPerDay");
+		ReflectionTestUtils.setField(dispatch, "maxPickupsPerDay", 1);
+		try {
+			List<Object> outcomes = race(() -> dispatch.assignTo(agent.getId(), pickup(21.0, 21.0, 1000, DAY, "9:00 AM")),
+					() -> dispatch.assignTo(agent.getId(), pickup(21.0, 21.0, 1000, DAY, "11:00 AM")));
+
+			assertEquals(1, outcomes.stream().filter(DispatchService.Assignment.class::isInstance).count());
+			assertEquals(1, dispatch.getLoad(agent.getId(), DAY));
+			// Only the winner's slot stays reserved
+			boolean nine = dispatch.isReserved(agent.getId(), DAY, LocalTime.of(9, 0));
+			boolean eleven = dispatch.isReserved(agent.getId(), DAY, LocalTime.of(11, 0));
+			assertTrue(nine ^ eleven);
+		} finally {
+			ReflectionTestUtils.setField(dispatch, "maxPickupsPerDay", maxPerDay);
+		}
+	}
+
+	@Test
+	void cancelledSlotsCanBeBookedAgainAndPastDaysArePruned() {
+		DisposalAgent agent = agent("Release", "Truck", 22.0, 22.0, 4.5);
+		LocalTime slot = LocalTime.of(14, 0);
+		DispatchService.Assignment first = dispatch.assignTo(agent.getId(), pickup(22.0, 22.0, 1000, DAY, "2:00 PM"));
+		assertTrue(dispatch.isReserved(agent.getId(), DAY, slot));
+		assertThrows(IllegalStateException.class,
+				() -> dispatch.assignTo(agent.getId(), pickup(22.0, 22.0, 1000, DAY, "2:10 PM")));
+
+		// The cancelled row stays, but no longer holds the slot in memory or in the table
+		Long firstId = first.getPickup().getId();
+		dispatch.cancel(firstId);
+		assertEquals(DispatchService.STATUS_CANCELLED, pickups.findById(firstId).orElseThrow().getStatus());
+		assertFalse(dispatch.isReserved(agent.getId(), DAY, slot));
+		assertEquals(0, dispatch.getLoad(agent.getId(), DAY));
+		DispatchService.Assignment second = dispatch.assignTo(agent.getId(),
+				pickup(22.0, 22.0, 1000, DAY, "2:10 PM"));
+		assertEquals(slot, pickups.findById(second.getPickup().getId()).orElseThrow().getPickupSlot());
+		assertEquals(1, dispatch.getLoad(agent.getId(), DAY));
+		assertThrows(IllegalStateException.class, () -> dispatch.cancel(firstId));
+
+		Object clock = ReflectionTestUtils.getField(dispatch, "clock");
+		ReflectionTestUtils.setField(dispatch, "clock", Clock.fixed(
+				DAY.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+		try {
+			dispatch.pruneReservations();
+		} finally {
+			ReflectionTestUtils.setField(dispatch, "clock", clock);
+		}
+		assertFalse(dispatch.isReserved(agent.getId(), DAY, slot));
+		assertEquals(0, dispatch.getLoad(agent.getId(), DAY));
+	}
+
+	@Test
+	void pickupDatesBeforeTodayAreRejected() {
+		String yesterday = LocalDate.now().minusDays(1).toString();
+		assertThrows(IllegalArgumentException.class,
+				() -> dispatch.newPickup(1L, yesterday, "9:00 AM", "1 Main St", 10.0, 10.0, 1000.0));
+		assertEquals(DAY, dispatch.newPickup(1L, DAY.toString(), "9:00 AM", "1 Main St", 10.0, 10.0, 1000.0)
+				.getPickupDate());
+	}
+
+	@Test
+	void aViolationOtherThanTheSlotConflictFreesTheSlotAndStopsTheSearch() {
+		DisposalAgent first = agent("FK First", "Truck", 23.0, 23.0, 4.5);
+		DisposalAgent second = agent("FK Second", "Truck", 23.001, 23.001, 4.5);
+		LocalTime slot = LocalTime.of(9, 0);
+		PickupRepository failing = mock(PickupRepository.class);
+		when(failing.save(any(Pickup.class))).thenThrow(new DataIntegrityViolationException(
+				"insert or update on table \"pickups\" violates foreign key constraint \"pickups_user_id_fkey\""));
+		ReflectionTestUtils.setField(dispatch, "pickupRepository", failing);
+		try {
+			assertThrows(DataIntegrityViolationException.class,
+					() -> dispatch.assign(pickup(23.0, 23.0, 1000, DAY, "9:00 AM")));
+		} finally {
+			ReflectionTestUtils.setField(dispatch, "pickupRepository", pickups);
+		}
+		// Only the first candidate was tried, and its slot was given back
+		verify(failing, times(1)).save(any(Pickup.class));
+		for (DisposalAgent agent : List.of(first, second)) {
+			assertFalse(dispatch.isReserved(agent.getId(), DAY, slot));
+			assertEquals(0, dispatch.getLoad(agent.getId(), DAY));
+		}
+	}
+
+	private DisposalAgent agent(String name, String vehicleType, double latitude, double longitude, double rating) {
+		DisposalAgent agent = new DisposalAgent(name, "+1-555-0999", vehicleType);
+		agent.setCurrentLatitude(latitude);
+		agent.setCurrentLongitude(longitude);
+		agent.setRating(rating);
+		agent.setIsAvailable(true);
+		return agents.save(agent);
+	}
+
+	private Pickup pickup(double latitude, double longitude, double grams, LocalDate date, String time) {
+		Pickup pickup = new Pickup(9201L, date, time, "1 Test Way");
+		pickup.setPickupSlot(dispatch.parseSlot(time));
+		pickup.setLatitude(latitude);
+		pickup.setLongitude(longitude);
+		pickup.setTotalWeight(grams);
+		return pickup;
+	}
+
+	/**
+	 * Run both bookings at once; each outcome is the Assignment or the exception thrown.
+	 */
+	private static List<Object> race(Booking first, Booking second) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<Object>> futures = new ArrayList<>();
+			for (Booking booking : List.of(first, second)) {
+				futures.add(pool.submit(() -> {
+					start.await();
+					try {
+						return booking.book();
+					} catch (RuntimeException e) {
+						return e;
+					}
+				}));
+			}
+			start.countDown();
+			List<Object> outcomes = new ArrayList<>();
+			for (Future<Object> future : futures) {
+				Object outcome = future.get();
+				if (!(outcome instanceof DispatchService.Assignment)) {
+					assertInstanceOf(IllegalStateException.class, outcome);
+				}
+				outcomes.add(outcome);
+			}
+			return outcomes;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@FunctionalInterface
+	private interface Booking {
+		DispatchService.Assignment book();
+	}
+}
@@ -0,0 +1,137 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.DisposalCenter;
+import com.ecohaul.backend.util.WasteTypes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DisposalCenterIndexTest {
+
+	private DisposalCenterIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new DisposalCenterIndex();
+		ReflectionTestUtils.setField(index, "cellSizeDegrees", 0.05);
+		index.upsert(center(1L, "Downtown", 40.7128, -74.0060));
+		index.upsert(center(2L, "Midtown", 40.7589, -73.9851));
+		index.upsert(center(3L, "Brooklyn", 40.6782, -73.9442));
+		index.upsert(center(4L, "Boston", 42.3601, -71.0589));
+	}
+
+	@Test
+	void radiusLimitsCandidatesAndSortsByDistance() {
+		List<CenterMatch> matches = index.findWithinRadius(40.7128, -74.0060, 6);
+
+		assertEquals(2, matches.size());
+		assertEquals(1L, matches.get(0).getCenter().getId());
+		assertEquals(2L, matches.get(1).getCenter().getId());
+		assertTrue(matches.get(1).getDistanceKm() <= 6);
+	}
+
+	@Test
+	void centerJustInsideTheRadiusAcrossACellEdgeIsFound() {
+		// The box edge of a 10 km search lands just below the 40.10 cell boundary; the center sits
+		// 9.99 km due north, just above it
+		double latitude = 40.10 - 10 / 111.32 - 1e-7;
+		index.upsert(center(5L, "Edge", latitude + Math.toDegrees(9.99 / 6371.0), -100.0));
+
+		List<CenterMatch> matches = index.findWithinRadius(latitude, -100.0, 10);
+
+		assertEquals(1, matches.size());
+		assertEquals(5L, matches.get(0).getCenter().getId());
+		assertEquals(1, index.findNearest(latitude, -100.0, 10, 3, null).size());
+	}
+
+	@Test
+	void updateMovesCenterBetweenCells() {
+		index.upsert(center(4L, "Boston", 40.7130, -74.0050));
+
+		List<CenterMatch> matches = index.findWithinRadius(40.7128, -74.0060, 1);
+
+		assertEquals(2, matches.size());
+		assertTrue(index.findWithinRadius(42.3601, -71.0589, 5).isEmpty());
+	}
+
+	@Test
+	void inactiveCentersAreRemoved() {
+		DisposalCenter closed = center(1L, "Downtown", 40.7128, -74.0060);
+		closed.setIsActive(false);
+		index.upsert(closed);
+
+		assertEquals(3, index.size());
+		assertTrue(index.findWithinRadius(40.7128, -74.0060, 1).isEmpty());
+	}
+
+	@Test
+	void nearestStopsAtLimitAndRespectsFilter() {
+		List<CenterMatch> nearest = index.findNearest(40.7128, -74.0060, 50, 2, null);
+
+		assertEquals(2, nearest.size());
+		assertEquals(1L, nearest.get(0).getCenter().getId());
+		assertEquals(2L, nearest.get(1).getCenter().getId());
+
+		List<CenterMatch> filtered = index.findNearest(40.7128, -74.0060, 50, 5, c -> c.getId() != 1L);
+		assertEquals(List.of(2L, 3L), filtered.stream().map(m -> m.getCenter().getId()).toList());
+	}
+
+	@Test
+	void nearestMatchesBruteForceOnDenseGrid() {
+		DisposalCenterIndex dense = new DisposalCenterIndex();
+		ReflectionTestUtils.setField(dense, "cellSizeDegrees", 0.01);
+		Random random = new Random(42);
+		for (long id = 1; id <= 2000; id++) {
+			dense.upsert(center(id, "C" + id, 40.5 + random.nextDouble() * 0.5, -74.3 + random.nextDouble() * 0.6));
+		}
+
+		for (int query = 0; query < 50; query++) {
+			double lat = 40.5 + random.nextDouble() * 0.5;
+			double lon = -74.3 + random.nextDouble() * 0.6;
+			List<CenterMatch> expected = dense.findWithinRadius(lat, lon, 8).stream().limit(7).toList();
+			List<CenterMatch> actual = dense.findNearest(lat, lon, 8, 7, null);
+
+			assertEquals(expected.stream().map(m -> m.getCenter().getId()).toList(),
+					actual.stream().map(m -> m.getCenter().getId()).toList());
+		}
+	}
+
+	@Test
+	void wasteTypeBitmapsAreNormalisedAndIntersected() {
+		DisposalCenter eWaste = center(5L, "E-Waste", 40.7130, -74.0062);
+		eWaste.setAcceptedWasteTypes("Electronics, Batteries");
+		index.upsert(eWaste);
+		DisposalCenter everything = center(6L, "Transfer Station", 40.7140, -74.0070);
+		everything.setAcceptedWasteTypes("All Types");
+		index.upsert(everything);
+
+		Set<String> wanted = WasteTypes.parseRequested("battery, ELECTRONIC");
+		List<CenterMatch> nearest = index.findNearest(40.7128, -74.0060, 10, 10, index.acceptingAll(wanted));
+
+		assertEquals(List.of(5L, 6L), nearest.stream().map(m -> m.getCenter().getId()).toList());
+		assertEquals(List.of(5L, 6L), index.findAccepting(wanted, 10).stream().map(IndexedCenter::getId).toList());
+
+		eWaste.setAcceptedWasteTypes("[\"battery\"]");
+		index.upsert(eWaste);
+		assertEquals(List.of(6L), index.findAccepting(wanted, 10).stream().map(IndexedCenter::getId).toList());
+
+		// A zero or negative limit finds nothing, with or without a waste type
+		assertTrue(index.findAccepting(wanted, -1).isEmpty());
+		assertTrue(index.findAccepting(null, -1).isEmpty());
+		assertTrue(index.findAccepting(null, 0).isEmpty());
+	}
+
+	private DisposalCenter center(Long id, String name, double latitude, double longitude) {
+		DisposalCenter center = new DisposalCenter(name, name + " St", latitude, longitude);
+		center.setId(id);
+		center.setAcceptedWasteTypes("[\"plastic\"]");
+		return center;
+	}
+}
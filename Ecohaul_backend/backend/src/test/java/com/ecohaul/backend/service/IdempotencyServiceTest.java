@@ -0,0 +1,91 @@
+package com.ecohaul.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyServiceTest {
+
+	@Test
+	void concurrentDuplicateWaitsForTheFirstRequestAndGetsItsResponse() throws Exception {
+		IdempotencyService idempotency = service(5000);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger runs = new AtomicInteger();
+		IdempotencyService.Request request = () -> {
+			runs.incrementAndGet();
+			started.countDown();
+			assertTrue(release.await(5, TimeUnit.SECONDS));
+			return new IdempotencyService.StoredResponse(200, "application/json", body("{\"pickupId\":\"1\"}"));
+		};
+
+		CompletableFuture<IdempotencyService.Outcome> first = CompletableFuture.supplyAsync(() -> run(idempotency, "k", "a", request));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		CompletableFuture<IdempotencyService.Outcome> duplicate = CompletableFuture.supplyAsync(() -> run(idempotency, "k", "a", request));
+		Thread.sleep(50);
+		release.countDown();
+
+		assertEquals(IdempotencyService.Status.EXECUTED, first.get(5, TimeUnit.SECONDS).getStatus());
+		IdempotencyService.Outcome replayed = duplicate.get(5, TimeUnit.SECONDS);
+		assertEquals(IdempotencyService.Status.REPLAYED, replayed.getStatus());
+		assertArrayEquals(body("{\"pickupId\":\"1\"}"), replayed.getResponse().getBody());
+		assertEquals(1, runs.get());
+
+		assertEquals(IdempotencyService.Status.MISMATCH, idempotency.execute("k", "b", request).getStatus());
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	void serverErrorsAreNotKeptAndSlowFirstRequestsTimeOutTheDuplicate() throws Exception {
+		IdempotencyService idempotency = service(50);
+		AtomicInteger runs = new AtomicInteger();
+		IdempotencyService.Request failing = () -> {
+			runs.incrementAndGet();
+			return new IdempotencyService.StoredResponse(500, "application/json", body("{}"));
+		};
+		idempotency.execute("k", "a", failing);
+		assertEquals(IdempotencyService.Status.EXECUTED, idempotency.execute("k", "a", failing).getStatus());
+		assertEquals(2, runs.get());
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<IdempotencyService.Outcome> slow = CompletableFuture.supplyAsync(() -> run(idempotency, "slow", "a", () -> {
+			started.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return new IdempotencyService.StoredResponse(200, null, null);
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		assertEquals(IdempotencyService.Status.IN_PROGRESS, idempotency.execute("slow", "a", failing).getStatus());
+		release.countDown();
+		assertEquals(IdempotencyService.Status.EXECUTED, slow.get(5, TimeUnit.SECONDS).getStatus());
+	}
+
+	private static IdempotencyService service(long waitMillis) {
+		IdempotencyService idempotency = new IdempotencyService();
+		ReflectionTestUtils.setField(idempotency, "waitMillis", waitMillis);
+		idempotency.init();
+		return idempotency;
+	}
+
+	private static IdempotencyService.Outcome run(IdempotencyService idempotency, String key, String fingerprint,
+			IdempotencyService.Request request) {
+		try {
+			return idempotency.execute(key, fingerprint, request);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static byte[] body(String json) {
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+}
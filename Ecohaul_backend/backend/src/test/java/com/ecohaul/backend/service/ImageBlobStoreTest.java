@@ -0,0 +1,111 @@
+package com.ecohaul.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ImageBlobStoreTest {
+
+	@TempDir
+	Path root;
+
+	private final Set<String> referenced = new HashSet<>();
+	private ImageBlobStore store;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		store = new ImageBlobStore();
+		ReflectionTestUtils.setField(store, "root", root.toString());
+		ReflectionTestUtils.setField(store, "scanHistoryService", new ScanHistoryService() {
+			@Override
+			public Set<String> referencedImages(Collection<String> keys) {
+				Set<String> found = new HashSet<>(keys);
+				found.retainAll(referenced);
+				return found;
+			}
+		});
+		store.init();
+	}
+
+	@Test
+	void storesByContentHashInShardsAndServesTheSameBytes() throws IOException {
+		byte[] png = png(640, 480);
+		String key = store.put(direct(png));
+		assertEquals(key, store.put(direct(png)));
+		assertEquals(64, key.length());
+
+		ImageBlobStore.Blob blob = store.find(key);
+		assertEquals(root.resolve("blobs").resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key),
+				blob.getPath());
+		assertEquals("image/png", blob.getContentType());
+		ByteArrayOutputStream served = new ByteArrayOutputStream();
+		assertEquals(png.length, store.transferTo(blob, Channels.newChannel(served)));
+		assertArrayEquals(png, served.toByteArray());
+
+		ImageBlobStore.Blob thumbnail = store.thumbnail(key, 200);
+		BufferedImage decoded = ImageIO.read(thumbnail.getPath().toFile());
+		assertEquals(256, decoded.getHeight());
+		assertEquals(341, decoded.getWidth());
+
+		assertNull(store.find("0".repeat(64)));
+		assertThrows(IllegalArgumentException.class, () -> store.find("../../etc/passwd"));
+	}
+
+	@Test
+	void gcDeletesOnlyOldUnreferencedBlobsAndTheirThumbnails() throws IOException {
+		String kept = store.put(direct(png(300, 200)));
+		String orphan = store.put(direct(png(200, 300)));
+		String fresh = store.put(direct(png(100, 100)));
+		Path orphanThumbnail = store.thumbnail(orphan, 128).getPath();
+		referenced.add(kept);
+		FileTime old = FileTime.fromMillis(System.currentTimeMillis() - 48 * 3_600_000L);
+		Files.setLastModifiedTime(store.find(kept).getPath(), old);
+		Files.setLastModifiedTime(store.find(orphan).getPath(), old);
+
+		assertEquals(1, store.collectGarbage());
+		assertNotNull(store.find(kept));
+		assertNotNull(store.find(fresh));
+		assertNull(store.find(orphan));
+		assertFalse(Files.exists(orphanThumbnail));
+	}
+
+	private static byte[] png(int width, int height) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(new Color(width % 256, height % 256, 90));
+		g.fillRect(0, 0, width, height);
+		g.dispose();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+
+	private static ByteBuffer direct(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes).flip();
+		return buffer;
+	}
+}
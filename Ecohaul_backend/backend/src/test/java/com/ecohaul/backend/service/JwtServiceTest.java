@@ -0,0 +1,77 @@
+package com.ecohaul.backend.service;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtServiceTest {
+
+	private static final Instant NOW = Instant.parse("2026-05-01T12:00:00Z");
+
+	@Test
+	void issuedTokensVerifyAndRepeatVerificationsComeFromTheCache() {
+		JwtService jwt = service("mySecretKey", Clock.fixed(NOW, ZoneOffset.UTC));
+		String token = jwt.issue("42", "ana@example.com", "USER");
+
+		JwtService.TokenClaims claims = jwt.verify(token);
+		assertEquals("42", claims.getSubject());
+		assertEquals("ana@example.com", claims.getEmail());
+		assertEquals("USER", claims.getRole());
+		assertEquals(NOW.plusSeconds(3600).toEpochMilli(), claims.getExpiresAt());
+		assertSame(claims, jwt.verify(token));
+
+		// Same claims, different key
+		String forged = service("anotherSecretKey", Clock.fixed(NOW, ZoneOffset.UTC)).issue("42", "ana@example.com", "USER");
+		assertThrows(JwtException.class, () -> jwt.verify(forged));
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+		assertThrows(JwtException.class, () -> jwt.verify(tampered));
+		assertThrows(IllegalArgumentException.class, () -> jwt.verify(" "));
+	}
+
+	@Test
+	void cachedTokensStillExpire() {
+		JwtService jwt = service("mySecretKey", Clock.fixed(NOW, ZoneOffset.UTC));
+		String token = jwt.issue("42", "ana@example.com", "USER");
+		jwt.verify(token);
+
+		ReflectionTestUtils.setField(jwt, "clock", Clock.offset(Clock.fixed(NOW, ZoneOffset.UTC), Duration.ofHours(2)));
+		assertThrows(JwtException.class, () -> jwt.verify(token));
+	}
+
+	@Test
+	void weakSecretsOnlyStartWithTheDevProfile() {
+		assertThrows(IllegalStateException.class, () -> service("short", new MockEnvironment(), Clock.systemUTC()));
+		assertThrows(IllegalStateException.class,
+				() -> service(JwtService.DEFAULT_SECRET, new MockEnvironment(), Clock.systemUTC()));
+
+		String strong = "0123456789abcdef0123456789abcdef";
+		JwtService jwt = service(strong, new MockEnvironment(), Clock.systemUTC());
+		assertEquals("7", jwt.verify(jwt.issue("7", "bo@example.com", "USER")).getSubject());
+	}
+
+	private static JwtService service(String secret, Clock clock) {
+		MockEnvironment dev = new MockEnvironment();
+		dev.setActiveProfiles(JwtService.DEV_PROFILE);
+		return service(secret, dev, clock);
+	}
+
+	private static JwtService service(String secret, MockEnvironment environment, Clock clock) {
+		JwtService jwt = new JwtService();
+		ReflectionTestUtils.setField(jwt, "environment", environment);
+		ReflectionTestUtils.setField(jwt, "secret", secret);
+		ReflectionTestUtils.setField(jwt, "expirationMillis", 3600_000L);
+		ReflectionTestUtils.setField(jwt, "clock", clock);
+		jwt.init();
+		return jwt;
+	}
+}
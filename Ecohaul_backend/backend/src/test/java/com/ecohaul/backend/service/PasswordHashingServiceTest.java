@@ -0,0 +1,76 @@
+package com.ecohaul.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHashingServiceTest {
+
+	@Test
+	void hashesVerifyOnlyTheirOwnPassword() {
+		PasswordHashingService hashing = service(64);
+		try {
+			String hash = hashing.hash("password123").join();
+			assertTrue(hash.startsWith("$2a$04$"));
+			assertNotEquals(hash, hashing.hash("password123").join());
+
+			assertTrue(hashing.matches("password123", hash).join());
+			assertFalse(hashing.matches("password124", hash).join());
+			// No such account: checked against a dummy hash, never matches
+			assertFalse(hashing.matches("password123", null).join());
+		} finally {
+			hashing.shutdown();
+		}
+	}
+
+	@Test
+	void fullQueueIsRefusedAtOnce() throws Exception {
+		PasswordHashingService hashing = service(1);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			// Occupy the only hashing thread, then fill the one queue slot
+			ThreadPoolExecutor pool = (ThreadPoolExecutor) ReflectionTestUtils.getField(hashing, "pool");
+			pool.execute(() -> {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			started.await();
+			CompletableFuture<String> queued = hashing.hash("password123");
+			assertEquals(1, hashing.getQueueDepth());
+
+			PasswordHashingBusyException busy = assertThrows(PasswordHashingBusyException.class,
+					() -> hashing.matches("password123", null));
+			assertEquals(1, busy.getRetryAfterSeconds());
+
+			release.countDown();
+			assertTrue(queued.join().startsWith("$2a$"));
+		} finally {
+			release.countDown();
+			hashing.shutdown();
+		}
+	}
+
+	private static PasswordHashingService service(int queueCapacity) {
+		PasswordHashingService hashing = new PasswordHashingService();
+		ReflectionTestUtils.setField(hashing, "threads", 1);
+		ReflectionTestUtils.setField(hashing, "queueCapacity", queueCapacity);
+		// Lowest BCrypt cost keeps the test fast
+		ReflectionTestUtils.setField(hashing, "strength", 4);
+		hashing.init();
+		return hashing;
+	}
+}
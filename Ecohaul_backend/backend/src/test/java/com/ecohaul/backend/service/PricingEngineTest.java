@@ -0,0 +1,88 @@
+package com.ecohaul.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PricingEngineTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void bundledTableKeepsCartPricesAndTheSchemaEcoPoints() throws IOException {
+		PricingEngine pricing = engine("classpath:waste-pricing.json");
+
+		assertEquals(0.75, pricing.value("Plastic Bottle", 500), 1e-9);
+		assertEquals(0.60, pricing.value("aluminum can", 200), 1e-9);
+		assertEquals(0.60, pricing.value("Cardboard", 1000), 1e-9);
+		assertEquals(1.00, pricing.value("Mystery Item", 1000), 1e-9);
+		// Types the old price map did not list stayed at its 1.00/kg default
+		for (String type : List.of("Plastic Bag", "Plastic Container", "Plastic Waste", "Glass Jar",
+				"Glass Waste", "Metal Scrap", "Beverage Carton")) {
+			assertEquals(1.00, pricing.value(type, 1000), 1e-9, type);
+		}
+		// calculate_eco_points(): Plastic x10, Glass x8, Metal x15, Paper x5, Electronic x20, else x3
+		assertEquals(250, pricing.ecoPoints("Plastic Bottle", 25));
+		assertEquals(2800, pricing.ecoPoints("Glass Bottle", 350));
+		assertEquals(225, pricing.ecoPoints("Metal", 15));
+		assertEquals(1000, pricing.ecoPoints("Cardboard", 200));
+		assertEquals(200, pricing.ecoPoints("Battery", 10));
+		assertEquals(30, pricing.ecoPoints("Food Waste", 10));
+		assertEquals(30, pricing.ecoPoints(null, 10));
+	}
+
+	@Test
+	void regionAndHourScaleABulkValuationAndABadReloadKeepsTheOldTable() throws IOException {
+		Path table = dir.resolve("prices.json");
+		Files.writeString(table, "{\"defaultMaterial\": \"Other\","
+				+ " \"materials\": {\"Metal\": {\"pricePerKg\": 3.0, \"ecoPointsPerGram\": 15},"
+				+ "  \"Other\": {\"pricePerKg\": 1.0, \"ecoPointsPerGram\": 3}},"
+				+ " \"types\": {\"Aluminum Can\": {\"material\": \"Metal\"}},"
+				+ " \"regions\": {\"north\": 1.5},"
+				+ " \"timeOfDay\": [{\"fromHour\": 22, \"toHour\": 6, \"multiplier\": 0.5}]}");
+		PricingEngine pricing = engine(table.toUri().toString());
+		// 23:00 UTC falls in the overnight band
+		ReflectionTestUtils.setField(pricing, "clock", Clock.fixed(Instant.parse("2026-05-01T23:00:00Z"), ZoneOffset.UTC));
+
+		PricingEngine.Valuation valuation = pricing.valueAll(List.of("Aluminum Can", "Rag"),
+				new double[] {1000, 2000}, "NORTH");
+		assertEquals(0.75, valuation.getMultiplier(), 1e-9);
+		assertEquals(2.25, valuation.getValue(0), 1e-9);
+		assertEquals(1.50, valuation.getValue(1), 1e-9);
+		assertEquals("Metal", valuation.getMaterial(0));
+		assertEquals(3.75, valuation.getTotalValue(), 1e-9);
+		assertEquals(15000 + 6000, valuation.getTotalEcoPoints());
+
+		PricingEngine.PriceTable loaded = pricing.current();
+		Files.writeString(table, "{\"defaultMaterial\": \"Nothing\", \"materials\": {}}");
+		assertThrows(IllegalStateException.class, pricing::reload);
+		assertSame(loaded, pricing.current());
+		// The scheduled check swallows the same failure
+		pricing.reloadIfChanged();
+		assertSame(loaded, pricing.current());
+	}
+
+	private static PricingEngine engine(String location) throws IOException {
+		PricingEngine pricing = new PricingEngine();
+		ReflectionTestUtils.setField(pricing, "resourceLoader", new DefaultResourceLoader());
+		ReflectionTestUtils.setField(pricing, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(pricing, "tableLocation", location);
+		pricing.init();
+		return pricing;
+	}
+}
@@ -0,0 +1,165 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.service.RoutePlanner.Plan;
+import com.ecohaul.backend.service.RoutePlanner.Route;
+import com.ecohaul.backend.service.RoutePlanner.Stop;
+import com.ecohaul.backend.service.RoutePlanner.Vehicle;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoutePlannerTest {
+
+	private static final int SERVICE_MINUTES = 10;
+
+	@Test
+	void everyStopIsRoutedOnceWithinCapacityAndWindow() {
+		Random random = new Random(7);
+		List<Stop> stops = new ArrayList<>();
+		Map<Long, Stop> stopsById = new HashMap<>();
+		for (int i = 0; i < 600; i++) {
+			int windowStart = 8 * 60 + random.nextInt(16) * 30;
+			Stop stop = new Stop(i, 40.60 + random.nextDouble() * 0.4, -74.10 + random.nextDouble() * 0.4,
+					5 + random.nextInt(60), windowStart, windowStart + 60, -1L);
+			stops.add(stop);
+			stopsById.put((long) i, stop);
+		}
+		List<Vehicle> vehicles = new ArrayList<>();
+		Map<Long, Vehicle> vehiclesById = new HashMap<>();
+		for (int v = 0; v < 80; v++) {
+			Vehicle vehicle = new Vehicle(1000 + v, 40.60 + random.nextDouble() * 0.4,
+					-74.10 + random.nextDouble() * 0.4, v % 2 == 0 ? 500 : 800);
+			vehicles.add(vehicle);
+			vehiclesById.put(vehicle.getAgentId(), vehicle);
+		}
+
+		Plan plan = plan(stops, vehicles);
+
+		Set<Long> seen = new HashSet<>();
+		for (Route route : plan.getRoutes()) {
+			double load = 0;
+			int previousDeparture = 0;
+			for (int i = 0; i < route.getStopIds().length; i++) {
+				Stop stop = stopsById.get(route.getStopIds()[i]);
+				assertTrue(seen.add(stop.getId()), "stop routed twice");
+				int arrival = route.getArrivalMinutes()[i];
+				assertTrue(arrival >= stop.getWindowStartMinute() && arrival <= stop.getWindowEndMinute() + 1);
+				assertTrue(arrival >= previousDeparture);
+				previousDeparture = arrival + SERVICE_MINUTES;
+				load += stop.getDemandKg();
+			}
+			if (route.getAgentId() != null) {
+				assertTrue(load <= vehiclesById.get(route.getAgentId()).getCapacityKg());
+			}
+		}
+		assertEquals(stops.size(), seen.size());
+		assertTrue(plan.getRoutes().size() < stops.size() / 2, "savings should merge stops into shared routes");
+	}
+
+	@Test
+	void aRegionWithoutVehiclesBorrowsTheNeighboursIdleOnes() {
+		// Regions are 0.25 degrees: stops around 40.70 and 40.80 fall in two regions, and both
+		// vehicles sit closer to the northern one
+		List<Stop> stops = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			stops.add(new Stop(i, 40.68 + i * 0.005, -74.05, 20, 9 * 60, 17 * 60, -1L));
+		}
+		stops.add(new Stop(100, 40.80, -74.05, 20, 9 * 60, 17 * 60, -1L));
+		List<Vehicle> vehicles = List.of(new Vehicle(1, 40.79, -74.05, 500), new Vehicle(2, 40.79, -74.04, 500));
+
+		Plan plan = plan(stops, vehicles);
+
+		assertEquals(0, plan.getUnassignedStops());
+		for (Route route : plan.getRoutes()) {
+			assertNotNull(route.getAgentId());
+		}
+	}
+
+	@Test
+	void aStopThatCannotBeReachedInItsWindowIsLeftUnassigned() {
+		// About 26 km from the vehicle: an hour's drive at 25 km/h, but the window closes at 7:30
+		Stop unreachable = new Stop(1, 40.74, -74.01, 20, 7 * 60, 7 * 60 + 30, -1L);
+		Stop reachable = new Stop(2, 40.56, -74.19, 20, 9 * 60, 17 * 60, -1L);
+		Plan plan = plan(List.of(unreachable, reachable), List.of(new Vehicle(1, 40.55, -74.20, 500)));
+
+		assertEquals(1, plan.getUnassignedStops());
+		for (Route route : plan.getRoutes()) {
+			assertEquals(route.getStopIds()[0] == unreachable.getId() ? null : Long.valueOf(1), route.getAgentId());
+		}
+	}
+
+	@Test
+	void routesAreSplitWhenTheLoadOutgrowsTheLargestVehicle() {
+		List<Stop> stops = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			stops.add(new Stop(i, 40.56 + i * 0.001, -74.19, 40, 8 * 60, 18 * 60, -1L));
+		}
+		Plan plan = plan(stops, List.of(new Vehicle(1, 40.55, -74.20, 100), new Vehicle(2, 40.55, -74.20, 100)));
+
+		int routed = 0;
+		for (Route route : plan.getRoutes()) {
+			assertTrue(route.getLoadKg() <= 100);
+			routed += route.getStopIds().length;
+		}
+		assertEquals(6, routed);
+		assertTrue(plan.getRoutes().size() >= 3);
+	}
+
+	@Test
+	void oneVehicleRunsMorningAndAfternoonTrips() {
+		// Together the four stops are too heavy for the vehicle, so it goes out twice
+		List<Stop> stops = List.of(
+				new Stop(1, 40.560, -74.190, 40, 8 * 60, 9 * 60, -1L),
+				new Stop(2, 40.561, -74.191, 40, 8 * 60, 9 * 60, -1L),
+				new Stop(3, 40.560, -74.190, 40, 14 * 60, 15 * 60, -1L),
+				new Stop(4, 40.561, -74.191, 40, 14 * 60, 15 * 60, -1L));
+		Plan plan = plan(stops, List.of(new Vehicle(7, 40.55, -74.20, 100)));
+
+		assertEquals(0, plan.getUnassignedStops());
+		assertEquals(2, plan.getRoutes().size());
+		Route first = plan.getRoutes().get(0);
+		Route second = plan.getRoutes().get(1);
+		assertEquals(Long.valueOf(7), first.getAgentId());
+		assertEquals(Long.valueOf(7), second.getAgentId());
+		Route morning = first.getArrivalMinutes()[0] < second.getArrivalMinutes()[0] ? first : second;
+		Route afternoon = morning == first ? second : first;
+		int morningDone = morning.getArrivalMinutes()[morning.getArrivalMinutes().length - 1] + SERVICE_MINUTES;
+		assertTrue(morningDone < afternoon.getArrivalMinutes()[0]);
+	}
+
+	@Test
+	void stopsGoToTheAgentDispatchPromisedThem() {
+		List<Stop> stops = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			stops.add(new Stop(i, 40.56 + i * 0.001, -74.19, 20, 9 * 60, 17 * 60, 2L));
+		}
+		// Identical vehicles: without the preference the first would win the tie
+		Plan plan = plan(stops, List.of(new Vehicle(1, 40.55, -74.20, 500), new Vehicle(2, 40.55, -74.20, 500)));
+
+		assertEquals(0, plan.getUnassignedStops());
+		for (Route route : plan.getRoutes()) {
+			assertEquals(Long.valueOf(2), route.getAgentId());
+		}
+	}
+
+	private static Plan plan(List<Stop> stops, List<Vehicle> vehicles) {
+		RoutePlanner planner = new RoutePlanner(25, SERVICE_MINUTES, 7 * 60, 19 * 60, 16, 0.25);
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			return planner.plan(stops, vehicles, pool);
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.util.PerceptualHash;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanDedupCacheTest {
+
+	private ScanDedupCache cache;
+
+	@BeforeEach
+	void setUp() {
+		cache = new ScanDedupCache();
+		ReflectionTestUtils.setField(cache, "maxEntries", 2);
+		ReflectionTestUtils.setField(cache, "maxDistance", 5);
+		cache.init();
+	}
+
+	@Test
+	void reencodedPhotoHashesCloseAndOtherPhotoFar() throws IOException {
+		BufferedImage bottle = scene(1200, 900, false);
+		long original = cache.hash(encode(bottle, "png"));
+		long smallerJpeg = cache.hash(encode(resize(bottle, 400, 300), "jpg"));
+		long mirrored = cache.hash(encode(scene(1200, 900, true), "png"));
+
+		assertTrue(PerceptualHash.distance(original, smallerJpeg) <= 5);
+		assertTrue(PerceptualHash.distance(original, mirrored) > 10);
+		assertNull(cache.hash(ByteBuffer.wrap(new byte[]{(byte) 0x89, 'P', 'N', 'G', 1, 2, 3})));
+	}
+
+	@Test
+	void nearDuplicatesHitAndLeastRecentlyUsedIsEvicted() {
+		long first = 0x0123_4567_89ab_cdefL;
+		long second = ~first;
+		cache.put(first, detection("Plastic Bottle"), 1_000_000);
+		cache.put(second, detection("Paper"), 2_000_000);
+
+		// Four bits off, one in each of four bands
+		WasteDetection hit = cache.lookup(first ^ 0x0001_0001_0001_0001L);
+		assertNotNull(hit);
+		assertEquals("Plastic Bottle", hit.getType());
+		assertNull(cache.lookup(first ^ 0x00ff_0000_0000_0000L));
+		assertEquals(1_000_000, cache.getSavedNanos());
+		assertEquals(0.5, cache.getHitRatio());
+
+		// "first" was used last, so the third entry evicts "second"
+		cache.put(0L, detection("Glass Bottle"), 1);
+		assertEquals(2, cache.size());
+		assertNull(cache.lookup(second));
+		assertNotNull(cache.lookup(first));
+	}
+
+	private static WasteDetection detection(String type) {
+		return new WasteDetection(type, "Recyclable", true, 10, 0.9);
+	}
+
+	private static BufferedImage scene(int width, int height, boolean mirrored) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		for (int x = 0; x < width; x++) {
+			int shade = 40 + 180 * x / width;
+			g.setColor(new Color(shade, shade, 255 - shade));
+			g.drawLine(mirrored ? width - 1 - x : x, 0, mirrored ? width - 1 - x : x, height);
+		}
+		g.setColor(new Color(20, 120, 200));
+		int bottleX = mirrored ? width - width / 3 - width / 6 : width / 3;
+		g.fillRoundRect(bottleX, height / 6, width / 6, height * 2 / 3, 40, 40);
+		g.dispose();
+		return image;
+	}
+
+	private static BufferedImage resize(BufferedImage source, int width, int height) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.drawImage(source, 0, 0, width, height, null);
+		g.dispose();
+		return image;
+	}
+
+	private static ByteBuffer encode(BufferedImage image, String format) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, format, out);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(out.size());
+		buffer.put(out.toByteArray()).flip();
+		return buffer;
+	}
+}
@@ -0,0 +1,70 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.entity.WasteRecord;
+import com.ecohaul.backend.repository.ScanHistoryRow;
+import com.ecohaul.backend.repository.WasteRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Transactional
+class ScanHistoryServiceTest {
+
+	@Autowired
+	private WasteRecordRepository repository;
+
+	@Autowired
+	private ScanHistoryService history;
+
+	@Test
+	void pagesNewestFirstWithoutSkippingRowsThatShareATimestamp() {
+		LocalDateTime base = LocalDateTime.of(2026, 3, 1, 12, 0);
+		List<WasteRecord> saved = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			// Pairs of scans share a timestamp, so the id has to break the tie across pages
+			WasteRecord record = new WasteRecord(9001L, "Paper", "Recyclable", 50.0);
+			record.setScannedAt(base.plusMinutes(i / 2));
+			saved.add(repository.save(record));
+		}
+		repository.save(new WasteRecord(9002L, "Glass Bottle", "Recyclable", 350.0));
+		saved.sort(Comparator.comparing(WasteRecord::getScannedAt).thenComparing(WasteRecord::getId).reversed());
+		List<Long> expected = saved.stream().map(WasteRecord::getId).toList();
+
+		List<Long> seen = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			ScanHistoryService.HistoryPage page = history.page(9001L, cursor, 3);
+			for (ScanHistoryRow row : page.getRows()) {
+				seen.add(row.getId());
+			}
+			cursor = page.getNextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertEquals(3, pages);
+		assertEquals(expected, seen);
+	}
+
+	@Test
+	void lastPageHasNoCursorAndForgedCursorsAreRejected() {
+		repository.save(new WasteRecord(9003L, "Paper", "Recyclable", 50.0));
+		ScanHistoryService.HistoryPage page = history.page(9003L, null, 20);
+		assertEquals(1, page.getRows().size());
+		assertFalse(page.hasMore());
+		assertNull(page.getNextCursor());
+		assertThrows(IllegalArgumentException.class, () -> history.page(9003L, "not-a-cursor", 20));
+	}
+}
@@ -0,0 +1,124 @@
+package com.ecohaul.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScanJobServiceTest {
+
+	private InferenceService inference;
+	private WasteScanService scanner;
+	private ScanJobService jobs;
+
+	@BeforeEach
+	void setUp() {
+		inference = new InferenceService();
+		ReflectionTestUtils.setField(inference, "threads", 1);
+		ReflectionTestUtils.setField(inference, "queueCapacity", 1);
+		inference.init();
+		scanner = new WasteScanService();
+		ReflectionTestUtils.setField(scanner, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(scanner, "classifier", new ReferenceWasteClassifier());
+		ReflectionTestUtils.setField(scanner, "inferenceService", inference);
+		ReflectionTestUtils.setField(scanner, "maxImageBytes", 64 * 1024);
+		ReflectionTestUtils.setField(scanner, "bufferPoolSize", 1);
+		ReflectionTestUtils.setField(scanner, "bufferWaitMillis", 10L);
+		scanner.init();
+		jobs = new ScanJobService();
+		ReflectionTestUtils.setField(jobs, "wasteScanService", scanner);
+		ReflectionTestUtils.setField(jobs, "maxJobs", 2L);
+		jobs.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		jobs.shutdown();
+		inference.shutdown();
+	}
+
+	@Test
+	void jobIsPendingUntilClassifiedThenHoldsTheResult() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		inference.submit(() -> await(release));
+
+		ScanJobService.ScanJob job = jobs.submit(scanner.readImage(image()), null);
+		assertEquals(ScanJobService.Status.PENDING, job.getStatus());
+		assertSame(job, jobs.find(job.getId()));
+		assertEquals(1, jobs.getPending());
+
+		CountDownLatch done = new CountDownLatch(1);
+		AtomicReference<ScanJobService.ScanJob> notified = new AtomicReference<>();
+		jobs.onComplete(job, finished -> {
+			notified.set(finished);
+			done.countDown();
+		});
+		release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+
+		assertSame(job, notified.get());
+		assertEquals(ScanJobService.Status.DONE, job.getStatus());
+		assertEquals("Cardboard", job.getScan().getDetection().get("type"));
+		assertEquals(0, jobs.getPending());
+		assertNull(job.getRecordId());
+		assertNull(jobs.find("no-such-scan"));
+		// The single buffer went back to the pool when the job finished
+		scanner.release(scanner.readImage(image()));
+	}
+
+	@Test
+	void fullInferenceQueueRefusesTheJobAndReturnsItsBuffer() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		inference.submit(() -> {
+			running.countDown();
+			return await(release);
+		});
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+		inference.submit(() -> await(release));
+
+		assertThrows(ScannerBusyException.class, () -> jobs.submit(scanner.readImage(image()), null));
+		assertEquals(0, jobs.getPending());
+		assertEquals(0, jobs.size());
+		// The refused job's buffer can be taken again straight away
+		scanner.release(scanner.readImage(image()));
+		release.countDown();
+	}
+
+	private static ByteArrayInputStream image() throws IOException {
+		BufferedImage box = new BufferedImage(200, 150, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = box.createGraphics();
+		g.setColor(new Color(160, 110, 60));
+		g.fillRect(0, 0, 200, 150);
+		g.dispose();
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(box, "png", png);
+		return new ByteArrayInputStream(png.toByteArray());
+	}
+
+	private static boolean await(CountDownLatch latch) {
+		try {
+			return latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
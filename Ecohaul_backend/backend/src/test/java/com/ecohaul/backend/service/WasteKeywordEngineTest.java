@@ -0,0 +1,89 @@
+package com.ecohaul.backend.service;
+
+import com.ecohaul.backend.service.WasteKeywordEngine.Identification;
+import com.ecohaul.backend.util.KeywordAutomaton;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WasteKeywordEngineTest {
+
+	private WasteKeywordEngine engine;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		engine = new WasteKeywordEngine();
+		ReflectionTestUtils.setField(engine, "resourceLoader", new DefaultResourceLoader());
+		ReflectionTestUtils.setField(engine, "objectMapper", new ObjectMapper());
+		engine.init();
+	}
+
+	@Test
+	void automatonFindsOverlappingWholeWords() {
+		KeywordAutomaton automaton = KeywordAutomaton.compile(List.of("can", "soda can", "bottle", "cans"));
+		List<Integer> ids = new ArrayList<>();
+		automaton.match("Scanned a SODA CAN, two cans and a bottleneck", ids::add);
+
+		// "soda can" and its suffix "can", then "cans"; "Scanned" and "bottleneck" are not words of the lexicon
+		assertEquals(List.of(1, 0, 3), ids);
+	}
+
+	@Test
+	void keepsThePriorityOfTheOriginalRules() {
+		assertEquals("Plastic Bottle", engine.identify("An empty plastic bottle of water").getType());
+		assertEquals("Glass Bottle", engine.identify("glass bottle").getType());
+		assertEquals("Aluminum Can", engine.identify("Crushed aluminium can").getType());
+		assertEquals("Paper", engine.identify("cardboard and paper").getType());
+		assertEquals("Electronic Device", engine.identify("old device").getType());
+
+		Identification battery = engine.identify("Dead AA batteries from the remote");
+		assertEquals("Battery", battery.getType());
+		assertEquals("Hazardous", battery.getCategory());
+		assertFalse(battery.isRecyclable());
+		assertEquals("Do not throw in regular trash", battery.getSuggestions().get(0));
+	}
+
+	@Test
+	void synonymsAndFallback() {
+		assertEquals("Plastic Bottle", engine.identify("water bottle").getType());
+		assertEquals("Aluminum Can", engine.identify("a coke can").getType());
+		assertTrue(engine.identify("pizza box").isRecyclable());
+		// Only whole words count: "scanned" does not contain the keyword "can"
+		Identification unknown = engine.identify("scanned this");
+		assertEquals("Unknown Waste Type", unknown.getType());
+		assertEquals("General", unknown.getCategory());
+		assertEquals(2, unknown.getSuggestions().size());
+		assertTrue(engine.getTermCount() > 300);
+	}
+
+	@Test
+	void correctsTyposWhenNothingMatches() {
+		assertEquals("Aluminum Can", engine.identify("alumnium can").getType());
+		assertEquals("Battery", engine.identify("batery").getType());
+		assertEquals("Cardboard", engine.identify("cardbord").getType());
+		assertEquals("cardboard box", engine.suggest("cardboard b", 5).get(0).getTerm());
+		assertEquals("battery", engine.suggest("batery", 5).get(0).getTerm());
+	}
+
+	@Test
+	void leavesAmbiguousOrShortWordsUncorrected() {
+		for (String description : List.of("old car tire", "broken wood", "old table", "a pen")) {
+			assertEquals("Unknown Waste Type", engine.identify(description).getType(), description);
+		}
+		assertNull(engine.correct("old car tire"));
+
+		Identification tire = engine.identify("old car tire");
+		assertEquals("Did you mean \"old car wire\"?", tire.getSuggestions().get(0));
+		assertEquals(3, tire.getSuggestions().size());
+	}
+}
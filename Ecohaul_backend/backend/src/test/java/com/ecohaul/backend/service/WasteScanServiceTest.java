@@ -0,0 +1,130 @@
+package com.ecohaul.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WasteScanServiceTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private InferenceService inference;
+	private WasteScanService service;
+
+	@BeforeEach
+	void setUp() {
+		inference = new InferenceService();
+		ReflectionTestUtils.setField(inference, "threads", 1);
+		ReflectionTestUtils.setField(inference, "queueCapacity", 1);
+		inference.init();
+		service = new WasteScanService();
+		ReflectionTestUtils.setField(service, "objectMapper", mapper);
+		ReflectionTestUtils.setField(service, "classifier", new ReferenceWasteClassifier());
+		ReflectionTestUtils.setField(service, "inferenceService", inference);
+		ReflectionTestUtils.setField(service, "maxImageBytes", 64 * 1024);
+		ReflectionTestUtils.setField(service, "bufferPoolSize", 1);
+		ReflectionTestUtils.setField(service, "bufferWaitMillis", 10L);
+		service.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		inference.shutdown();
+	}
+
+	@Test
+	void jsonAndBinaryUploadsDecodeToTheSameImage() throws Exception {
+		byte[] image = new byte[40_000];
+		new Random(1).nextBytes(image);
+		image[0] = (byte) 0x89;
+		image[1] = 'P';
+		image[2] = 'N';
+		image[3] = 'G';
+		byte[] body = mapper.writeValueAsBytes(Map.of(
+				"userId", 7, "tags", Map.of("a", 1), "imageBase64", Base64.getEncoder().encodeToString(image)));
+
+		WasteScanService.Scan fromJson = service.scanJson(new ByteArrayInputStream(body));
+		WasteScanService.Scan fromBinary = service.scanBinary(new ByteArrayInputStream(image));
+
+		assertEquals(image.length, fromJson.getImageBytes());
+		assertEquals(image.length, fromBinary.getImageBytes());
+		assertEquals("png", fromJson.getImageFormat());
+		// The single buffer went back to the pool after each scan
+		assertEquals(1, service.getBufferPool().getAllocated());
+	}
+
+	@Test
+	void rejectsMissingOversizedAndInvalidImages() throws Exception {
+		assertThrows(IllegalArgumentException.class, () -> service.scanJson(json("{\"userId\":1}")));
+		assertThrows(IllegalArgumentException.class, () -> service.scanJson(json("{\"imageBase64\":\"@@@@\"}")));
+		assertThrows(IllegalArgumentException.class, () -> service.scanBinary(new ByteArrayInputStream(new byte[70_000])));
+		// Failed scans still return their buffer
+		assertEquals(1, service.getBufferPool().getAllocated());
+
+		// With the only buffer held, a scan gives up after the wait
+		ByteBuffer held = service.getBufferPool().acquire(0);
+		ImageBufferBusyException busy = assertThrows(ImageBufferBusyException.class,
+				() -> service.scanBinary(new ByteArrayInputStream(new byte[100])));
+		assertEquals(1, busy.getRetryAfterSeconds());
+		service.release(held);
+	}
+
+	@Test
+	void classifiesOnTheInferencePoolAndShedsLoadWhenItsQueueIsFull() throws Exception {
+		BufferedImage box = new BufferedImage(200, 150, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = box.createGraphics();
+		g.setColor(new Color(160, 110, 60));
+		g.fillRect(0, 0, 200, 150);
+		g.dispose();
+		ByteArrayOutputStream png = new ByteArrayOutputStream();
+		ImageIO.write(box, "png", png);
+
+		WasteScanService.Scan scan = service.scanBinary(new ByteArrayInputStream(png.toByteArray()));
+		assertEquals("Cardboard", scan.getDetection().get("type"));
+		assertTrue(scan.getConfidence() > 0.5);
+
+		// One thread busy, one task queued: the next submission is refused at once
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		inference.submit(() -> {
+			running.countDown();
+			return await(release);
+		});
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+		inference.submit(() -> await(release));
+		ScannerBusyException busy = assertThrows(ScannerBusyException.class, () -> inference.submit(() -> true));
+		assertEquals(1, busy.getRetryAfterSeconds());
+		release.countDown();
+	}
+
+	private static boolean await(CountDownLatch latch) {
+		try {
+			return latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static ByteArrayInputStream json(String text) {
+		return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+	}
+}
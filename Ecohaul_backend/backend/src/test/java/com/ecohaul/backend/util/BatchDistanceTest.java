@@ -0,0 +1,72 @@
+package com.ecohaul.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchDistanceTest {
+
+	private static final double ORIGIN_LAT = 40.7128;
+	private static final double ORIGIN_LON = -74.0060;
+
+	@Test
+	void batchHaversineMatchesPointwiseHaversine() {
+		Points points = randomPoints(1003, 2.0);
+		double[] scalar = new double[points.count];
+		double[] batch = new double[points.count];
+		BatchDistance.haversineKmScalar(ORIGIN_LAT, ORIGIN_LON, points.latRad, points.lonRad, points.cosLat, points.count, scalar);
+		BatchDistance.haversineKm(ORIGIN_LAT, ORIGIN_LON, points.latRad, points.lonRad, points.cosLat, points.count, batch);
+
+		for (int i = 0; i < points.count; i++) {
+			double expected = GeoUtils.haversineKm(ORIGIN_LAT, ORIGIN_LON, points.lat[i], points.lon[i]);
+			assertEquals(expected, scalar[i], 1e-9);
+			assertEquals(expected, batch[i], 1e-6);
+		}
+	}
+
+	@Test
+	void equirectangularStaysCloseForShortRadii() {
+		Points points = randomPoints(1000, 0.4);
+		double[] approx = new double[points.count];
+		BatchDistance.equirectangularKm(ORIGIN_LAT, ORIGIN_LON, points.latRad, points.lonRad, points.cosLat, points.count, approx);
+
+		for (int i = 0; i < points.count; i++) {
+			double exact = GeoUtils.haversineKm(ORIGIN_LAT, ORIGIN_LON, points.lat[i], points.lon[i]);
+			assertTrue(Math.abs(approx[i] - exact) <= exact * 1e-3 + 1e-9, "point " + i);
+		}
+	}
+
+	private static Points randomPoints(int count, double spreadDegrees) {
+		Random random = new Random(11);
+		Points points = new Points(count);
+		for (int i = 0; i < count; i++) {
+			points.lat[i] = ORIGIN_LAT + (random.nextDouble() - 0.5) * spreadDegrees;
+			points.lon[i] = ORIGIN_LON + (random.nextDouble() - 0.5) * spreadDegrees;
+			points.latRad[i] = Math.toRadians(points.lat[i]);
+			points.lonRad[i] = Math.toRadians(points.lon[i]);
+			points.cosLat[i] = Math.cos(points.latRad[i]);
+		}
+		return points;
+	}
+
+	private static final class Points {
+		final int count;
+		final double[] lat;
+		final double[] lon;
+		final double[] latRad;
+		final double[] lonRad;
+		final double[] cosLat;
+
+		Points(int count) {
+			this.count = count;
+			this.lat = new double[count];
+			this.lon = new double[count];
+			this.latRad = new double[count];
+			this.lonRad = new double[count];
+			this.cosLat = new double[count];
+		}
+	}
+}
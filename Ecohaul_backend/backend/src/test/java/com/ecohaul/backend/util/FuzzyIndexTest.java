@@ -0,0 +1,57 @@
+package com.ecohaul.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FuzzyIndexTest {
+
+	private final FuzzyIndex index = FuzzyIndex.builder(100)
+			.add("battery", 1)
+			.add("batteries", 1)
+			.add("cardboard", 2)
+			.add("aluminium", 3)
+			.add("aluminum", 3)
+			.add("can", 4)
+			.add("car", 5)
+			.add("Cardboard", 6)
+			.build();
+
+	@Test
+	void findsTermsWithinTheEditBudgetClosestFirst() {
+		assertEquals(List.of("battery"), terms(index.search("batery", 2, 5)));
+		assertEquals(List.of("cardboard"), terms(index.search("cardbord", 2, 5)));
+		assertEquals(List.of("aluminium", "aluminum"), terms(index.search("alumnium", 2, 5)));
+		// Owners of a term added twice are merged
+		assertArrayEquals(new int[]{2, 6}, index.search("cardbord", 2, 1).get(0).getOwners());
+	}
+
+	@Test
+	void editBudgetShrinksForShortQueries() {
+		// Three letters allow one edit, two letters none
+		assertEquals(List.of("can", "car"), terms(index.search("cab", 2, 5)));
+		assertTrue(index.search("ca", 2, 5).isEmpty());
+		// Two edits away: found with a budget of two, not one; three edits away: never
+		assertEquals(List.of("battery"), terms(index.search("batxry", 2, 5)));
+		assertTrue(index.search("batxry", 1, 5).isEmpty());
+		assertTrue(index.search("bxtxrx", 2, 5).isEmpty());
+	}
+
+	@Test
+	void completesPrefixesShortestFirstAndStopsAtTheTermLimit() {
+		assertEquals(List.of("car", "cardboard"), terms(index.complete("car", 5)));
+
+		FuzzyIndex.Builder builder = FuzzyIndex.builder(2).add("one", 0).add("two", 0).add("three", 0);
+		assertEquals(1, builder.getDropped());
+		assertEquals(2, builder.build().size());
+	}
+
+	private static List<String> terms(List<FuzzyIndex.Match> matches) {
+		return matches.stream().map(FuzzyIndex.Match::getTerm).collect(Collectors.toList());
+	}
+}
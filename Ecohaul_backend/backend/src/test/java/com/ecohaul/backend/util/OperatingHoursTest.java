@@ -0,0 +1,57 @@
+package com.ecohaul.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OperatingHoursTest {
+
+	// 2026-10-12 is a Monday
+	private static LocalDateTime at(int dayOffset, int hour, int minute) {
+		return LocalDateTime.of(2026, 10, 12 + dayOffset, hour, minute);
+	}
+
+	@Test
+	void weekdayRangeWithMeridiem() {
+		OperatingHours hours = OperatingHours.parse("Mon-Fri 8AM-6PM");
+
+		assertTrue(hours.isOpenAt(at(0, 8, 0)));
+		assertTrue(hours.isOpenAt(at(4, 17, 45)));
+		assertFalse(hours.isOpenAt(at(0, 7, 59)));
+		assertFalse(hours.isOpenAt(at(0, 18, 0)));
+		assertFalse(hours.isOpenAt(at(5, 12, 0)));
+		assertEquals(List.of("08:00-18:00"), hours.toWeeklyIntervals().get("monday"));
+		assertEquals(List.of(), hours.toWeeklyIntervals().get("saturday"));
+	}
+
+	@Test
+	void multipleClausesDailyAndWrappingDayRanges() {
+		OperatingHours clauses = OperatingHours.parse("Mon, Wed 9-5; Sat 10:30am-2pm, Sun closed");
+		assertTrue(clauses.isOpenAt(at(2, 16, 30)));
+		assertFalse(clauses.isOpenAt(at(1, 12, 0)));
+		assertTrue(clauses.isOpenAt(at(5, 10, 30)));
+		assertFalse(clauses.isOpenAt(at(6, 12, 0)));
+
+		assertTrue(OperatingHours.parse("Daily 7AM-7PM").isOpenAt(at(6, 7, 0)));
+		assertTrue(OperatingHours.parse("Wed-Sun 8AM-5PM").isOpenAt(at(6, 9, 0)));
+		assertFalse(OperatingHours.parse("Wed-Sun 8AM-5PM").isOpenAt(at(1, 9, 0)));
+	}
+
+	@Test
+	void overnightAndAlwaysOpen() {
+		OperatingHours overnight = OperatingHours.parse("Sun 10PM-2AM");
+		assertTrue(overnight.isOpenAt(at(6, 23, 0)));
+		assertTrue(overnight.isOpenAt(at(0, 1, 30)));
+		assertFalse(overnight.isOpenAt(at(0, 2, 0)));
+
+		OperatingHours always = OperatingHours.parse("Open 24/7");
+		assertTrue(always.isOpenAt(at(3, 3, 3)));
+		assertNull(OperatingHours.parse("Call ahead"));
+	}
+}
@@ -72,6 +72,8 @@ CREATE TABLE disposal_agents (
     coverage_area VARCHAR(255),
     current_latitude DOUBLE PRECISION,
     current_longitude DOUBLE PRECISION,
+    -- GPS fix time of the current position; updated_at is reset by its trigger on every write
+    location_updated_at TIMESTAMP WITH TIME ZONE,
     is_active BOOLEAN DEFAULT TRUE,
     is_available BOOLEAN DEFAULT TRUE,
     rating DOUBLE PRECISION DEFAULT 0.0,
@@ -110,10 +112,14 @@ CREATE TABLE waste_records (
 );
 
 -- Create indexes for waste records
-CREATE INDEX idx_waste_records_user ON waste_records(user_id);
+-- Scan history is keyset-paginated newest first on (scanned_at, id) per user; this index also
+-- serves plain user_id lookups, so it replaces idx_waste_records_user
+CREATE INDEX idx_waste_records_user_scanned ON waste_records(user_id, scanned_at DESC, id DESC);
 CREATE INDEX idx_waste_records_status ON waste_records(disposal_status);
 CREATE INDEX idx_waste_records_type ON waste_records(waste_type);
 CREATE INDEX idx_waste_records_date ON waste_records(scanned_at);
+-- Blob store GC looks up which stored scan images are still referenced
+CREATE INDEX idx_waste_records_image ON waste_records(scan_image_url);
 
 -- ============================================================================
 -- 5. CART_ITEMS TABLE
@@ -135,10 +141,39 @@ CREATE TABLE cart_items (
 );
 
 -- Create indexes for cart operations
-CREATE INDEX idx_cart_items_user ON cart_items(user_id);
+CREATE INDEX idx_cart_items_user ON cart_items(user_id, id);
+-- The backend allocates cart item ids 50 at a time (pooled sequence) to batch inserts
+ALTER SEQUENCE cart_items_id_seq INCREMENT BY 50;
 CREATE INDEX idx_cart_items_ready ON cart_items(is_ready_for_pickup);
 CREATE INDEX idx_cart_items_preference ON cart_items(pickup_preference);
 
+-- ============================================================================
+-- 5a. PICKUPS TABLE
+-- ============================================================================
+CREATE TABLE pickups (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    agent_id BIGINT REFERENCES disposal_agents(id),
+    pickup_date DATE NOT NULL,
+    pickup_time VARCHAR(255),
+    pickup_slot TIME,
+    address VARCHAR(255),
+    latitude DOUBLE PRECISION,
+    longitude DOUBLE PRECISION,
+    total_weight DOUBLE PRECISION,
+    status VARCHAR(255) DEFAULT 'Scheduled',
+    estimated_fee DOUBLE PRECISION,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
+    -- An agent takes one pickup per slot; dispatch relies on this across instances.
+    -- Cancelling clears pickup_slot, and NULLs never collide, so the slot frees up
+    CONSTRAINT uk_pickups_agent_slot UNIQUE (agent_id, pickup_date, pickup_slot)
+);
+
+-- Create indexes for pickup queries
+CREATE INDEX idx_pickups_user ON pickups(user_id);
+CREATE INDEX idx_pickups_date_status ON pickups(pickup_date, status);
+
 -- ============================================================================
 -- 6. USER_FEEDBACK TABLE
 -- ============================================================================
@@ -171,6 +206,21 @@ CREATE INDEX idx_feedback_type ON user_feedback(type);
 CREATE INDEX idx_feedback_priority ON user_feedback(priority);
 CREATE INDEX idx_feedback_ticket ON user_feedback(ticket_number);
 
+-- ============================================================================
+-- 6a. IDEMPOTENCY_KEYS TABLE (used when ecohaul.idempotency.persist=true)
+-- ============================================================================
+CREATE TABLE idempotency_keys (
+    request_key VARCHAR(512) PRIMARY KEY,
+    fingerprint VARCHAR(64),
+    status INTEGER,
+    content_type VARCHAR(255),
+    body BYTEA,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
+);
+
+-- Expired keys are purged by creation time
+CREATE INDEX idx_idempotency_keys_created ON idempotency_keys(created_at);
+
 -- ============================================================================
 -- 7. ENUMS AND CHECK CONSTRAINTS
 -- ============================================================================
@@ -228,6 +278,9 @@ CREATE TRIGGER update_waste_records_updated_at BEFORE UPDATE ON waste_records
 CREATE TRIGGER update_cart_items_updated_at BEFORE UPDATE ON cart_items
     FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 
+CREATE TRIGGER update_pickups_updated_at BEFORE UPDATE ON pickups
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
 CREATE TRIGGER update_user_feedback_updated_at BEFORE UPDATE ON user_feedback
     FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 
@@ -325,15 +378,21 @@ CREATE POLICY feedback_own_data ON user_feedback
 -- ============================================================================
 
 -- Function to calculate eco points based on waste disposal
+-- Waste types map onto materials as in waste-pricing.json (backend PricingEngine); keep the two in sync
 CREATE OR REPLACE FUNCTION calculate_eco_points(waste_weight DOUBLE PRECISION, waste_type VARCHAR)
 RETURNS INTEGER AS $$
 BEGIN
-    CASE waste_type
-        WHEN 'Plastic' THEN RETURN ROUND(waste_weight * 10)::INTEGER;
-        WHEN 'Glass' THEN RETURN ROUND(waste_weight * 8)::INTEGER;
-        WHEN 'Metal' THEN RETURN ROUND(waste_weight * 15)::INTEGER;
-        WHEN 'Paper' THEN RETURN ROUND(waste_weight * 5)::INTEGER;
-        WHEN 'Electronic' THEN RETURN ROUND(waste_weight * 20)::INTEGER;
+    CASE
+        WHEN waste_type IN ('Plastic', 'Plastic Bottle', 'Plastic Bag', 'Plastic Container', 'Plastic Waste')
+            THEN RETURN ROUND(waste_weight * 10)::INTEGER;
+        WHEN waste_type IN ('Glass', 'Glass Bottle', 'Glass Jar', 'Glass Waste')
+            THEN RETURN ROUND(waste_weight * 8)::INTEGER;
+        WHEN waste_type IN ('Metal', 'Aluminum Can', 'Metal Scrap')
+            THEN RETURN ROUND(waste_weight * 15)::INTEGER;
+        WHEN waste_type IN ('Paper', 'Cardboard', 'Beverage Carton')
+            THEN RETURN ROUND(waste_weight * 5)::INTEGER;
+        WHEN waste_type IN ('Electronic', 'Electronic Device', 'Battery')
+            THEN RETURN ROUND(waste_weight * 20)::INTEGER;
         ELSE RETURN ROUND(waste_weight * 3)::INTEGER;
     END CASE;
 END;